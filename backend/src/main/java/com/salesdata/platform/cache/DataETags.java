@@ -0,0 +1,68 @@
+package com.salesdata.platform.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Strong entity tags for read endpoints, derived from {@link UserDataVersions}. A tag is known
+ * after one version lookup, before anything is loaded, so a conditional GET whose tag is still
+ * current is answered with 304 without loading or serializing the response. Versions are kept in
+ * the database and only ever move on, so a tag means the same on every node and across restarts.
+ *
+ * <p>Callers must compute the tag before loading the response: the data may then be newer than its
+ * tag, which only costs a full response on the next request, but never older.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataETags {
+
+  // Browsers keep the response but check it with the server before every use
+  private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+  private final UserDataVersions userDataVersions;
+
+  /** Tag of a response built only from the user's sales records, summary and uploads */
+  public String forUser(Long userId) {
+    return tag("u" + userId + "-" + userDataVersions.current(userId));
+  }
+
+  /** Tag of a response built only from one upload of the user */
+  public String forUpload(Long userId, Long fileUploadId) {
+    return tag(
+        "u" + userId + "-f" + fileUploadId + "-" + userDataVersions.currentUpload(fileUploadId));
+  }
+
+  /** Whether an If-None-Match header (null if absent) lists the tag, compared weakly */
+  public static boolean isNotModified(String ifNoneMatch, String eTag) {
+    if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+      return false;
+    }
+    ETag current = ETag.create(eTag);
+    for (ETag candidate : ETag.parse(ifNoneMatch)) {
+      if (candidate.isWildcard() || candidate.compare(current, false)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static <T> ResponseEntity<T> notModified(String eTag) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+        .eTag(eTag)
+        .cacheControl(REVALIDATE)
+        .build();
+  }
+
+  /** A 200 response carrying the tag, for browsers to send back in If-None-Match */
+  public static ResponseEntity.BodyBuilder ok(String eTag) {
+    return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE);
+  }
+
+  private static String tag(String version) {
+    return "\"" + version + "\"";
+  }
+}
@@ -0,0 +1,103 @@
+package com.salesdata.platform.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Results of per-user read endpoints, kept until the user's data changes. Each entry remembers the
+ * {@link UserDataVersions} version it was read at and is only served while that version is current,
+ * so invalidation is exact without tracking which mutation affects which result. The version is
+ * read from the database on every lookup, a primary-key read, so a change made on another node
+ * invalidates this node's entries as well. At most {@code max-entries} results are held, least
+ * recently used evicted first.
+ *
+ * <p>Callers must not hold a transaction across {@link #get}: the version is read before the
+ * loader's snapshot is taken, so a result can be newer than its version but never older. Cached
+ * values are shared between requests and must not be modified.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryResultCache {
+
+  /** Cumulative cache activity since startup */
+  public record Stats(
+      long hits, long misses, long invalidations, long evictions, int size, int maxEntries) {
+
+    public double hitRate() {
+      long lookups = hits + misses;
+      return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+  }
+
+  private record Key(Long userId, String endpoint, Object params) {}
+
+  private record Entry(long version, Object value) {}
+
+  private final UserDataVersions userDataVersions;
+
+  @Value("${cache.query-results.max-entries}")
+  private int maxEntries;
+
+  // Access-ordered for LRU eviction; guarded by this
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * The cached result for the user, endpoint and parameters, or the loader's result, cached
+   *
+   * @param params value with equals and hashCode identifying the request, or null for none
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(Long userId, String endpoint, Object params, Supplier<T> loader) {
+    Key key = new Key(userId, endpoint, params);
+    long version = userDataVersions.current(userId);
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        if (entry.version() == version) {
+          hits.incrementAndGet();
+          return (T) entry.value();
+        }
+        entries.remove(key);
+        invalidations.incrementAndGet();
+      }
+    }
+    misses.incrementAndGet();
+
+    T value = Objects.requireNonNull(loader.get());
+    synchronized (this) {
+      // A slower load of an older version must not replace a newer entry
+      Entry current = entries.get(key);
+      if (current == null || current.version() < version) {
+        entries.put(key, new Entry(version, value));
+        evictOverflow();
+      }
+    }
+    return value;
+  }
+
+  public synchronized Stats getStats() {
+    return new Stats(
+        hits.get(), misses.get(), invalidations.get(), evictions.get(), entries.size(), maxEntries);
+  }
+
+  private void evictOverflow() {
+    Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+    while (entries.size() > maxEntries && eldest.hasNext()) {
+      eldest.next();
+      eldest.remove();
+      evictions.incrementAndGet();
+    }
+  }
+}
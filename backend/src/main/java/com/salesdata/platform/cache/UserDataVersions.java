@@ -0,0 +1,134 @@
+package com.salesdata.platform.cache;
+
+import com.salesdata.platform.cache.repository.UserDataVersionRepository;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per-user version of everything {@link QueryResultCache} serves: the sales summary, the user's
+ * uploads and their live ingest progress. Every mutation moves it on, so a cached result is valid
+ * exactly while the version it was read at is current, and it moves with upload status changes and
+ * every committed ingest chunk. Each upload also has a version of its own, moved on with its
+ * owner's, for results about that upload alone.
+ *
+ * <p>The sketch caches only depend on the user's finished, visible uploads, and would be dropped
+ * needlessly by every ingest chunk. They use the coarser sales data version, which moves only when
+ * an upload's records are added to or taken out of the user's data; each such change also moves the
+ * user's version.
+ *
+ * <p>Versions are kept in the database, so every node sharing it sees a change made on any of them.
+ * Changes reported inside a transaction are written just before it commits, and so become visible
+ * together with the data; changes outside one are written straight away, after the data.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDataVersions {
+
+  private final UserDataVersionRepository userDataVersionRepository;
+
+  public long current(Long userId) {
+    return userDataVersionRepository.findVersion(userId);
+  }
+
+  public long currentUpload(Long fileUploadId) {
+    return userDataVersionRepository.findUploadVersion(fileUploadId);
+  }
+
+  public long currentSalesData(Long userId) {
+    return userDataVersionRepository.findSalesDataVersion(userId);
+  }
+
+  /** The user's data changed */
+  public void changed(Long userId) {
+    changed(userId, null);
+  }
+
+  /** One of the user's uploads changed; moves on the versions of both */
+  public void changed(Long userId, Long fileUploadId) {
+    changed(userId, fileUploadId, false);
+  }
+
+  /**
+   * Records of one of the user's uploads were added to or taken out of the user's sales data; moves
+   * on the sales data version as well
+   */
+  public void salesDataChanged(Long userId, Long fileUploadId) {
+    changed(userId, fileUploadId, true);
+  }
+
+  /**
+   * Like {@link #changed(Long, Long)}, but written straight away in the current transaction, if
+   * any. For entity callbacks, which run while changes are flushed, possibly by the commit itself.
+   */
+  public void changedNow(Long userId, Long fileUploadId) {
+    write(new Changes().add(userId, fileUploadId, false));
+  }
+
+  private void changed(Long userId, Long fileUploadId, boolean salesData) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      write(new Changes().add(userId, fileUploadId, salesData));
+      return;
+    }
+    TransactionSynchronizationManager.getSynchronizations().stream()
+        .filter(PendingChanges.class::isInstance)
+        .map(PendingChanges.class::cast)
+        .findFirst()
+        .orElseGet(this::registerPendingChanges)
+        .changes
+        .add(userId, fileUploadId, salesData);
+  }
+
+  private PendingChanges registerPendingChanges() {
+    PendingChanges pending = new PendingChanges();
+    TransactionSynchronizationManager.registerSynchronization(pending);
+    return pending;
+  }
+
+  private void write(Changes changes) {
+    userDataVersionRepository.incrementUploadVersions(changes.fileUploadIds);
+    userDataVersionRepository.incrementVersions(changes.salesDataUserIds, true);
+    userDataVersionRepository.incrementVersions(changes.otherUserIds(), false);
+  }
+
+  // Sorted, so concurrent transactions lock the version rows in the same order
+  private static class Changes {
+    private final Set<Long> userIds = new TreeSet<>();
+    private final Set<Long> salesDataUserIds = new TreeSet<>();
+    private final Set<Long> fileUploadIds = new TreeSet<>();
+
+    Changes add(Long userId, Long fileUploadId, boolean salesData) {
+      userIds.add(userId);
+      if (salesData) {
+        salesDataUserIds.add(userId);
+      }
+      if (fileUploadId != null) {
+        fileUploadIds.add(fileUploadId);
+      }
+      return this;
+    }
+
+    // Users whose sales data did not change, the others are moved on with their sales data
+    Set<Long> otherUserIds() {
+      Set<Long> others = new TreeSet<>(userIds);
+      others.removeAll(salesDataUserIds);
+      return others;
+    }
+  }
+
+  /**
+   * Changes of one transaction, written as its last statements: the version rows stay locked only
+   * briefly, and the new versions become visible together with the data
+   */
+  private class PendingChanges implements TransactionSynchronization {
+    private final Changes changes = new Changes();
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      write(changes);
+    }
+  }
+}
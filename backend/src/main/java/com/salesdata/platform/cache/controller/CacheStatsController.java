@@ -0,0 +1,52 @@
+package com.salesdata.platform.cache.controller;
+
+import com.salesdata.platform.cache.QueryResultCache;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "http://localhost:3000")
+public class CacheStatsController {
+
+  private final QueryResultCache queryResultCache;
+
+  private static final String MESSAGE_CONSTANT = "message";
+  private static final String SUCCESS_CONSTANT = "success";
+
+  /** Get query result cache statistics */
+  @GetMapping("/stats")
+  public ResponseEntity<Map<String, Object>> getCacheStats() {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      QueryResultCache.Stats cacheStats = queryResultCache.getStats();
+
+      Map<String, Object> cacheData = new HashMap<>();
+      cacheData.put("hits", cacheStats.hits());
+      cacheData.put("misses", cacheStats.misses());
+      cacheData.put("invalidations", cacheStats.invalidations());
+      cacheData.put("evictions", cacheStats.evictions());
+      cacheData.put("size", cacheStats.size());
+      cacheData.put("maxEntries", cacheStats.maxEntries());
+      cacheData.put("hitRate", cacheStats.hitRate());
+
+      response.put(SUCCESS_CONSTANT, true);
+      response.put("queryCache", cacheData);
+      return ResponseEntity.ok(response);
+
+    } catch (Exception e) {
+      log.error("Error retrieving cache stats: {}", e.getMessage(), e);
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, "Error retrieving cache stats");
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+}
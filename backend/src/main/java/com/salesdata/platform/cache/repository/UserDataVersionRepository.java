@@ -0,0 +1,64 @@
+package com.salesdata.platform.cache.repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads and moves on the versions of users' data (user_data_versions) and of uploads
+ * (file_uploads.data_version). A user without a row and an upload that does not exist are at
+ * version 0.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserDataVersionRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public long findVersion(Long userId) {
+    return findFirst("SELECT data_version FROM user_data_versions WHERE user_id = ?", userId);
+  }
+
+  public long findSalesDataVersion(Long userId) {
+    return findFirst("SELECT sales_data_version FROM user_data_versions WHERE user_id = ?", userId);
+  }
+
+  public long findUploadVersion(Long fileUploadId) {
+    return findFirst("SELECT data_version FROM file_uploads WHERE id = ?", fileUploadId);
+  }
+
+  /** Move on the users' versions, and their sales data versions too if salesData */
+  public void incrementVersions(Collection<Long> userIds, boolean salesData) {
+    if (userIds.isEmpty()) {
+      return;
+    }
+    int salesDataStep = salesData ? 1 : 0;
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO user_data_versions (user_id, data_version, sales_data_version) "
+            + "VALUES (?, 1, ?) AS step ON DUPLICATE KEY UPDATE "
+            + "data_version = user_data_versions.data_version + 1, "
+            + "sales_data_version = user_data_versions.sales_data_version + step.sales_data_version",
+        userIds.stream().map(userId -> new Object[] {userId, salesDataStep}).toList());
+  }
+
+  /** Move on the uploads' versions; uploads that no longer exist are skipped */
+  public void incrementUploadVersions(Collection<Long> fileUploadIds) {
+    if (fileUploadIds.isEmpty()) {
+      return;
+    }
+    String placeholders = String.join(", ", Collections.nCopies(fileUploadIds.size(), "?"));
+    jdbcTemplate.update(
+        "UPDATE file_uploads SET data_version = data_version + 1 WHERE id IN ("
+            + placeholders
+            + ")",
+        fileUploadIds.toArray());
+  }
+
+  private long findFirst(String sql, Long id) {
+    List<Long> versions = jdbcTemplate.queryForList(sql, Long.class, id);
+    return versions.isEmpty() ? 0 : versions.get(0);
+  }
+}
@@ -45,6 +45,8 @@ public class SecurityConfig {
                     .authenticated()
                     .requestMatchers("/api/files/**")
                     .authenticated()
+                    .requestMatchers("/api/cache/**")
+                    .authenticated()
                     .anyRequest()
                     .authenticated())
         // Add JWT Filter BEFORE Spring Security's username/password filter
@@ -0,0 +1,26 @@
+package com.salesdata.platform.exception;
+
+import com.salesdata.platform.fileupload.enums.IngestErrorCategory;
+
+/**
+ * A CSV row failed validation. Thrown once per bad row, so it carries no stack trace: the category
+ * and message are all the error report needs.
+ */
+public class RowValidationException extends IllegalArgumentException {
+
+  private final IngestErrorCategory category;
+
+  public RowValidationException(IngestErrorCategory category, String message) {
+    super(message);
+    this.category = category;
+  }
+
+  public IngestErrorCategory getCategory() {
+    return category;
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
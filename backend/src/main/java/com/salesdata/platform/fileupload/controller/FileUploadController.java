@@ -2,19 +2,39 @@ package com.salesdata.platform.fileupload.controller;
 
 import com.salesdata.platform.auth.annotation.CurrentUser;
 import com.salesdata.platform.auth.dto.CustomUserDetails;
+import com.salesdata.platform.cache.DataETags;
+import com.salesdata.platform.fileupload.dto.BatchUploadResult;
+import com.salesdata.platform.fileupload.dto.ChunkedUploadStatus;
+import com.salesdata.platform.fileupload.dto.DeletionProgress;
+import com.salesdata.platform.fileupload.dto.DeletionStats;
 import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import com.salesdata.platform.fileupload.dto.InitiateChunkedUploadRequest;
+import com.salesdata.platform.fileupload.dto.UploadQueueStats;
+import com.salesdata.platform.fileupload.dto.UploadResult;
 import com.salesdata.platform.fileupload.dto.UserFileStats;
+import com.salesdata.platform.fileupload.service.BatchUploadService;
+import com.salesdata.platform.fileupload.service.ChunkedUploadService;
 import com.salesdata.platform.fileupload.service.FileUploadService;
+import com.salesdata.platform.salesdata.dto.IngestWriteStats;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Slf4j
 @AllArgsConstructor
@@ -24,14 +44,25 @@ import org.springframework.web.multipart.MultipartFile;
 public class FileUploadController {
 
   private final FileUploadService fileUploadService;
+  private final ChunkedUploadService chunkedUploadService;
+  private final BatchUploadService batchUploadService;
+  private final DataETags dataETags;
 
   private static final String MESSAGE_CONSTANT = "message";
   private static final String SUCCESS_CONSTANT = "success";
-
-  /** Upload a CSV file */
+  private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+  /**
+   * Upload a CSV file. Processing happens in the background; poll the file for its status.
+   * Re-sending the same Idempotency-Key, or a file identical to an earlier upload, returns that
+   * upload
+   */
   @PostMapping("/upload")
   public ResponseEntity<Map<String, Object>> uploadFile(
-      @RequestParam("file") MultipartFile file, @CurrentUser CustomUserDetails userDetails) {
+      @RequestParam("file") MultipartFile file,
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+      @CurrentUser CustomUserDetails userDetails) {
 
     Map<String, Object> response = new HashMap<>();
 
@@ -41,20 +72,28 @@ public class FileUploadController {
       log.info(
           "File upload request from user: {} for file: {}", userId, file.getOriginalFilename());
 
-      // Upload and process file
-      FileUploadEntity fileUploadEntity = fileUploadService.uploadFile(file, userId);
+      // Accept file and queue it for processing
+      UploadResult result = fileUploadService.uploadFile(file, userId, idempotencyKey);
+      FileUploadEntity fileUploadEntity = result.upload();
 
       response.put(SUCCESS_CONSTANT, true);
-      response.put(MESSAGE_CONSTANT, "File uploaded successfully");
+      response.put(
+          MESSAGE_CONSTANT,
+          result.duplicate() ? "File was already uploaded" : "File accepted for processing");
       response.put("fileId", fileUploadEntity.getId());
-      response.put("fileName", file.getOriginalFilename());
+      response.put("fileName", fileUploadEntity.getOriginalFilename());
       response.put("status", fileUploadEntity.getUploadStatus().toString());
       response.put("uploadedAt", fileUploadEntity.getCreatedAt());
-      response.put("totalRows", fileUploadEntity.getTotalRows());
-      response.put("recordsProcessed", fileUploadEntity.getRecordsProcessed());
-      response.put("recordsFailed", fileUploadEntity.getRecordsFailed());
+      response.put("duplicate", result.duplicate());
 
-      return ResponseEntity.ok(response);
+      return ResponseEntity.status(result.duplicate() ? HttpStatus.OK : HttpStatus.ACCEPTED)
+          .body(response);
+
+    } catch (DataIntegrityViolationException e) {
+      log.warn("Concurrent upload request with the same idempotency key: {}", e.getMessage());
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, "A request with this idempotency key is already in progress");
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
 
     } catch (IllegalArgumentException e) {
       log.warn("File upload validation error: {}", e.getMessage());
@@ -70,20 +109,216 @@ public class FileUploadController {
     }
   }
 
+  /**
+   * Upload many CSV files in one request. Files are accepted concurrently and processed in the
+   * background; the response has a result per file, in request order
+   */
+  @PostMapping("/upload/batch")
+  public ResponseEntity<Map<String, Object>> uploadFiles(
+      @RequestParam("files") List<MultipartFile> files,
+      @CurrentUser CustomUserDetails userDetails) {
+
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      BatchUploadResult result = batchUploadService.uploadFiles(files, userDetails.getId());
+
+      Map<String, Object> throughput = new HashMap<>();
+      throughput.put("elapsedMillis", result.elapsedMillis());
+      throughput.put("totalBytes", result.totalBytes());
+      throughput.put("filesPerSecond", result.filesPerSecond());
+      throughput.put("megabytesPerSecond", result.megabytesPerSecond());
+
+      boolean anyAccepted = result.failedCount() < result.files().size();
+      response.put(SUCCESS_CONSTANT, result.failedCount() == 0);
+      response.put(
+          MESSAGE_CONSTANT,
+          String.format(
+              "%d files accepted for processing, %d already uploaded, %d failed",
+              result.acceptedCount(), result.duplicateCount(), result.failedCount()));
+      response.put("files", result.files());
+      response.put("throughput", throughput);
+
+      return ResponseEntity.status(anyAccepted ? HttpStatus.ACCEPTED : HttpStatus.BAD_REQUEST)
+          .body(response);
+
+    } catch (IllegalArgumentException e) {
+      log.warn("Batch upload validation error: {}", e.getMessage());
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+
+    } catch (Exception e) {
+      log.error("Unexpected error during batch upload: {}", e.getMessage(), e);
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, "Unexpected error occurred");
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  /** Start a resumable upload; the response gives the chunk size and number of chunks to send */
+  @PostMapping("/uploads")
+  public ResponseEntity<Map<String, Object>> initiateChunkedUpload(
+      @Valid @RequestBody InitiateChunkedUploadRequest request,
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+      @CurrentUser CustomUserDetails userDetails) {
+
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      ChunkedUploadStatus status =
+          chunkedUploadService.initiate(request, userDetails.getId(), idempotencyKey);
+
+      response.put(SUCCESS_CONSTANT, true);
+      response.put(MESSAGE_CONSTANT, "Upload initiated");
+      response.put("upload", status);
+      return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+    } catch (DataIntegrityViolationException e) {
+      log.warn("Concurrent upload request with the same idempotency key: {}", e.getMessage());
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, "A request with this idempotency key is already in progress");
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+
+    } catch (IllegalArgumentException e) {
+      log.warn("Chunked upload validation error: {}", e.getMessage());
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+
+    } catch (Exception e) {
+      log.error("Error initiating chunked upload: {}", e.getMessage(), e);
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, "Error initiating upload");
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  /** Upload one chunk as the raw request body. Re-sending a chunk replaces it */
+  @PutMapping("/uploads/{fileId}/chunks/{chunkIndex}")
+  public ResponseEntity<Map<String, Object>> uploadChunk(
+      @PathVariable Long fileId,
+      @PathVariable int chunkIndex,
+      HttpServletRequest request,
+      @CurrentUser CustomUserDetails userDetails) {
+
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      ChunkedUploadStatus status =
+          chunkedUploadService.uploadChunk(
+              fileId, userDetails.getId(), chunkIndex, request.getInputStream());
+
+      response.put(SUCCESS_CONSTANT, true);
+      response.put(MESSAGE_CONSTANT, "Chunk received");
+      response.put("upload", status);
+      return ResponseEntity.ok(response);
+
+    } catch (IllegalArgumentException e) {
+      log.warn("Chunk {} rejected for upload {}: {}", chunkIndex, fileId, e.getMessage());
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+
+    } catch (IllegalStateException e) {
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, e.getMessage());
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+
+    } catch (Exception e) {
+      log.error(
+          "Error receiving chunk {} for upload {}: {}", chunkIndex, fileId, e.getMessage(), e);
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, "Error receiving chunk");
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  /** Get which chunks of a resumable upload have been received, to resume after a failure */
+  @GetMapping("/uploads/{fileId}")
+  public ResponseEntity<Map<String, Object>> getChunkedUploadStatus(
+      @PathVariable Long fileId, @CurrentUser CustomUserDetails userDetails) {
+
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      Optional<ChunkedUploadStatus> statusOpt =
+          chunkedUploadService.getStatus(fileId, userDetails.getId());
+
+      if (statusOpt.isEmpty()) {
+        response.put(SUCCESS_CONSTANT, false);
+        response.put(MESSAGE_CONSTANT, "Upload not found");
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+      }
+
+      response.put(SUCCESS_CONSTANT, true);
+      response.put("upload", statusOpt.get());
+      return ResponseEntity.ok(response);
+
+    } catch (Exception e) {
+      log.error("Error retrieving chunked upload status: {}", e.getMessage(), e);
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, "Error retrieving upload status");
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  /** Finish a resumable upload once every chunk is received and queue it for processing */
+  @PostMapping("/uploads/{fileId}/complete")
+  public ResponseEntity<Map<String, Object>> completeChunkedUpload(
+      @PathVariable Long fileId, @CurrentUser CustomUserDetails userDetails) {
+
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      UploadResult result = chunkedUploadService.complete(fileId, userDetails.getId());
+      FileUploadEntity fileUploadEntity = result.upload();
+
+      response.put(SUCCESS_CONSTANT, true);
+      response.put(
+          MESSAGE_CONSTANT,
+          result.duplicate() ? "File was already uploaded" : "File accepted for processing");
+      response.put("fileId", fileUploadEntity.getId());
+      response.put("fileName", fileUploadEntity.getOriginalFilename());
+      response.put("status", fileUploadEntity.getUploadStatus().toString());
+      response.put("duplicate", result.duplicate());
+      return ResponseEntity.status(result.duplicate() ? HttpStatus.OK : HttpStatus.ACCEPTED)
+          .body(response);
+
+    } catch (IllegalArgumentException e) {
+      log.warn("Chunked upload {} could not be completed: {}", fileId, e.getMessage());
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+
+    } catch (Exception e) {
+      log.error("Error completing chunked upload: {}", e.getMessage(), e);
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, "Error completing upload");
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
   @GetMapping
   public ResponseEntity<Map<String, Object>> getUserFiles(
-      @CurrentUser CustomUserDetails userDetails) {
+      @CurrentUser CustomUserDetails userDetails,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     Map<String, Object> response = new HashMap<>();
 
     try {
       Long userId = userDetails.getId();
+      String eTag = dataETags.forUser(userId);
+      if (DataETags.isNotModified(ifNoneMatch, eTag)) {
+        return DataETags.notModified(eTag);
+      }
+
       List<FileUploadEntity> files = fileUploadService.getUserFiles(userId);
 
       response.put(SUCCESS_CONSTANT, true);
       response.put("files", files);
       response.put("count", files.size());
 
-      return ResponseEntity.ok(response);
+      return DataETags.ok(eTag).body(response);
 
     } catch (Exception e) {
       log.error("Error retrieving user files: {}", e.getMessage(), e);
@@ -96,12 +331,19 @@ public class FileUploadController {
   /** Get specific file details */
   @GetMapping("/{fileId}")
   public ResponseEntity<Map<String, Object>> getFileDetails(
-      @PathVariable Long fileId, @CurrentUser CustomUserDetails userDetails) {
+      @PathVariable Long fileId,
+      @CurrentUser CustomUserDetails userDetails,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
     Map<String, Object> response = new HashMap<>();
 
     try {
       Long userId = userDetails.getId();
+      String eTag = dataETags.forUpload(userId, fileId);
+      if (DataETags.isNotModified(ifNoneMatch, eTag)) {
+        return DataETags.notModified(eTag);
+      }
+
       Optional<FileUploadEntity> fileOpt = fileUploadService.getFileById(fileId, userId);
 
       if (fileOpt.isEmpty()) {
@@ -113,9 +355,9 @@ public class FileUploadController {
       FileUploadEntity file = fileOpt.get();
       response.put(SUCCESS_CONSTANT, true);
       response.put("file", file);
-      response.put("processingStatus", fileUploadService.getProcessingStatus(fileId, userId));
+      response.put("processingStatus", fileUploadService.getProcessingStatus(file));
 
-      return ResponseEntity.ok(response);
+      return DataETags.ok(eTag).body(response);
 
     } catch (Exception e) {
       log.error("Error retrieving file details: {}", e.getMessage(), e);
@@ -125,6 +367,36 @@ public class FileUploadController {
     }
   }
 
+  /** Stream progress events for an upload until it finishes, instead of polling its details */
+  @GetMapping(value = "/{fileId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> streamProgress(
+      @PathVariable Long fileId, @CurrentUser CustomUserDetails userDetails) {
+    return fileUploadService
+        .subscribeToProgress(fileId, userDetails.getId())
+        .map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  /** Download the list of rows rejected during ingest as CSV */
+  @GetMapping("/{fileId}/errors")
+  public ResponseEntity<Resource> downloadErrorReport(
+      @PathVariable Long fileId, @CurrentUser CustomUserDetails userDetails) {
+    return fileUploadService
+        .getErrorReport(fileId, userDetails.getId())
+        .map(
+            report ->
+                ResponseEntity.ok()
+                    .contentType(TEXT_CSV)
+                    .header(
+                        HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment()
+                            .filename("upload-" + fileId + "-errors.csv")
+                            .build()
+                            .toString())
+                    .<Resource>body(new FileSystemResource(report)))
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
   /** Delete a file and its associated data */
   @DeleteMapping("/{fileId}")
   public ResponseEntity<Map<String, Object>> deleteFile(
@@ -134,12 +406,15 @@ public class FileUploadController {
 
     try {
       Long userId = userDetails.getId();
-      fileUploadService.deleteFile(fileId, userId);
+      boolean started = fileUploadService.deleteFile(fileId, userId);
 
       response.put(SUCCESS_CONSTANT, true);
-      response.put(MESSAGE_CONSTANT, "File deleted successfully");
+      response.put(
+          MESSAGE_CONSTANT,
+          started ? "File deletion started" : "File deletion already in progress");
+      response.put("fileId", fileId);
 
-      return ResponseEntity.ok(response);
+      return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
 
     } catch (IllegalArgumentException e) {
       log.warn("File deletion error: {}", e.getMessage());
@@ -147,6 +422,12 @@ public class FileUploadController {
       response.put(MESSAGE_CONSTANT, e.getMessage());
       return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
 
+    } catch (IllegalStateException e) {
+      log.warn("File deletion rejected: {}", e.getMessage());
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, e.getMessage());
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+
     } catch (Exception e) {
       log.error("Error deleting file: {}", e.getMessage(), e);
       response.put(SUCCESS_CONSTANT, false);
@@ -155,14 +436,113 @@ public class FileUploadController {
     }
   }
 
+  /** Get the progress of a file deletion started with DELETE /{fileId} */
+  @GetMapping("/{fileId}/deletion")
+  public ResponseEntity<Map<String, Object>> getDeletionProgress(
+      @PathVariable Long fileId, @CurrentUser CustomUserDetails userDetails) {
+
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      Long userId = userDetails.getId();
+      Optional<DeletionProgress> progressOpt =
+          fileUploadService.getDeletionProgress(fileId, userId);
+
+      if (progressOpt.isEmpty()) {
+        response.put(SUCCESS_CONSTANT, false);
+        response.put(MESSAGE_CONSTANT, "No deletion found for this file");
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+      }
+
+      DeletionProgress progress = progressOpt.get();
+
+      Map<String, Object> deletionData = new HashMap<>();
+      deletionData.put("fileId", progress.fileId());
+      deletionData.put("rowsDeleted", progress.rowsDeleted());
+      deletionData.put("chunksDeleted", progress.chunksDeleted());
+      deletionData.put("elapsedMillis", progress.elapsedMillis());
+      deletionData.put("rowsPerSecond", progress.rowsPerSecond());
+      deletionData.put("finished", progress.finished());
+
+      response.put(SUCCESS_CONSTANT, true);
+      response.put("deletion", deletionData);
+      return ResponseEntity.ok(response);
+
+    } catch (Exception e) {
+      log.error("Error retrieving deletion progress: {}", e.getMessage(), e);
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, "Error retrieving deletion progress");
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  /** Get upload worker pool, ingest write and deletion throughput statistics */
+  @GetMapping("/queue")
+  public ResponseEntity<Map<String, Object>> getQueueStats() {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      UploadQueueStats stats = fileUploadService.getQueueStats();
+
+      Map<String, Object> queueData = new HashMap<>();
+      queueData.put("workerCount", stats.workerCount());
+      queueData.put("activeWorkers", stats.activeWorkers());
+      queueData.put("queueCapacity", stats.queueCapacity());
+      queueData.put("queueDepth", stats.queueDepth());
+      queueData.put("jobsCompleted", stats.jobsCompleted());
+      queueData.put("jobsFailed", stats.jobsFailed());
+      queueData.put("lastJobMillis", stats.lastJobMillis());
+      queueData.put("maxJobMillis", stats.maxJobMillis());
+      queueData.put("averageJobMillis", stats.averageJobMillis());
+      queueData.put("averageQueueWaitMillis", stats.averageQueueWaitMillis());
+
+      IngestWriteStats ingestStats = fileUploadService.getIngestWriteStats();
+
+      Map<String, Object> ingestData = new HashMap<>();
+      ingestData.put("writeMode", ingestStats.writeMode());
+      ingestData.put("rowsWritten", ingestStats.rowsWritten());
+      ingestData.put("chunksWritten", ingestStats.chunksWritten());
+      ingestData.put("writeMillis", ingestStats.writeMillis());
+      ingestData.put("rowsPerSecond", ingestStats.rowsPerSecond());
+
+      DeletionStats deletionStats = fileUploadService.getDeletionStats();
+
+      Map<String, Object> deletionData = new HashMap<>();
+      deletionData.put("uploadsDeleted", deletionStats.uploadsDeleted());
+      deletionData.put("rowsDeleted", deletionStats.rowsDeleted());
+      deletionData.put("chunksDeleted", deletionStats.chunksDeleted());
+      deletionData.put("deleteMillis", deletionStats.deleteMillis());
+      deletionData.put("rowsPerSecond", deletionStats.rowsPerSecond());
+      deletionData.put("queueDepth", deletionStats.queueDepth());
+
+      response.put(SUCCESS_CONSTANT, true);
+      response.put("queue", queueData);
+      response.put("ingest", ingestData);
+      response.put("deletion", deletionData);
+      return ResponseEntity.ok(response);
+
+    } catch (Exception e) {
+      log.error("Error retrieving queue stats: {}", e.getMessage(), e);
+      response.put(SUCCESS_CONSTANT, false);
+      response.put(MESSAGE_CONSTANT, "Error retrieving queue stats");
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
   /** Get user file statistics */
   @GetMapping("/stats")
   public ResponseEntity<Map<String, Object>> getFileStats(
-      @CurrentUser CustomUserDetails userDetails) {
+      @CurrentUser CustomUserDetails userDetails,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     Map<String, Object> response = new HashMap<>();
 
     try {
       Long userId = userDetails.getId();
+      String eTag = dataETags.forUser(userId);
+      if (DataETags.isNotModified(ifNoneMatch, eTag)) {
+        return DataETags.notModified(eTag);
+      }
+
       UserFileStats stats = fileUploadService.getUserFileStatistics(userId);
 
       response.put(SUCCESS_CONSTANT, true);
@@ -177,7 +557,7 @@ public class FileUploadController {
               "successRate", stats.successRate(),
               "hasFailures", stats.hasFailures(),
               "hasUploads", stats.hasUploads()));
-      return ResponseEntity.ok(response);
+      return DataETags.ok(eTag).body(response);
 
     } catch (Exception e) {
       log.error("Error retrieving file stats: {}", e.getMessage(), e);
@@ -0,0 +1,20 @@
+package com.salesdata.platform.fileupload.dto;
+
+/** Outcome for one file of a batch upload */
+public record BatchUploadFileResult(
+    String fileName, boolean success, Long fileId, String status, boolean duplicate, String error) {
+
+  public static BatchUploadFileResult accepted(String fileName, UploadResult result) {
+    return new BatchUploadFileResult(
+        fileName,
+        true,
+        result.upload().getId(),
+        result.upload().getUploadStatus().toString(),
+        result.duplicate(),
+        null);
+  }
+
+  public static BatchUploadFileResult failed(String fileName, String error) {
+    return new BatchUploadFileResult(fileName, false, null, null, false, error);
+  }
+}
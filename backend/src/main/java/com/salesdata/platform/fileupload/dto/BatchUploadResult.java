@@ -0,0 +1,30 @@
+package com.salesdata.platform.fileupload.dto;
+
+import java.util.List;
+
+/** Outcome of a batch upload, with per-file results in request order */
+public record BatchUploadResult(
+    List<BatchUploadFileResult> files, long totalBytes, long elapsedMillis) {
+
+  public long acceptedCount() {
+    return files.stream().filter(file -> file.success() && !file.duplicate()).count();
+  }
+
+  public long duplicateCount() {
+    return files.stream().filter(BatchUploadFileResult::duplicate).count();
+  }
+
+  public long failedCount() {
+    return files.stream().filter(file -> !file.success()).count();
+  }
+
+  public double filesPerSecond() {
+    if (elapsedMillis == 0) return 0.0;
+    return files.size() * 1000.0 / elapsedMillis;
+  }
+
+  public double megabytesPerSecond() {
+    if (elapsedMillis == 0) return 0.0;
+    return totalBytes / (1024.0 * 1024.0) * 1000.0 / elapsedMillis;
+  }
+}
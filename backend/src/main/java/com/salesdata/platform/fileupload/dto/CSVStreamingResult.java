@@ -0,0 +1,31 @@
+package com.salesdata.platform.fileupload.dto;
+
+/**
+ * Outcome of a streaming CSV ingest. The records themselves are not kept, they have already been
+ * handed to the chunk sink; only counters and a bounded error report are retained.
+ */
+public record CSVStreamingResult(
+    int totalRows,
+    int successfulCount,
+    int failedCount,
+    int chunksWritten,
+    IngestErrorReport errorReport,
+    String fatalError) {
+
+  public boolean hasFatalError() {
+    return fatalError != null;
+  }
+
+  public boolean hasErrors() {
+    return failedCount > 0;
+  }
+
+  public boolean isCompleteSuccess() {
+    return !hasFatalError() && !hasErrors();
+  }
+
+  public double getSuccessRate() {
+    if (totalRows == 0) return 0.0;
+    return (double) successfulCount / totalRows * 100;
+  }
+}
@@ -0,0 +1,20 @@
+package com.salesdata.platform.fileupload.dto;
+
+import com.salesdata.platform.fileupload.enums.UploadStatus;
+import java.util.List;
+
+/** Progress of a chunked upload, telling a client which chunks it still has to send */
+public record ChunkedUploadStatus(
+    Long fileId,
+    String fileName,
+    UploadStatus uploadStatus,
+    long fileSize,
+    int chunkSize,
+    int totalChunks,
+    int receivedChunks,
+    List<Integer> missingChunks) {
+
+  public boolean isReadyToComplete() {
+    return uploadStatus == UploadStatus.UPLOADING && missingChunks.isEmpty();
+  }
+}
@@ -0,0 +1,20 @@
+package com.salesdata.platform.fileupload.dto;
+
+/** Progress of deleting one upload's sales records */
+public record DeletionProgress(
+    Long fileId,
+    Long userId,
+    long rowsDeleted,
+    long chunksDeleted,
+    long elapsedMillis,
+    boolean finished) {
+
+  public static DeletionProgress queued(Long fileId, Long userId) {
+    return new DeletionProgress(fileId, userId, 0, 0, 0, false);
+  }
+
+  public double rowsPerSecond() {
+    if (elapsedMillis == 0) return 0.0;
+    return rowsDeleted * 1000.0 / elapsedMillis;
+  }
+}
@@ -0,0 +1,11 @@
+package com.salesdata.platform.fileupload.dto;
+
+/** Cumulative upload deletion throughput since startup */
+public record DeletionStats(
+    long uploadsDeleted, long rowsDeleted, long chunksDeleted, long deleteMillis, int queueDepth) {
+
+  public double rowsPerSecond() {
+    if (deleteMillis == 0) return 0.0;
+    return rowsDeleted * 1000.0 / deleteMillis;
+  }
+}
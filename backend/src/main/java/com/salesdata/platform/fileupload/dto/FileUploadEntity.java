@@ -1,13 +1,17 @@
 package com.salesdata.platform.fileupload.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.salesdata.platform.fileupload.enums.UploadStatus;
+import com.salesdata.platform.fileupload.service.FileUploadChangeListener;
 import jakarta.persistence.*;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(FileUploadChangeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,6 +32,20 @@ public class FileUploadEntity {
   @Column(name = "upload_status", nullable = false)
   private UploadStatus uploadStatus;
 
+  @Column(name = "file_size")
+  private Long fileSize;
+
+  // Set for chunked uploads only
+  @Column(name = "chunk_size")
+  private Integer chunkSize;
+
+  // SHA-256 of the uploaded bytes, hex encoded
+  @Column(name = "content_sha256", length = 64)
+  private String contentSha256;
+
+  @Column(name = "idempotency_key")
+  private String idempotencyKey;
+
   @Column(name = "total_rows", nullable = false)
   private Integer totalRows = 0;
 
@@ -43,9 +61,21 @@ public class FileUploadEntity {
   @Column(name = "created_at", nullable = false, updatable = false)
   private LocalDateTime createdAt;
 
+  @Column(name = "processing_started_at")
+  private LocalDateTime processingStartedAt;
+
+  // Moved on periodically by the node processing the upload, through bulk updates only, so that
+  // saving the entity never takes it back; a claim whose heartbeat stops is requeued
+  @JsonIgnore
+  @Column(name = "processing_heartbeat_at", insertable = false, updatable = false)
+  private LocalDateTime processingHeartbeatAt;
+
   @Column(name = "processed_at")
   private LocalDateTime processedAt;
 
+  // Set once processing finishes; null while in progress or after an unexpected failure
+  @Embedded private UploadStatistics statistics;
+
   @PrePersist
   protected void onCreate() {
     createdAt = LocalDateTime.now();
@@ -64,8 +94,49 @@ public class FileUploadEntity {
     return (double) recordsProcessed / totalRows * 100;
   }
 
+  /** Detached copy, so in-flight progress can be published without sharing this instance */
+  public FileUploadEntity copy() {
+    return new FileUploadEntity(
+        id,
+        userId,
+        originalFilename,
+        uploadStatus,
+        fileSize,
+        chunkSize,
+        contentSha256,
+        idempotencyKey,
+        totalRows,
+        recordsProcessed,
+        recordsFailed,
+        errorMessage,
+        createdAt,
+        processingStartedAt,
+        processingHeartbeatAt,
+        processedAt,
+        statistics);
+  }
+
+  /** Number of chunks a chunked upload is split into, or null for single-request uploads */
+  public Integer getTotalChunks() {
+    if (fileSize == null || chunkSize == null) return null;
+    return (int) ((fileSize + chunkSize - 1) / chunkSize);
+  }
+
   public void markAsProcessing() {
     uploadStatus = UploadStatus.PROCESSING;
+    processingStartedAt = LocalDateTime.now();
+  }
+
+  /** Time spent waiting in the upload queue, or null if processing has not started */
+  public Long getQueueWaitMillis() {
+    if (createdAt == null || processingStartedAt == null) return null;
+    return Duration.between(createdAt, processingStartedAt).toMillis();
+  }
+
+  /** Time spent processing, or null if processing has not finished */
+  public Long getProcessingMillis() {
+    if (processingStartedAt == null || processedAt == null) return null;
+    return Duration.between(processingStartedAt, processedAt).toMillis();
   }
 
   public void markAsCompleted() {
@@ -0,0 +1,44 @@
+package com.salesdata.platform.fileupload.dto;
+
+import com.salesdata.platform.fileupload.enums.IngestErrorCategory;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded summary of the rows rejected during an ingest: a count per category and the first few
+ * examples of each. The complete list is in the upload's error report file, if one was written.
+ */
+public record IngestErrorReport(
+    long totalErrors,
+    Map<IngestErrorCategory, Long> countsByCategory,
+    Map<IngestErrorCategory, List<RowError>> examples,
+    boolean fullReportAvailable) {
+
+  private static final int SUMMARY_EXAMPLES = 3;
+
+  public static IngestErrorReport empty() {
+    return new IngestErrorReport(0, Map.of(), Map.of(), false);
+  }
+
+  public boolean hasErrors() {
+    return totalErrors > 0;
+  }
+
+  /** Short description for the upload's error message, one example per category */
+  public String summary() {
+    String counts =
+        countsByCategory.entrySet().stream()
+            .map(entry -> entry.getKey() + ": " + entry.getValue())
+            .collect(Collectors.joining(", "));
+    String firstErrors =
+        examples.values().stream()
+            .filter(categoryExamples -> !categoryExamples.isEmpty())
+            .limit(SUMMARY_EXAMPLES)
+            .map(categoryExamples -> categoryExamples.get(0).describe())
+            .collect(Collectors.joining("; "));
+
+    return String.format(
+        "%d records failed validation (%s). First errors: %s", totalErrors, counts, firstErrors);
+  }
+}
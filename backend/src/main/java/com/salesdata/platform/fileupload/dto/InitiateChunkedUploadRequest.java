@@ -0,0 +1,17 @@
+package com.salesdata.platform.fileupload.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class InitiateChunkedUploadRequest {
+
+  @NotBlank(message = "File name is required")
+  private String fileName;
+
+  @NotNull(message = "File size is required")
+  @Positive(message = "File size must be greater than 0")
+  private Long fileSize;
+}
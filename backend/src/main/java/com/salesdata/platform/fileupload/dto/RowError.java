@@ -0,0 +1,11 @@
+package com.salesdata.platform.fileupload.dto;
+
+import com.salesdata.platform.fileupload.enums.IngestErrorCategory;
+
+/** A rejected CSV row */
+public record RowError(int lineNumber, IngestErrorCategory category, String message) {
+
+  public String describe() {
+    return "Line " + lineNumber + ": " + message;
+  }
+}
@@ -3,7 +3,10 @@ package com.salesdata.platform.fileupload.dto;
 import com.opencsv.bean.CsvBindByName;
 import com.opencsv.bean.CsvDate;
 import com.opencsv.bean.CsvDates;
+import com.salesdata.platform.exception.RowValidationException;
+import com.salesdata.platform.fileupload.enums.IngestErrorCategory;
 import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.util.Money;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import lombok.Data;
@@ -37,34 +40,54 @@ public class SalesRecordCSV {
   @CsvBindByName(column = "sale_location", required = false)
   private String saleLocation;
 
+  // Set by validate(), rounded to the column scale like the SALES_SCHEMA parser does
+  private long productPriceCents;
+
   // Validation method
   public void validate() throws IllegalArgumentException {
     if (productName == null || productName.trim().isEmpty()) {
-      throw new IllegalArgumentException("Product name cannot be empty");
+      throw new RowValidationException(
+          IngestErrorCategory.MISSING_VALUE, "Product name cannot be empty");
     }
     if (productName.length() > 255) {
-      throw new IllegalArgumentException("Product name cannot be longer than 255 characters");
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Product name cannot be longer than 255 characters");
+    }
+    if (productPrice == null || productPrice.signum() <= 0) {
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Product price must be greater than 0");
+    }
+    try {
+      productPriceCents = Money.roundToCents(productPrice);
+    } catch (IllegalArgumentException e) {
+      productPriceCents = Long.MAX_VALUE;
     }
-    if (productPrice == null || productPrice.compareTo(BigDecimal.ZERO) <= 0) {
-      throw new IllegalArgumentException("Product price must be greater than 0");
+    if (productPriceCents <= 0) {
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Product price must be greater than 0");
     }
-    if (productPrice.compareTo(new BigDecimal("99999999.99")) > 0) {
-      throw new IllegalArgumentException("Product price too large (max 99,999,999.99)");
+    if (productPriceCents > Money.MAX_DECIMAL_10_2_CENTS) {
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Product price too large (max 99,999,999.99)");
     }
     if (quantity == null || quantity <= 0) {
-      throw new IllegalArgumentException("Quantity must be greater than 0");
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Quantity must be greater than 0");
     }
     if (quantity > 1000000) {
-      throw new IllegalArgumentException("Quantity too large (max 1,000,000)");
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Quantity too large (max 1,000,000)");
     }
     if (saleDate == null) {
-      throw new IllegalArgumentException("Sale date is required");
+      throw new RowValidationException(IngestErrorCategory.MISSING_VALUE, "Sale date is required");
     }
     if (saleDate.isAfter(LocalDate.now())) {
-      throw new IllegalArgumentException("Sale date cannot be in the future");
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Sale date cannot be in the future");
     }
     if (saleLocation != null && saleLocation.length() > 255) {
-      throw new IllegalArgumentException("Sale location cannot be longer than 255 characters");
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Sale location cannot be longer than 255 characters");
     }
   }
 
@@ -73,7 +96,7 @@ public class SalesRecordCSV {
     entity.setUserId(userId);
     entity.setFileUploadId(fileUploadId);
     entity.setProductName(productName.trim());
-    entity.setProductPrice(productPrice);
+    entity.setProductPriceCents(productPriceCents);
     entity.setQuantity(quantity);
     entity.setSaleDate(saleDate);
     entity.setSaleLocation(
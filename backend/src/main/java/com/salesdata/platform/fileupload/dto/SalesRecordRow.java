@@ -0,0 +1,81 @@
+package com.salesdata.platform.fileupload.dto;
+
+import com.salesdata.platform.exception.RowValidationException;
+import com.salesdata.platform.fileupload.enums.IngestErrorCategory;
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.util.Money;
+import java.time.LocalDate;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mutable row buffer filled by {@link com.salesdata.platform.util.SalesCSVParser}. One instance is
+ * reused for every row of a file; the price is kept as a count of cents so that parsing and
+ * validation do not allocate.
+ */
+@Data
+@NoArgsConstructor
+public class SalesRecordRow {
+
+  private static final long MAX_PRICE_CENTS = Money.MAX_DECIMAL_10_2_CENTS;
+  private static final int MAX_QUANTITY = 1_000_000;
+  private static final int MAX_TEXT_LENGTH = 255;
+
+  private int lineNumber;
+  private String productName;
+  private long productPriceCents;
+  private int quantity;
+  private LocalDate saleDate;
+  private String saleLocation;
+
+  // Same rules as SalesRecordCSV.validate(), with today's date supplied once per file
+  public void validate(LocalDate today) throws IllegalArgumentException {
+    if (productName == null || productName.isEmpty()) {
+      throw new RowValidationException(
+          IngestErrorCategory.MISSING_VALUE, "Product name cannot be empty");
+    }
+    if (productName.length() > MAX_TEXT_LENGTH) {
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Product name cannot be longer than 255 characters");
+    }
+    if (productPriceCents <= 0) {
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Product price must be greater than 0");
+    }
+    if (productPriceCents > MAX_PRICE_CENTS) {
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Product price too large (max 99,999,999.99)");
+    }
+    if (quantity <= 0) {
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Quantity must be greater than 0");
+    }
+    if (quantity > MAX_QUANTITY) {
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Quantity too large (max 1,000,000)");
+    }
+    if (saleDate == null) {
+      throw new RowValidationException(IngestErrorCategory.MISSING_VALUE, "Sale date is required");
+    }
+    if (saleDate.isAfter(today)) {
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Sale date cannot be in the future");
+    }
+    if (saleLocation != null && saleLocation.length() > MAX_TEXT_LENGTH) {
+      throw new RowValidationException(
+          IngestErrorCategory.OUT_OF_RANGE, "Sale location cannot be longer than 255 characters");
+    }
+  }
+
+  public SalesDataEntity toSalesDataEntity(Long userId, Long fileUploadId) {
+    SalesDataEntity entity = new SalesDataEntity();
+    entity.setUserId(userId);
+    entity.setFileUploadId(fileUploadId);
+    entity.setProductName(productName);
+    entity.setProductPriceCents(productPriceCents);
+    entity.setQuantity(quantity);
+    entity.setSaleDate(saleDate);
+    entity.setSaleLocation(saleLocation != null && !saleLocation.isEmpty() ? saleLocation : null);
+    return entity;
+  }
+}
@@ -0,0 +1,29 @@
+package com.salesdata.platform.fileupload.dto;
+
+import com.salesdata.platform.fileupload.enums.UploadStatus;
+
+/** Progress event pushed to clients following an upload */
+public record UploadProgress(
+    Long fileId,
+    UploadStatus uploadStatus,
+    int rowsRead,
+    int recordsProcessed,
+    int recordsFailed,
+    int chunksWritten,
+    String errorMessage) {
+
+  public static UploadProgress of(FileUploadEntity fileUploadEntity, int chunksWritten) {
+    return new UploadProgress(
+        fileUploadEntity.getId(),
+        fileUploadEntity.getUploadStatus(),
+        fileUploadEntity.getTotalRows(),
+        fileUploadEntity.getRecordsProcessed(),
+        fileUploadEntity.getRecordsFailed(),
+        chunksWritten,
+        fileUploadEntity.getErrorMessage());
+  }
+
+  public boolean isFinished() {
+    return uploadStatus == UploadStatus.COMPLETED || uploadStatus == UploadStatus.FAILED;
+  }
+}
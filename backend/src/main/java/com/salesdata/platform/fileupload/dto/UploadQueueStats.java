@@ -0,0 +1,32 @@
+package com.salesdata.platform.fileupload.dto;
+
+public record UploadQueueStats(
+    int workerCount,
+    int activeWorkers,
+    int queueCapacity,
+    int queueDepth,
+    long jobsCompleted,
+    long jobsFailed,
+    long lastJobMillis,
+    long maxJobMillis,
+    long totalJobMillis,
+    long totalQueueWaitMillis) {
+
+  public long jobsFinished() {
+    return jobsCompleted + jobsFailed;
+  }
+
+  public double averageJobMillis() {
+    if (jobsFinished() == 0) return 0.0;
+    return (double) totalJobMillis / jobsFinished();
+  }
+
+  public double averageQueueWaitMillis() {
+    if (jobsFinished() == 0) return 0.0;
+    return (double) totalQueueWaitMillis / jobsFinished();
+  }
+
+  public int remainingCapacity() {
+    return queueCapacity - queueDepth;
+  }
+}
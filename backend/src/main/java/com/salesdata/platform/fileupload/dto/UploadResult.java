@@ -0,0 +1,9 @@
+package com.salesdata.platform.fileupload.dto;
+
+/**
+ * Outcome of accepting an upload
+ *
+ * @param duplicate true if the request matched an earlier upload, by content or idempotency key,
+ *     and {@code upload} is that earlier upload
+ */
+public record UploadResult(FileUploadEntity upload, boolean duplicate) {}
@@ -0,0 +1,64 @@
+package com.salesdata.platform.fileupload.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.salesdata.platform.util.Money;
+import com.salesdata.platform.util.MoneyConverter;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Embeddable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What an upload's saved records contained, computed while they were ingested. Records deleted one
+ * by one afterwards are not taken out. Dates and prices are null if no record was saved.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadStatistics {
+
+  // Money is kept in cents, see Money; JSON shows the amounts through the BigDecimal getters
+  @JsonIgnore
+  @Convert(converter = MoneyConverter.class)
+  @Column(name = "total_amount")
+  private Long totalAmountCents;
+
+  @Column(name = "total_quantity")
+  private Long totalQuantity;
+
+  @Column(name = "first_sale_date")
+  private LocalDate firstSaleDate;
+
+  @Column(name = "last_sale_date")
+  private LocalDate lastSaleDate;
+
+  @JsonIgnore
+  @Convert(converter = MoneyConverter.class)
+  @Column(name = "min_product_price")
+  private Long minProductPriceCents;
+
+  @JsonIgnore
+  @Convert(converter = MoneyConverter.class)
+  @Column(name = "max_product_price")
+  private Long maxProductPriceCents;
+
+  @Column(name = "distinct_products")
+  private Integer distinctProducts;
+
+  public BigDecimal getTotalAmount() {
+    return totalAmountCents != null ? Money.toBigDecimal(totalAmountCents) : null;
+  }
+
+  public BigDecimal getMinProductPrice() {
+    return minProductPriceCents != null ? Money.toBigDecimal(minProductPriceCents) : null;
+  }
+
+  public BigDecimal getMaxProductPrice() {
+    return maxProductPriceCents != null ? Money.toBigDecimal(maxProductPriceCents) : null;
+  }
+}
@@ -0,0 +1,8 @@
+package com.salesdata.platform.fileupload.enums;
+
+public enum CSVParserType {
+  // OpenCSV bean binding onto SalesRecordCSV
+  OPENCSV,
+  // Reflection-free parser for the fixed sales schema
+  SALES_SCHEMA
+}
@@ -0,0 +1,12 @@
+package com.salesdata.platform.fileupload.enums;
+
+/** Why a CSV row was rejected during ingest */
+public enum IngestErrorCategory {
+  MALFORMED_ROW,
+  MISSING_VALUE,
+  INVALID_NUMBER,
+  INVALID_DATE,
+  OUT_OF_RANGE,
+  INVALID_VALUE,
+  UNEXPECTED
+}
@@ -0,0 +1,37 @@
+package com.salesdata.platform.fileupload.enums;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/** How an uploaded file is packaged, determined by its file name */
+public enum UploadCompression {
+  NONE(".csv"),
+  GZIP(".csv.gz"),
+  ZIP(".zip");
+
+  private final String extension;
+
+  UploadCompression(String extension) {
+    this.extension = extension;
+  }
+
+  public String getExtension() {
+    return extension;
+  }
+
+  public static Optional<UploadCompression> fromFilename(String filename) {
+    if (filename == null) {
+      return Optional.empty();
+    }
+    String name = filename.trim().toLowerCase(Locale.ROOT);
+    return Arrays.stream(values())
+        .filter(compression -> name.endsWith(compression.extension))
+        .findFirst();
+  }
+
+  public static List<String> allowedExtensions() {
+    return Arrays.stream(values()).map(UploadCompression::getExtension).toList();
+  }
+}
@@ -1,8 +1,10 @@
 package com.salesdata.platform.fileupload.enums;
 
 public enum UploadStatus {
+  UPLOADING,
   PENDING,
   PROCESSING,
   COMPLETED,
-  FAILED
+  FAILED,
+  DELETING
 }
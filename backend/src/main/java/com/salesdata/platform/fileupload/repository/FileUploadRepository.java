@@ -3,27 +3,67 @@ package com.salesdata.platform.fileupload.repository;
 import com.salesdata.platform.fileupload.dto.FileUploadEntity;
 import com.salesdata.platform.fileupload.dto.UserFileStats;
 import com.salesdata.platform.fileupload.enums.UploadStatus;
+import jakarta.persistence.LockModeType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface FileUploadRepository extends JpaRepository<FileUploadEntity, Long> {
 
   List<FileUploadEntity> findByUserIdOrderByCreatedAtDesc(Long userId);
 
+  List<FileUploadEntity> findByUserIdAndUploadStatusNotOrderByCreatedAtDesc(
+      Long userId, UploadStatus uploadStatus);
+
   Optional<FileUploadEntity> findByIdAndUserId(Long id, Long userId);
 
+  /**
+   * A user's upload, read with a shared lock so it cannot be hidden for deletion or claimed for
+   * processing until the current transaction ends
+   */
+  @Lock(LockModeType.PESSIMISTIC_READ)
+  Optional<FileUploadEntity> findForShareByIdAndUserId(Long id, Long userId);
+
   List<FileUploadEntity> findByUploadStatus(UploadStatus uploadStatus);
 
   List<FileUploadEntity> findByUserIdAndUploadStatus(Long userId, UploadStatus uploadStatus);
 
   List<FileUploadEntity> findByUploadStatusOrderByCreatedAtAsc(UploadStatus uploadStatus);
 
+  List<FileUploadEntity> findByUploadStatusOrderByCreatedAtAsc(
+      UploadStatus uploadStatus, Limit limit);
+
+  Optional<FileUploadEntity> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+  /** Earlier uploads of the same content by a user that were not rejected, oldest first */
+  @Query(
+      """
+      SELECT f FROM FileUploadEntity f
+      WHERE f.userId = :userId
+        AND f.contentSha256 = :contentSha256
+        AND f.id <> :excludeId
+        AND f.uploadStatus IN (
+            com.salesdata.platform.fileupload.enums.UploadStatus.PENDING,
+            com.salesdata.platform.fileupload.enums.UploadStatus.PROCESSING,
+            com.salesdata.platform.fileupload.enums.UploadStatus.COMPLETED)
+      ORDER BY f.createdAt ASC
+    """)
+  List<FileUploadEntity> findReusableUploads(
+      @Param("userId") Long userId,
+      @Param("contentSha256") String contentSha256,
+      @Param("excludeId") Long excludeId,
+      Limit limit);
+
   Long countByUserId(Long userId);
 
   Long countByUserIdAndUploadStatus(Long userId, UploadStatus uploadStatus);
@@ -44,9 +84,91 @@ public interface FileUploadRepository extends JpaRepository<FileUploadEntity, Lo
       )
       FROM FileUploadEntity f
       WHERE f.userId = :userId
+        AND f.uploadStatus <> com.salesdata.platform.fileupload.enums.UploadStatus.DELETING
     """)
   UserFileStats getUserFileStats(@Param("userId") Long userId);
 
   List<FileUploadEntity> findByUploadStatusAndCreatedAtBefore(
       UploadStatus uploadStatus, LocalDateTime timeout);
+
+  /**
+   * Atomically move a PENDING upload to PROCESSING so that only one worker picks it up
+   *
+   * @return 1 if the upload was claimed, 0 if it was no longer pending
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      UPDATE FileUploadEntity f
+      SET f.uploadStatus = com.salesdata.platform.fileupload.enums.UploadStatus.PROCESSING,
+          f.processingStartedAt = :startedAt,
+          f.processingHeartbeatAt = :startedAt
+      WHERE f.id = :id
+        AND f.uploadStatus = com.salesdata.platform.fileupload.enums.UploadStatus.PENDING
+    """)
+  int claimForProcessing(@Param("id") Long id, @Param("startedAt") LocalDateTime startedAt);
+
+  /**
+   * Hide an upload and hand it to the deletion job. Uploads being ingested cannot be deleted, and
+   * the status check makes this safe against a worker claiming the upload at the same time. An
+   * upload already being deleted is left alone, so its totals are only taken out once.
+   *
+   * @return 1 if the upload is now being deleted, 0 if it was not found, is being processed or is
+   *     already being deleted
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      UPDATE FileUploadEntity f
+      SET f.uploadStatus = com.salesdata.platform.fileupload.enums.UploadStatus.DELETING
+      WHERE f.id = :id
+        AND f.userId = :userId
+        AND f.uploadStatus <> com.salesdata.platform.fileupload.enums.UploadStatus.PROCESSING
+        AND f.uploadStatus <> com.salesdata.platform.fileupload.enums.UploadStatus.DELETING
+    """)
+  int markForDeletion(@Param("id") Long id, @Param("userId") Long userId);
+
+  /** Record that this node is still processing the uploads */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      UPDATE FileUploadEntity f
+      SET f.processingHeartbeatAt = :now
+      WHERE f.id IN :ids
+        AND f.uploadStatus = com.salesdata.platform.fileupload.enums.UploadStatus.PROCESSING
+    """)
+  int heartbeat(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+  /** Uploads whose processing node stopped sending heartbeats, e.g. it was shut down or crashed */
+  @Query(
+      """
+      SELECT f FROM FileUploadEntity f
+      WHERE f.uploadStatus = com.salesdata.platform.fileupload.enums.UploadStatus.PROCESSING
+        AND (f.processingHeartbeatAt IS NULL OR f.processingHeartbeatAt < :staleBefore)
+    """)
+  List<FileUploadEntity> findStaleUploads(@Param("staleBefore") LocalDateTime staleBefore);
+
+  /**
+   * Return the uploads to the queue if their processing node still has not sent a heartbeat. Claims
+   * held by live nodes are left alone.
+   *
+   * @return the number of uploads requeued
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      UPDATE FileUploadEntity f
+      SET f.uploadStatus = com.salesdata.platform.fileupload.enums.UploadStatus.PENDING,
+          f.processingStartedAt = NULL,
+          f.processingHeartbeatAt = NULL
+      WHERE f.id IN :ids
+        AND f.uploadStatus = com.salesdata.platform.fileupload.enums.UploadStatus.PROCESSING
+        AND (f.processingHeartbeatAt IS NULL OR f.processingHeartbeatAt < :staleBefore)
+    """)
+  int requeueStaleUploads(
+      @Param("ids") Collection<Long> ids, @Param("staleBefore") LocalDateTime staleBefore);
 }
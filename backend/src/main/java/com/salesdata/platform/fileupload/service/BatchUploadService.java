@@ -0,0 +1,145 @@
+package com.salesdata.platform.fileupload.service;
+
+import com.salesdata.platform.fileupload.dto.BatchUploadFileResult;
+import com.salesdata.platform.fileupload.dto.BatchUploadResult;
+import com.salesdata.platform.fileupload.dto.UploadResult;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Accepts many files in one request. Each file is validated, spooled and queued on its own virtual
+ * thread and in its own transaction, so one bad file does not affect the others. A semaphore shared
+ * by all batches bounds how many files are accepted at once, since each holds a database connection
+ * while it is spooled. It is kept below what the connection pool has left after the upload and
+ * deletion workers and some headroom for other requests, so a large batch cannot starve ingest.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchUploadService {
+
+  private final FileUploadService fileUploadService;
+
+  @Value("${file.upload.batch.max-files}")
+  private int maxFiles;
+
+  @Value("${file.upload.batch.max-concurrency}")
+  private int maxConcurrency;
+
+  @Value("${file.upload.batch.connection-headroom}")
+  private int connectionHeadroom;
+
+  @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+  private int connectionPoolSize;
+
+  @Value("${file.upload.worker.threads}")
+  private int workerThreads;
+
+  @Value("${file.upload.deletion.threads}")
+  private int deletionThreads;
+
+  private Semaphore permits;
+
+  @PostConstruct
+  void init() {
+    int spareConnections =
+        connectionPoolSize - workerThreads - deletionThreads - connectionHeadroom;
+    int concurrency = Math.max(1, Math.min(maxConcurrency, spareConnections));
+    if (spareConnections < 1) {
+      log.warn(
+          "Connection pool of {} leaves no connections for batch uploads after {} upload workers,"
+              + " {} deletion workers and headroom of {}; accepting one file at a time",
+          connectionPoolSize,
+          workerThreads,
+          deletionThreads,
+          connectionHeadroom);
+    }
+    permits = new Semaphore(concurrency, true);
+    log.info("Batch uploads accept at most {} files at a time", concurrency);
+  }
+
+  public BatchUploadResult uploadFiles(List<MultipartFile> files, Long userId) {
+    if (files == null || files.isEmpty()) {
+      throw new IllegalArgumentException("No files were uploaded");
+    }
+    if (files.size() > maxFiles) {
+      throw new IllegalArgumentException(
+          String.format("A batch can contain at most %d files", maxFiles));
+    }
+
+    log.info("Starting batch upload of {} files for user: {}", files.size(), userId);
+    long start = System.nanoTime();
+
+    List<Future<BatchUploadFileResult>> futures = new ArrayList<>(files.size());
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (MultipartFile file : files) {
+        futures.add(executor.submit(() -> uploadOne(file, userId)));
+      }
+    }
+
+    List<BatchUploadFileResult> results = new ArrayList<>(files.size());
+    for (int i = 0; i < futures.size(); i++) {
+      results.add(resultOf(futures.get(i), files.get(i).getOriginalFilename()));
+    }
+
+    long totalBytes = files.stream().mapToLong(MultipartFile::getSize).sum();
+    BatchUploadResult result =
+        new BatchUploadResult(
+            results, totalBytes, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+    log.info(
+        "Batch upload for user {}: {} accepted, {} duplicates, {} failed in {} ms ({} files/sec)",
+        userId,
+        result.acceptedCount(),
+        result.duplicateCount(),
+        result.failedCount(),
+        result.elapsedMillis(),
+        String.format("%.1f", result.filesPerSecond()));
+    return result;
+  }
+
+  private BatchUploadFileResult uploadOne(MultipartFile file, Long userId)
+      throws InterruptedException {
+    String fileName = file.getOriginalFilename();
+    permits.acquire();
+    try {
+      UploadResult result = fileUploadService.uploadFile(file, userId, null);
+      return BatchUploadFileResult.accepted(fileName, result);
+
+    } catch (IllegalArgumentException e) {
+      log.warn("Batch upload validation error for {}: {}", fileName, e.getMessage());
+      return BatchUploadFileResult.failed(fileName, e.getMessage());
+
+    } catch (Exception e) {
+      log.error("Unexpected error uploading {} in batch: {}", fileName, e.getMessage(), e);
+      return BatchUploadFileResult.failed(fileName, "Unexpected error occurred");
+
+    } finally {
+      permits.release();
+    }
+  }
+
+  private static BatchUploadFileResult resultOf(
+      Future<BatchUploadFileResult> future, String fileName) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return BatchUploadFileResult.failed(fileName, "Upload was interrupted");
+    } catch (ExecutionException e) {
+      return BatchUploadFileResult.failed(fileName, "Unexpected error occurred");
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package com.salesdata.platform.fileupload.service;
+
+import com.salesdata.platform.fileupload.dto.ChunkedUploadStatus;
+import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import com.salesdata.platform.fileupload.dto.InitiateChunkedUploadRequest;
+import com.salesdata.platform.fileupload.dto.UploadResult;
+import com.salesdata.platform.fileupload.enums.UploadStatus;
+import com.salesdata.platform.fileupload.repository.FileUploadRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Resumable upload protocol for files too large for a single multipart request. A client initiates
+ * an upload, PUTs numbered chunks in any order (retrying any that fail), and completes it. Chunks
+ * are written straight into the spool file the worker later parses, so the finished upload goes
+ * through the same queue as a single-request upload.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class ChunkedUploadService {
+
+  private final FileUploadRepository fileUploadRepository;
+  private final UploadSpoolService uploadSpoolService;
+  private final UploadJobQueue uploadJobQueue;
+  private final FileUploadService fileUploadService;
+
+  @Value("${file.upload.chunked.max-size}")
+  private long maxFileSize;
+
+  @Value("${file.upload.chunked.chunk-size}")
+  private int chunkSize;
+
+  @Value("${file.upload.chunked.expire-after-hours}")
+  private long expireAfterHours;
+
+  /** Start an upload; a retried request with the same idempotency key resumes the earlier one */
+  public ChunkedUploadStatus initiate(
+      InitiateChunkedUploadRequest request, Long userId, String idempotencyKey) throws IOException {
+    Optional<FileUploadEntity> previousRequest =
+        fileUploadService.findByIdempotencyKey(userId, idempotencyKey);
+    if (previousRequest.isPresent() && previousRequest.get().getChunkSize() != null) {
+      return toStatus(previousRequest.get());
+    }
+    if (previousRequest.isPresent()) {
+      throw new IllegalArgumentException("Idempotency key was already used for another upload");
+    }
+
+    FileUploadService.validateFilename(request.getFileName());
+    if (request.getFileSize() > maxFileSize) {
+      throw new IllegalArgumentException("File size exceeds maximum allowed size");
+    }
+
+    FileUploadEntity fileUploadEntity = new FileUploadEntity();
+    fileUploadEntity.setUserId(userId);
+    fileUploadEntity.setOriginalFilename(request.getFileName());
+    fileUploadEntity.setFileSize(request.getFileSize());
+    fileUploadEntity.setChunkSize(chunkSize);
+    fileUploadEntity.setIdempotencyKey(idempotencyKey);
+    fileUploadEntity.setUploadStatus(UploadStatus.UPLOADING);
+    fileUploadRepository.save(fileUploadEntity);
+
+    log.info(
+        "Chunked upload {} initiated for user: {} ({} bytes in {} chunks)",
+        fileUploadEntity.getId(),
+        userId,
+        fileUploadEntity.getFileSize(),
+        fileUploadEntity.getTotalChunks());
+
+    return toStatus(fileUploadEntity);
+  }
+
+  /**
+   * Store one chunk. Every chunk except the last must be exactly the upload's chunk size. No
+   * transaction is held while the body is streamed to disk.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ChunkedUploadStatus uploadChunk(Long fileId, Long userId, int chunkIndex, InputStream body)
+      throws IOException {
+    FileUploadEntity fileUploadEntity = findChunkedUpload(fileId, userId);
+    if (fileUploadEntity.getUploadStatus() != UploadStatus.UPLOADING) {
+      throw new IllegalStateException("Upload is no longer accepting chunks");
+    }
+
+    int totalChunks = fileUploadEntity.getTotalChunks();
+    if (chunkIndex < 0 || chunkIndex >= totalChunks) {
+      throw new IllegalArgumentException(
+          String.format("Chunk index must be between 0 and %d", totalChunks - 1));
+    }
+
+    long offset = (long) chunkIndex * fileUploadEntity.getChunkSize();
+    long length =
+        Math.min(fileUploadEntity.getChunkSize(), fileUploadEntity.getFileSize() - offset);
+
+    uploadSpoolService.writeChunk(fileId, offset, length, body);
+    uploadSpoolService.markChunkReceived(fileId, chunkIndex);
+
+    log.debug("Received chunk {}/{} for upload {}", chunkIndex + 1, totalChunks, fileId);
+    return toStatus(fileUploadEntity);
+  }
+
+  @Transactional(readOnly = true)
+  public Optional<ChunkedUploadStatus> getStatus(Long fileId, Long userId) throws IOException {
+    Optional<FileUploadEntity> fileUploadOpt =
+        fileUploadRepository.findByIdAndUserId(fileId, userId);
+    if (fileUploadOpt.isEmpty() || fileUploadOpt.get().getChunkSize() == null) {
+      return Optional.empty();
+    }
+    return Optional.of(toStatus(fileUploadOpt.get()));
+  }
+
+  /**
+   * Queue a fully received upload for processing. Completing an upload that was already completed
+   * returns it unchanged; if the user already uploaded the same content, this upload is discarded
+   * and the earlier one returned.
+   */
+  public UploadResult complete(Long fileId, Long userId) throws IOException {
+    FileUploadEntity fileUploadEntity = findChunkedUpload(fileId, userId);
+    if (fileUploadEntity.getUploadStatus() != UploadStatus.UPLOADING) {
+      return new UploadResult(fileUploadEntity, false);
+    }
+
+    ChunkedUploadStatus status = toStatus(fileUploadEntity);
+    if (!status.missingChunks().isEmpty()) {
+      throw new IllegalArgumentException(
+          String.format("Upload is missing %d chunks", status.missingChunks().size()));
+    }
+
+    long spooledSize = uploadSpoolService.size(fileId);
+    if (spooledSize != fileUploadEntity.getFileSize()) {
+      throw new IllegalStateException(
+          String.format(
+              "Spooled file is %d bytes, expected %d",
+              spooledSize, fileUploadEntity.getFileSize()));
+    }
+
+    String contentSha256 = uploadSpoolService.sha256(fileId);
+    Optional<FileUploadEntity> original =
+        fileUploadService.findReusableUpload(userId, contentSha256, fileId);
+    if (original.isPresent()) {
+      log.info(
+          "Chunked upload {} is identical to file upload {}, not ingesting it again",
+          fileId,
+          original.get().getId());
+      fileUploadRepository.delete(fileUploadEntity);
+      uploadSpoolService.delete(fileId);
+      return new UploadResult(original.get(), true);
+    }
+
+    fileUploadEntity.setContentSha256(contentSha256);
+    fileUploadEntity.setUploadStatus(UploadStatus.PENDING);
+    fileUploadRepository.save(fileUploadEntity);
+    uploadJobQueue.enqueueAfterCommit(fileId);
+
+    log.info("Chunked upload {} complete, queued for processing", fileId);
+    return new UploadResult(fileUploadEntity, false);
+  }
+
+  /** Fail uploads whose chunks stopped arriving, and reclaim their spool space */
+  @Scheduled(fixedDelayString = "${file.upload.chunked.expire-check-interval-ms}")
+  public void expireAbandonedUploads() {
+    try {
+      LocalDateTime cutoff = LocalDateTime.now().minusHours(expireAfterHours);
+      List<FileUploadEntity> abandoned =
+          fileUploadRepository.findByUploadStatusAndCreatedAtBefore(UploadStatus.UPLOADING, cutoff);
+
+      for (FileUploadEntity fileUploadEntity : abandoned) {
+        fileUploadEntity.markAsFailed("Upload expired before all chunks were received");
+        fileUploadRepository.save(fileUploadEntity);
+        uploadSpoolService.delete(fileUploadEntity.getId());
+        log.info("Expired abandoned chunked upload {}", fileUploadEntity.getId());
+      }
+    } catch (Exception e) {
+      log.error("Error expiring abandoned uploads: {}", e.getMessage());
+    }
+  }
+
+  private FileUploadEntity findChunkedUpload(Long fileId, Long userId) {
+    return fileUploadRepository
+        .findByIdAndUserId(fileId, userId)
+        .filter(fileUploadEntity -> fileUploadEntity.getChunkSize() != null)
+        .orElseThrow(() -> new IllegalArgumentException("Upload not found or access denied"));
+  }
+
+  private ChunkedUploadStatus toStatus(FileUploadEntity fileUploadEntity) throws IOException {
+    int totalChunks = fileUploadEntity.getTotalChunks();
+    List<Integer> missingChunks;
+    if (fileUploadEntity.getUploadStatus() == UploadStatus.UPLOADING) {
+      BitSet received = uploadSpoolService.receivedChunks(fileUploadEntity.getId(), totalChunks);
+      missingChunks = new ArrayList<>();
+      for (int i = received.nextClearBit(0); i < totalChunks; i = received.nextClearBit(i + 1)) {
+        missingChunks.add(i);
+      }
+    } else {
+      missingChunks = List.of();
+    }
+
+    return new ChunkedUploadStatus(
+        fileUploadEntity.getId(),
+        fileUploadEntity.getOriginalFilename(),
+        fileUploadEntity.getUploadStatus(),
+        fileUploadEntity.getFileSize(),
+        fileUploadEntity.getChunkSize(),
+        totalChunks,
+        totalChunks - missingChunks.size(),
+        missingChunks);
+  }
+}
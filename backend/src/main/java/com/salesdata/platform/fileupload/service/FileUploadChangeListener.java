@@ -0,0 +1,28 @@
+package com.salesdata.platform.fileupload.service;
+
+import com.salesdata.platform.cache.UserDataVersions;
+import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the upload's and its owner's {@link UserDataVersions} versions on whenever an upload is
+ * saved or removed through JPA, in the transaction that flushes it. Bulk JPQL updates bypass entity
+ * callbacks; their callers report the change themselves.
+ */
+@Component
+@RequiredArgsConstructor
+public class FileUploadChangeListener {
+
+  private final UserDataVersions userDataVersions;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  void changed(FileUploadEntity fileUploadEntity) {
+    userDataVersions.changedNow(fileUploadEntity.getUserId(), fileUploadEntity.getId());
+  }
+}
@@ -1,19 +1,36 @@
 package com.salesdata.platform.fileupload.service;
 
-import com.salesdata.platform.fileupload.dto.CSVProcessingResult;
+import com.salesdata.platform.cache.QueryResultCache;
+import com.salesdata.platform.cache.UserDataVersions;
+import com.salesdata.platform.fileupload.dto.DeletionProgress;
+import com.salesdata.platform.fileupload.dto.DeletionStats;
 import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import com.salesdata.platform.fileupload.dto.UploadProgress;
+import com.salesdata.platform.fileupload.dto.UploadQueueStats;
+import com.salesdata.platform.fileupload.dto.UploadResult;
 import com.salesdata.platform.fileupload.dto.UserFileStats;
+import com.salesdata.platform.fileupload.enums.UploadCompression;
+import com.salesdata.platform.fileupload.enums.UploadStatus;
 import com.salesdata.platform.fileupload.repository.FileUploadRepository;
-import com.salesdata.platform.salesdata.repository.SalesDataRepository;
-import com.salesdata.platform.util.CSVProcessor;
+import com.salesdata.platform.salesdata.dto.IngestWriteStats;
+import com.salesdata.platform.salesdata.service.SalesColumnarCache;
+import com.salesdata.platform.salesdata.service.SalesDataChunkWriter;
+import com.salesdata.platform.salesdata.service.SalesSummaryService;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Slf4j
 @Service
@@ -22,20 +39,50 @@ import org.springframework.web.multipart.MultipartFile;
 public class FileUploadService {
 
   private final FileUploadRepository fileUploadRepository;
-  private final SalesDataRepository salesDataRepository;
-
-  private final CSVProcessor csvProcessor;
+  private final UploadSpoolService uploadSpoolService;
+  private final UploadJobQueue uploadJobQueue;
+  private final SalesDataChunkWriter salesDataChunkWriter;
+  private final UploadProgressTracker uploadProgressTracker;
+  private final UploadErrorReportService uploadErrorReportService;
+  private final UploadDeletionService uploadDeletionService;
+  private final SalesSummaryService salesSummaryService;
+  private final SalesColumnarCache salesColumnarCache;
+  private final UserDataVersions userDataVersions;
+  private final QueryResultCache queryResultCache;
 
   @Value("${file.upload.max-size}")
   private long maxFileSize;
 
-  private static final List<String> ALLOWED_EXTENSIONS = List.of(".csv");
+  private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
   private static final List<String> ALLOWED_CONTENT_TYPES =
-      List.of("text/csv", "application/csv", "text/plain");
-
-  public FileUploadEntity uploadFile(MultipartFile file, Long userId) {
+      List.of(
+          "text/csv",
+          "application/csv",
+          "text/plain",
+          "application/gzip",
+          "application/x-gzip",
+          "application/zip",
+          "application/x-zip-compressed",
+          "application/octet-stream");
+
+  /**
+   * Accept an upload for asynchronous processing. The file is spooled to local storage and the
+   * upload record is left PENDING; a worker picks it up once this transaction commits.
+   *
+   * <p>A retried request with the same idempotency key, or a byte-identical copy of an upload the
+   * user already made, returns the earlier upload instead and nothing is ingested again.
+   */
+  @Transactional(rollbackFor = IOException.class)
+  public UploadResult uploadFile(MultipartFile file, Long userId, String idempotencyKey)
+      throws IOException {
     log.info("Starting file upload for user: {} with file: {}", userId, file.getOriginalFilename());
 
+    Optional<FileUploadEntity> previousRequest = findByIdempotencyKey(userId, idempotencyKey);
+    if (previousRequest.isPresent()) {
+      log.info("Repeated upload request for file upload {}", previousRequest.get().getId());
+      return new UploadResult(previousRequest.get(), true);
+    }
+
     // Validate file
     validateFile(file);
 
@@ -43,61 +90,198 @@ public class FileUploadService {
     FileUploadEntity fileUploadEntity = new FileUploadEntity();
     fileUploadEntity.setUserId(userId);
     fileUploadEntity.setOriginalFilename(file.getOriginalFilename());
+    fileUploadEntity.setFileSize(file.getSize());
+    fileUploadEntity.setIdempotencyKey(idempotencyKey);
+    fileUploadEntity.setUploadStatus(UploadStatus.PENDING);
+    fileUploadRepository.save(fileUploadEntity);
+
+    log.info("File upload record {} created for user: {}", fileUploadEntity.getId(), userId);
+
+    // Keep a copy for the worker, the multipart file is gone once the request completes
+    Long fileId = fileUploadEntity.getId();
+    deleteSpoolOnRollback(fileId);
+    String contentSha256 = uploadSpoolService.spool(fileId, file);
+
+    // The idempotency key stays with the upload that will actually be ingested
+    Optional<FileUploadEntity> original = findReusableUpload(userId, contentSha256, fileId);
+    if (original.isPresent()) {
+      log.info(
+          "File {} is identical to file upload {}, not ingesting it again",
+          file.getOriginalFilename(),
+          original.get().getId());
+      fileUploadRepository.delete(fileUploadEntity);
+      uploadSpoolService.delete(fileId);
+      return new UploadResult(original.get(), true);
+    }
 
-    log.info("File upload record created for user: {}", userId);
-
-    // Process CSV file directly from memory
-    processCSVFile(fileUploadEntity, file);
+    fileUploadEntity.setContentSha256(contentSha256);
+    uploadJobQueue.enqueueAfterCommit(fileId);
 
-    return fileUploadEntity;
+    return new UploadResult(fileUploadEntity, false);
   }
 
+  /** Upload previously created by a request with this idempotency key, if any */
   @Transactional(readOnly = true)
-  public List<FileUploadEntity> getUserFiles(Long userId) {
-    return fileUploadRepository.findByUserIdOrderByCreatedAtDesc(userId);
+  public Optional<FileUploadEntity> findByIdempotencyKey(Long userId, String idempotencyKey) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return Optional.empty();
+    }
+    if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+      throw new IllegalArgumentException("Idempotency key cannot be longer than 255 characters");
+    }
+    return fileUploadRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
   }
 
+  /** Earlier upload of the same content by this user that was not rejected, if any */
   @Transactional(readOnly = true)
-  public Optional<FileUploadEntity> getFileById(Long fileId, Long userId) {
-    return fileUploadRepository.findByIdAndUserId(fileId, userId);
+  public Optional<FileUploadEntity> findReusableUpload(
+      Long userId, String contentSha256, Long excludeFileId) {
+    return fileUploadRepository
+        .findReusableUploads(userId, contentSha256, excludeFileId, Limit.of(1))
+        .stream()
+        .findFirst();
   }
 
-  @Transactional(readOnly = true)
-  public UserFileStats getUserFileStatistics(Long userId) {
-    return fileUploadRepository.getUserFileStats(userId);
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public UploadQueueStats getQueueStats() {
+    return uploadJobQueue.getStats();
+  }
+
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public IngestWriteStats getIngestWriteStats() {
+    return salesDataChunkWriter.getStats();
+  }
+
+  /**
+   * The user's uploads, newest first, with uploads being ingested served from memory. Cached until
+   * the user's uploads change; runs without a transaction so that a cached list needs no
+   * connection.
+   */
+  @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+  public List<FileUploadEntity> getUserFiles(Long userId) {
+    return queryResultCache.get(
+        userId,
+        "files.list",
+        null,
+        () ->
+            fileUploadRepository
+                .findByUserIdAndUploadStatusNotOrderByCreatedAtDesc(userId, UploadStatus.DELETING)
+                .stream()
+                .map(
+                    fileUploadEntity ->
+                        uploadProgressTracker
+                            .getLiveUpload(fileUploadEntity.getId(), userId)
+                            .orElse(fileUploadEntity))
+                .toList());
   }
 
-  public void deleteFile(Long fileId, Long userId) {
-    Optional<FileUploadEntity> fileUploadOpt =
-        fileUploadRepository.findByIdAndUserId(fileId, userId);
+  /**
+   * Find an upload, serving uploads that are being ingested from memory. Runs without a transaction
+   * of its own so that the in-memory path does not touch the database.
+   */
+  @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+  public Optional<FileUploadEntity> getFileById(Long fileId, Long userId) {
+    Optional<FileUploadEntity> liveUpload = uploadProgressTracker.getLiveUpload(fileId, userId);
+    if (liveUpload.isPresent()) {
+      return liveUpload;
+    }
+    return fileUploadRepository
+        .findByIdAndUserId(fileId, userId)
+        .filter(fileUploadEntity -> fileUploadEntity.getUploadStatus() != UploadStatus.DELETING);
+  }
 
+  /**
+   * Open a server-sent event stream of progress for an upload. The current state is sent straight
+   * away, followed by an event per committed chunk; the stream closes once the upload finishes.
+   */
+  @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+  public Optional<SseEmitter> subscribeToProgress(Long fileId, Long userId) {
+    Optional<FileUploadEntity> fileUploadOpt = getFileById(fileId, userId);
     if (fileUploadOpt.isEmpty()) {
-      throw new IllegalArgumentException("File not found or access denied");
+      return Optional.empty();
     }
 
-    FileUploadEntity fileUploadEntity = fileUploadOpt.get();
+    if (fileUploadOpt.get().isProcessingComplete()) {
+      SseEmitter emitter = new SseEmitter();
+      uploadProgressTracker.sendCurrent(emitter, UploadProgress.of(fileUploadOpt.get(), 0));
+      return Optional.of(emitter);
+    }
 
-    log.info("Deleting file upload: {} for user: {}", fileId, userId);
+    // Subscribe before reading the state again, so a finish in between is not missed
+    SseEmitter emitter = uploadProgressTracker.subscribe(fileId);
+    UploadProgress current =
+        uploadProgressTracker
+            .getLiveProgress(fileId)
+            .or(
+                () ->
+                    fileUploadRepository
+                        .findByIdAndUserId(fileId, userId)
+                        .map(fileUploadEntity -> UploadProgress.of(fileUploadEntity, 0)))
+            .orElse(UploadProgress.of(fileUploadOpt.get(), 0));
+    uploadProgressTracker.sendCurrent(emitter, current);
+    return Optional.of(emitter);
+  }
 
-    // Delete associated sales records
-    int deletedRecords = salesDataRepository.deleteByFileUploadId(fileId);
-    log.info("Deleted {} sales records associated with file upload: {}", deletedRecords, fileId);
+  /** Upload counts of the user, cached until the user's uploads change */
+  @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+  public UserFileStats getUserFileStatistics(Long userId) {
+    return queryResultCache.get(
+        userId, "files.stats", null, () -> fileUploadRepository.getUserFileStats(userId));
+  }
 
-    // Delete file upload record
-    fileUploadRepository.delete(fileUploadEntity);
-    log.info("File upload record deleted: {}", fileId);
+  /**
+   * Delete an upload and its sales records. The upload is hidden straight away and its records are
+   * removed in the background; an upload that is still being ingested cannot be deleted.
+   *
+   * @return true if deletion started, false if the upload was already being deleted (e.g. a retried
+   *     request), in which case nothing is done
+   */
+  public boolean deleteFile(Long fileId, Long userId) {
+    if (fileUploadRepository.markForDeletion(fileId, userId) == 0) {
+      Optional<FileUploadEntity> fileUploadOpt =
+          fileUploadRepository.findByIdAndUserId(fileId, userId);
+      if (fileUploadOpt.isEmpty()) {
+        throw new IllegalArgumentException("File not found or access denied");
+      }
+      if (fileUploadOpt.get().getUploadStatus() == UploadStatus.DELETING) {
+        return false;
+      }
+      throw new IllegalStateException("File is still being processed, try again once it finishes");
+    }
+
+    salesSummaryService.removeFileUpload(userId, fileId);
+    userDataVersions.salesDataChanged(userId, fileId);
+    salesColumnarCache.uploadRemoved(userId, fileId);
+
+    log.info("File upload {} marked for deletion by user: {}", fileId, userId);
+    closeProgressAfterCommit(fileId);
+    uploadDeletionService.deleteAfterCommit(fileId, userId);
+    return true;
   }
 
   @Transactional(readOnly = true)
-  public String getProcessingStatus(Long fileId, Long userId) {
-    Optional<FileUploadEntity> fileUploadOpt =
-        fileUploadRepository.findByIdAndUserId(fileId, userId);
-    if (fileUploadOpt.isEmpty()) {
-      return "File not found";
+  public Optional<DeletionProgress> getDeletionProgress(Long fileId, Long userId) {
+    return uploadDeletionService.getProgress(fileId, userId);
+  }
+
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public DeletionStats getDeletionStats() {
+    return uploadDeletionService.getStats();
+  }
+
+  /** Report of every row rejected while ingesting the upload, if any were */
+  @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+  public Optional<Path> getErrorReport(Long fileId, Long userId) {
+    if (getFileById(fileId, userId).isEmpty()) {
+      return Optional.empty();
     }
+    return uploadErrorReportService.find(fileId);
+  }
 
-    FileUploadEntity fileUploadEntity = fileUploadOpt.get();
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public String getProcessingStatus(FileUploadEntity fileUploadEntity) {
     return switch (fileUploadEntity.getUploadStatus()) {
+      case UPLOADING -> "Receiving chunks";
       case PENDING -> "Pending processing";
       case PROCESSING ->
           String.format(
@@ -108,6 +292,7 @@ public class FileUploadService {
               "Completed: %d successful, %d failed",
               fileUploadEntity.getRecordsProcessed(), fileUploadEntity.getRecordsFailed());
       case FAILED -> "Failed: " + fileUploadEntity.getErrorMessage();
+      case DELETING -> "Deleting";
     };
   }
 
@@ -123,16 +308,7 @@ public class FileUploadService {
 
     // Check file extension
     String originalFilename = file.getOriginalFilename();
-    if (originalFilename == null || originalFilename.trim().isEmpty()) {
-      throw new IllegalArgumentException("Invalid filename");
-    }
-
-    String fileExtension = getFileExtension(originalFilename).toLowerCase();
-    if (!ALLOWED_EXTENSIONS.contains(fileExtension)) {
-      throw new IllegalArgumentException(
-          String.format(
-              "Invalid file type, Allowed types: %s", String.join(", ", ALLOWED_EXTENSIONS)));
-    }
+    validateFilename(originalFilename);
 
     // Check content type
     String contentType = file.getContentType();
@@ -142,76 +318,40 @@ public class FileUploadService {
     }
   }
 
-  private String getFileExtension(String filename) {
-    if (filename == null || filename.lastIndexOf('.') == -1) {
-      return "";
+  static void validateFilename(String originalFilename) throws IllegalArgumentException {
+    if (originalFilename == null || originalFilename.trim().isEmpty()) {
+      throw new IllegalArgumentException("Invalid filename");
     }
-    return filename.substring(filename.lastIndexOf('.'));
-  }
-
-  private void processCSVFile(FileUploadEntity fileUploadEntity, MultipartFile multipartFile) {
-    try {
-      log.info("Starting CSV processing for file upload: {}", fileUploadEntity.getId());
-
-      // Update status to processing
-      fileUploadEntity.markAsProcessing();
-      fileUploadRepository.save(fileUploadEntity);
-
-      // Process CSV directly from MultipartFile InputStream
-      CSVProcessingResult result =
-          csvProcessor.processCSVFile(
-              multipartFile.getInputStream(),
-              fileUploadEntity.getUserId(),
-              fileUploadEntity.getId());
-
-      // Update file upload with processing results
-      fileUploadEntity.setTotalRows(result.totalRows());
-      fileUploadEntity.setRecordsProcessed(result.getSuccessfulCount());
-      fileUploadEntity.setRecordsFailed(result.getFailedCount());
-
-      if (result.hasFatalError()) {
-        // Fatal error - mark as failed
-        fileUploadEntity.markAsFailed(result.fatalError());
-        log.error(
-            "CSV processing failed with fatal error for file {}: {}",
-            fileUploadEntity.getId(),
-            result.fatalError());
-
-      } else {
-        // Save successful records to database
-        if (!result.successfulRecords().isEmpty()) {
-          salesDataRepository.saveAll(result.successfulRecords());
-          log.info("Saved {} sales records to database", result.successfulRecords().size());
-        }
-
-        // Mark as completed (even if some records failed)
-        fileUploadEntity.markAsCompleted();
-
-        // Set error message if there were partial failures
-        if (result.hasErrors()) {
-          String errorSummary =
-              String.format(
-                  "%d records failed validation. First few errors: %s",
-                  result.getFailedCount(),
-                  String.join(
-                      "; ",
-                      result
-                          .errorMessages()
-                          .subList(0, Math.min(3, result.errorMessages().size()))));
-          fileUploadEntity.setErrorMessage(errorSummary);
-        }
-      }
 
-    } catch (Exception e) {
-      log.error(
-          "Unexpected error during CSV processing for file {}: {}",
-          fileUploadEntity.getId(),
-          e.getMessage(),
-          e);
-      fileUploadEntity.markAsFailed("Unexpected error during processing: " + e.getMessage());
-    } finally {
-      // Always save the final state
-      fileUploadRepository.save(fileUploadEntity);
+    if (UploadCompression.fromFilename(originalFilename).isEmpty()) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid file type, Allowed types: %s",
+              String.join(", ", UploadCompression.allowedExtensions())));
     }
   }
+
+  /** End the progress streams of an upload once its deletion is committed */
+  private void closeProgressAfterCommit(Long fileId) {
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            uploadProgressTracker.deleted(fileId);
+          }
+        });
+  }
+
+  /** Drop the spooled copy if the upload record is rolled back */
+  private void deleteSpoolOnRollback(Long fileId) {
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            if (status == STATUS_ROLLED_BACK) {
+              uploadSpoolService.delete(fileId);
+            }
+          }
+        });
+  }
 }
@@ -0,0 +1,207 @@
+package com.salesdata.platform.fileupload.service;
+
+import com.salesdata.platform.fileupload.dto.DeletionProgress;
+import com.salesdata.platform.fileupload.dto.DeletionStats;
+import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import com.salesdata.platform.fileupload.enums.UploadStatus;
+import com.salesdata.platform.fileupload.repository.FileUploadRepository;
+import com.salesdata.platform.salesdata.repository.SalesDataBulkRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Background job that removes uploads marked DELETING. Sales records are deleted in key-range
+ * chunks that each commit on their own, then the upload record and its local files are removed.
+ * Like the processing queue, the DELETING status is the durable queue: a poller picks up anything
+ * left over from a restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadDeletionService {
+
+  private final FileUploadRepository fileUploadRepository;
+  private final SalesDataBulkRepository salesDataBulkRepository;
+  private final UploadSpoolService uploadSpoolService;
+  private final UploadErrorReportService uploadErrorReportService;
+
+  @Value("${file.upload.deletion.threads}")
+  private int threadCount;
+
+  @Value("${file.upload.deletion.chunk-size}")
+  private int chunkSize;
+
+  @Value("${file.upload.deletion.progress-retention-ms}")
+  private long progressRetentionMillis;
+
+  private ThreadPoolExecutor executor;
+
+  // Uploads queued or being deleted on this node
+  private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+  // Immutable snapshots, replaced after every chunk; finished entries are kept for a while
+  private final Map<Long, DeletionProgress> progress = new ConcurrentHashMap<>();
+  private final Map<Long, Long> finishedAt = new ConcurrentHashMap<>();
+
+  private final AtomicLong uploadsDeleted = new AtomicLong();
+  private final AtomicLong rowsDeleted = new AtomicLong();
+  private final AtomicLong chunksDeleted = new AtomicLong();
+  private final AtomicLong deleteMillis = new AtomicLong();
+
+  @PostConstruct
+  void start() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    executor =
+        new ThreadPoolExecutor(
+            threadCount,
+            threadCount,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "upload-deleter-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    executor.shutdownNow();
+    executor.awaitTermination(30, TimeUnit.SECONDS);
+  }
+
+  /** Start deleting an upload once the transaction that marked it DELETING commits */
+  public void deleteAfterCommit(Long fileId, Long userId) {
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            submit(fileId, userId);
+          }
+        });
+  }
+
+  /** Resume deletions that were queued or interrupted when the application stopped */
+  @Scheduled(fixedDelayString = "${file.upload.deletion.poll-interval-ms}")
+  public void drainDeleting() {
+    long now = System.currentTimeMillis();
+    finishedAt
+        .entrySet()
+        .removeIf(
+            entry -> {
+              boolean expired = now - entry.getValue() > progressRetentionMillis;
+              if (expired) {
+                progress.remove(entry.getKey());
+              }
+              return expired;
+            });
+
+    try {
+      List<FileUploadEntity> deleting =
+          fileUploadRepository.findByUploadStatusOrderByCreatedAtAsc(
+              UploadStatus.DELETING, Limit.of(100));
+      deleting.forEach(upload -> submit(upload.getId(), upload.getUserId()));
+    } catch (Exception e) {
+      log.error("Error polling uploads to delete: {}", e.getMessage());
+    }
+  }
+
+  /** Progress of an upload's deletion, including uploads waiting for the job to reach them */
+  public Optional<DeletionProgress> getProgress(Long fileId, Long userId) {
+    DeletionProgress current = progress.get(fileId);
+    if (current != null) {
+      return current.userId().equals(userId) ? Optional.of(current) : Optional.empty();
+    }
+    return fileUploadRepository
+        .findByIdAndUserId(fileId, userId)
+        .filter(upload -> upload.getUploadStatus() == UploadStatus.DELETING)
+        .map(upload -> DeletionProgress.queued(fileId, userId));
+  }
+
+  public DeletionStats getStats() {
+    return new DeletionStats(
+        uploadsDeleted.get(),
+        rowsDeleted.get(),
+        chunksDeleted.get(),
+        deleteMillis.get(),
+        executor.getQueue().size());
+  }
+
+  private void submit(Long fileId, Long userId) {
+    if (!inFlight.add(fileId)) {
+      return;
+    }
+    progress.putIfAbsent(fileId, DeletionProgress.queued(fileId, userId));
+    executor.execute(() -> runDeletion(fileId, userId));
+  }
+
+  private void runDeletion(Long fileId, Long userId) {
+    long start = System.nanoTime();
+    long[] chunks = {0};
+    long[] rows = {0};
+
+    try {
+      salesDataBulkRepository.deleteByFileUploadId(
+          fileId,
+          chunkSize,
+          chunkDeleted -> {
+            chunks[0]++;
+            rows[0] += chunkDeleted;
+            chunksDeleted.incrementAndGet();
+            rowsDeleted.addAndGet(chunkDeleted);
+            progress.put(
+                fileId,
+                new DeletionProgress(
+                    fileId, userId, rows[0], chunks[0], elapsedMillis(start), false));
+          });
+
+      fileUploadRepository.deleteById(fileId);
+      uploadSpoolService.delete(fileId);
+      uploadErrorReportService.delete(fileId);
+
+      long elapsedMillis = elapsedMillis(start);
+      uploadsDeleted.incrementAndGet();
+      deleteMillis.addAndGet(elapsedMillis);
+      progress.put(
+          fileId, new DeletionProgress(fileId, userId, rows[0], chunks[0], elapsedMillis, true));
+      finishedAt.put(fileId, System.currentTimeMillis());
+
+      log.info(
+          "Deleted file upload {} and {} sales records in {} chunks in {} ms",
+          fileId,
+          rows[0],
+          chunks[0],
+          elapsedMillis);
+
+    } catch (Exception e) {
+      // The upload stays DELETING and hidden; the poller retries it
+      log.error("Error deleting file upload {}: {}", fileId, e.getMessage(), e);
+    } finally {
+      inFlight.remove(fileId);
+    }
+  }
+
+  private static long elapsedMillis(long startNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+}
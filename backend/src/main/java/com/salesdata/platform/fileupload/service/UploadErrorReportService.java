@@ -0,0 +1,58 @@
+package com.salesdata.platform.fileupload.service;
+
+import com.salesdata.platform.util.IngestErrorCollector;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/** Per-upload CSV reports listing every row rejected during ingest */
+@Slf4j
+@Service
+public class UploadErrorReportService {
+
+  private static final String REPORT_SUFFIX = ".errors.csv";
+
+  @Value("${file.upload.errors.report-dir}")
+  private String reportDir;
+
+  @Value("${file.upload.errors.examples-per-category}")
+  private int examplesPerCategory;
+
+  private Path reportPath;
+
+  @PostConstruct
+  void init() throws IOException {
+    reportPath = Paths.get(reportDir).toAbsolutePath();
+    Files.createDirectories(reportPath);
+    log.info("Upload error report directory: {}", reportPath);
+  }
+
+  /** Start collecting errors for an ingest, replacing the report of any earlier attempt */
+  public IngestErrorCollector openCollector(Long fileId) {
+    delete(fileId);
+    return new IngestErrorCollector(fileId, examplesPerCategory, pathFor(fileId));
+  }
+
+  public Optional<Path> find(Long fileId) {
+    Path path = pathFor(fileId);
+    return Files.exists(path) ? Optional.of(path) : Optional.empty();
+  }
+
+  public void delete(Long fileId) {
+    try {
+      Files.deleteIfExists(pathFor(fileId));
+    } catch (IOException e) {
+      log.warn("Could not delete error report for upload {}: {}", fileId, e.getMessage());
+    }
+  }
+
+  private Path pathFor(Long fileId) {
+    return reportPath.resolve(fileId + REPORT_SUFFIX);
+  }
+}
@@ -0,0 +1,256 @@
+package com.salesdata.platform.fileupload.service;
+
+import com.salesdata.platform.cache.UserDataVersions;
+import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import com.salesdata.platform.fileupload.dto.UploadQueueStats;
+import com.salesdata.platform.fileupload.enums.UploadStatus;
+import com.salesdata.platform.fileupload.repository.FileUploadRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded worker pool that drains PENDING uploads. The file_uploads table is the durable queue:
+ * uploads are enqueued directly after commit for low latency, and a poller picks up anything the
+ * pool could not accept (full queue, restart) in creation order.
+ *
+ * <p>Several nodes may share the table. Each node heartbeats the uploads it is processing, and
+ * PROCESSING uploads whose heartbeat is older than the claim lease are requeued, since the node
+ * that claimed them is gone.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadJobQueue {
+
+  private final FileUploadRepository fileUploadRepository;
+  private final UploadProcessingService uploadProcessingService;
+  private final UserDataVersions userDataVersions;
+
+  @Value("${file.upload.worker.threads}")
+  private int workerCount;
+
+  @Value("${file.upload.worker.queue-capacity}")
+  private int queueCapacity;
+
+  @Value("${file.upload.worker.claim-lease-ms}")
+  private long claimLeaseMillis;
+
+  private ThreadPoolExecutor executor;
+
+  // Uploads queued or running on this node, so the poller does not submit them twice
+  private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+  // Uploads a worker of this node has picked up, whose claims this node keeps alive
+  private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong jobsCompleted = new AtomicLong();
+  private final AtomicLong jobsFailed = new AtomicLong();
+  private final AtomicLong lastJobMillis = new AtomicLong();
+  private final AtomicLong maxJobMillis = new AtomicLong();
+  private final AtomicLong totalJobMillis = new AtomicLong();
+  private final AtomicLong totalQueueWaitMillis = new AtomicLong();
+
+  @PostConstruct
+  void start() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    executor =
+        new ThreadPoolExecutor(
+            workerCount,
+            workerCount,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "upload-worker-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+    requeueStaleUploads();
+
+    log.info(
+        "Upload worker pool started: {} workers, queue capacity {}", workerCount, queueCapacity);
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    executor.shutdown();
+    if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Submit an upload to the worker pool
+   *
+   * @return false if the pool is full; the upload stays PENDING and is picked up by the poller
+   */
+  public boolean enqueue(Long fileId) {
+    if (!inFlight.add(fileId)) {
+      return true;
+    }
+
+    try {
+      executor.execute(() -> runJob(fileId));
+      log.debug("Queued file upload {} (queue depth {})", fileId, executor.getQueue().size());
+      return true;
+    } catch (RejectedExecutionException e) {
+      inFlight.remove(fileId);
+      log.info("Upload queue full, file upload {} will be picked up later", fileId);
+      return false;
+    }
+  }
+
+  /** Submit an upload once the current transaction commits, so workers never see it uncommitted */
+  public void enqueueAfterCommit(Long fileId) {
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            enqueue(fileId);
+          }
+        });
+  }
+
+  /**
+   * Keep this node's claims alive and requeue claims of nodes that stopped. Uploads this node was
+   * processing before a restart are requeued once their lease runs out.
+   */
+  @Scheduled(
+      initialDelayString = "${file.upload.worker.heartbeat-interval-ms}",
+      fixedDelayString = "${file.upload.worker.heartbeat-interval-ms}")
+  public void heartbeat() {
+    try {
+      if (!running.isEmpty()) {
+        fileUploadRepository.heartbeat(List.copyOf(running), LocalDateTime.now());
+      }
+    } catch (Exception e) {
+      log.error("Could not record upload heartbeat: {}", e.getMessage());
+    }
+    requeueStaleUploads();
+  }
+
+  private void requeueStaleUploads() {
+    try {
+      LocalDateTime staleBefore = LocalDateTime.now().minus(Duration.ofMillis(claimLeaseMillis));
+      List<FileUploadEntity> stale = fileUploadRepository.findStaleUploads(staleBefore);
+      if (stale.isEmpty()) {
+        return;
+      }
+      // Only uploads found stale are requeued, so every upload requeued has its versions moved on
+      int requeued =
+          fileUploadRepository.requeueStaleUploads(
+              stale.stream().map(FileUploadEntity::getId).toList(), staleBefore);
+      stale.forEach(upload -> userDataVersions.changed(upload.getUserId(), upload.getId()));
+      if (requeued > 0) {
+        log.warn("Re-queued {} uploads whose processing node stopped", requeued);
+      }
+    } catch (Exception e) {
+      log.error("Could not re-queue stale uploads: {}", e.getMessage());
+    }
+  }
+
+  /** Drain PENDING uploads, oldest first, into whatever capacity the pool has left */
+  @Scheduled(fixedDelayString = "${file.upload.worker.poll-interval-ms}")
+  public void drainPending() {
+    int capacity = executor.getQueue().remainingCapacity();
+    if (capacity == 0) {
+      return;
+    }
+
+    try {
+      List<FileUploadEntity> pending =
+          fileUploadRepository.findByUploadStatusOrderByCreatedAtAsc(
+              UploadStatus.PENDING, Limit.of(capacity + inFlight.size()));
+
+      for (FileUploadEntity upload : pending) {
+        if (!inFlight.contains(upload.getId()) && !enqueue(upload.getId())) {
+          break;
+        }
+      }
+    } catch (Exception e) {
+      log.error("Error polling pending uploads: {}", e.getMessage());
+    }
+  }
+
+  public UploadQueueStats getStats() {
+    return new UploadQueueStats(
+        workerCount,
+        executor.getActiveCount(),
+        queueCapacity,
+        executor.getQueue().size(),
+        jobsCompleted.get(),
+        jobsFailed.get(),
+        lastJobMillis.get(),
+        maxJobMillis.get(),
+        totalJobMillis.get(),
+        totalQueueWaitMillis.get());
+  }
+
+  private void runJob(Long fileId) {
+    long start = System.nanoTime();
+    running.add(fileId);
+    try {
+      Optional<FileUploadEntity> result = uploadProcessingService.process(fileId);
+      if (result.isEmpty()) {
+        return;
+      }
+
+      FileUploadEntity upload = result.get();
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      recordTimings(upload, elapsedMillis);
+
+      log.info(
+          "File upload {} finished as {} in {} ms (waited {} ms in queue)",
+          fileId,
+          upload.getUploadStatus(),
+          elapsedMillis,
+          upload.getQueueWaitMillis());
+
+    } catch (Exception e) {
+      jobsFailed.incrementAndGet();
+      log.error("Upload worker failed for file upload {}: {}", fileId, e.getMessage(), e);
+    } finally {
+      running.remove(fileId);
+      inFlight.remove(fileId);
+    }
+  }
+
+  private void recordTimings(FileUploadEntity upload, long elapsedMillis) {
+    if (upload.getUploadStatus() == UploadStatus.COMPLETED) {
+      jobsCompleted.incrementAndGet();
+    } else {
+      jobsFailed.incrementAndGet();
+    }
+    lastJobMillis.set(elapsedMillis);
+    maxJobMillis.accumulateAndGet(elapsedMillis, Math::max);
+    totalJobMillis.addAndGet(elapsedMillis);
+
+    Long queueWaitMillis = upload.getQueueWaitMillis();
+    if (queueWaitMillis != null) {
+      totalQueueWaitMillis.addAndGet(queueWaitMillis);
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package com.salesdata.platform.fileupload.service;
+
+import com.salesdata.platform.fileupload.dto.CSVStreamingResult;
+import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import com.salesdata.platform.fileupload.enums.UploadCompression;
+import com.salesdata.platform.fileupload.repository.FileUploadRepository;
+import com.salesdata.platform.salesdata.repository.SalesDataRepository;
+import com.salesdata.platform.salesdata.service.SalesColumnarCache;
+import com.salesdata.platform.salesdata.service.SalesDataChunkWriter;
+import com.salesdata.platform.salesdata.service.SalesDimensionDictionary;
+import com.salesdata.platform.salesdata.service.SalesDistinctService;
+import com.salesdata.platform.salesdata.service.SalesQuantileService;
+import com.salesdata.platform.salesdata.service.SalesSketchService;
+import com.salesdata.platform.util.CSVProcessor;
+import com.salesdata.platform.util.IngestErrorCollector;
+import com.salesdata.platform.util.SalesDistinctCounters;
+import com.salesdata.platform.util.SalesHeavyHitters;
+import com.salesdata.platform.util.SalesQuantileSketches;
+import com.salesdata.platform.util.UploadStatisticsCollector;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Processes a single queued upload on a worker thread. Deliberately not @Transactional: the job
+ * runs outside the HTTP request, and each repository call commits on its own so that status changes
+ * are visible while the file is being ingested.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadProcessingService {
+
+  private final FileUploadRepository fileUploadRepository;
+  private final SalesDataRepository salesDataRepository;
+  private final UploadSpoolService uploadSpoolService;
+  private final UploadProgressTracker uploadProgressTracker;
+  private final UploadErrorReportService uploadErrorReportService;
+
+  private final SalesDataChunkWriter salesDataChunkWriter;
+  private final SalesDimensionDictionary salesDimensionDictionary;
+  private final SalesSketchService salesSketchService;
+  private final SalesDistinctService salesDistinctService;
+  private final SalesQuantileService salesQuantileService;
+  private final SalesColumnarCache salesColumnarCache;
+
+  private final CSVProcessor csvProcessor;
+
+  @Value("${file.upload.ingest.chunk-size}")
+  private int chunkSize;
+
+  /**
+   * Claim and process a pending upload
+   *
+   * @return the final state of the upload, or empty if another worker already claimed it
+   */
+  public Optional<FileUploadEntity> process(Long fileId) {
+    if (fileUploadRepository.claimForProcessing(fileId, LocalDateTime.now()) == 0) {
+      log.debug("File upload {} is no longer pending, skipping", fileId);
+      return Optional.empty();
+    }
+
+    Optional<FileUploadEntity> fileUploadOpt = fileUploadRepository.findById(fileId);
+    if (fileUploadOpt.isEmpty()) {
+      log.warn("File upload {} was deleted before processing", fileId);
+      uploadSpoolService.delete(fileId);
+      return Optional.empty();
+    }
+
+    FileUploadEntity fileUploadEntity = fileUploadOpt.get();
+    uploadProgressTracker.started(fileUploadEntity);
+    processCSVFile(fileUploadEntity);
+    uploadProgressTracker.finished(fileUploadEntity);
+    uploadSpoolService.delete(fileId);
+
+    return Optional.of(fileUploadEntity);
+  }
+
+  private void processCSVFile(FileUploadEntity fileUploadEntity) {
+    Long fileId = fileUploadEntity.getId();
+    SalesHeavyHitters sketches = null;
+    SalesDistinctCounters distinctCounters = null;
+    SalesQuantileSketches quantileSketches = null;
+    try {
+      log.info("Starting CSV processing for file upload: {}", fileId);
+
+      // A restart mid-ingest leaves committed chunks behind; start over from a clean slate
+      if (salesDataRepository.existsByFileUploadId(fileId)) {
+        long discarded =
+            salesDataChunkWriter.discardFileUploadRecords(fileUploadEntity.getUserId(), fileId);
+        log.warn("Discarded {} records from an interrupted ingest of file {}", discarded, fileId);
+      }
+
+      // Stream the spooled upload (in parallel if large), committing one chunk of records per
+      // transaction and counting committed chunks into the upload's top-N sketches,
+      // distinct-count registers, quantile sketches and statistics
+      SalesHeavyHitters uploadSketches = salesSketchService.newUploadSketches();
+      SalesDistinctCounters uploadCounters = salesDistinctService.newUploadCounters();
+      SalesQuantileSketches uploadQuantiles = salesQuantileService.newUploadSketches();
+      UploadStatisticsCollector uploadStatistics = new UploadStatisticsCollector();
+      long start = System.nanoTime();
+      CSVStreamingResult result;
+      try (IngestErrorCollector errorCollector = uploadErrorReportService.openCollector(fileId)) {
+        result =
+            csvProcessor.streamCSVFile(
+                uploadSpoolService.pathFor(fileId),
+                UploadCompression.fromFilename(fileUploadEntity.getOriginalFilename())
+                    .orElse(UploadCompression.NONE),
+                fileUploadEntity.getUserId(),
+                fileId,
+                chunkSize,
+                chunk -> {
+                  salesDimensionDictionary.encode(chunk);
+                  salesDataChunkWriter.writeChunk(chunk);
+                  uploadSketches.addAll(chunk);
+                  uploadCounters.addAll(chunk);
+                  uploadQuantiles.addAll(chunk);
+                  uploadStatistics.addAll(chunk);
+                },
+                errorCollector,
+                (recordsWritten, recordsFailed) ->
+                    uploadProgressTracker.chunkWritten(fileId, recordsWritten, recordsFailed));
+      }
+      logThroughput(fileId, result.successfulCount(), System.nanoTime() - start);
+      sketches = uploadSketches;
+      distinctCounters = uploadCounters;
+      quantileSketches = uploadQuantiles;
+
+      // Update file upload with processing results
+      fileUploadEntity.setTotalRows(result.totalRows());
+      fileUploadEntity.setRecordsProcessed(result.successfulCount());
+      fileUploadEntity.setRecordsFailed(result.failedCount());
+      fileUploadEntity.setStatistics(uploadStatistics.toStatistics());
+
+      if (result.hasFatalError()) {
+        // Fatal error - mark as failed, chunks committed so far stay with the upload
+        fileUploadEntity.markAsFailed(
+            String.format(
+                "%s (%d records were saved before the failure)",
+                result.fatalError(), result.successfulCount()));
+        log.error(
+            "CSV processing failed with fatal error for file {}: {}", fileId, result.fatalError());
+
+      } else {
+        log.info(
+            "Saved {} sales records to database in {} chunks",
+            result.successfulCount(),
+            result.chunksWritten());
+
+        // Mark as completed (even if some records failed)
+        fileUploadEntity.markAsCompleted();
+
+        // Set error message if there were partial failures; the full list is in the error report
+        if (result.hasErrors()) {
+          fileUploadEntity.setErrorMessage(result.errorReport().summary());
+        }
+      }
+
+    } catch (Exception e) {
+      log.error(
+          "Unexpected error during CSV processing for file {}: {}", fileId, e.getMessage(), e);
+      fileUploadEntity.markAsFailed("Unexpected error during processing: " + e.getMessage());
+    } finally {
+      // Always save the final state
+      fileUploadRepository.save(fileUploadEntity);
+    }
+
+    // Saved once the upload is visible so that the user's merged sketches pick it up. After an
+    // unexpected error the sketches are incomplete; they are rebuilt from the table when first read
+    if (sketches != null) {
+      try {
+        salesSketchService.saveUploadSketches(fileUploadEntity.getUserId(), fileId, sketches);
+        salesDistinctService.saveUploadCounters(
+            fileUploadEntity.getUserId(), fileId, distinctCounters);
+        salesQuantileService.saveUploadSketches(
+            fileUploadEntity.getUserId(), fileId, quantileSketches);
+      } catch (Exception e) {
+        log.warn("Could not save sketches for file {}: {}", fileId, e.getMessage());
+      }
+    }
+    salesColumnarCache.uploadAdded(fileUploadEntity.getUserId(), fileId);
+  }
+
+  private void logThroughput(Long fileId, int recordsWritten, long elapsedNanos) {
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    double rowsPerSecond = elapsedMillis == 0 ? 0.0 : recordsWritten * 1000.0 / elapsedMillis;
+    log.info(
+        "Ingested {} records for file {} in {} ms ({} rows/sec, {} writer)",
+        recordsWritten,
+        fileId,
+        elapsedMillis,
+        String.format("%.0f", rowsPerSecond),
+        salesDataChunkWriter.getWriteMode());
+  }
+}
@@ -0,0 +1,158 @@
+package com.salesdata.platform.fileupload.service;
+
+import com.salesdata.platform.cache.UserDataVersions;
+import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import com.salesdata.platform.fileupload.dto.UploadProgress;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * In-memory progress of uploads being ingested on this node. Workers update it after every chunk
+ * instead of writing counters to the database; status reads for in-flight uploads are answered from
+ * here, and subscribers get each update pushed over server-sent events.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadProgressTracker {
+
+  private static final String PROGRESS_EVENT = "progress";
+
+  private final UserDataVersions userDataVersions;
+
+  @Value("${file.upload.progress.sse-timeout-ms}")
+  private long sseTimeoutMillis;
+
+  // Immutable snapshots, replaced on every update
+  private final Map<Long, LiveUpload> liveUploads = new ConcurrentHashMap<>();
+  private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+  private record LiveUpload(FileUploadEntity snapshot, int chunksWritten) {}
+
+  public void started(FileUploadEntity fileUploadEntity) {
+    publish(new LiveUpload(fileUploadEntity.copy(), 0));
+  }
+
+  public void chunkWritten(Long fileId, int recordsProcessed, int recordsFailed) {
+    LiveUpload current = liveUploads.get(fileId);
+    if (current == null) {
+      return;
+    }
+
+    FileUploadEntity snapshot = current.snapshot().copy();
+    snapshot.setRecordsProcessed(recordsProcessed);
+    snapshot.setRecordsFailed(recordsFailed);
+    snapshot.setTotalRows(recordsProcessed + recordsFailed);
+    publish(new LiveUpload(snapshot, current.chunksWritten() + 1));
+  }
+
+  /** Push the final state, which is already saved, and close every subscription */
+  public void finished(FileUploadEntity fileUploadEntity) {
+    Long fileId = fileUploadEntity.getId();
+    LiveUpload last = liveUploads.remove(fileId);
+    // File listings served the live snapshot until now
+    userDataVersions.changed(fileUploadEntity.getUserId(), fileId);
+    UploadProgress progress =
+        UploadProgress.of(fileUploadEntity, last == null ? 0 : last.chunksWritten());
+
+    List<SseEmitter> emitters = subscribers.remove(fileId);
+    if (emitters != null) {
+      emitters.forEach(emitter -> sendAndComplete(emitter, progress));
+    }
+  }
+
+  /** Close every subscription of an upload that is being deleted; no further progress follows */
+  public void deleted(Long fileId) {
+    liveUploads.remove(fileId);
+    List<SseEmitter> emitters = subscribers.remove(fileId);
+    if (emitters != null) {
+      emitters.forEach(SseEmitter::complete);
+    }
+  }
+
+  public Optional<FileUploadEntity> getLiveUpload(Long fileId, Long userId) {
+    return Optional.ofNullable(liveUploads.get(fileId))
+        .map(LiveUpload::snapshot)
+        .filter(snapshot -> snapshot.getUserId().equals(userId));
+  }
+
+  public Optional<UploadProgress> getLiveProgress(Long fileId) {
+    return Optional.ofNullable(liveUploads.get(fileId))
+        .map(live -> UploadProgress.of(live.snapshot(), live.chunksWritten()));
+  }
+
+  /** Register for progress of an upload; the caller must already have checked ownership */
+  public SseEmitter subscribe(Long fileId) {
+    SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+    // Added and removed under the map's lock, so a list dropped by the last subscriber leaving is
+    // never added to afterwards
+    subscribers.compute(
+        fileId,
+        (id, emitters) -> {
+          List<SseEmitter> list = emitters != null ? emitters : new CopyOnWriteArrayList<>();
+          list.add(emitter);
+          return list;
+        });
+
+    // The last subscriber to leave drops the list, so uploads that never finish on this node
+    // (processed elsewhere, or deleted before they were picked up) do not keep an entry
+    Runnable unsubscribe =
+        () ->
+            subscribers.computeIfPresent(
+                fileId,
+                (id, emitters) -> {
+                  emitters.remove(emitter);
+                  return emitters.isEmpty() ? null : emitters;
+                });
+    emitter.onCompletion(unsubscribe);
+    emitter.onTimeout(unsubscribe);
+    emitter.onError(error -> unsubscribe.run());
+    return emitter;
+  }
+
+  /** Send the current state to a new subscriber, closing it if the upload is already finished */
+  public void sendCurrent(SseEmitter emitter, UploadProgress progress) {
+    if (progress.isFinished()) {
+      sendAndComplete(emitter, progress);
+    } else {
+      send(emitter, progress);
+    }
+  }
+
+  private void publish(LiveUpload live) {
+    Long fileId = live.snapshot().getId();
+    liveUploads.put(fileId, live);
+    userDataVersions.changed(live.snapshot().getUserId(), fileId);
+
+    List<SseEmitter> emitters = subscribers.get(fileId);
+    if (emitters != null && !emitters.isEmpty()) {
+      UploadProgress progress = UploadProgress.of(live.snapshot(), live.chunksWritten());
+      emitters.forEach(emitter -> send(emitter, progress));
+    }
+  }
+
+  private void send(SseEmitter emitter, UploadProgress progress) {
+    try {
+      emitter.send(SseEmitter.event().name(PROGRESS_EVENT).data(progress));
+    } catch (IOException | IllegalStateException e) {
+      // Client went away; the emitter's callbacks remove it
+      log.debug(
+          "Dropping progress subscriber for upload {}: {}", progress.fileId(), e.getMessage());
+      emitter.completeWithError(e);
+    }
+  }
+
+  private void sendAndComplete(SseEmitter emitter, UploadProgress progress) {
+    send(emitter, progress);
+    emitter.complete();
+  }
+}
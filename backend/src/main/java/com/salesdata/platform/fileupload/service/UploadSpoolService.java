@@ -0,0 +1,180 @@
+package com.salesdata.platform.fileupload.service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.HexFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Local spool for uploaded files waiting to be processed. The request thread only copies the upload
+ * here; workers read it back later, so the file survives until processing finishes.
+ */
+@Slf4j
+@Service
+public class UploadSpoolService {
+
+  private static final String SPOOL_SUFFIX = ".upload";
+  private static final String CHUNK_MARKER_SUFFIX = ".chunks";
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  @Value("${file.upload.spool-dir}")
+  private String spoolDir;
+
+  private Path spoolPath;
+
+  @PostConstruct
+  void init() throws IOException {
+    spoolPath = Paths.get(spoolDir).toAbsolutePath();
+    Files.createDirectories(spoolPath);
+    log.info("Upload spool directory: {}", spoolPath);
+  }
+
+  /**
+   * Copy an upload into the spool, hashing it on the way through
+   *
+   * @return hex SHA-256 of the file
+   */
+  public String spool(Long fileId, MultipartFile file) throws IOException {
+    Path target = pathFor(fileId);
+    MessageDigest digest = newSha256();
+    try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+      Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+    log.debug("Spooled {} bytes for file upload {}", Files.size(target), fileId);
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /** Hex SHA-256 of a spooled file, read sequentially through a file channel */
+  public String sha256(Long fileId) throws IOException {
+    MessageDigest digest = newSha256();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+    try (FileChannel channel = FileChannel.open(pathFor(fileId), StandardOpenOption.READ)) {
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * Write one chunk of a chunked upload at its offset in the spool file. Chunks may arrive in any
+   * order, and writing the same chunk again overwrites it in place, so retries are idempotent.
+   *
+   * @throws IllegalArgumentException if the body is not exactly {@code length} bytes
+   */
+  public void writeChunk(Long fileId, long offset, long length, InputStream body)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+    long written = 0;
+
+    try (FileChannel channel =
+            FileChannel.open(pathFor(fileId), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        ReadableByteChannel source = Channels.newChannel(body)) {
+
+      while (written < length) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), length - written));
+        if (source.read(buffer) < 0) {
+          break;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          written += channel.write(buffer, offset + written);
+        }
+      }
+
+      if (written < length) {
+        throw new IllegalArgumentException(
+            String.format("Incomplete chunk: received %d of %d bytes", written, length));
+      }
+      if (body.read() != -1) {
+        throw new IllegalArgumentException(
+            String.format("Chunk is larger than the expected %d bytes", length));
+      }
+      channel.force(false);
+    }
+  }
+
+  /** Record that a chunk has been fully written; one byte per chunk, so this is idempotent too */
+  public void markChunkReceived(Long fileId, int chunkIndex) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(
+            chunkMarkerPathFor(fileId), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {1}), chunkIndex);
+      channel.force(false);
+    }
+  }
+
+  public BitSet receivedChunks(Long fileId, int totalChunks) throws IOException {
+    BitSet received = new BitSet(totalChunks);
+    Path markerPath = chunkMarkerPathFor(fileId);
+    if (!Files.exists(markerPath)) {
+      return received;
+    }
+
+    byte[] markers = Files.readAllBytes(markerPath);
+    for (int i = 0; i < Math.min(markers.length, totalChunks); i++) {
+      if (markers[i] != 0) {
+        received.set(i);
+      }
+    }
+    return received;
+  }
+
+  public long size(Long fileId) throws IOException {
+    Path path = pathFor(fileId);
+    return Files.exists(path) ? Files.size(path) : 0L;
+  }
+
+  public boolean exists(Long fileId) {
+    return Files.exists(pathFor(fileId));
+  }
+
+  public InputStream open(Long fileId) throws IOException {
+    return Files.newInputStream(pathFor(fileId));
+  }
+
+  public void delete(Long fileId) {
+    try {
+      Files.deleteIfExists(pathFor(fileId));
+      Files.deleteIfExists(chunkMarkerPathFor(fileId));
+    } catch (IOException e) {
+      log.warn("Could not delete spooled file for upload {}: {}", fileId, e.getMessage());
+    }
+  }
+
+  public Path pathFor(Long fileId) {
+    return spoolPath.resolve(fileId + SPOOL_SUFFIX);
+  }
+
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private Path chunkMarkerPathFor(Long fileId) {
+    return spoolPath.resolve(fileId + CHUNK_MARKER_SUFFIX);
+  }
+}
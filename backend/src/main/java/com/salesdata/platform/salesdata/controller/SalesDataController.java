@@ -1,23 +1,55 @@
 package com.salesdata.platform.salesdata.controller;
 
+import com.salesdata.platform.auth.dto.CustomUserDetails;
 import com.salesdata.platform.auth.service.UserService;
+import com.salesdata.platform.cache.DataETags;
 import com.salesdata.platform.entity.UserEntity;
 import com.salesdata.platform.salesdata.dto.CreateSalesDataRequest;
+import com.salesdata.platform.salesdata.dto.SalesBreakdown;
 import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesDataFilter;
+import com.salesdata.platform.salesdata.dto.SalesDataPage;
 import com.salesdata.platform.salesdata.dto.SalesDataSummary;
+import com.salesdata.platform.salesdata.dto.SalesDistinctCounts;
+import com.salesdata.platform.salesdata.dto.SalesQuantiles;
+import com.salesdata.platform.salesdata.dto.SalesTimeSeries;
+import com.salesdata.platform.salesdata.dto.SalesTopItems;
+import com.salesdata.platform.salesdata.enums.BreakdownGroupBy;
+import com.salesdata.platform.salesdata.enums.ExportFormat;
+import com.salesdata.platform.salesdata.enums.QuantileMetric;
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.salesdata.enums.TimeSeriesGroupBy;
+import com.salesdata.platform.salesdata.enums.TopMetric;
+import com.salesdata.platform.salesdata.enums.TopMode;
+import com.salesdata.platform.salesdata.service.SalesBreakdownService;
+import com.salesdata.platform.salesdata.service.SalesDataExportService;
 import com.salesdata.platform.salesdata.service.SalesDataService;
+import com.salesdata.platform.salesdata.service.SalesDistinctService;
+import com.salesdata.platform.salesdata.service.SalesQuantileService;
+import com.salesdata.platform.salesdata.service.SalesRollupService;
+import com.salesdata.platform.salesdata.service.SalesSketchService;
 import jakarta.validation.Valid;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/sales")
@@ -25,15 +57,28 @@ import org.springframework.web.bind.annotation.*;
 public class SalesDataController {
 
   private final SalesDataService salesDataService;
+  private final SalesDataExportService salesDataExportService;
+  private final SalesRollupService salesRollupService;
+  private final SalesSketchService salesSketchService;
+  private final SalesDistinctService salesDistinctService;
+  private final SalesQuantileService salesQuantileService;
+  private final SalesBreakdownService salesBreakdownService;
   private final UserService userService;
+  private final DataETags dataETags;
 
   private static final String MESSAGE_CONSTANT = "message";
   private static final String ERROR_CONSTANT = "error";
   private static final String SUCCESS_CONSTANT = "success";
+  private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
 
   private Long getCurrentUserId() {
     try {
       Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+      // The authentication filter already loaded the user; no need to look them up again
+      if (authentication != null
+          && authentication.getPrincipal() instanceof CustomUserDetails customUserDetails) {
+        return customUserDetails.getId();
+      }
       if (authentication != null
           && authentication.getPrincipal() instanceof UserDetails userDetails) {
         String username = userDetails.getUsername();
@@ -84,19 +129,52 @@ public class SalesDataController {
     }
   }
 
+  /**
+   * READ - Page through sales records, newest first by default. Pass the returned nextCursor as
+   * cursor to get the following page; filters and sort must stay the same between pages.
+   */
   @GetMapping
-  public ResponseEntity<Map<String, Object>> getAllSalesRecord() {
+  public ResponseEntity<Map<String, Object>> getAllSalesRecord(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(defaultValue = "desc") String sort,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate startDate,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate endDate,
+      @RequestParam(required = false) String product,
+      @RequestParam(required = false) String location,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     try {
       Long userId = getCurrentUserId();
-      List<SalesDataEntity> salesRecords = salesDataService.getAllSalesRecords(userId);
+      // A page only changes with the user's records, whatever the parameters
+      String eTag = dataETags.forUser(userId);
+      if (DataETags.isNotModified(ifNoneMatch, eTag)) {
+        return DataETags.notModified(eTag);
+      }
+
+      SalesDataFilter filter = new SalesDataFilter(startDate, endDate, product, location);
+      SalesDataPage page =
+          salesDataService.getSalesRecordsPage(
+              userId, filter, Sort.Direction.fromString(sort), cursor, limit);
 
       Map<String, Object> response = new HashMap<>();
       response.put(MESSAGE_CONSTANT, "Sales records found successfully");
-      response.put("data", salesRecords);
-      response.put("count", salesRecords.size());
+      response.put("data", page.records());
+      response.put("count", page.records().size());
+      response.put("nextCursor", page.nextCursor());
+      response.put("hasMore", page.hasMore());
       response.put(SUCCESS_CONSTANT, true);
 
-      return ResponseEntity.ok(response);
+      return DataETags.ok(eTag).body(response);
+
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Invalid listing parameters");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
 
     } catch (Exception e) {
       Map<String, Object> errorResponse = new HashMap<>();
@@ -108,6 +186,55 @@ public class SalesDataController {
     }
   }
 
+  /**
+   * EXPORT - Stream all sales records matching the listing filters as CSV or NDJSON, optionally
+   * gzipped. GET /api/sales/export?format=csv&gzip=true
+   */
+  @GetMapping("/export")
+  public ResponseEntity<?> exportSalesRecords(
+      @RequestParam(defaultValue = "csv") String format,
+      @RequestParam(defaultValue = "false") boolean gzip,
+      @RequestParam(defaultValue = "desc") String sort,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate startDate,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate endDate,
+      @RequestParam(required = false) String product,
+      @RequestParam(required = false) String location) {
+    try {
+      Long userId = getCurrentUserId();
+      ExportFormat exportFormat = ExportFormat.fromString(format);
+      SalesDataFilter filter = new SalesDataFilter(startDate, endDate, product, location);
+      StreamingResponseBody body =
+          salesDataExportService.export(
+              userId, filter, Sort.Direction.fromString(sort), exportFormat, gzip);
+
+      String filename = "sales-data" + exportFormat.getExtension() + (gzip ? ".gz" : "");
+      return ResponseEntity.ok()
+          .contentType(gzip ? GZIP : exportFormat.getMediaType())
+          .header(
+              HttpHeaders.CONTENT_DISPOSITION,
+              ContentDisposition.attachment().filename(filename).build().toString())
+          .body(body);
+
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Invalid export parameters");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+
+    } catch (Exception e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Failed to export sales records");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+  }
+
   /**
    * READ - Get specific sales record by ID
    *
@@ -178,14 +305,20 @@ public class SalesDataController {
 
   /** Get sales summary for current user GET /api/sales/summary */
   @GetMapping("/summary")
-  public ResponseEntity<Map<String, Object>> getSalesRecordSummary() {
+  public ResponseEntity<Map<String, Object>> getSalesRecordSummary(
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     try {
       Long userId = getCurrentUserId();
+      String eTag = dataETags.forUser(userId);
+      if (DataETags.isNotModified(ifNoneMatch, eTag)) {
+        return DataETags.notModified(eTag);
+      }
+
       SalesDataSummary summary = salesDataService.getSalesDataSummary(userId);
 
       Map<String, Object> response = parseSummaryDataAsMap(summary);
 
-      return ResponseEntity.ok(response);
+      return DataETags.ok(eTag).body(response);
 
     } catch (Exception e) {
       Map<String, Object> errorResponse = new HashMap<>();
@@ -197,6 +330,311 @@ public class SalesDataController {
     }
   }
 
+  /**
+   * Sales totals over time, optionally broken down by product and/or location. GET
+   * /api/sales/timeseries?grain=week&groupBy=product&startDate=2024-01-01
+   */
+  @GetMapping("/timeseries")
+  public ResponseEntity<Map<String, Object>> getSalesTimeSeries(
+      @RequestParam(defaultValue = "day") String grain,
+      @RequestParam(defaultValue = "none") String groupBy,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate startDate,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate endDate,
+      @RequestParam(required = false) String product,
+      @RequestParam(required = false) String location,
+      @RequestParam(required = false) BigDecimal minPrice,
+      @RequestParam(required = false) BigDecimal maxPrice) {
+    try {
+      Long userId = getCurrentUserId();
+      SalesDataFilter filter = new SalesDataFilter(startDate, endDate, product, location);
+      SalesTimeSeries series =
+          salesRollupService.getTimeSeries(
+              userId,
+              RollupGrain.fromString(grain),
+              filter,
+              minPrice,
+              maxPrice,
+              TimeSeriesGroupBy.fromString(groupBy));
+
+      Map<String, Object> seriesData = new HashMap<>();
+      seriesData.put("grain", series.grain());
+      seriesData.put("source", series.source());
+      seriesData.put("points", series.points());
+
+      Map<String, Object> response = new HashMap<>();
+      response.put(MESSAGE_CONSTANT, "Sales time series retrieved successfully");
+      response.put("data", seriesData);
+      response.put(SUCCESS_CONSTANT, true);
+
+      return ResponseEntity.ok(response);
+
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Invalid time series parameters");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+
+    } catch (Exception e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Error getting sales time series");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+  }
+
+  /**
+   * Top products or locations by revenue or quantity. Approximate answers come from heavy-hitter
+   * sketches: each value may overstate the true total by at most maxError, and only items marked
+   * guaranteed are certainly in the top n. GET /api/sales/top?dimension=product&metric=revenue&n=10
+   */
+  @GetMapping("/top")
+  public ResponseEntity<Map<String, Object>> getTopSalesItems(
+      @RequestParam(defaultValue = "product") String dimension,
+      @RequestParam(defaultValue = "revenue") String metric,
+      @RequestParam(defaultValue = "10") int n,
+      @RequestParam(defaultValue = "auto") String mode) {
+    try {
+      Long userId = getCurrentUserId();
+      SalesTopItems top =
+          salesSketchService.getTop(
+              userId,
+              SalesDimension.fromString(dimension),
+              TopMetric.fromString(metric),
+              n,
+              TopMode.fromString(mode));
+
+      Map<String, Object> topData = new HashMap<>();
+      topData.put("dimension", top.dimension());
+      topData.put("metric", top.metric());
+      topData.put("mode", top.mode());
+      topData.put("items", top.items());
+      topData.put("total", top.total());
+      topData.put("maxError", top.maxError());
+
+      Map<String, Object> response = new HashMap<>();
+      response.put(MESSAGE_CONSTANT, "Top sales items retrieved successfully");
+      response.put("data", topData);
+      response.put(SUCCESS_CONSTANT, true);
+
+      return ResponseEntity.ok(response);
+
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Invalid top items parameters");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+
+    } catch (Exception e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Error getting top sales items");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+  }
+
+  /**
+   * Estimated number of distinct products and locations sold, across all uploads or in one upload.
+   * Estimates come from HyperLogLog registers and are within about two standard errors of the true
+   * count with 95% confidence. GET /api/sales/distinct?fileId=42
+   */
+  @GetMapping("/distinct")
+  public ResponseEntity<Map<String, Object>> getDistinctSalesCounts(
+      @RequestParam(required = false) Long fileId) {
+    try {
+      Long userId = getCurrentUserId();
+      SalesDistinctCounts counts =
+          fileId != null
+              ? salesDistinctService.getUploadCounts(userId, fileId)
+              : salesDistinctService.getUserCounts(userId);
+
+      Map<String, Object> countData = new HashMap<>();
+      countData.put("fileId", counts.fileUploadId());
+      countData.put("products", counts.products());
+      countData.put("locations", counts.locations());
+      countData.put("standardError", counts.standardError());
+
+      Map<String, Object> response = new HashMap<>();
+      response.put(MESSAGE_CONSTANT, "Distinct counts retrieved successfully");
+      response.put("data", countData);
+      response.put(SUCCESS_CONSTANT, true);
+
+      return ResponseEntity.ok(response);
+
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Distinct counts not found");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+
+    } catch (Exception e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Error getting distinct counts");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+  }
+
+  /**
+   * Quantiles of product prices or order totals, over the whole range or by month. Values come from
+   * KLL sketches: each reported value's rank is within rankError of the requested quantile. Date
+   * ranges are widened to whole months. GET
+   * /api/sales/quantiles?metric=total_amount&q=0.5,0.9,0.99&startDate=2024-01-01&byMonth=true
+   */
+  @GetMapping("/quantiles")
+  public ResponseEntity<Map<String, Object>> getSalesQuantiles(
+      @RequestParam(defaultValue = "price") String metric,
+      @RequestParam(defaultValue = "0.5,0.9,0.99") String q,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate startDate,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate endDate,
+      @RequestParam(defaultValue = "false") boolean byMonth) {
+    try {
+      Long userId = getCurrentUserId();
+      SalesQuantiles quantiles =
+          salesQuantileService.getQuantiles(
+              userId,
+              QuantileMetric.fromString(metric),
+              parseQuantiles(q),
+              startDate,
+              endDate,
+              byMonth);
+
+      Map<String, Object> quantileData = new HashMap<>();
+      quantileData.put("metric", quantiles.metric());
+      quantileData.put("startDate", quantiles.startDate());
+      quantileData.put("endDate", quantiles.endDate());
+      quantileData.put("rankError", quantiles.rankError());
+      quantileData.put("points", quantiles.points());
+
+      Map<String, Object> response = new HashMap<>();
+      response.put(MESSAGE_CONSTANT, "Sales quantiles retrieved successfully");
+      response.put("data", quantileData);
+      response.put(SUCCESS_CONSTANT, true);
+
+      return ResponseEntity.ok(response);
+
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Invalid quantile parameters");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+
+    } catch (Exception e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Error getting sales quantiles");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+  }
+
+  /**
+   * Sales totals of finished uploads, filtered and grouped by product, location or month. Served
+   * from the in-memory columnar cache when possible. GET
+   * /api/sales/breakdown?groupBy=product&startDate=2024-01-01&location=Singapore&limit=20
+   */
+  @GetMapping("/breakdown")
+  public ResponseEntity<Map<String, Object>> getSalesBreakdown(
+      @RequestParam(defaultValue = "none") String groupBy,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate startDate,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate endDate,
+      @RequestParam(required = false) String product,
+      @RequestParam(required = false) String location,
+      @RequestParam(required = false) Integer limit) {
+    try {
+      Long userId = getCurrentUserId();
+      SalesDataFilter filter = new SalesDataFilter(startDate, endDate, product, location);
+      SalesBreakdown breakdown =
+          salesBreakdownService.getBreakdown(
+              userId, filter, BreakdownGroupBy.fromString(groupBy), limit);
+
+      Map<String, Object> breakdownData = new HashMap<>();
+      breakdownData.put("groupBy", breakdown.groupBy());
+      breakdownData.put("source", breakdown.source());
+      breakdownData.put("groups", breakdown.groups());
+
+      Map<String, Object> response = new HashMap<>();
+      response.put(MESSAGE_CONSTANT, "Sales breakdown retrieved successfully");
+      response.put("data", breakdownData);
+      response.put(SUCCESS_CONSTANT, true);
+
+      return ResponseEntity.ok(response);
+
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Invalid breakdown parameters");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+
+    } catch (Exception e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Error getting sales breakdown");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+  }
+
+  /**
+   * Recompute the current user's sales summary and rollups from their sales records, for repairs.
+   * POST /api/sales/summary/rebuild
+   */
+  @PostMapping("/summary/rebuild")
+  public ResponseEntity<Map<String, Object>> rebuildSalesRecordSummary() {
+    try {
+      Long userId = getCurrentUserId();
+      SalesDataSummary summary = salesDataService.rebuildSalesDataSummary(userId);
+
+      Map<String, Object> response = parseSummaryDataAsMap(summary);
+      response.put(MESSAGE_CONSTANT, "Sales summary rebuilt successfully");
+
+      return ResponseEntity.ok(response);
+
+    } catch (Exception e) {
+      Map<String, Object> errorResponse = new HashMap<>();
+      errorResponse.put(MESSAGE_CONSTANT, "Error rebuilding sales record summary");
+      errorResponse.put(ERROR_CONSTANT, e.getMessage());
+      errorResponse.put(SUCCESS_CONSTANT, false);
+
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+  }
+
+  private static List<Double> parseQuantiles(String quantiles) {
+    List<Double> parsed = new ArrayList<>();
+    for (String quantile : quantiles.split(",")) {
+      try {
+        parsed.add(Double.parseDouble(quantile.trim()));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid quantile: " + quantile.trim());
+      }
+    }
+    return parsed;
+  }
+
   private static Map<String, Object> parseSummaryDataAsMap(SalesDataSummary summary) {
     Map<String, Object> summaryData = new HashMap<>();
     summaryData.put("totalRecords", summary.getTotalRecords());
@@ -0,0 +1,10 @@
+package com.salesdata.platform.salesdata.dto;
+
+public record IngestWriteStats(
+    String writeMode, long rowsWritten, long chunksWritten, long writeMillis) {
+
+  public double rowsPerSecond() {
+    if (writeMillis == 0) return 0.0;
+    return rowsWritten * 1000.0 / writeMillis;
+  }
+}
@@ -0,0 +1,41 @@
+package com.salesdata.platform.salesdata.dto;
+
+import com.salesdata.platform.salesdata.enums.BreakdownGroupBy;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Sales totals of a user's finished uploads, grouped by product, location or sale month
+ *
+ * @param source COLUMNAR when scanned from the in-memory columns, SQL otherwise
+ */
+public record SalesBreakdown(BreakdownGroupBy groupBy, String source, List<Group> groups) {
+
+  /**
+   * @param key product, location or first day of the month; null for the ungrouped total and for
+   *     records without a location
+   */
+  public record Group(
+      String key,
+      long totalRecords,
+      BigDecimal totalAmount,
+      BigDecimal averageAmount,
+      long totalQuantity,
+      BigDecimal averagePrice) {
+
+    public static Group of(
+        String key,
+        long totalRecords,
+        BigDecimal totalAmount,
+        long totalQuantity,
+        BigDecimal totalPrice) {
+      return new Group(
+          key,
+          totalRecords,
+          totalAmount,
+          SalesDataSummary.calculateAverage(totalAmount, totalRecords),
+          totalQuantity,
+          SalesDataSummary.calculateAverage(totalPrice, totalRecords));
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.salesdata.platform.salesdata.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a (sale_date, id) ordered listing: the key of the last record of a page. Clients
+ * receive it as an opaque token and send it back to fetch the next page.
+ */
+public record SalesDataCursor(LocalDate saleDate, Long id) {
+
+  public static SalesDataCursor after(SalesDataEntity lastRecord) {
+    return new SalesDataCursor(lastRecord.getSaleDate(), lastRecord.getId());
+  }
+
+  public String encode() {
+    String key = saleDate + ":" + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  public static SalesDataCursor decode(String token) {
+    try {
+      String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+      int separator = key.indexOf(':');
+      return new SalesDataCursor(
+          LocalDate.parse(key.substring(0, separator)),
+          Long.parseLong(key.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Invalid cursor");
+    }
+  }
+}
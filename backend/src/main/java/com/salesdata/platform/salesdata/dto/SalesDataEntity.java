@@ -1,5 +1,8 @@
 package com.salesdata.platform.salesdata.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.salesdata.platform.util.Money;
+import com.salesdata.platform.util.MoneyConverter;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -25,14 +28,26 @@ public class SalesDataEntity {
   @Column(name = "file_upload_id", nullable = false)
   private Long fileUploadId;
 
-  @Column(name = "product_name", nullable = false)
-  private String productName;
+  // Names are stored once in the dimension tables and referenced by id. They are not mapped:
+  // SalesDimensionDictionary sets the ids from the names before a write and the names from the
+  // ids, in bulk, after a read.
+  @JsonIgnore
+  @Column(name = "product_id", nullable = false)
+  private Integer productId;
 
+  @Transient private String productName;
+
+  // Money is kept in cents, see Money; JSON shows the amounts through the BigDecimal getters
+  @JsonIgnore
+  @Convert(converter = MoneyConverter.class)
   @Column(name = "product_price", precision = 10, scale = 2, nullable = false)
-  private BigDecimal productPrice;
+  private long productPriceCents;
+
+  @JsonIgnore
+  @Column(name = "location_id")
+  private Integer locationId;
 
-  @Column(name = "sale_location")
-  private String saleLocation;
+  @Transient private String saleLocation;
 
   @Column(name = "sale_date", nullable = false)
   private LocalDate saleDate;
@@ -40,17 +55,37 @@ public class SalesDataEntity {
   @Column(nullable = false)
   private Integer quantity;
 
+  @JsonIgnore
+  @Convert(converter = MoneyConverter.class)
   @Column(name = "total_amount", precision = 10, scale = 2)
-  private BigDecimal totalAmount;
+  private Long totalAmountCents;
 
   @Column(name = "created_at")
   private LocalDateTime createdAt = LocalDateTime.now();
 
+  public BigDecimal getProductPrice() {
+    return Money.toBigDecimal(productPriceCents);
+  }
+
+  public void setProductPrice(BigDecimal productPrice) {
+    this.productPriceCents = Money.cents(productPrice);
+  }
+
+  public BigDecimal getTotalAmount() {
+    return totalAmountCents != null ? Money.toBigDecimal(totalAmountCents) : null;
+  }
+
+  /** Price times quantity, in cents; the value stored as total_amount */
+  @JsonIgnore
+  public long getAmountCents() {
+    return Money.times(productPriceCents, quantity);
+  }
+
   @PrePersist
   @PreUpdate
   private void calculateTotalAmount() {
-    if (productPrice != null && quantity != null) {
-      this.totalAmount = productPrice.multiply(BigDecimal.valueOf(quantity));
+    if (quantity != null) {
+      this.totalAmountCents = getAmountCents();
     }
   }
 }
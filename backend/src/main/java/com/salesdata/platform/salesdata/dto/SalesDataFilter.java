@@ -0,0 +1,16 @@
+package com.salesdata.platform.salesdata.dto;
+
+import java.time.LocalDate;
+
+/** Optional filters for listing a user's sales records; null fields do not filter */
+public record SalesDataFilter(
+    LocalDate startDate, LocalDate endDate, String productName, String saleLocation) {
+
+  public SalesDataFilter {
+    if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+      throw new IllegalArgumentException("Start date must not be after end date");
+    }
+    productName = productName != null && !productName.isBlank() ? productName.trim() : null;
+    saleLocation = saleLocation != null && !saleLocation.isBlank() ? saleLocation.trim() : null;
+  }
+}
@@ -0,0 +1,15 @@
+package com.salesdata.platform.salesdata.dto;
+
+import java.util.List;
+
+/**
+ * One page of a sales listing
+ *
+ * @param nextCursor token for the following page, or null on the last page
+ */
+public record SalesDataPage(List<SalesDataEntity> records, String nextCursor) {
+
+  public boolean hasMore() {
+    return nextCursor != null;
+  }
+}
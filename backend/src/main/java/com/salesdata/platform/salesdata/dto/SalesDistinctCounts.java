@@ -0,0 +1,10 @@
+package com.salesdata.platform.salesdata.dto;
+
+/**
+ * Estimated number of distinct products and sale locations
+ *
+ * @param fileUploadId the upload counted, or null for all of the user's uploads
+ * @param standardError relative standard error of each estimate, e.g. 0.008 for 0.8%
+ */
+public record SalesDistinctCounts(
+    Long fileUploadId, long products, long locations, double standardError) {}
@@ -0,0 +1,33 @@
+package com.salesdata.platform.salesdata.dto;
+
+import com.salesdata.platform.salesdata.enums.QuantileMetric;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Quantiles of a per-record amount, overall or by sale month. Sketches cover whole months, so a
+ * date range is widened to the months it touches.
+ *
+ * @param startDate first day covered, or null if unbounded
+ * @param endDate last day covered, or null if unbounded
+ * @param rankError each value's rank is within this fraction of the requested quantile, e.g. 0.01
+ *     means the reported median lies between the 49th and 51st percentiles
+ */
+public record SalesQuantiles(
+    QuantileMetric metric,
+    LocalDate startDate,
+    LocalDate endDate,
+    double rankError,
+    List<Point> points) {
+
+  /**
+   * @param month first day of the month, or null for the whole range
+   * @param min exact minimum, null if there are no records
+   * @param max exact maximum, null if there are no records
+   */
+  public record Point(
+      LocalDate month, long count, BigDecimal min, BigDecimal max, List<Value> quantiles) {}
+
+  public record Value(double quantile, BigDecimal value) {}
+}
@@ -0,0 +1,34 @@
+package com.salesdata.platform.salesdata.dto;
+
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import java.time.LocalDate;
+
+/**
+ * Change to one sales rollup row, keyed by product and location ids. Records without a location are
+ * rolled up under location id {@link #NO_LOCATION}, which keeps it usable in the table's primary
+ * key. Amounts are in cents, see {@link com.salesdata.platform.util.Money}.
+ */
+public record SalesRollupDelta(
+    RollupGrain grain,
+    LocalDate bucketStart,
+    int productId,
+    int locationId,
+    long recordCount,
+    long totalAmountCents,
+    long totalQuantity,
+    long totalPriceCents) {
+
+  public static final int NO_LOCATION = 0;
+
+  public SalesRollupDelta negate() {
+    return new SalesRollupDelta(
+        grain,
+        bucketStart,
+        productId,
+        locationId,
+        -recordCount,
+        -totalAmountCents,
+        -totalQuantity,
+        -totalPriceCents);
+  }
+}
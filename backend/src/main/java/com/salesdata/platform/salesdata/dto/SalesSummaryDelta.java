@@ -0,0 +1,50 @@
+package com.salesdata.platform.salesdata.dto;
+
+import com.salesdata.platform.util.Money;
+import java.util.List;
+
+/**
+ * Change to a user's sales summary caused by adding or removing a set of records. Amounts are in
+ * cents, see {@link Money}.
+ */
+public record SalesSummaryDelta(
+    long recordCount, long totalAmountCents, long totalQuantity, long totalPriceCents) {
+
+  public static final SalesSummaryDelta EMPTY = new SalesSummaryDelta(0, 0, 0, 0);
+
+  public static SalesSummaryDelta of(List<SalesDataEntity> records) {
+    long totalAmountCents = 0;
+    long totalPriceCents = 0;
+    long totalQuantity = 0;
+    for (SalesDataEntity record : records) {
+      // Same calculation the entity and the bulk insert use for total_amount
+      totalAmountCents = Money.plus(totalAmountCents, record.getAmountCents());
+      totalPriceCents = Money.plus(totalPriceCents, record.getProductPriceCents());
+      totalQuantity += record.getQuantity();
+    }
+    return new SalesSummaryDelta(records.size(), totalAmountCents, totalQuantity, totalPriceCents);
+  }
+
+  /** Totals of records given as rollup rows of a single grain */
+  public static SalesSummaryDelta ofDays(List<SalesRollupDelta> days) {
+    long totalAmountCents = 0;
+    long totalPriceCents = 0;
+    long recordCount = 0;
+    long totalQuantity = 0;
+    for (SalesRollupDelta day : days) {
+      recordCount += day.recordCount();
+      totalAmountCents = Money.plus(totalAmountCents, day.totalAmountCents());
+      totalQuantity += day.totalQuantity();
+      totalPriceCents = Money.plus(totalPriceCents, day.totalPriceCents());
+    }
+    return new SalesSummaryDelta(recordCount, totalAmountCents, totalQuantity, totalPriceCents);
+  }
+
+  public SalesSummaryDelta negate() {
+    return new SalesSummaryDelta(-recordCount, -totalAmountCents, -totalQuantity, -totalPriceCents);
+  }
+
+  public boolean isEmpty() {
+    return recordCount == 0;
+  }
+}
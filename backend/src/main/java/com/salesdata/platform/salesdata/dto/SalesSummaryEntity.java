@@ -0,0 +1,42 @@
+package com.salesdata.platform.salesdata.dto;
+
+import com.salesdata.platform.util.MoneyConverter;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running totals of a user's visible sales records. Only changed through the delta and rebuild
+ * statements of {@link com.salesdata.platform.salesdata.repository.SalesSummaryRepository}.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "sales_summaries")
+public class SalesSummaryEntity {
+
+  @Id
+  @Column(name = "user_id")
+  private Long userId;
+
+  @Column(name = "record_count", nullable = false)
+  private long recordCount;
+
+  // Money is kept in cents, see Money
+  @Convert(converter = MoneyConverter.class)
+  @Column(name = "total_amount", precision = 19, scale = 2, nullable = false)
+  private long totalAmountCents;
+
+  @Column(name = "total_quantity", nullable = false)
+  private long totalQuantity;
+
+  @Convert(converter = MoneyConverter.class)
+  @Column(name = "total_price", precision = 19, scale = 2, nullable = false)
+  private long totalPriceCents;
+
+  @Column(name = "updated_at", insertable = false, updatable = false)
+  private LocalDateTime updatedAt;
+}
@@ -0,0 +1,26 @@
+package com.salesdata.platform.salesdata.dto;
+
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Sales totals per time bucket
+ *
+ * @param source where the points were read from: a rollup grain, or the raw sales records
+ */
+public record SalesTimeSeries(RollupGrain grain, String source, List<Point> points) {
+
+  /**
+   * @param productName null unless grouped by product
+   * @param saleLocation null unless grouped by location, or for records without a location
+   */
+  public record Point(
+      LocalDate bucketStart,
+      String productName,
+      String saleLocation,
+      long recordCount,
+      BigDecimal totalAmount,
+      long totalQuantity) {}
+}
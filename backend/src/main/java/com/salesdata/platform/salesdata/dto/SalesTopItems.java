@@ -0,0 +1,30 @@
+package com.salesdata.platform.salesdata.dto;
+
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.salesdata.enums.TopMetric;
+import com.salesdata.platform.salesdata.enums.TopMode;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Top-N ranking of products or locations
+ *
+ * @param mode EXACT or APPROXIMATE, whichever answered
+ * @param total metric total over all of the user's records in the ranking
+ * @param maxError most any approximate value can exceed the true value by; zero when exact
+ */
+public record SalesTopItems(
+    SalesDimension dimension,
+    TopMetric metric,
+    TopMode mode,
+    List<Item> items,
+    BigDecimal total,
+    BigDecimal maxError) {
+
+  /**
+   * @param value the metric total, or an upper bound of it when approximate
+   * @param lowerBound the true total is between lowerBound and value
+   * @param guaranteed whether the item is certainly among the top N
+   */
+  public record Item(String item, BigDecimal value, BigDecimal lowerBound, boolean guaranteed) {}
+}
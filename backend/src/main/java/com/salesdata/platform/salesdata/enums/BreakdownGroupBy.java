@@ -0,0 +1,19 @@
+package com.salesdata.platform.salesdata.enums;
+
+import java.util.Locale;
+
+/** How the sales breakdown groups records */
+public enum BreakdownGroupBy {
+  NONE,
+  PRODUCT,
+  LOCATION,
+  MONTH;
+
+  public static BreakdownGroupBy fromString(String groupBy) {
+    try {
+      return valueOf(groupBy.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported groupBy: " + groupBy);
+    }
+  }
+}
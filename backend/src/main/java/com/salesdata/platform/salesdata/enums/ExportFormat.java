@@ -0,0 +1,36 @@
+package com.salesdata.platform.salesdata.enums;
+
+import java.util.Locale;
+import org.springframework.http.MediaType;
+
+/** Output formats of the sales data export */
+public enum ExportFormat {
+  // Same columns as an upload, so an export can be uploaded again
+  CSV("text/csv", ".csv"),
+  // One JSON object per line, with the same field names as the sales listing
+  NDJSON("application/x-ndjson", ".ndjson");
+
+  private final MediaType mediaType;
+  private final String extension;
+
+  ExportFormat(String mediaType, String extension) {
+    this.mediaType = MediaType.parseMediaType(mediaType);
+    this.extension = extension;
+  }
+
+  public MediaType getMediaType() {
+    return mediaType;
+  }
+
+  public String getExtension() {
+    return extension;
+  }
+
+  public static ExportFormat fromString(String format) {
+    try {
+      return valueOf(format.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported export format: " + format);
+    }
+  }
+}
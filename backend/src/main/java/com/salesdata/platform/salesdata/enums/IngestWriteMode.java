@@ -0,0 +1,8 @@
+package com.salesdata.platform.salesdata.enums;
+
+public enum IngestWriteMode {
+  // One INSERT per record through the JPA persistence context
+  JPA,
+  // Multi-row INSERT statements over plain JDBC, bypassing the persistence context
+  JDBC_BATCH
+}
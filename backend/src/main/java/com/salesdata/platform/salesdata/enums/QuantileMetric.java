@@ -0,0 +1,32 @@
+package com.salesdata.platform.salesdata.enums;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.util.Money;
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/** Per-record amounts the quantile sketches summarise, kept in cents so every value is whole */
+public enum QuantileMetric {
+  PRICE,
+  TOTAL_AMOUNT;
+
+  public long valueOf(SalesDataEntity record) {
+    return switch (this) {
+      case PRICE -> record.getProductPriceCents();
+      case TOTAL_AMOUNT -> record.getAmountCents();
+    };
+  }
+
+  /** Convert a sketch value back to an amount */
+  public BigDecimal toAmount(long cents) {
+    return Money.toBigDecimal(cents);
+  }
+
+  public static QuantileMetric fromString(String metric) {
+    try {
+      return valueOf(metric.toUpperCase(Locale.ROOT).replace('-', '_'));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported metric: " + metric);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.salesdata.platform.salesdata.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/** Time bucket sizes of the sales rollups; weeks start on Monday */
+public enum RollupGrain {
+  DAY,
+  WEEK,
+  MONTH;
+
+  public LocalDate bucketStart(LocalDate date) {
+    return switch (this) {
+      case DAY -> date;
+      case WEEK -> date.with(DayOfWeek.MONDAY);
+      case MONTH -> date.withDayOfMonth(1);
+    };
+  }
+
+  /** Whether a date range starting on {@code start} begins on a bucket boundary */
+  public boolean isBucketStart(LocalDate start) {
+    return bucketStart(start).equals(start);
+  }
+
+  /** Whether a date range ending on {@code end} (inclusive) ends on a bucket boundary */
+  public boolean isBucketEnd(LocalDate end) {
+    return isBucketStart(end.plusDays(1));
+  }
+
+  /** MySQL expression of the bucket containing the DATE in {@code column}, same as bucketStart */
+  public String sqlBucketStart(String column) {
+    return switch (this) {
+      case DAY -> column;
+      case WEEK -> "DATE_SUB(" + column + ", INTERVAL WEEKDAY(" + column + ") DAY)";
+      case MONTH -> "CAST(DATE_FORMAT(" + column + ", '%Y-%m-01') AS DATE)";
+    };
+  }
+
+  public static RollupGrain fromString(String grain) {
+    try {
+      return valueOf(grain.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported grain: " + grain);
+    }
+  }
+}
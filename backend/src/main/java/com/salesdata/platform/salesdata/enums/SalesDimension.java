@@ -0,0 +1,63 @@
+package com.salesdata.platform.salesdata.enums;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import java.util.Locale;
+
+/** Product or location: what top-N rankings and distinct counts are computed over */
+public enum SalesDimension {
+  PRODUCT("product_id", "sales_products"),
+  LOCATION("location_id", "sales_locations");
+
+  private final String column;
+  private final String table;
+
+  SalesDimension(String column, String table) {
+    this.column = column;
+    this.table = table;
+  }
+
+  /** sales_data and sales_rollups column holding the item's id */
+  public String getColumn() {
+    return column;
+  }
+
+  /** Dimension table mapping item ids to names, each user's names apart */
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * SQL condition on {@code column} matching the user's item whose name is bound to the
+   * placeholders, user id first. The id is looked up once, so the condition can use an index on the
+   * id column; an unknown name matches nothing.
+   */
+  public String sqlHasName(String column) {
+    return column + " = (SELECT id FROM " + table + " WHERE user_id = ? AND name = ?)";
+  }
+
+  /** The record's item, or null for a record without a location */
+  public String itemOf(SalesDataEntity record) {
+    String item =
+        switch (this) {
+          case PRODUCT -> record.getProductName();
+          case LOCATION -> record.getSaleLocation();
+        };
+    return item != null && !item.isEmpty() ? item : null;
+  }
+
+  /** Id of the record's item, or null for a record without a location */
+  public Integer idOf(SalesDataEntity record) {
+    return switch (this) {
+      case PRODUCT -> record.getProductId();
+      case LOCATION -> record.getLocationId();
+    };
+  }
+
+  public static SalesDimension fromString(String dimension) {
+    try {
+      return valueOf(dimension.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported dimension: " + dimension);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.salesdata.platform.salesdata.enums;
+
+import java.util.Locale;
+
+/** Dimensions a sales time series is broken down by, besides the time bucket */
+public enum TimeSeriesGroupBy {
+  NONE(false, false),
+  PRODUCT(true, false),
+  LOCATION(false, true),
+  PRODUCT_AND_LOCATION(true, true);
+
+  private final boolean byProduct;
+  private final boolean byLocation;
+
+  TimeSeriesGroupBy(boolean byProduct, boolean byLocation) {
+    this.byProduct = byProduct;
+    this.byLocation = byLocation;
+  }
+
+  public boolean isByProduct() {
+    return byProduct;
+  }
+
+  public boolean isByLocation() {
+    return byLocation;
+  }
+
+  public static TimeSeriesGroupBy fromString(String groupBy) {
+    try {
+      return valueOf(groupBy.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported groupBy: " + groupBy);
+    }
+  }
+}
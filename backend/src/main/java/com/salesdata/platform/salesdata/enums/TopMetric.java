@@ -0,0 +1,44 @@
+package com.salesdata.platform.salesdata.enums;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/** What items are ranked by; sketches count revenue in cents so every weight is whole */
+public enum TopMetric {
+  REVENUE("total_amount", 2),
+  QUANTITY("quantity", 0);
+
+  private final String column;
+  private final int scale;
+
+  TopMetric(String column, int scale) {
+    this.column = column;
+    this.scale = scale;
+  }
+
+  /** sales_data column summed by the exact ranking */
+  public String getColumn() {
+    return column;
+  }
+
+  public long weightOf(SalesDataEntity record) {
+    return switch (this) {
+      case REVENUE -> record.getAmountCents();
+      case QUANTITY -> record.getQuantity();
+    };
+  }
+
+  /** Convert a sketch weight back to the metric's unit */
+  public BigDecimal toValue(long weight) {
+    return BigDecimal.valueOf(weight, scale);
+  }
+
+  public static TopMetric fromString(String metric) {
+    try {
+      return valueOf(metric.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported metric: " + metric);
+    }
+  }
+}
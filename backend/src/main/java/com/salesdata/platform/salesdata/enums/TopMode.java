@@ -0,0 +1,21 @@
+package com.salesdata.platform.salesdata.enums;
+
+import java.util.Locale;
+
+/** How the top-N sales endpoint answers */
+public enum TopMode {
+  // Exact for users with few enough records, sketches otherwise
+  AUTO,
+  // GROUP BY over the user's records
+  EXACT,
+  // Merged heavy-hitter sketches of the user's uploads
+  APPROXIMATE;
+
+  public static TopMode fromString(String mode) {
+    try {
+      return valueOf(mode.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported mode: " + mode);
+    }
+  }
+}
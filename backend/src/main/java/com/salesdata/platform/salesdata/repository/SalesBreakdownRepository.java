@@ -0,0 +1,151 @@
+package com.salesdata.platform.salesdata.repository;
+
+import com.salesdata.platform.salesdata.dto.SalesBreakdown;
+import com.salesdata.platform.salesdata.dto.SalesDataFilter;
+import com.salesdata.platform.salesdata.enums.BreakdownGroupBy;
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.util.SalesColumns;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads for the sales breakdown: streams records into in-memory columns, or groups them in MySQL
+ * when the columns are not available. Both cover the records of the user's finished uploads.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesBreakdownRepository {
+
+  private static final String COLUMNS =
+      "SELECT s.file_upload_id, p.name, CAST(s.product_price * 100 AS SIGNED), s.quantity,"
+          + " s.sale_date, l.name"
+          + " FROM sales_data s JOIN sales_products p ON p.id = s.product_id"
+          + " LEFT JOIN sales_locations l ON l.id = s.location_id";
+
+  private static final String FINISHED_UPLOADS =
+      " s.file_upload_id IN (SELECT id FROM file_uploads WHERE user_id = ?"
+          + " AND upload_status IN ('COMPLETED', 'FAILED'))";
+
+  // MySQL Connector/J streams the result set row by row instead of buffering it for this value
+  private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /** Add the records of the user's finished uploads to the builder */
+  public void loadUserRecords(Long userId, SalesColumns.Builder builder) {
+    stream(COLUMNS + " WHERE s.user_id = ? AND" + FINISHED_UPLOADS, builder, userId, userId);
+  }
+
+  /** Add the records of one upload to the builder */
+  public void loadUploadRecords(Long fileUploadId, SalesColumns.Builder builder) {
+    stream(COLUMNS + " WHERE s.file_upload_id = ?", builder, fileUploadId);
+  }
+
+  /**
+   * Totals grouped in MySQL, in no particular order. Products and locations are grouped on their
+   * ids, with names joined in afterwards.
+   */
+  public List<SalesBreakdown.Group> findBreakdown(
+      Long userId, SalesDataFilter filter, BreakdownGroupBy groupBy) {
+    String key =
+        switch (groupBy) {
+          case NONE -> "NULL";
+          case PRODUCT -> "s.product_id";
+          case LOCATION -> "s.location_id";
+          case MONTH -> RollupGrain.MONTH.sqlBucketStart("s.sale_date");
+        };
+    String name =
+        switch (groupBy) {
+          case PRODUCT, LOCATION -> "d.name";
+          default -> "g.group_key";
+        };
+    String join =
+        switch (groupBy) {
+          case PRODUCT -> " JOIN sales_products d ON d.id = g.group_key";
+          case LOCATION -> " LEFT JOIN sales_locations d ON d.id = g.group_key";
+          default -> "";
+        };
+
+    StringBuilder sql =
+        new StringBuilder("SELECT ")
+            .append(key)
+            .append(
+                " AS group_key, COUNT(*) AS records, COALESCE(SUM(s.total_amount), 0) AS amount,")
+            .append(" COALESCE(SUM(s.quantity), 0) AS quantity,")
+            .append(" COALESCE(SUM(s.product_price), 0) AS price")
+            .append(" FROM sales_data s WHERE s.user_id = ? AND")
+            .append(FINISHED_UPLOADS);
+    List<Object> params = new ArrayList<>(List.of(userId, userId));
+    if (filter.startDate() != null) {
+      sql.append(" AND s.sale_date >= ?");
+      params.add(Date.valueOf(filter.startDate()));
+    }
+    if (filter.endDate() != null) {
+      sql.append(" AND s.sale_date <= ?");
+      params.add(Date.valueOf(filter.endDate()));
+    }
+    if (filter.productName() != null) {
+      sql.append(" AND ").append(SalesDimension.PRODUCT.sqlHasName("s.product_id"));
+      params.add(userId);
+      params.add(filter.productName());
+    }
+    if (filter.saleLocation() != null) {
+      sql.append(" AND ").append(SalesDimension.LOCATION.sqlHasName("s.location_id"));
+      params.add(userId);
+      params.add(filter.saleLocation());
+    }
+    if (groupBy != BreakdownGroupBy.NONE) {
+      sql.append(" GROUP BY 1");
+    } else {
+      // An empty range still yields one row of zeros without grouping
+      sql.append(" HAVING COUNT(*) > 0");
+    }
+
+    String grouped =
+        "SELECT " + name + ", g.records, g.amount, g.quantity, g.price FROM (" + sql + ") g" + join;
+    return jdbcTemplate.query(
+        grouped,
+        (rs, rowNum) ->
+            SalesBreakdown.Group.of(
+                rs.getString(1),
+                rs.getLong(2),
+                rs.getBigDecimal(3),
+                rs.getLong(4),
+                rs.getBigDecimal(5)),
+        params.toArray());
+  }
+
+  private void stream(String sql, SalesColumns.Builder builder, Object... params) {
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement ps =
+              connection.prepareStatement(
+                  sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          ps.setFetchSize(STREAMING_FETCH_SIZE);
+          for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+          }
+          return ps;
+        },
+        (RowCallbackHandler) rs -> addRow(rs, builder));
+  }
+
+  private static void addRow(ResultSet rs, SalesColumns.Builder builder) throws SQLException {
+    builder.add(
+        rs.getLong(1),
+        rs.getString(2),
+        rs.getLong(3),
+        rs.getInt(4),
+        (int) rs.getDate(5).toLocalDate().toEpochDay(),
+        rs.getString(6));
+  }
+}
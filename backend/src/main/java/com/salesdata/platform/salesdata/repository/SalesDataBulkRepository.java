@@ -0,0 +1,217 @@
+package com.salesdata.platform.salesdata.repository;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesRollupDelta;
+import com.salesdata.platform.salesdata.dto.SalesSummaryDelta;
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import com.salesdata.platform.util.Money;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Bulk insert path for sales_data. SalesDataEntity uses IDENTITY ids, which stops Hibernate from
+ * batching inserts, so large ingests write multi-row INSERT statements over JDBC instead: one round
+ * trip per {@code rowsPerStatement} records rather than one per record. Deleting an upload's
+ * records is set-based too, in key-range chunks, along with the totals those chunks remove from the
+ * sales summary and rollups.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesDataBulkRepository {
+
+  private static final String INSERT_PREFIX =
+      "INSERT INTO sales_data (user_id, file_upload_id, product_id, product_price,"
+          + " location_id, sale_date, quantity, total_amount, created_at) VALUES ";
+  private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  // Id of the last row of the next chunk; the file_upload_id index includes the primary key
+  private static final String CHUNK_UPPER_BOUND =
+      "SELECT id FROM sales_data WHERE file_upload_id = ? AND id > ? ORDER BY id LIMIT 1 OFFSET ?";
+  private static final String DELETE_RANGE =
+      "DELETE FROM sales_data WHERE file_upload_id = ? AND id > ? AND id <= ?";
+
+  private static final String SUM_COLUMNS =
+      "SELECT COUNT(*), CAST(COALESCE(SUM(total_amount), 0) * 100 AS SIGNED),"
+          + " COALESCE(SUM(quantity), 0), CAST(COALESCE(SUM(product_price), 0) * 100 AS SIGNED)"
+          + " FROM sales_data ";
+  private static final String SUM_VISIBLE_BY_USER =
+      SUM_COLUMNS
+          + "WHERE user_id = ? AND file_upload_id NOT IN (SELECT id FROM file_uploads"
+          + " WHERE user_id = ? AND upload_status = 'DELETING')";
+
+  private static final String SUM_DAYS_COLUMNS =
+      "SELECT sale_date, product_id, COALESCE(location_id, "
+          + SalesRollupDelta.NO_LOCATION
+          + ") AS location, COUNT(*), CAST(COALESCE(SUM(total_amount), 0) * 100 AS SIGNED),"
+          + " SUM(quantity), CAST(SUM(product_price) * 100 AS SIGNED) FROM sales_data ";
+  private static final String SUM_DAYS_GROUP = " GROUP BY sale_date, product_id, location";
+  private static final String SUM_DAYS_RANGE =
+      SUM_DAYS_COLUMNS + "WHERE file_upload_id = ? AND id > ? AND id <= ?" + SUM_DAYS_GROUP;
+  private static final String SUM_DAYS_VISIBLE_BY_USER =
+      SUM_DAYS_COLUMNS
+          + "WHERE user_id = ? AND file_upload_id NOT IN (SELECT id FROM file_uploads"
+          + " WHERE user_id = ? AND upload_status = 'DELETING')"
+          + SUM_DAYS_GROUP;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Value("${file.upload.ingest.jdbc.rows-per-statement}")
+  private int rowsPerStatement;
+
+  // INSERT statements keyed by row count; in practice a full batch and one remainder size
+  private final Map<Integer, String> insertStatements = new ConcurrentHashMap<>();
+
+  /**
+   * Insert records with multi-row INSERT statements. Joins the caller's transaction.
+   *
+   * @return number of rows inserted
+   */
+  public int insertAll(List<SalesDataEntity> records) {
+    int inserted = 0;
+    for (int from = 0; from < records.size(); from += rowsPerStatement) {
+      List<SalesDataEntity> batch =
+          records.subList(from, Math.min(from + rowsPerStatement, records.size()));
+      inserted += jdbcTemplate.update(insertStatement(batch.size()), ps -> bindRows(ps, batch));
+    }
+    return inserted;
+  }
+
+  /**
+   * Delete an upload's records in chunks of at most {@code chunkSize} rows, walking the id range in
+   * order. Called outside a transaction each chunk commits on its own, keeping locks and undo log
+   * small however many rows the upload has.
+   *
+   * @param chunkListener told the number of rows removed by each chunk
+   * @return number of rows deleted
+   */
+  public long deleteByFileUploadId(Long fileUploadId, int chunkSize, IntConsumer chunkListener) {
+    long deleted = 0;
+    long afterId = 0;
+    while (true) {
+      Long upperBound = findChunkUpperBound(fileUploadId, afterId, chunkSize);
+      long upToId = upperBound != null ? upperBound : Long.MAX_VALUE;
+
+      int chunkDeleted = deleteRange(fileUploadId, afterId, upToId);
+      deleted += chunkDeleted;
+      chunkListener.accept(chunkDeleted);
+
+      if (upperBound == null) {
+        return deleted;
+      }
+      afterId = upToId;
+    }
+  }
+
+  /**
+   * Id of the last of the next {@code chunkSize} records of an upload after {@code afterId}, or
+   * null when fewer remain and the next chunk is the last one
+   */
+  public Long findChunkUpperBound(Long fileUploadId, long afterId, int chunkSize) {
+    List<Long> upperBound =
+        jdbcTemplate.queryForList(
+            CHUNK_UPPER_BOUND, Long.class, fileUploadId, afterId, chunkSize - 1);
+    return upperBound.isEmpty() ? null : upperBound.get(0);
+  }
+
+  /** Delete an upload's records with ids in (afterId, upToId] */
+  public int deleteRange(Long fileUploadId, long afterId, long upToId) {
+    return jdbcTemplate.update(DELETE_RANGE, fileUploadId, afterId, upToId);
+  }
+
+  /**
+   * Day rollup deltas of an upload's records with ids in (afterId, upToId], one per sale date,
+   * product and location
+   */
+  public List<SalesRollupDelta> sumDaysRange(Long fileUploadId, long afterId, long upToId) {
+    return jdbcTemplate.query(
+        SUM_DAYS_RANGE, SalesDataBulkRepository::mapDayDelta, fileUploadId, afterId, upToId);
+  }
+
+  /** Day rollup deltas of all of an upload's records */
+  public List<SalesRollupDelta> sumDaysByFileUploadId(Long fileUploadId) {
+    return sumDaysRange(fileUploadId, 0, Long.MAX_VALUE);
+  }
+
+  /** Stream the day rollup rows of a user's records, excluding uploads being deleted */
+  public void sumDaysVisibleByUserId(Long userId, Consumer<SalesRollupDelta> dayConsumer) {
+    jdbcTemplate.query(
+        SUM_DAYS_VISIBLE_BY_USER,
+        rs -> {
+          dayConsumer.accept(mapDayDelta(rs, 0));
+        },
+        userId,
+        userId);
+  }
+
+  /** Totals of a user's records, excluding uploads being deleted */
+  public SalesSummaryDelta sumVisibleByUserId(Long userId) {
+    return jdbcTemplate.queryForObject(
+        SUM_VISIBLE_BY_USER, SalesDataBulkRepository::mapDelta, userId, userId);
+  }
+
+  private static SalesRollupDelta mapDayDelta(ResultSet rs, int rowNum) throws SQLException {
+    return new SalesRollupDelta(
+        RollupGrain.DAY,
+        rs.getObject(1, LocalDate.class),
+        rs.getInt(2),
+        rs.getInt(3),
+        rs.getLong(4),
+        rs.getLong(5),
+        rs.getLong(6),
+        rs.getLong(7));
+  }
+
+  private static SalesSummaryDelta mapDelta(ResultSet rs, int rowNum) throws SQLException {
+    return new SalesSummaryDelta(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4));
+  }
+
+  private String insertStatement(int rowCount) {
+    return insertStatements.computeIfAbsent(
+        rowCount,
+        count -> {
+          StringBuilder sql =
+              new StringBuilder(INSERT_PREFIX.length() + count * (ROW_PLACEHOLDERS.length() + 2));
+          sql.append(INSERT_PREFIX);
+          for (int i = 0; i < count; i++) {
+            if (i > 0) {
+              sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+          }
+          return sql.toString();
+        });
+  }
+
+  private static void bindRows(PreparedStatement ps, List<SalesDataEntity> batch)
+      throws SQLException {
+    int index = 1;
+    for (SalesDataEntity salesDataEntity : batch) {
+      ps.setLong(index++, salesDataEntity.getUserId());
+      ps.setLong(index++, salesDataEntity.getFileUploadId());
+      ps.setInt(index++, salesDataEntity.getProductId());
+      ps.setBigDecimal(index++, Money.toBigDecimal(salesDataEntity.getProductPriceCents()));
+      if (salesDataEntity.getLocationId() != null) {
+        ps.setInt(index++, salesDataEntity.getLocationId());
+      } else {
+        ps.setNull(index++, Types.INTEGER);
+      }
+      ps.setObject(index++, salesDataEntity.getSaleDate());
+      ps.setInt(index++, salesDataEntity.getQuantity());
+      // Same calculation the entity performs in @PrePersist, which is skipped on this path
+      ps.setBigDecimal(index++, Money.toBigDecimal(salesDataEntity.getAmountCents()));
+      ps.setObject(index++, salesDataEntity.getCreatedAt());
+    }
+  }
+}
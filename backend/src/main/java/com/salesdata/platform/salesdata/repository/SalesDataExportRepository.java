@@ -0,0 +1,94 @@
+package com.salesdata.platform.salesdata.repository;
+
+import com.salesdata.platform.salesdata.dto.SalesDataFilter;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Export read path for sales_data. Rows are streamed from the server one at a time and handed to
+ * the caller straight from the result set, without building entities or collecting them, so an
+ * export of any size runs in constant memory. Filters match {@link SalesDataQueryRepository}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesDataExportRepository {
+
+  // Column order of every exported row
+  public static final int ID = 1;
+  public static final int FILE_UPLOAD_ID = 2;
+  public static final int PRODUCT_NAME = 3;
+  public static final int PRODUCT_PRICE = 4;
+  public static final int QUANTITY = 5;
+  public static final int TOTAL_AMOUNT = 6;
+  public static final int SALE_DATE = 7;
+  public static final int SALE_LOCATION = 8;
+
+  private static final String SELECT =
+      "SELECT s.id, s.file_upload_id, p.name, s.product_price, s.quantity, s.total_amount,"
+          + " s.sale_date, l.name FROM sales_data s"
+          + " JOIN sales_products p ON p.id = s.product_id"
+          + " LEFT JOIN sales_locations l ON l.id = s.location_id WHERE s.user_id = ?"
+          + " AND s.file_upload_id NOT IN (SELECT id FROM file_uploads"
+          + " WHERE user_id = ? AND upload_status = 'DELETING')";
+
+  // MySQL Connector/J streams the result set row by row instead of buffering it for this value
+  private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Stream the user's records in (sale_date, id) order to {@code rowHandler}. The connection is
+   * held until the last row has been handled.
+   */
+  public void streamRows(
+      Long userId,
+      SalesDataFilter filter,
+      Sort.Direction direction,
+      RowCallbackHandler rowHandler) {
+
+    StringBuilder sql = new StringBuilder(SELECT);
+    List<Object> parameters = new ArrayList<>(List.of(userId, userId));
+    if (filter.startDate() != null) {
+      sql.append(" AND s.sale_date >= ?");
+      parameters.add(Date.valueOf(filter.startDate()));
+    }
+    if (filter.endDate() != null) {
+      sql.append(" AND s.sale_date <= ?");
+      parameters.add(Date.valueOf(filter.endDate()));
+    }
+    if (filter.productName() != null) {
+      sql.append(" AND ").append(SalesDimension.PRODUCT.sqlHasName("s.product_id"));
+      parameters.add(userId);
+      parameters.add(filter.productName());
+    }
+    if (filter.saleLocation() != null) {
+      sql.append(" AND ").append(SalesDimension.LOCATION.sqlHasName("s.location_id"));
+      parameters.add(userId);
+      parameters.add(filter.saleLocation());
+    }
+    String order = direction.isAscending() ? "ASC" : "DESC";
+    sql.append(" ORDER BY s.sale_date ").append(order).append(", s.id ").append(order);
+
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement ps =
+              connection.prepareStatement(
+                  sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          ps.setFetchSize(STREAMING_FETCH_SIZE);
+          for (int i = 0; i < parameters.size(); i++) {
+            ps.setObject(i + 1, parameters.get(i));
+          }
+          return ps;
+        },
+        rowHandler);
+  }
+}
@@ -0,0 +1,92 @@
+package com.salesdata.platform.salesdata.repository;
+
+import com.salesdata.platform.salesdata.dto.SalesDataCursor;
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesDataFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Keyset-paginated listing of a user's sales records. Pages are ordered by (sale_date, id) and
+ * continue from the last key of the previous page rather than an offset, so each page reads only
+ * its own rows from the (user_id, [product_id | location_id,] sale_date, id) indexes however deep
+ * the client has paged. Only the filters in use are added to the query, keeping it index friendly.
+ */
+@Repository
+public class SalesDataQueryRepository {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  /**
+   * Find up to {@code limit} records after {@code after} (or from the start when null)
+   *
+   * @param productId id of the filter's product name, if it has one
+   * @param locationId id of the filter's sale location, if it has one
+   * @param direction order of sale dates; ties are broken by id in the same direction
+   */
+  public List<SalesDataEntity> findPage(
+      Long userId,
+      SalesDataFilter filter,
+      Integer productId,
+      Integer locationId,
+      Sort.Direction direction,
+      SalesDataCursor after,
+      int limit) {
+
+    String order = direction.isAscending() ? "ASC" : "DESC";
+    String beyond = direction.isAscending() ? ">" : "<";
+
+    StringBuilder jpql =
+        new StringBuilder(
+            "SELECT s FROM SalesDataEntity s WHERE s.userId = :userId "
+                + "AND s.fileUploadId NOT IN (SELECT f.id FROM FileUploadEntity f "
+                + "WHERE f.userId = :userId "
+                + "AND f.uploadStatus = "
+                + "com.salesdata.platform.fileupload.enums.UploadStatus.DELETING) ");
+    if (filter.startDate() != null) {
+      jpql.append("AND s.saleDate >= :startDate ");
+    }
+    if (filter.endDate() != null) {
+      jpql.append("AND s.saleDate <= :endDate ");
+    }
+    if (productId != null) {
+      jpql.append("AND s.productId = :productId ");
+    }
+    if (locationId != null) {
+      jpql.append("AND s.locationId = :locationId ");
+    }
+    if (after != null) {
+      jpql.append("AND (s.saleDate ")
+          .append(beyond)
+          .append(" :afterDate OR (s.saleDate = :afterDate AND s.id ")
+          .append(beyond)
+          .append(" :afterId)) ");
+    }
+    jpql.append("ORDER BY s.saleDate ").append(order).append(", s.id ").append(order);
+
+    TypedQuery<SalesDataEntity> query =
+        entityManager.createQuery(jpql.toString(), SalesDataEntity.class);
+    query.setParameter("userId", userId);
+    if (filter.startDate() != null) {
+      query.setParameter("startDate", filter.startDate());
+    }
+    if (filter.endDate() != null) {
+      query.setParameter("endDate", filter.endDate());
+    }
+    if (productId != null) {
+      query.setParameter("productId", productId);
+    }
+    if (locationId != null) {
+      query.setParameter("locationId", locationId);
+    }
+    if (after != null) {
+      query.setParameter("afterDate", after.saleDate());
+      query.setParameter("afterId", after.id());
+    }
+    return query.setMaxResults(limit).getResultList();
+  }
+}
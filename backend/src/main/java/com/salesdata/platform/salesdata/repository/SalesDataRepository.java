@@ -1,8 +1,6 @@
 package com.salesdata.platform.salesdata.repository;
 
 import com.salesdata.platform.salesdata.dto.SalesDataEntity;
-import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -13,44 +11,20 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface SalesDataRepository extends JpaRepository<SalesDataEntity, Long> {
 
-  /** Find all sales records for a specific user */
-  List<SalesDataEntity> findByUserIdOrderBySaleDateDesc(Long userId);
-
-  /** Find a specific sales record by ID and user (security check) */
-  Optional<SalesDataEntity> findByIdAndUserId(Long id, Long userId);
-
-  /** Count total records for a user */
-  long countByUserId(Long userId);
-
-  // FILTERING AND SEARCH QUERIES
-
-  /** Find sales by date range for a user */
+  /**
+   * Find a specific sales record by ID and user (security check), excluding uploads being deleted
+   */
   @Query(
-      "SELECT s FROM SalesDataEntity s WHERE s.userId = :userId "
-          + "AND s.saleDate BETWEEN :startDate AND :endDate "
-          + "ORDER BY s.saleDate DESC")
-  List<SalesDataEntity> findByUserIdAndDateRange(
-      @Param("userId") Long userId,
-      @Param("startDate") LocalDate startDate,
-      @Param("endDate") LocalDate endDate);
-
-  // ANALYTICS QUERIES
-  /** Calculate total sales amount for a user */
-  @Query("SELECT COALESCE(SUM(s.totalAmount), 0) FROM SalesDataEntity s WHERE s.userId = :userId")
-  BigDecimal getTotalSalesAmountByUserId(@Param("userId") Long userId);
-
-  /** Calculate total quantity sold for a user */
-  @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM SalesDataEntity s WHERE s.userId = :userId")
-  BigDecimal getTotalQuantityByUserId(@Param("userId") Long userId);
-
-  /** Calculate total quantity sold for a user */
-  @Query("SELECT COALESCE(AVG(s.productPrice), 0) FROM SalesDataEntity s WHERE s.userId = :userId")
-  BigDecimal getAveragePriceByUserId(@Param("userId") Long userId);
+      "SELECT s FROM SalesDataEntity s WHERE s.id = :id AND s.userId = :userId "
+          + "AND s.fileUploadId NOT IN (SELECT f.id FROM FileUploadEntity f "
+          + "WHERE f.userId = :userId "
+          + "AND f.uploadStatus = com.salesdata.platform.fileupload.enums.UploadStatus.DELETING)")
+  Optional<SalesDataEntity> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
 
   // BATCH OPERATIONS
 
-  /** Delete all sales records for a specific file upload */
-  int deleteByFileUploadId(Long fileUploadId);
+  /** Check if a file upload already has sales records (e.g. from an interrupted ingest) */
+  boolean existsByFileUploadId(Long fileUploadId);
 
   /** Find all sales records from a specific file upload */
   List<SalesDataEntity> findByFileUploadIdOrderBySaleDateDesc(Long fileUploadId);
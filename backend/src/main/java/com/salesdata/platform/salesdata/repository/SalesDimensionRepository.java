@@ -0,0 +1,84 @@
+package com.salesdata.platform.salesdata.repository;
+
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads and writes the product and location dimension tables, which map each user's names to int
+ * ids. Ids are unique across users, so reading a name by id needs no user.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesDimensionRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public Optional<Integer> findId(SalesDimension dimension, Long userId, String name) {
+    return findId(dimension, userId, name, "");
+  }
+
+  public Optional<String> findName(SalesDimension dimension, int id) {
+    List<String> names =
+        jdbcTemplate.queryForList(
+            "SELECT name FROM " + dimension.getTable() + " WHERE id = ?", String.class, id);
+    return names.stream().findFirst();
+  }
+
+  /** Names of the ids, in one query; ids that do not exist are left out */
+  public Map<Integer, String> findNames(SalesDimension dimension, Collection<Integer> ids) {
+    Map<Integer, String> names = new HashMap<>();
+    if (ids.isEmpty()) {
+      return names;
+    }
+    String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+    jdbcTemplate.query(
+        "SELECT id, name FROM " + dimension.getTable() + " WHERE id IN (" + placeholders + ")",
+        rs -> {
+          names.put(rs.getInt(1), rs.getString(2));
+        },
+        ids.toArray());
+    return names;
+  }
+
+  /**
+   * Id of the user's name, adding it to the dimension table if missing. Commits on its own, so the
+   * id can be cached whatever becomes of the caller's transaction. Concurrent callers adding the
+   * same name get the same id.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public int findOrCreateId(SalesDimension dimension, Long userId, String name) {
+    return findId(dimension, userId, name)
+        .orElseGet(
+            () -> {
+              jdbcTemplate.update(
+                  "INSERT IGNORE INTO " + dimension.getTable() + " (user_id, name) VALUES (?, ?)",
+                  userId,
+                  name);
+              // A locking read sees a row another transaction added since this one's snapshot
+              return findId(dimension, userId, name, " FOR SHARE")
+                  .orElseThrow(
+                      () -> new IllegalStateException("Could not add " + dimension + " " + name));
+            });
+  }
+
+  private Optional<Integer> findId(
+      SalesDimension dimension, Long userId, String name, String lock) {
+    List<Integer> ids =
+        jdbcTemplate.queryForList(
+            "SELECT id FROM " + dimension.getTable() + " WHERE user_id = ? AND name = ?" + lock,
+            Integer.class,
+            userId,
+            name);
+    return ids.stream().findFirst();
+  }
+}
@@ -0,0 +1,100 @@
+package com.salesdata.platform.salesdata.repository;
+
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/** Storage of per-upload HyperLogLog registers for distinct product and location counts */
+@Repository
+@RequiredArgsConstructor
+public class SalesDistinctRepository {
+
+  /**
+   * Registers of one visible upload, or an upload without them
+   *
+   * @param registers null if the upload has no registers yet
+   */
+  public record StoredRegisters(Long fileUploadId, byte[] registers, boolean stale) {
+
+    public boolean needsRebuild() {
+      return registers == null || stale;
+    }
+  }
+
+  private static final String UPSERT =
+      "INSERT INTO upload_distinct_counts (file_upload_id, dimension, user_id, registers, stale)"
+          + " VALUES (?, ?, ?, ?, FALSE) AS new ON DUPLICATE KEY UPDATE"
+          + " registers = new.registers, stale = FALSE";
+
+  private static final String MARK_STALE =
+      "UPDATE upload_distinct_counts SET stale = TRUE WHERE file_upload_id = ?";
+
+  // Finished uploads that are not being deleted, with their registers if they have them
+  private static final String FIND_VISIBLE =
+      "SELECT f.id, d.registers, d.stale FROM file_uploads f"
+          + " LEFT JOIN upload_distinct_counts d ON d.file_upload_id = f.id AND d.dimension = ?"
+          + " WHERE f.user_id = ? AND f.upload_status IN ('COMPLETED', 'FAILED')";
+
+  // MySQL Connector/J streams the result set row by row instead of buffering it for this value
+  private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public void save(Long fileUploadId, Long userId, SalesDimension dimension, byte[] registers) {
+    jdbcTemplate.update(UPSERT, fileUploadId, dimension.name(), userId, registers);
+  }
+
+  public int markStale(Long fileUploadId) {
+    return jdbcTemplate.update(MARK_STALE, fileUploadId);
+  }
+
+  public List<StoredRegisters> findByUserId(Long userId, SalesDimension dimension) {
+    return jdbcTemplate.query(
+        FIND_VISIBLE,
+        (rs, rowNum) -> new StoredRegisters(rs.getLong(1), rs.getBytes(2), rs.getBoolean(3)),
+        dimension.name(),
+        userId);
+  }
+
+  /** The upload's registers, or empty if it is not a visible upload of the user */
+  public Optional<StoredRegisters> findByFileUploadId(
+      Long fileUploadId, Long userId, SalesDimension dimension) {
+    return jdbcTemplate
+        .query(
+            FIND_VISIBLE + " AND f.id = ?",
+            (rs, rowNum) -> new StoredRegisters(rs.getLong(1), rs.getBytes(2), rs.getBoolean(3)),
+            dimension.name(),
+            userId,
+            fileUploadId)
+        .stream()
+        .findFirst();
+  }
+
+  /** Stream the upload's non-empty values of the dimension, duplicates included */
+  public void streamUploadValues(
+      Long fileUploadId, SalesDimension dimension, Consumer<String> valueConsumer) {
+    String sql =
+        "SELECT d.name FROM sales_data s JOIN "
+            + dimension.getTable()
+            + " d ON d.id = s."
+            + dimension.getColumn()
+            + " WHERE s.file_upload_id = ?";
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement ps =
+              connection.prepareStatement(
+                  sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          ps.setFetchSize(STREAMING_FETCH_SIZE);
+          ps.setLong(1, fileUploadId);
+          return ps;
+        },
+        (RowCallbackHandler) rs -> valueConsumer.accept(rs.getString(1)));
+  }
+}
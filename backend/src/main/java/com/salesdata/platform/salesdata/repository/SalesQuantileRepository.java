@@ -0,0 +1,90 @@
+package com.salesdata.platform.salesdata.repository;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.enums.QuantileMetric;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/** Storage of per-upload, per-month KLL quantile sketches */
+@Repository
+@RequiredArgsConstructor
+public class SalesQuantileRepository {
+
+  /**
+   * Monthly sketches of one visible upload, or an upload without them
+   *
+   * @param sketches null if the upload has no sketches yet
+   */
+  public record StoredSketches(Long fileUploadId, byte[] sketches, boolean stale) {
+
+    public boolean needsRebuild() {
+      return sketches == null || stale;
+    }
+  }
+
+  private static final String UPSERT =
+      "INSERT INTO upload_quantile_sketches (file_upload_id, metric, user_id, sketches, stale)"
+          + " VALUES (?, ?, ?, ?, FALSE) AS new ON DUPLICATE KEY UPDATE"
+          + " sketches = new.sketches, stale = FALSE";
+
+  private static final String MARK_STALE =
+      "UPDATE upload_quantile_sketches SET stale = TRUE WHERE file_upload_id = ?";
+
+  // Finished uploads that are not being deleted, with their sketches if they have them
+  private static final String FIND_BY_USER =
+      "SELECT f.id, q.sketches, q.stale FROM file_uploads f"
+          + " LEFT JOIN upload_quantile_sketches q ON q.file_upload_id = f.id AND q.metric = ?"
+          + " WHERE f.user_id = ? AND f.upload_status IN ('COMPLETED', 'FAILED')";
+
+  private static final String STREAM_UPLOAD_RECORDS =
+      "SELECT CAST(product_price * 100 AS SIGNED), quantity, sale_date FROM sales_data"
+          + " WHERE file_upload_id = ?";
+
+  // MySQL Connector/J streams the result set row by row instead of buffering it for this value
+  private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public void save(Long fileUploadId, Long userId, QuantileMetric metric, byte[] sketches) {
+    jdbcTemplate.update(UPSERT, fileUploadId, metric.name(), userId, sketches);
+  }
+
+  public int markStale(Long fileUploadId) {
+    return jdbcTemplate.update(MARK_STALE, fileUploadId);
+  }
+
+  public List<StoredSketches> findByUserId(Long userId, QuantileMetric metric) {
+    return jdbcTemplate.query(
+        FIND_BY_USER,
+        (rs, rowNum) -> new StoredSketches(rs.getLong(1), rs.getBytes(2), rs.getBoolean(3)),
+        metric.name(),
+        userId);
+  }
+
+  /** Stream an upload's records with just the fields the sketches use */
+  public void streamUploadRecords(Long fileUploadId, Consumer<SalesDataEntity> recordConsumer) {
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement ps =
+              connection.prepareStatement(
+                  STREAM_UPLOAD_RECORDS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          ps.setFetchSize(STREAMING_FETCH_SIZE);
+          ps.setLong(1, fileUploadId);
+          return ps;
+        },
+        (RowCallbackHandler)
+            rs -> {
+              SalesDataEntity record = new SalesDataEntity();
+              record.setProductPriceCents(rs.getLong(1));
+              record.setQuantity(rs.getInt(2));
+              record.setSaleDate(rs.getDate(3).toLocalDate());
+              recordConsumer.accept(record);
+            });
+  }
+}
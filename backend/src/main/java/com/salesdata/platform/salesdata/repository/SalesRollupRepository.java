@@ -0,0 +1,249 @@
+package com.salesdata.platform.salesdata.repository;
+
+import com.salesdata.platform.salesdata.dto.SalesDataFilter;
+import com.salesdata.platform.salesdata.dto.SalesRollupDelta;
+import com.salesdata.platform.salesdata.dto.SalesTimeSeries;
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.salesdata.enums.TimeSeriesGroupBy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads and writes sales_rollups, and answers time series from either the rollups or, for filters
+ * the rollups cannot serve, the raw sales records. Rollup rows whose count drops to zero are left
+ * in place and skipped by reads until the user's rollups are rebuilt.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupRepository {
+
+  private static final int ROWS_PER_STATEMENT = 500;
+
+  private static final String UPSERT_PREFIX =
+      "INSERT INTO sales_rollups (user_id, grain, bucket_start, product_id, location_id,"
+          + " record_count, total_amount, total_quantity, total_price) VALUES ";
+  // Amounts are bound in cents
+  private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ? / 100, ?, ? / 100)";
+  private static final String UPSERT_SUFFIX =
+      " AS delta ON DUPLICATE KEY UPDATE"
+          + " record_count = sales_rollups.record_count + delta.record_count,"
+          + " total_amount = sales_rollups.total_amount + delta.total_amount,"
+          + " total_quantity = sales_rollups.total_quantity + delta.total_quantity,"
+          + " total_price = sales_rollups.total_price + delta.total_price";
+
+  private static final String DELETE_BY_USER = "DELETE FROM sales_rollups WHERE user_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  // Upsert statements keyed by row count
+  private final Map<Integer, String> upsertStatements = new ConcurrentHashMap<>();
+
+  /**
+   * Add deltas to the user's rollup rows, creating missing rows. Joins the caller's transaction.
+   */
+  public void applyDeltas(Long userId, List<SalesRollupDelta> deltas) {
+    for (int from = 0; from < deltas.size(); from += ROWS_PER_STATEMENT) {
+      List<SalesRollupDelta> batch =
+          deltas.subList(from, Math.min(from + ROWS_PER_STATEMENT, deltas.size()));
+      jdbcTemplate.update(upsertStatement(batch.size()), ps -> bindRows(ps, userId, batch));
+    }
+  }
+
+  public int deleteByUserId(Long userId) {
+    return jdbcTemplate.update(DELETE_BY_USER, userId);
+  }
+
+  /**
+   * Time series from the rollups of {@code sourceGrain}, bucketed by {@code grain}. A finer source
+   * grain is re-bucketed, which serves date ranges that do not line up with {@code grain} buckets.
+   */
+  public List<SalesTimeSeries.Point> findRollupSeries(
+      Long userId,
+      RollupGrain grain,
+      RollupGrain sourceGrain,
+      SalesDataFilter filter,
+      TimeSeriesGroupBy groupBy) {
+
+    List<Object> parameters = new ArrayList<>(List.of(userId, sourceGrain.name()));
+    StringBuilder where = new StringBuilder(" FROM sales_rollups WHERE user_id = ? AND grain = ?");
+    appendFilters(where, parameters, userId, filter, "bucket_start");
+
+    return findSeries(
+        grain.sqlBucketStart("bucket_start"),
+        "SUM(record_count)",
+        "SUM(total_amount)",
+        "SUM(total_quantity)",
+        where,
+        parameters,
+        groupBy);
+  }
+
+  /** Time series aggregated from the raw sales records, for filters the rollups cannot serve */
+  public List<SalesTimeSeries.Point> findRawSeries(
+      Long userId,
+      RollupGrain grain,
+      SalesDataFilter filter,
+      BigDecimal minPrice,
+      BigDecimal maxPrice,
+      TimeSeriesGroupBy groupBy) {
+
+    List<Object> parameters = new ArrayList<>(List.of(userId, userId));
+    StringBuilder where =
+        new StringBuilder(
+            " FROM sales_data WHERE user_id = ? AND file_upload_id NOT IN"
+                + " (SELECT id FROM file_uploads WHERE user_id = ? AND upload_status = 'DELETING')");
+    appendFilters(where, parameters, userId, filter, "sale_date");
+    if (minPrice != null) {
+      where.append(" AND product_price >= ?");
+      parameters.add(minPrice);
+    }
+    if (maxPrice != null) {
+      where.append(" AND product_price <= ?");
+      parameters.add(maxPrice);
+    }
+
+    return findSeries(
+        grain.sqlBucketStart("sale_date"),
+        "COUNT(*)",
+        "COALESCE(SUM(total_amount), 0)",
+        "SUM(quantity)",
+        where,
+        parameters,
+        groupBy);
+  }
+
+  /**
+   * Totals grouped on the bucket and the product and location ids, with names joined in once the
+   * groups are formed. Rollup rows without a location have no matching location row.
+   */
+  private List<SalesTimeSeries.Point> findSeries(
+      String bucketColumn,
+      String countColumn,
+      String amountColumn,
+      String quantityColumn,
+      StringBuilder where,
+      List<Object> parameters,
+      TimeSeriesGroupBy groupBy) {
+
+    StringBuilder ids = new StringBuilder();
+    StringBuilder names = new StringBuilder();
+    StringBuilder joins = new StringBuilder();
+    StringBuilder order = new StringBuilder("g.bucket");
+    if (groupBy.isByProduct()) {
+      ids.append(", product_id");
+      names.append(", p.name AS product_name");
+      joins.append(" JOIN sales_products p ON p.id = g.product_id");
+      order.append(", p.name");
+    }
+    if (groupBy.isByLocation()) {
+      ids.append(", location_id");
+      names.append(", l.name AS location");
+      joins.append(" LEFT JOIN sales_locations l ON l.id = g.location_id");
+      order.append(", l.name");
+    }
+
+    StringBuilder sql =
+        new StringBuilder("SELECT g.bucket")
+            .append(names)
+            .append(", g.record_count, g.total_amount, g.total_quantity FROM (SELECT ")
+            .append(bucketColumn)
+            .append(" AS bucket")
+            .append(ids)
+            .append(", ")
+            .append(countColumn)
+            .append(" AS record_count, ")
+            .append(amountColumn)
+            .append(" AS total_amount, ")
+            .append(quantityColumn)
+            .append(" AS total_quantity")
+            .append(where)
+            .append(" GROUP BY bucket")
+            .append(ids)
+            .append(" HAVING ")
+            .append(countColumn)
+            .append(" > 0) g")
+            .append(joins)
+            .append(" ORDER BY ")
+            .append(order);
+
+    return jdbcTemplate.query(
+        sql.toString(),
+        (rs, rowNum) ->
+            new SalesTimeSeries.Point(
+                rs.getObject("bucket", LocalDate.class),
+                groupBy.isByProduct() ? rs.getString("product_name") : null,
+                groupBy.isByLocation() ? rs.getString("location") : null,
+                rs.getLong("record_count"),
+                rs.getBigDecimal("total_amount"),
+                rs.getLong("total_quantity")),
+        parameters.toArray());
+  }
+
+  private static void appendFilters(
+      StringBuilder where,
+      List<Object> parameters,
+      Long userId,
+      SalesDataFilter filter,
+      String dateColumn) {
+    if (filter.startDate() != null) {
+      where.append(" AND ").append(dateColumn).append(" >= ?");
+      parameters.add(Date.valueOf(filter.startDate()));
+    }
+    if (filter.endDate() != null) {
+      where.append(" AND ").append(dateColumn).append(" <= ?");
+      parameters.add(Date.valueOf(filter.endDate()));
+    }
+    if (filter.productName() != null) {
+      where.append(" AND ").append(SalesDimension.PRODUCT.sqlHasName("product_id"));
+      parameters.add(userId);
+      parameters.add(filter.productName());
+    }
+    if (filter.saleLocation() != null) {
+      where.append(" AND ").append(SalesDimension.LOCATION.sqlHasName("location_id"));
+      parameters.add(userId);
+      parameters.add(filter.saleLocation());
+    }
+  }
+
+  private String upsertStatement(int rowCount) {
+    return upsertStatements.computeIfAbsent(
+        rowCount,
+        count -> {
+          StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+          for (int i = 0; i < count; i++) {
+            if (i > 0) {
+              sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+          }
+          return sql.append(UPSERT_SUFFIX).toString();
+        });
+  }
+
+  private static void bindRows(PreparedStatement ps, Long userId, List<SalesRollupDelta> batch)
+      throws SQLException {
+    int index = 1;
+    for (SalesRollupDelta delta : batch) {
+      ps.setLong(index++, userId);
+      ps.setString(index++, delta.grain().name());
+      ps.setObject(index++, delta.bucketStart());
+      ps.setInt(index++, delta.productId());
+      ps.setInt(index++, delta.locationId());
+      ps.setLong(index++, delta.recordCount());
+      ps.setLong(index++, delta.totalAmountCents());
+      ps.setLong(index++, delta.totalQuantity());
+      ps.setLong(index++, delta.totalPriceCents());
+    }
+  }
+}
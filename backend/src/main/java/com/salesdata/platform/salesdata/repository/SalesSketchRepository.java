@@ -0,0 +1,144 @@
+package com.salesdata.platform.salesdata.repository;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesTopItems;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.salesdata.enums.TopMetric;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/** Storage of per-upload heavy-hitter sketches, and the exact rankings they stand in for */
+@Repository
+@RequiredArgsConstructor
+public class SalesSketchRepository {
+
+  /**
+   * Sketch of one visible upload, or an upload without one
+   *
+   * @param sketch null if the upload has no sketch yet
+   */
+  public record StoredSketch(Long fileUploadId, byte[] sketch, boolean stale) {
+
+    public boolean needsRebuild() {
+      return sketch == null || stale;
+    }
+  }
+
+  private static final String UPSERT =
+      "INSERT INTO upload_sketches (file_upload_id, dimension, metric, user_id, sketch, stale)"
+          + " VALUES (?, ?, ?, ?, ?, FALSE) AS new ON DUPLICATE KEY UPDATE"
+          + " sketch = new.sketch, stale = FALSE";
+
+  private static final String MARK_STALE =
+      "UPDATE upload_sketches SET stale = TRUE WHERE file_upload_id = ?";
+
+  // Finished uploads that are not being deleted, with their sketch if they have one. Records of
+  // uploads still being ingested are left out until the ingest saves its sketches.
+  private static final String FIND_BY_USER =
+      "SELECT f.id, k.sketch, k.stale FROM file_uploads f"
+          + " LEFT JOIN upload_sketches k ON k.file_upload_id = f.id"
+          + " AND k.dimension = ? AND k.metric = ?"
+          + " WHERE f.user_id = ? AND f.upload_status IN ('COMPLETED', 'FAILED')";
+
+  private static final String STREAM_UPLOAD_RECORDS =
+      "SELECT p.name, l.name, CAST(s.product_price * 100 AS SIGNED), s.quantity"
+          + " FROM sales_data s JOIN sales_products p ON p.id = s.product_id"
+          + " LEFT JOIN sales_locations l ON l.id = s.location_id"
+          + " WHERE s.file_upload_id = ?";
+
+  // MySQL Connector/J streams the result set row by row instead of buffering it for this value
+  private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public void save(
+      Long fileUploadId, Long userId, SalesDimension dimension, TopMetric metric, byte[] sketch) {
+    jdbcTemplate.update(UPSERT, fileUploadId, dimension.name(), metric.name(), userId, sketch);
+  }
+
+  public int markStale(Long fileUploadId) {
+    return jdbcTemplate.update(MARK_STALE, fileUploadId);
+  }
+
+  public List<StoredSketch> findByUserId(Long userId, SalesDimension dimension, TopMetric metric) {
+    return jdbcTemplate.query(
+        FIND_BY_USER,
+        (rs, rowNum) -> new StoredSketch(rs.getLong(1), rs.getBytes(2), rs.getBoolean(3)),
+        dimension.name(),
+        metric.name(),
+        userId);
+  }
+
+  /** Stream an upload's records with just the fields the sketches use */
+  public void streamUploadRecords(Long fileUploadId, Consumer<SalesDataEntity> recordConsumer) {
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement ps =
+              connection.prepareStatement(
+                  STREAM_UPLOAD_RECORDS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          ps.setFetchSize(STREAMING_FETCH_SIZE);
+          ps.setLong(1, fileUploadId);
+          return ps;
+        },
+        rs -> {
+          SalesDataEntity record = new SalesDataEntity();
+          record.setProductName(rs.getString(1));
+          record.setSaleLocation(rs.getString(2));
+          record.setProductPriceCents(rs.getLong(3));
+          record.setQuantity(rs.getInt(4));
+          recordConsumer.accept(record);
+        });
+  }
+
+  /**
+   * Exact top {@code n} of the user's visible records, grouped on the item id with names joined in
+   * afterwards
+   */
+  public List<SalesTopItems.Item> findExactTop(
+      Long userId, SalesDimension dimension, TopMetric metric, int n) {
+    String sql =
+        "SELECT d.name, g.total FROM (SELECT "
+            + dimension.getColumn()
+            + " AS item_id, SUM("
+            + metric.getColumn()
+            + ") AS total FROM sales_data WHERE user_id = ?"
+            + " AND file_upload_id NOT IN (SELECT id FROM file_uploads"
+            + " WHERE user_id = ? AND upload_status = 'DELETING')"
+            + " AND "
+            + dimension.getColumn()
+            + " IS NOT NULL GROUP BY "
+            + dimension.getColumn()
+            + ") g JOIN "
+            + dimension.getTable()
+            + " d ON d.id = g.item_id ORDER BY g.total DESC, d.name LIMIT ?";
+    return jdbcTemplate.query(
+        sql,
+        (rs, rowNum) -> {
+          BigDecimal total = rs.getBigDecimal(2);
+          return new SalesTopItems.Item(rs.getString(1), total, total, true);
+        },
+        userId,
+        userId,
+        n);
+  }
+
+  /** Metric total over the user's visible records that have the dimension */
+  public BigDecimal sumExact(Long userId, SalesDimension dimension, TopMetric metric) {
+    String sql =
+        "SELECT COALESCE(SUM("
+            + metric.getColumn()
+            + "), 0) FROM sales_data WHERE user_id = ?"
+            + " AND file_upload_id NOT IN (SELECT id FROM file_uploads"
+            + " WHERE user_id = ? AND upload_status = 'DELETING')"
+            + " AND "
+            + dimension.getColumn()
+            + " IS NOT NULL";
+    return jdbcTemplate.queryForObject(sql, BigDecimal.class, userId, userId);
+  }
+}
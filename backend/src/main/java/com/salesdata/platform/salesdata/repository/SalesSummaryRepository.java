@@ -0,0 +1,68 @@
+package com.salesdata.platform.salesdata.repository;
+
+import com.salesdata.platform.salesdata.dto.SalesSummaryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** Amounts are passed in cents, see {@link com.salesdata.platform.util.Money} */
+@Repository
+public interface SalesSummaryRepository extends JpaRepository<SalesSummaryEntity, Long> {
+
+  /** Add a delta to a user's totals, creating the summary row on the user's first records */
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO sales_summaries "
+              + "(user_id, record_count, total_amount, total_quantity, total_price) "
+              + "VALUES (:userId, :recordCount, :totalAmountCents / 100, :totalQuantity,"
+              + " :totalPriceCents / 100) "
+              + "AS delta ON DUPLICATE KEY UPDATE "
+              + "record_count = sales_summaries.record_count + delta.record_count, "
+              + "total_amount = sales_summaries.total_amount + delta.total_amount, "
+              + "total_quantity = sales_summaries.total_quantity + delta.total_quantity, "
+              + "total_price = sales_summaries.total_price + delta.total_price",
+      nativeQuery = true)
+  int applyDelta(
+      @Param("userId") Long userId,
+      @Param("recordCount") long recordCount,
+      @Param("totalAmountCents") long totalAmountCents,
+      @Param("totalQuantity") long totalQuantity,
+      @Param("totalPriceCents") long totalPriceCents);
+
+  /**
+   * Create the user's summary row if needed and hold its lock until the transaction ends, making
+   * writers wait before applying their delta
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO sales_summaries "
+              + "(user_id, record_count, total_amount, total_quantity, total_price) "
+              + "VALUES (:userId, 0, 0, 0, 0) "
+              + "ON DUPLICATE KEY UPDATE user_id = user_id",
+      nativeQuery = true)
+  int lockSummary(@Param("userId") Long userId);
+
+  /** Overwrite a user's totals, used when rebuilding from sales_data */
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "UPDATE sales_summaries SET record_count = :recordCount, "
+              + "total_amount = :totalAmountCents / 100, total_quantity = :totalQuantity, "
+              + "total_price = :totalPriceCents / 100 "
+              + "WHERE user_id = :userId",
+      nativeQuery = true)
+  int replaceTotals(
+      @Param("userId") Long userId,
+      @Param("recordCount") long recordCount,
+      @Param("totalAmountCents") long totalAmountCents,
+      @Param("totalQuantity") long totalQuantity,
+      @Param("totalPriceCents") long totalPriceCents);
+}
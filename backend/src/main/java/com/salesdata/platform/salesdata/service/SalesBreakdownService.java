@@ -0,0 +1,88 @@
+package com.salesdata.platform.salesdata.service;
+
+import com.salesdata.platform.salesdata.dto.SalesBreakdown;
+import com.salesdata.platform.salesdata.dto.SalesDataFilter;
+import com.salesdata.platform.salesdata.enums.BreakdownGroupBy;
+import com.salesdata.platform.salesdata.repository.SalesBreakdownRepository;
+import com.salesdata.platform.util.SalesColumns;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Filtered and grouped sales totals. Answered by scanning the user's in-memory columns when the
+ * columnar cache is enabled and the user fits its budget, otherwise by a GROUP BY in MySQL.
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesBreakdownService {
+
+  private static final Comparator<SalesBreakdown.Group> BY_AMOUNT =
+      Comparator.comparing(SalesBreakdown.Group::totalAmount)
+          .reversed()
+          .thenComparing(
+              SalesBreakdown.Group::key, Comparator.nullsLast(Comparator.naturalOrder()));
+
+  private static final Comparator<SalesBreakdown.Group> BY_KEY =
+      Comparator.comparing(SalesBreakdown.Group::key);
+
+  private final SalesColumnarCache salesColumnarCache;
+  private final SalesBreakdownRepository salesBreakdownRepository;
+  private final SalesSummaryService salesSummaryService;
+
+  @Value("${sales.breakdown.max-groups}")
+  private int maxGroups;
+
+  /**
+   * Totals of the user's finished uploads; products and locations come largest first, months in
+   * order
+   *
+   * @param limit null for the maximum; larger values are capped at the maximum
+   */
+  @Transactional(readOnly = true)
+  public SalesBreakdown getBreakdown(
+      Long userId, SalesDataFilter filter, BreakdownGroupBy groupBy, Integer limit) {
+    int groupLimit = limit != null ? limit : maxGroups;
+    if (groupLimit <= 0) {
+      throw new IllegalArgumentException("Limit must be greater than zero");
+    }
+    groupLimit = Math.min(groupLimit, maxGroups);
+
+    long expectedRecords = salesSummaryService.getSummary(userId).getTotalRecords();
+    Optional<SalesColumns> columns = salesColumnarCache.get(userId, expectedRecords);
+
+    List<SalesBreakdown.Group> groups;
+    String source;
+    if (columns.isPresent()) {
+      groups =
+          new ArrayList<>(
+              columns
+                  .get()
+                  .aggregate(
+                      filter.startDate(),
+                      filter.endDate(),
+                      filter.productName(),
+                      filter.saleLocation(),
+                      groupBy));
+      source = "COLUMNAR";
+    } else {
+      groups = new ArrayList<>(salesBreakdownRepository.findBreakdown(userId, filter, groupBy));
+      source = "SQL";
+    }
+
+    if (groupBy == BreakdownGroupBy.MONTH) {
+      groups.sort(BY_KEY);
+    } else if (groupBy != BreakdownGroupBy.NONE) {
+      groups.sort(BY_AMOUNT);
+    }
+    if (groups.size() > groupLimit) {
+      groups = groups.subList(0, groupLimit);
+    }
+    return new SalesBreakdown(groupBy, source, groups);
+  }
+}
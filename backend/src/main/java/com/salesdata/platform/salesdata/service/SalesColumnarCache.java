@@ -0,0 +1,182 @@
+package com.salesdata.platform.salesdata.service;
+
+import com.salesdata.platform.salesdata.repository.SalesBreakdownRepository;
+import com.salesdata.platform.util.SalesColumns;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory {@link SalesColumns} of recently queried users, loaded on first use and evicted least
+ * recently used first once the total exceeds a global memory budget. Ingested and deleted uploads
+ * are patched into cached columns after their transaction commits; other changes drop the user's
+ * columns. Every change also moves the user's epoch on, so that a load that raced with it is served
+ * but not cached.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesColumnarCache {
+
+  private final SalesBreakdownRepository salesBreakdownRepository;
+
+  @Value("${sales.columnar.enabled}")
+  private boolean enabled;
+
+  @Value("${sales.columnar.max-bytes}")
+  private long maxBytes;
+
+  // Access-ordered for LRU eviction; guarded by this
+  private final LinkedHashMap<Long, SalesColumns> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes;
+
+  private final Map<Long, Long> epochs = new ConcurrentHashMap<>();
+
+  /**
+   * The user's columns, loaded if not cached
+   *
+   * @param expectedRecords roughly how many records the user has, to skip users who would not fit
+   * @return empty when the cache is disabled or the user's records exceed the memory budget
+   */
+  public Optional<SalesColumns> get(Long userId, long expectedRecords) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    synchronized (this) {
+      SalesColumns cached = entries.get(userId);
+      if (cached != null) {
+        return Optional.of(cached);
+      }
+    }
+    if (expectedRecords * SalesColumns.estimatedBytesPerRecord() > maxBytes) {
+      return Optional.empty();
+    }
+
+    long epoch = epoch(userId);
+    SalesColumns.Builder builder = SalesColumns.builder();
+    salesBreakdownRepository.loadUserRecords(userId, builder);
+    SalesColumns columns = builder.build();
+
+    synchronized (this) {
+      if (epoch(userId) == epoch && columns.estimatedBytes() <= maxBytes) {
+        put(userId, columns);
+      }
+    }
+    log.debug("Loaded {} sales records of user {} into columns", columns.size(), userId);
+    return Optional.of(columns);
+  }
+
+  /** An upload finished ingesting; append its records to the user's cached columns */
+  public void uploadAdded(Long userId, Long fileUploadId) {
+    afterCommit(
+        () -> {
+          SalesColumns current = changed(userId);
+          if (current == null || current.containsUpload(fileUploadId)) {
+            return;
+          }
+          try {
+            SalesColumns.Builder builder = current.toBuilder(null);
+            salesBreakdownRepository.loadUploadRecords(fileUploadId, builder);
+            replace(userId, current, builder.build());
+          } catch (RuntimeException e) {
+            // Columns without the upload would be wrong; load them afresh on next use
+            synchronized (this) {
+              remove(userId);
+            }
+            log.warn(
+                "Could not add file upload {} to sales columns: {}", fileUploadId, e.getMessage());
+          }
+        });
+  }
+
+  /** An upload was hidden for deletion; drop its records from the user's cached columns */
+  public void uploadRemoved(Long userId, Long fileUploadId) {
+    afterCommit(
+        () -> {
+          SalesColumns current = changed(userId);
+          if (current == null || !current.containsUpload(fileUploadId)) {
+            return;
+          }
+          replace(userId, current, current.toBuilder(fileUploadId).build());
+        });
+  }
+
+  /** Records changed in a way that is not worth patching; reload the columns on next use */
+  public void invalidate(Long userId) {
+    afterCommit(
+        () -> {
+          changed(userId);
+          synchronized (this) {
+            remove(userId);
+          }
+        });
+  }
+
+  // Move the user's epoch on and return their cached columns, if any
+  private synchronized SalesColumns changed(Long userId) {
+    epochs.merge(userId, 1L, Long::sum);
+    return entries.get(userId);
+  }
+
+  // Swap in patched columns unless another change replaced or dropped them meanwhile
+  private synchronized void replace(Long userId, SalesColumns expected, SalesColumns updated) {
+    if (entries.get(userId) != expected) {
+      remove(userId);
+      return;
+    }
+    remove(userId);
+    if (updated.estimatedBytes() <= maxBytes) {
+      put(userId, updated);
+    }
+  }
+
+  private long epoch(Long userId) {
+    return epochs.getOrDefault(userId, 0L);
+  }
+
+  private void put(Long userId, SalesColumns columns) {
+    remove(userId);
+    entries.put(userId, columns);
+    totalBytes += columns.estimatedBytes();
+
+    Iterator<Map.Entry<Long, SalesColumns>> eldest = entries.entrySet().iterator();
+    while (totalBytes > maxBytes && eldest.hasNext()) {
+      Map.Entry<Long, SalesColumns> entry = eldest.next();
+      if (entry.getKey().equals(userId)) {
+        continue;
+      }
+      totalBytes -= entry.getValue().estimatedBytes();
+      eldest.remove();
+      log.debug("Evicted sales columns of user {}", entry.getKey());
+    }
+  }
+
+  private void remove(Long userId) {
+    SalesColumns removed = entries.remove(userId);
+    if (removed != null) {
+      totalBytes -= removed.estimatedBytes();
+    }
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.salesdata.platform.salesdata.service;
+
+import com.salesdata.platform.salesdata.dto.IngestWriteStats;
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesRollupDelta;
+import com.salesdata.platform.salesdata.enums.IngestWriteMode;
+import com.salesdata.platform.salesdata.repository.SalesDataBulkRepository;
+import com.salesdata.platform.salesdata.repository.SalesDataRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Persists ingested sales records one chunk per transaction, keeping the sales summary and rollups
+ * in step
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesDataChunkWriter {
+
+  private final SalesDataRepository salesDataRepository;
+  private final SalesDataBulkRepository salesDataBulkRepository;
+  private final SalesSummaryService salesSummaryService;
+  private final TransactionTemplate transactionTemplate;
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Value("${file.upload.ingest.write-mode}")
+  private IngestWriteMode writeMode;
+
+  @Value("${file.upload.deletion.chunk-size}")
+  private int deleteChunkSize;
+
+  private final AtomicLong rowsWritten = new AtomicLong();
+  private final AtomicLong chunksWritten = new AtomicLong();
+  private final AtomicLong writeNanos = new AtomicLong();
+
+  /**
+   * Insert and commit a chunk of records using the configured write mode. The records' product and
+   * location ids must already be set, see {@link SalesDimensionDictionary#encode}. On the JPA path
+   * the persistence context is flushed and cleared so that saved entities do not accumulate in
+   * memory across chunks.
+   *
+   * @return number of records written
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public int writeChunk(List<SalesDataEntity> chunk) {
+    long start = System.nanoTime();
+
+    int written =
+        switch (writeMode) {
+          case JPA -> writeWithJpa(chunk);
+          case JDBC_BATCH -> salesDataBulkRepository.insertAll(chunk);
+        };
+    if (!chunk.isEmpty()) {
+      salesSummaryService.recordsAdded(chunk.get(0).getUserId(), chunk);
+    }
+
+    writeNanos.addAndGet(System.nanoTime() - start);
+    rowsWritten.addAndGet(written);
+    chunksWritten.incrementAndGet();
+    return written;
+  }
+
+  /**
+   * Remove records left behind by an earlier, interrupted ingest of the same upload, one chunk per
+   * transaction. Each chunk takes its totals out of the user's sales summary and rollups as it
+   * commits.
+   *
+   * @return number of records removed
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public long discardFileUploadRecords(Long userId, Long fileUploadId) {
+    long discarded = 0;
+    long afterId = 0;
+    while (true) {
+      Long upperBound =
+          salesDataBulkRepository.findChunkUpperBound(fileUploadId, afterId, deleteChunkSize);
+      long fromId = afterId;
+      long upToId = upperBound != null ? upperBound : Long.MAX_VALUE;
+
+      Integer chunkDiscarded =
+          transactionTemplate.execute(
+              status -> {
+                List<SalesRollupDelta> days =
+                    salesDataBulkRepository.sumDaysRange(fileUploadId, fromId, upToId);
+                int deleted = salesDataBulkRepository.deleteRange(fileUploadId, fromId, upToId);
+                salesSummaryService.daysRemoved(userId, days);
+                return deleted;
+              });
+      discarded += chunkDiscarded != null ? chunkDiscarded : 0;
+
+      if (upperBound == null) {
+        return discarded;
+      }
+      afterId = upToId;
+    }
+  }
+
+  public IngestWriteMode getWriteMode() {
+    return writeMode;
+  }
+
+  /** Cumulative write throughput since startup, excluding parse and validation time */
+  public IngestWriteStats getStats() {
+    return new IngestWriteStats(
+        writeMode.name(),
+        rowsWritten.get(),
+        chunksWritten.get(),
+        TimeUnit.NANOSECONDS.toMillis(writeNanos.get()));
+  }
+
+  private int writeWithJpa(List<SalesDataEntity> chunk) {
+    salesDataRepository.saveAll(chunk);
+    entityManager.flush();
+    entityManager.clear();
+    return chunk.size();
+  }
+}
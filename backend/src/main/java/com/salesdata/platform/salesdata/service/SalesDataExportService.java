@@ -0,0 +1,151 @@
+package com.salesdata.platform.salesdata.service;
+
+import static com.salesdata.platform.salesdata.repository.SalesDataExportRepository.*;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salesdata.platform.salesdata.dto.SalesDataFilter;
+import com.salesdata.platform.salesdata.enums.ExportFormat;
+import com.salesdata.platform.salesdata.repository.SalesDataExportRepository;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Streams a user's sales records to the client as CSV or NDJSON, optionally gzipped. Rows go from
+ * the database result set through a buffered writer to the response without being collected, so
+ * memory stays constant and throughput is bound by the network.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesDataExportService {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String CSV_HEADER =
+      "product_name,product_price,quantity,sale_date,sale_location";
+
+  private final SalesDataExportRepository salesDataExportRepository;
+  private final ObjectMapper objectMapper;
+
+  private interface RowWriter {
+    void write(ResultSet rs) throws SQLException, IOException;
+  }
+
+  /** Response body writing the export; runs on an async request thread once returned */
+  public StreamingResponseBody export(
+      Long userId,
+      SalesDataFilter filter,
+      Sort.Direction direction,
+      ExportFormat format,
+      boolean gzip) {
+
+    return outputStream -> {
+      long start = System.nanoTime();
+      long[] rows = {0};
+
+      OutputStream target = gzip ? new GZIPOutputStream(outputStream, BUFFER_SIZE) : outputStream;
+      try (Writer writer =
+          new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+        RowWriter rowWriter =
+            switch (format) {
+              case CSV -> csvWriter(writer);
+              case NDJSON -> ndjsonWriter(writer);
+            };
+
+        salesDataExportRepository.streamRows(
+            userId,
+            filter,
+            direction,
+            rs -> {
+              try {
+                rowWriter.write(rs);
+              } catch (IOException e) {
+                // Client went away; stop reading rows
+                throw new UncheckedIOException(e);
+              }
+              rows[0]++;
+            });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+
+      log.info(
+          "Exported {} sales records as {}{} for user {} in {} ms",
+          rows[0],
+          format,
+          gzip ? " (gzip)" : "",
+          userId,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    };
+  }
+
+  private static RowWriter csvWriter(Writer writer) throws IOException {
+    writer.write(CSV_HEADER);
+    writer.write('\n');
+    return rs -> {
+      writeCsvText(writer, rs.getString(PRODUCT_NAME));
+      writer.write(',');
+      writer.write(rs.getBigDecimal(PRODUCT_PRICE).toPlainString());
+      writer.write(',');
+      writer.write(Integer.toString(rs.getInt(QUANTITY)));
+      writer.write(',');
+      writer.write(rs.getDate(SALE_DATE).toString());
+      writer.write(',');
+      writeCsvText(writer, rs.getString(SALE_LOCATION));
+      writer.write('\n');
+    };
+  }
+
+  private RowWriter ndjsonWriter(Writer writer) throws IOException {
+    JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+    return rs -> {
+      generator.writeStartObject();
+      generator.writeNumberField("id", rs.getLong(ID));
+      generator.writeNumberField("fileUploadId", rs.getLong(FILE_UPLOAD_ID));
+      generator.writeStringField("productName", rs.getString(PRODUCT_NAME));
+      generator.writeNumberField("productPrice", rs.getBigDecimal(PRODUCT_PRICE));
+      generator.writeNumberField("quantity", rs.getInt(QUANTITY));
+      generator.writeNumberField("totalAmount", rs.getBigDecimal(TOTAL_AMOUNT));
+      generator.writeStringField("saleDate", rs.getDate(SALE_DATE).toString());
+      generator.writeStringField("saleLocation", rs.getString(SALE_LOCATION));
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+      // Moves the line into the buffered writer only; flushes are not passed on to the response
+      generator.flush();
+    };
+  }
+
+  private static void writeCsvText(Writer writer, String value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    boolean quote =
+        value.indexOf(',') >= 0
+            || value.indexOf('"') >= 0
+            || value.indexOf('\n') >= 0
+            || value.indexOf('\r') >= 0;
+    if (!quote) {
+      writer.write(value);
+      return;
+    }
+    writer.write('"');
+    writer.write(value.replace("\"", "\"\""));
+    writer.write('"');
+  }
+}
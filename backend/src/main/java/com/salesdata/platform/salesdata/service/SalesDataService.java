@@ -1,13 +1,23 @@
 package com.salesdata.platform.salesdata.service;
 
+import com.salesdata.platform.cache.QueryResultCache;
+import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import com.salesdata.platform.fileupload.repository.FileUploadRepository;
+import com.salesdata.platform.salesdata.dto.SalesDataCursor;
 import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesDataFilter;
+import com.salesdata.platform.salesdata.dto.SalesDataPage;
 import com.salesdata.platform.salesdata.dto.SalesDataSummary;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.salesdata.repository.SalesDataQueryRepository;
 import com.salesdata.platform.salesdata.repository.SalesDataRepository;
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -16,38 +26,111 @@ import org.springframework.transaction.annotation.Transactional;
 public class SalesDataService {
 
   private final SalesDataRepository salesDataRepository;
+  private final FileUploadRepository fileUploadRepository;
+  private final SalesDataQueryRepository salesDataQueryRepository;
+  private final SalesSummaryService salesSummaryService;
+  private final SalesSketchService salesSketchService;
+  private final SalesDistinctService salesDistinctService;
+  private final SalesQuantileService salesQuantileService;
+  private final SalesColumnarCache salesColumnarCache;
+  private final SalesDimensionDictionary salesDimensionDictionary;
+  private final QueryResultCache queryResultCache;
+
+  @Value("${sales.listing.default-page-size}")
+  private int defaultPageSize;
+
+  @Value("${sales.listing.max-page-size}")
+  private int maxPageSize;
 
   // CREATE
   public SalesDataEntity createSalesRecord(SalesDataEntity salesDataEntity, Long userId) {
     salesDataEntity.setUserId(userId);
     validateSalesData(salesDataEntity);
+    requireFinishedUpload(salesDataEntity.getFileUploadId(), userId);
+    salesDimensionDictionary.encode(List.of(salesDataEntity));
 
-    return salesDataRepository.save(salesDataEntity);
+    SalesDataEntity saved = salesDataRepository.save(salesDataEntity);
+    salesSummaryService.recordsAdded(userId, List.of(saved));
+    salesSketchService.uploadRecordsChanged(userId, saved.getFileUploadId());
+    salesDistinctService.uploadRecordsChanged(userId, saved.getFileUploadId());
+    salesQuantileService.uploadRecordsChanged(userId, saved.getFileUploadId());
+    salesColumnarCache.invalidate(userId);
+    return saved;
   }
 
-  // READ - Get all for user
+  /**
+   * READ - One page of the user's sales records, ordered by sale date then id
+   *
+   * @param cursor token from the previous page, or null for the first page
+   * @param pageSize null for the default; larger values are capped at the maximum page size
+   */
   @Transactional(readOnly = true)
-  public List<SalesDataEntity> getAllSalesRecords(Long userId) {
-    return salesDataRepository.findByUserIdOrderBySaleDateDesc(userId);
+  public SalesDataPage getSalesRecordsPage(
+      Long userId,
+      SalesDataFilter filter,
+      Sort.Direction direction,
+      String cursor,
+      Integer pageSize) {
+
+    int limit = pageSize != null ? pageSize : defaultPageSize;
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Page size must be greater than zero");
+    }
+    limit = Math.min(limit, maxPageSize);
+
+    SalesDataCursor after = cursor != null ? SalesDataCursor.decode(cursor) : null;
+
+    // A product or location no record has ever had matches nothing
+    Optional<Integer> productId =
+        findDimensionId(SalesDimension.PRODUCT, userId, filter.productName());
+    Optional<Integer> locationId =
+        findDimensionId(SalesDimension.LOCATION, userId, filter.saleLocation());
+    if ((filter.productName() != null && productId.isEmpty())
+        || (filter.saleLocation() != null && locationId.isEmpty())) {
+      return new SalesDataPage(List.of(), null);
+    }
+
+    // Fetch one extra record to learn whether another page follows
+    List<SalesDataEntity> records =
+        salesDataQueryRepository.findPage(
+            userId,
+            filter,
+            productId.orElse(null),
+            locationId.orElse(null),
+            direction,
+            after,
+            limit + 1);
+    salesDimensionDictionary.decode(records);
+    if (records.size() <= limit) {
+      return new SalesDataPage(records, null);
+    }
+
+    List<SalesDataEntity> page = records.subList(0, limit);
+    return new SalesDataPage(page, SalesDataCursor.after(page.get(limit - 1)).encode());
+  }
+
+  private Optional<Integer> findDimensionId(SalesDimension dimension, Long userId, String name) {
+    return name != null
+        ? salesDimensionDictionary.findId(dimension, userId, name)
+        : Optional.empty();
   }
 
   @Transactional(readOnly = true)
   public Optional<SalesDataEntity> getSalesRecordById(Long recordId, Long userId) {
-    return salesDataRepository.findByIdAndUserId(recordId, userId);
+    Optional<SalesDataEntity> record = salesDataRepository.findByIdAndUserId(recordId, userId);
+    record.ifPresent(found -> salesDimensionDictionary.decode(List.of(found)));
+    return record;
   }
 
-  @Transactional(readOnly = true)
+  /** Cached until the user's sales data changes; a cached summary costs one version lookup */
+  @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
   public SalesDataSummary getSalesDataSummary(Long userId) {
-    long totalRecords = salesDataRepository.countByUserId(userId);
-    BigDecimal totalAmount = salesDataRepository.getTotalSalesAmountByUserId(userId);
-    BigDecimal averagePrice = salesDataRepository.getAveragePriceByUserId(userId);
-
-    return SalesDataSummary.builder()
-        .totalRecords(totalRecords)
-        .totalAmount(totalAmount != null ? totalAmount : BigDecimal.ZERO)
-        .averageAmount(SalesDataSummary.calculateAverage(totalAmount, totalRecords))
-        .averagePrice(averagePrice)
-        .build();
+    return queryResultCache.get(
+        userId, "sales.summary", null, () -> salesSummaryService.getSummary(userId));
+  }
+
+  public SalesDataSummary rebuildSalesDataSummary(Long userId) {
+    return salesSummaryService.rebuild(userId);
   }
 
   // DELETE
@@ -57,6 +140,11 @@ public class SalesDataService {
 
     if (existingRecord.isPresent()) {
       salesDataRepository.deleteById(recordId);
+      salesSummaryService.recordsRemoved(userId, List.of(existingRecord.get()));
+      salesSketchService.uploadRecordsChanged(userId, existingRecord.get().getFileUploadId());
+      salesDistinctService.uploadRecordsChanged(userId, existingRecord.get().getFileUploadId());
+      salesQuantileService.uploadRecordsChanged(userId, existingRecord.get().getFileUploadId());
+      salesColumnarCache.invalidate(userId);
       return true;
     }
 
@@ -64,8 +152,25 @@ public class SalesDataService {
   }
 
   // BUSINESS VALIDATION
+  /**
+   * The record is added to the summary and rollups of its upload's owner, so only the user's own
+   * finished uploads may take it. A pending or processing upload may still be discarded and
+   * reingested, and one being deleted has already had its totals taken out. The shared lock holds
+   * the upload in its state until the record and its totals are committed.
+   */
+  private void requireFinishedUpload(Long fileUploadId, Long userId) {
+    FileUploadEntity upload =
+        Optional.ofNullable(fileUploadId)
+            .flatMap(id -> fileUploadRepository.findForShareByIdAndUserId(id, userId))
+            .orElseThrow(() -> new IllegalArgumentException("File upload not found"));
+    if (!upload.isProcessingComplete()) {
+      throw new IllegalArgumentException(
+          "Records can only be added to a completed or failed upload");
+    }
+  }
+
   private void validateSalesData(SalesDataEntity salesDataEntity) {
-    if (salesDataEntity.getProductPrice().compareTo(BigDecimal.ZERO) <= 0) {
+    if (salesDataEntity.getProductPriceCents() <= 0) {
       throw new IllegalArgumentException("Product price must be greater than zero");
     }
 
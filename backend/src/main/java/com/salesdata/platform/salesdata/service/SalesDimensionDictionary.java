@@ -0,0 +1,169 @@
+package com.salesdata.platform.salesdata.service;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.salesdata.repository.SalesDimensionRepository;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of the product and location dimension tables, so that ingest resolves names to
+ * ids, and reads ids to names, without a database round trip per record. Names and ids never change
+ * once assigned, so entries need no invalidation; a name seen for the first time is added to its
+ * table in a transaction of its own. Each dimension caches at most {@code max-entries} names,
+ * beyond which lookups go to the database.
+ *
+ * <p>Each user has names of their own. The tables compare a user's names case- and
+ * accent-insensitively, as sales_data did before names moved out of it, so a user's names differing
+ * only in case or accents share an id and read back in the spelling that user first stored. Every
+ * spelling looked up is cached under that id. Names of different users never share an id.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesDimensionDictionary {
+
+  private final SalesDimensionRepository salesDimensionRepository;
+
+  @Value("${sales.dimensions.cache-max-entries}")
+  private int maxEntries;
+
+  private record UserName(Long userId, String name) {}
+
+  private final Map<SalesDimension, Map<UserName, Integer>> ids =
+      new EnumMap<>(SalesDimension.class);
+  private final Map<SalesDimension, Map<Integer, String>> names =
+      new EnumMap<>(SalesDimension.class);
+
+  {
+    for (SalesDimension dimension : SalesDimension.values()) {
+      ids.put(dimension, new ConcurrentHashMap<>());
+      names.put(dimension, new ConcurrentHashMap<>());
+    }
+  }
+
+  /**
+   * Set the product and location ids of records about to be written, adding new names to the
+   * dimension tables. Names are replaced with the cached instances, so records of a chunk share
+   * them. Best called before the records' transaction starts, as a new name is added using a
+   * connection of its own.
+   */
+  public void encode(List<SalesDataEntity> records) {
+    for (SalesDataEntity record : records) {
+      Long userId = record.getUserId();
+      int productId = idOf(SalesDimension.PRODUCT, userId, record.getProductName());
+      record.setProductId(productId);
+      record.setProductName(cachedName(SalesDimension.PRODUCT, productId, record.getProductName()));
+
+      String location = record.getSaleLocation();
+      if (location == null || location.isEmpty()) {
+        record.setLocationId(null);
+        record.setSaleLocation(null);
+      } else {
+        int locationId = idOf(SalesDimension.LOCATION, userId, location);
+        record.setLocationId(locationId);
+        record.setSaleLocation(cachedName(SalesDimension.LOCATION, locationId, location));
+      }
+    }
+  }
+
+  /** Set the product and location names of records read from the database from their ids */
+  public void decode(List<SalesDataEntity> records) {
+    Map<Integer, String> products = namesOf(SalesDimension.PRODUCT, records);
+    Map<Integer, String> locations = namesOf(SalesDimension.LOCATION, records);
+    for (SalesDataEntity record : records) {
+      record.setProductName(products.get(record.getProductId()));
+      Integer locationId = record.getLocationId();
+      record.setSaleLocation(locationId != null ? locations.get(locationId) : null);
+    }
+  }
+
+  /** Id of the user's name, added to the dimension table if new */
+  public int idOf(SalesDimension dimension, Long userId, String name) {
+    UserName key = new UserName(userId, name);
+    Integer id = ids.get(dimension).get(key);
+    if (id == null) {
+      id = salesDimensionRepository.findOrCreateId(dimension, userId, name);
+      rememberSpelling(dimension, id, key);
+    }
+    return id;
+  }
+
+  /** Id of the user's name, or empty if none of the user's records has ever had it */
+  public Optional<Integer> findId(SalesDimension dimension, Long userId, String name) {
+    UserName key = new UserName(userId, name);
+    Integer id = ids.get(dimension).get(key);
+    if (id != null) {
+      return Optional.of(id);
+    }
+    Optional<Integer> found = salesDimensionRepository.findId(dimension, userId, name);
+    found.ifPresent(foundId -> rememberSpelling(dimension, foundId, key));
+    return found;
+  }
+
+  public String nameOf(SalesDimension dimension, int id) {
+    String name = names.get(dimension).get(id);
+    if (name == null) {
+      name =
+          salesDimensionRepository
+              .findName(dimension, id)
+              .orElseThrow(() -> new IllegalStateException("Unknown " + dimension + " id " + id));
+      remember(dimension, id, name);
+    }
+    return name;
+  }
+
+  // Names of the ids the records use: cached ones, and the rest loaded in one query
+  private Map<Integer, String> namesOf(SalesDimension dimension, List<SalesDataEntity> records) {
+    Map<Integer, String> dimensionNames = names.get(dimension);
+    Map<Integer, String> found = new HashMap<>();
+    Set<Integer> missing = new HashSet<>();
+    for (SalesDataEntity record : records) {
+      Integer id = dimension.idOf(record);
+      if (id == null) {
+        continue;
+      }
+      String name = dimensionNames.get(id);
+      if (name != null) {
+        found.put(id, name);
+      } else {
+        missing.add(id);
+      }
+    }
+    Map<Integer, String> loaded = salesDimensionRepository.findNames(dimension, missing);
+    loaded.forEach((id, name) -> remember(dimension, id, name));
+    found.putAll(loaded);
+    return found;
+  }
+
+  private String cachedName(SalesDimension dimension, int id, String name) {
+    String cached = names.get(dimension).get(id);
+    return cached != null ? cached : name;
+  }
+
+  // The name as stored in the table. Its owner is not known here, so only the id's name is kept;
+  // the name's id is cached when the owner looks it up
+  private void remember(SalesDimension dimension, int id, String name) {
+    Map<Integer, String> dimensionNames = names.get(dimension);
+    if (dimensionNames.size() < maxEntries) {
+      dimensionNames.putIfAbsent(id, name);
+    }
+  }
+
+  // A user's name the table matched to the id, in whatever case it was given; the stored spelling
+  // is loaded so that records written with this one read back the same as after a restart
+  private void rememberSpelling(SalesDimension dimension, int id, UserName key) {
+    if (ids.get(dimension).size() < maxEntries) {
+      nameOf(dimension, id);
+      ids.get(dimension).putIfAbsent(key, id);
+    }
+  }
+}
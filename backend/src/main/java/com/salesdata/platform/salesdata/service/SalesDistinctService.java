@@ -0,0 +1,150 @@
+package com.salesdata.platform.salesdata.service;
+
+import com.salesdata.platform.cache.UserDataVersions;
+import com.salesdata.platform.salesdata.dto.SalesDistinctCounts;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.salesdata.repository.SalesDistinctRepository;
+import com.salesdata.platform.util.HyperLogLog;
+import com.salesdata.platform.util.SalesDistinctCounters;
+import jakarta.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Distinct product and location counts from HyperLogLog registers. Each upload's registers are
+ * filled as its chunks are written and stored when the ingest finishes; a user's count merges the
+ * registers of their visible uploads, so hiding or deleting an upload only drops its registers from
+ * the union. Records created or deleted one at a time mark their upload's registers stale, and
+ * those are rebuilt from sales_data on the next read.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesDistinctService {
+
+  private static final SalesDimension[] DIMENSIONS = SalesDimension.values();
+
+  private final SalesDistinctRepository salesDistinctRepository;
+  private final UserDataVersions userDataVersions;
+
+  @Value("${sales.distinct.precision}")
+  private int precision;
+
+  @Value("${sales.distinct.cache-max-users}")
+  private int cacheMaxUsers;
+
+  private record CachedCounts(long version, SalesDistinctCounts counts) {}
+
+  private Map<Long, CachedCounts> userCounts;
+
+  @PostConstruct
+  void initCache() {
+    userCounts =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<Long, CachedCounts> eldest) {
+                return size() > cacheMaxUsers;
+              }
+            });
+  }
+
+  /** Empty registers for an upload about to be ingested */
+  public SalesDistinctCounters newUploadCounters() {
+    return new SalesDistinctCounters(precision);
+  }
+
+  /** Store an ingested upload's registers; the user's counts include them from now on */
+  @Transactional
+  public void saveUploadCounters(Long userId, Long fileUploadId, SalesDistinctCounters counters) {
+    for (SalesDimension dimension : DIMENSIONS) {
+      salesDistinctRepository.save(
+          fileUploadId, userId, dimension, counters.get(dimension).toBytes());
+    }
+    userDataVersions.salesDataChanged(userId, fileUploadId);
+  }
+
+  /** Records of the upload were created or deleted individually; rebuild its registers lazily */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void uploadRecordsChanged(Long userId, Long fileUploadId) {
+    salesDistinctRepository.markStale(fileUploadId);
+    userDataVersions.salesDataChanged(userId, fileUploadId);
+  }
+
+  /** Distinct values across all of the user's visible uploads */
+  @Transactional
+  public SalesDistinctCounts getUserCounts(Long userId) {
+    long version = userDataVersions.currentSalesData(userId);
+    CachedCounts cached = userCounts.get(userId);
+    if (cached != null && cached.version() == version) {
+      return cached.counts();
+    }
+
+    long[] estimates = new long[DIMENSIONS.length];
+    for (SalesDimension dimension : DIMENSIONS) {
+      HyperLogLog union = new HyperLogLog(precision);
+      for (SalesDistinctRepository.StoredRegisters stored :
+          salesDistinctRepository.findByUserId(userId, dimension)) {
+        union.merge(registersOf(userId, stored, dimension));
+      }
+      estimates[dimension.ordinal()] = union.estimate();
+    }
+
+    SalesDistinctCounts counts = toCounts(null, estimates);
+    userCounts.put(userId, new CachedCounts(version, counts));
+    return counts;
+  }
+
+  /** Distinct values of one upload */
+  @Transactional
+  public SalesDistinctCounts getUploadCounts(Long userId, Long fileUploadId) {
+    long[] estimates = new long[DIMENSIONS.length];
+    for (SalesDimension dimension : DIMENSIONS) {
+      SalesDistinctRepository.StoredRegisters stored =
+          salesDistinctRepository
+              .findByFileUploadId(fileUploadId, userId, dimension)
+              .orElseThrow(
+                  () -> new IllegalArgumentException("File not found or not yet processed"));
+      estimates[dimension.ordinal()] = registersOf(userId, stored, dimension).estimate();
+    }
+    return toCounts(fileUploadId, estimates);
+  }
+
+  private HyperLogLog registersOf(
+      Long userId, SalesDistinctRepository.StoredRegisters stored, SalesDimension dimension) {
+    if (!stored.needsRebuild()) {
+      HyperLogLog counter = HyperLogLog.fromBytes(stored.registers());
+      // Registers saved under another precision setting cannot be merged; rebuild them
+      if (counter.getPrecision() == precision) {
+        return counter;
+      }
+    }
+    return rebuildUploadCounters(userId, stored.fileUploadId()).get(dimension);
+  }
+
+  private SalesDistinctCounters rebuildUploadCounters(Long userId, Long fileUploadId) {
+    SalesDistinctCounters counters = newUploadCounters();
+    for (SalesDimension dimension : DIMENSIONS) {
+      HyperLogLog counter = counters.get(dimension);
+      salesDistinctRepository.streamUploadValues(fileUploadId, dimension, counter::add);
+      salesDistinctRepository.save(fileUploadId, userId, dimension, counter.toBytes());
+    }
+    log.info("Rebuilt distinct-count registers of file upload {}", fileUploadId);
+    return counters;
+  }
+
+  private SalesDistinctCounts toCounts(Long fileUploadId, long[] estimates) {
+    return new SalesDistinctCounts(
+        fileUploadId,
+        estimates[SalesDimension.PRODUCT.ordinal()],
+        estimates[SalesDimension.LOCATION.ordinal()],
+        HyperLogLog.standardError(precision));
+  }
+}
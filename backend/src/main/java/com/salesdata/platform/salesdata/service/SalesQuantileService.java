@@ -0,0 +1,223 @@
+package com.salesdata.platform.salesdata.service;
+
+import com.salesdata.platform.cache.UserDataVersions;
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesQuantiles;
+import com.salesdata.platform.salesdata.enums.QuantileMetric;
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import com.salesdata.platform.salesdata.repository.SalesQuantileRepository;
+import com.salesdata.platform.util.KllSketch;
+import com.salesdata.platform.util.SalesQuantileSketches;
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Price and order-total quantiles from KLL sketches. Each upload gets a sketch per metric and sale
+ * month, filled as its chunks are written and stored when the ingest finishes. A user's monthly
+ * sketches merge those of their visible uploads and are cached until the user's data changes; a
+ * query merges the cached months it covers. Records created or deleted one at a time mark their
+ * upload's sketches stale, and those are rebuilt from sales_data on the next read.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesQuantileService {
+
+  private static final QuantileMetric[] METRICS = QuantileMetric.values();
+  private static final int REBUILD_BATCH_SIZE = 1000;
+
+  private final SalesQuantileRepository salesQuantileRepository;
+  private final UserDataVersions userDataVersions;
+
+  @Value("${sales.quantiles.k}")
+  private int k;
+
+  @Value("${sales.quantiles.max-quantiles}")
+  private int maxQuantiles;
+
+  @Value("${sales.quantiles.cache-max-users}")
+  private int cacheMaxUsers;
+
+  private record CachedMonths(long version, NavigableMap<LocalDate, KllSketch> months) {}
+
+  private Map<Long, Map<QuantileMetric, CachedMonths>> merged;
+
+  @PostConstruct
+  void initCache() {
+    merged =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(
+                  Map.Entry<Long, Map<QuantileMetric, CachedMonths>> eldest) {
+                return size() > cacheMaxUsers;
+              }
+            });
+  }
+
+  /** Empty sketches for an upload about to be ingested */
+  public SalesQuantileSketches newUploadSketches() {
+    return new SalesQuantileSketches(k);
+  }
+
+  /** Store an ingested upload's sketches; the user's quantiles include them from now on */
+  @Transactional
+  public void saveUploadSketches(Long userId, Long fileUploadId, SalesQuantileSketches sketches) {
+    for (QuantileMetric metric : METRICS) {
+      salesQuantileRepository.save(
+          fileUploadId, userId, metric, SalesQuantileSketches.toBytes(sketches.get(metric)));
+    }
+    userDataVersions.salesDataChanged(userId, fileUploadId);
+  }
+
+  /** Records of the upload were created or deleted individually; rebuild its sketches lazily */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void uploadRecordsChanged(Long userId, Long fileUploadId) {
+    salesQuantileRepository.markStale(fileUploadId);
+    userDataVersions.salesDataChanged(userId, fileUploadId);
+  }
+
+  /**
+   * Quantiles of the metric over the user's records sold between the dates, widened to whole months
+   *
+   * @param byMonth one point per month with records instead of a single point for the range
+   */
+  @Transactional
+  public SalesQuantiles getQuantiles(
+      Long userId,
+      QuantileMetric metric,
+      List<Double> quantiles,
+      LocalDate startDate,
+      LocalDate endDate,
+      boolean byMonth) {
+
+    if (quantiles.isEmpty() || quantiles.size() > maxQuantiles) {
+      throw new IllegalArgumentException(
+          "Between 1 and " + maxQuantiles + " quantiles are allowed");
+    }
+    for (double quantile : quantiles) {
+      if (!(quantile >= 0 && quantile <= 1)) {
+        throw new IllegalArgumentException("Quantiles must be between 0 and 1");
+      }
+    }
+    if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+      throw new IllegalArgumentException("Start date must not be after end date");
+    }
+
+    LocalDate fromMonth = startDate != null ? RollupGrain.MONTH.bucketStart(startDate) : null;
+    LocalDate toMonth = endDate != null ? RollupGrain.MONTH.bucketStart(endDate) : null;
+    NavigableMap<LocalDate, KllSketch> months = userMonths(userId, metric);
+    if (fromMonth != null) {
+      months = months.tailMap(fromMonth, true);
+    }
+    if (toMonth != null) {
+      months = months.headMap(toMonth, true);
+    }
+
+    List<SalesQuantiles.Point> points = new ArrayList<>();
+    if (byMonth) {
+      months.forEach((month, sketch) -> points.add(toPoint(month, sketch, metric, quantiles)));
+    } else {
+      // Merge into a fresh sketch; the cached months are shared between requests
+      KllSketch range = new KllSketch(k);
+      months.values().forEach(range::merge);
+      points.add(toPoint(null, range, metric, quantiles));
+    }
+
+    return new SalesQuantiles(
+        metric,
+        fromMonth,
+        toMonth != null ? toMonth.plusMonths(1).minusDays(1) : null,
+        KllSketch.rankError(k),
+        points);
+  }
+
+  private SalesQuantiles.Point toPoint(
+      LocalDate month, KllSketch sketch, QuantileMetric metric, List<Double> quantiles) {
+    if (sketch.getCount() == 0) {
+      return new SalesQuantiles.Point(month, 0, null, null, List.of());
+    }
+    List<SalesQuantiles.Value> values = new ArrayList<>(quantiles.size());
+    for (double quantile : quantiles) {
+      values.add(new SalesQuantiles.Value(quantile, metric.toAmount(sketch.quantile(quantile))));
+    }
+    return new SalesQuantiles.Point(
+        month,
+        sketch.getCount(),
+        metric.toAmount(sketch.getMin()),
+        metric.toAmount(sketch.getMax()),
+        values);
+  }
+
+  private NavigableMap<LocalDate, KllSketch> userMonths(Long userId, QuantileMetric metric) {
+    long version = userDataVersions.currentSalesData(userId);
+    Map<QuantileMetric, CachedMonths> userCache = merged.get(userId);
+    CachedMonths cached = userCache != null ? userCache.get(metric) : null;
+    if (cached != null && cached.version() == version) {
+      return cached.months();
+    }
+
+    TreeMap<LocalDate, KllSketch> months = new TreeMap<>();
+    for (SalesQuantileRepository.StoredSketches stored :
+        salesQuantileRepository.findByUserId(userId, metric)) {
+      uploadMonths(userId, stored, metric)
+          .forEach(
+              (month, sketch) ->
+                  months.computeIfAbsent(month, m -> new KllSketch(k)).merge(sketch));
+    }
+
+    NavigableMap<LocalDate, KllSketch> unmodifiable = Collections.unmodifiableNavigableMap(months);
+    merged
+        .computeIfAbsent(userId, id -> new ConcurrentHashMap<>())
+        .put(metric, new CachedMonths(version, unmodifiable));
+    return unmodifiable;
+  }
+
+  private Map<LocalDate, KllSketch> uploadMonths(
+      Long userId, SalesQuantileRepository.StoredSketches stored, QuantileMetric metric) {
+    if (!stored.needsRebuild()) {
+      TreeMap<LocalDate, KllSketch> months = SalesQuantileSketches.fromBytes(stored.sketches());
+      // Sketches saved under another k setting are rebuilt so that every merge uses the same k
+      if (months.values().stream().allMatch(sketch -> sketch.getK() == k)) {
+        return months;
+      }
+    }
+    return rebuildUploadSketches(userId, stored.fileUploadId()).get(metric);
+  }
+
+  private SalesQuantileSketches rebuildUploadSketches(Long userId, Long fileUploadId) {
+    SalesQuantileSketches sketches = newUploadSketches();
+    List<SalesDataEntity> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+    salesQuantileRepository.streamUploadRecords(
+        fileUploadId,
+        record -> {
+          batch.add(record);
+          if (batch.size() == REBUILD_BATCH_SIZE) {
+            sketches.addAll(batch);
+            batch.clear();
+          }
+        });
+    sketches.addAll(batch);
+
+    for (QuantileMetric metric : METRICS) {
+      salesQuantileRepository.save(
+          fileUploadId, userId, metric, SalesQuantileSketches.toBytes(sketches.get(metric)));
+    }
+    log.info("Rebuilt quantile sketches of file upload {}", fileUploadId);
+    return sketches;
+  }
+}
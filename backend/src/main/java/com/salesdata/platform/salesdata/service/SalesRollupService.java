@@ -0,0 +1,196 @@
+package com.salesdata.platform.salesdata.service;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesDataFilter;
+import com.salesdata.platform.salesdata.dto.SalesRollupDelta;
+import com.salesdata.platform.salesdata.dto.SalesTimeSeries;
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import com.salesdata.platform.salesdata.enums.TimeSeriesGroupBy;
+import com.salesdata.platform.salesdata.repository.SalesDataBulkRepository;
+import com.salesdata.platform.salesdata.repository.SalesRollupRepository;
+import com.salesdata.platform.util.Money;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Maintains the day, week and month sales rollups and serves time series from them. Deltas are
+ * applied through {@link SalesSummaryService}, after the user's summary row, whose lock keeps
+ * concurrent writers of one user from interleaving their rollup updates.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+  private static final RollupGrain[] GRAINS = RollupGrain.values();
+  private static final int REBUILD_BATCH_SIZE = 5000;
+
+  private final SalesRollupRepository salesRollupRepository;
+  private final SalesDataBulkRepository salesDataBulkRepository;
+
+  /** Roll up added or removed records as part of the caller's transaction */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void applyRecords(Long userId, List<SalesDataEntity> records, boolean removed) {
+    RollupAccumulator accumulator = new RollupAccumulator();
+    for (SalesDataEntity record : records) {
+      accumulator.add(
+          record.getSaleDate(),
+          record.getProductId(),
+          record.getLocationId() != null ? record.getLocationId() : SalesRollupDelta.NO_LOCATION,
+          1,
+          record.getAmountCents(),
+          record.getQuantity(),
+          record.getProductPriceCents());
+    }
+    salesRollupRepository.applyDeltas(userId, accumulator.deltas(removed));
+  }
+
+  /** Roll up added or removed records given as day rollup rows, in the caller's transaction */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void applyDays(Long userId, List<SalesRollupDelta> days, boolean removed) {
+    RollupAccumulator accumulator = new RollupAccumulator();
+    days.forEach(accumulator::add);
+    salesRollupRepository.applyDeltas(userId, accumulator.deltas(removed));
+  }
+
+  /**
+   * Recompute the user's rollups from sales_data. Must run under the user's summary row lock, see
+   * {@link SalesSummaryService#rebuild}.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void rebuild(Long userId) {
+    salesRollupRepository.deleteByUserId(userId);
+
+    // Day rows are written as they stream in; the coarser grains are much smaller and kept
+    List<SalesRollupDelta> dayBatch = new ArrayList<>(REBUILD_BATCH_SIZE);
+    RollupAccumulator coarser = new RollupAccumulator(RollupGrain.WEEK, RollupGrain.MONTH);
+    salesDataBulkRepository.sumDaysVisibleByUserId(
+        userId,
+        day -> {
+          dayBatch.add(day);
+          coarser.add(day);
+          if (dayBatch.size() == REBUILD_BATCH_SIZE) {
+            salesRollupRepository.applyDeltas(userId, dayBatch);
+            dayBatch.clear();
+          }
+        });
+    salesRollupRepository.applyDeltas(userId, dayBatch);
+    salesRollupRepository.applyDeltas(userId, coarser.deltas(false));
+
+    log.info("Rebuilt sales rollups for user {}", userId);
+  }
+
+  /**
+   * Sales totals per {@code grain} bucket. Served from the rollups unless a price filter is given,
+   * which only the raw records can answer. A date range that cuts through week or month buckets is
+   * served from day rollups, so edge buckets only count the days inside the range.
+   */
+  @Transactional(readOnly = true)
+  public SalesTimeSeries getTimeSeries(
+      Long userId,
+      RollupGrain grain,
+      SalesDataFilter filter,
+      BigDecimal minPrice,
+      BigDecimal maxPrice,
+      TimeSeriesGroupBy groupBy) {
+
+    if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+      throw new IllegalArgumentException("Minimum price must not be above maximum price");
+    }
+
+    if (minPrice != null || maxPrice != null) {
+      return new SalesTimeSeries(
+          grain,
+          "RAW",
+          salesRollupRepository.findRawSeries(userId, grain, filter, minPrice, maxPrice, groupBy));
+    }
+
+    boolean aligned =
+        (filter.startDate() == null || grain.isBucketStart(filter.startDate()))
+            && (filter.endDate() == null || grain.isBucketEnd(filter.endDate()));
+    RollupGrain sourceGrain = aligned ? grain : RollupGrain.DAY;
+    return new SalesTimeSeries(
+        grain,
+        "ROLLUP_" + sourceGrain.name(),
+        salesRollupRepository.findRollupSeries(userId, grain, sourceGrain, filter, groupBy));
+  }
+
+  /** Merges record totals into rollup rows of the chosen grains, summing amounts in cents */
+  private static final class RollupAccumulator {
+    private final RollupGrain[] grains;
+    private final Map<RowKey, Totals> rows = new HashMap<>();
+
+    private record RowKey(
+        RollupGrain grain, LocalDate bucketStart, int productId, int locationId) {}
+
+    private static final class Totals {
+      long recordCount;
+      long amountCents;
+      long quantity;
+      long priceCents;
+    }
+
+    RollupAccumulator(RollupGrain... grains) {
+      this.grains = grains.length > 0 ? grains : GRAINS;
+    }
+
+    void add(SalesRollupDelta day) {
+      add(
+          day.bucketStart(),
+          day.productId(),
+          day.locationId(),
+          day.recordCount(),
+          day.totalAmountCents(),
+          day.totalQuantity(),
+          day.totalPriceCents());
+    }
+
+    void add(
+        LocalDate saleDate,
+        int productId,
+        int locationId,
+        long recordCount,
+        long amountCents,
+        long quantity,
+        long priceCents) {
+      for (RollupGrain grain : grains) {
+        Totals totals =
+            rows.computeIfAbsent(
+                new RowKey(grain, grain.bucketStart(saleDate), productId, locationId),
+                key -> new Totals());
+        totals.recordCount += recordCount;
+        totals.amountCents = Money.plus(totals.amountCents, amountCents);
+        totals.quantity += quantity;
+        totals.priceCents = Money.plus(totals.priceCents, priceCents);
+      }
+    }
+
+    List<SalesRollupDelta> deltas(boolean removed) {
+      int sign = removed ? -1 : 1;
+      List<SalesRollupDelta> deltas = new ArrayList<>(rows.size());
+      rows.forEach(
+          (key, totals) ->
+              deltas.add(
+                  new SalesRollupDelta(
+                      key.grain(),
+                      key.bucketStart(),
+                      key.productId(),
+                      key.locationId(),
+                      sign * totals.recordCount,
+                      sign * totals.amountCents,
+                      sign * totals.quantity,
+                      sign * totals.priceCents)));
+      return deltas;
+    }
+  }
+}
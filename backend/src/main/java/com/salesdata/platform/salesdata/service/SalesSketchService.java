@@ -0,0 +1,198 @@
+package com.salesdata.platform.salesdata.service;
+
+import com.salesdata.platform.cache.UserDataVersions;
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesTopItems;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.salesdata.enums.TopMetric;
+import com.salesdata.platform.salesdata.enums.TopMode;
+import com.salesdata.platform.salesdata.repository.SalesSketchRepository;
+import com.salesdata.platform.util.SalesHeavyHitters;
+import com.salesdata.platform.util.SpaceSavingSketch;
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Top-N products and locations from heavy-hitter sketches. Each upload gets a Space-Saving sketch
+ * per dimension and metric, filled as its chunks are written and stored when the ingest finishes. A
+ * user's ranking merges the sketches of their visible uploads; Space-Saving cannot subtract, so
+ * merging per read (and caching the result until the user's data changes) is what keeps deleted
+ * uploads out. Records created or deleted one at a time mark their upload's sketches stale, and
+ * those are rebuilt from sales_data on the next read.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesSketchService {
+
+  private static final SalesDimension[] DIMENSIONS = SalesDimension.values();
+  private static final TopMetric[] METRICS = TopMetric.values();
+  private static final int REBUILD_BATCH_SIZE = 1000;
+
+  private final SalesSketchRepository salesSketchRepository;
+  private final SalesSummaryService salesSummaryService;
+  private final UserDataVersions userDataVersions;
+
+  @Value("${sales.top.sketch-capacity}")
+  private int sketchCapacity;
+
+  @Value("${sales.top.exact-max-records}")
+  private long exactMaxRecords;
+
+  @Value("${sales.top.max-n}")
+  private int maxN;
+
+  @Value("${sales.top.cache-max-users}")
+  private int cacheMaxUsers;
+
+  private record CachedSketch(long version, SpaceSavingSketch sketch) {}
+
+  private Map<Long, Map<String, CachedSketch>> merged;
+
+  @PostConstruct
+  void initCache() {
+    merged =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(
+                  Map.Entry<Long, Map<String, CachedSketch>> eldest) {
+                return size() > cacheMaxUsers;
+              }
+            });
+  }
+
+  /** Empty sketches for an upload about to be ingested */
+  public SalesHeavyHitters newUploadSketches() {
+    return new SalesHeavyHitters(sketchCapacity);
+  }
+
+  /** Store an ingested upload's sketches; the user's rankings include them from now on */
+  @Transactional
+  public void saveUploadSketches(Long userId, Long fileUploadId, SalesHeavyHitters sketches) {
+    for (SalesDimension dimension : DIMENSIONS) {
+      for (TopMetric metric : METRICS) {
+        salesSketchRepository.save(
+            fileUploadId, userId, dimension, metric, sketches.get(dimension, metric).toBytes());
+      }
+    }
+    userDataVersions.salesDataChanged(userId, fileUploadId);
+  }
+
+  /** Records of the upload were created or deleted individually; rebuild its sketches lazily */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void uploadRecordsChanged(Long userId, Long fileUploadId) {
+    salesSketchRepository.markStale(fileUploadId);
+    userDataVersions.salesDataChanged(userId, fileUploadId);
+  }
+
+  /**
+   * Top {@code n} items by the metric. AUTO answers exactly when the user has at most
+   * sales.top.exact-max-records records.
+   */
+  @Transactional
+  public SalesTopItems getTop(
+      Long userId, SalesDimension dimension, TopMetric metric, int n, TopMode mode) {
+    if (n <= 0 || n > maxN) {
+      throw new IllegalArgumentException("n must be between 1 and " + maxN);
+    }
+
+    boolean exact =
+        switch (mode) {
+          case EXACT -> true;
+          case APPROXIMATE -> false;
+          case AUTO -> salesSummaryService.getSummary(userId).getTotalRecords() <= exactMaxRecords;
+        };
+    if (exact) {
+      return new SalesTopItems(
+          dimension,
+          metric,
+          TopMode.EXACT,
+          salesSketchRepository.findExactTop(userId, dimension, metric, n),
+          salesSketchRepository.sumExact(userId, dimension, metric),
+          BigDecimal.ZERO);
+    }
+
+    SpaceSavingSketch sketch = mergedSketch(userId, dimension, metric);
+    // An item is certainly in the top n if its lower bound beats the next item's estimate
+    List<SpaceSavingSketch.Counter> top = sketch.top(n + 1);
+    long nextEstimate = top.size() > n ? top.get(n).count() : 0;
+    List<SalesTopItems.Item> items = new ArrayList<>(n);
+    for (SpaceSavingSketch.Counter counter : top.subList(0, Math.min(n, top.size()))) {
+      items.add(
+          new SalesTopItems.Item(
+              counter.item(),
+              metric.toValue(counter.count()),
+              metric.toValue(counter.lowerBound()),
+              counter.lowerBound() >= nextEstimate));
+    }
+    return new SalesTopItems(
+        dimension,
+        metric,
+        TopMode.APPROXIMATE,
+        items,
+        metric.toValue(sketch.getTotalWeight()),
+        metric.toValue(sketch.maxError()));
+  }
+
+  private SpaceSavingSketch mergedSketch(Long userId, SalesDimension dimension, TopMetric metric) {
+    String key = dimension.name() + ":" + metric.name();
+    long version = userDataVersions.currentSalesData(userId);
+    Map<String, CachedSketch> userCache = merged.get(userId);
+    CachedSketch cached = userCache != null ? userCache.get(key) : null;
+    if (cached != null && cached.version() == version) {
+      return cached.sketch();
+    }
+
+    SpaceSavingSketch sketch = new SpaceSavingSketch(sketchCapacity);
+    for (SalesSketchRepository.StoredSketch stored :
+        salesSketchRepository.findByUserId(userId, dimension, metric)) {
+      if (stored.needsRebuild()) {
+        sketch.merge(rebuildUploadSketches(userId, stored.fileUploadId()).get(dimension, metric));
+      } else {
+        sketch.merge(SpaceSavingSketch.fromBytes(stored.sketch()));
+      }
+    }
+
+    merged
+        .computeIfAbsent(userId, id -> new ConcurrentHashMap<>())
+        .put(key, new CachedSketch(version, sketch));
+    return sketch;
+  }
+
+  private SalesHeavyHitters rebuildUploadSketches(Long userId, Long fileUploadId) {
+    SalesHeavyHitters sketches = newUploadSketches();
+    List<SalesDataEntity> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+    salesSketchRepository.streamUploadRecords(
+        fileUploadId,
+        record -> {
+          batch.add(record);
+          if (batch.size() == REBUILD_BATCH_SIZE) {
+            sketches.addAll(batch);
+            batch.clear();
+          }
+        });
+    sketches.addAll(batch);
+
+    for (SalesDimension dimension : DIMENSIONS) {
+      for (TopMetric metric : METRICS) {
+        salesSketchRepository.save(
+            fileUploadId, userId, dimension, metric, sketches.get(dimension, metric).toBytes());
+      }
+    }
+    log.info("Rebuilt heavy-hitter sketches of file upload {}", fileUploadId);
+    return sketches;
+  }
+}
@@ -0,0 +1,138 @@
+package com.salesdata.platform.salesdata.service;
+
+import com.salesdata.platform.cache.UserDataVersions;
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesDataSummary;
+import com.salesdata.platform.salesdata.dto.SalesRollupDelta;
+import com.salesdata.platform.salesdata.dto.SalesSummaryDelta;
+import com.salesdata.platform.salesdata.dto.SalesSummaryEntity;
+import com.salesdata.platform.salesdata.repository.SalesDataBulkRepository;
+import com.salesdata.platform.salesdata.repository.SalesSummaryRepository;
+import com.salesdata.platform.util.Money;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Maintains the per-user sales summary and, through {@link SalesRollupService}, the sales rollups.
+ * Every write to sales_data applies its delta at the end of the same transaction, so the summary
+ * always matches the visible records and reading it is a single primary-key lookup. Applying it
+ * last keeps the summary row locked only briefly, so concurrent chunks of one ingest still insert
+ * in parallel.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class SalesSummaryService {
+
+  private final SalesSummaryRepository salesSummaryRepository;
+  private final SalesDataBulkRepository salesDataBulkRepository;
+  private final SalesRollupService salesRollupService;
+  private final UserDataVersions userDataVersions;
+
+  /** Count records added by the caller's transaction */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordsAdded(Long userId, List<SalesDataEntity> records) {
+    if (records.isEmpty()) {
+      return;
+    }
+    applyDelta(userId, SalesSummaryDelta.of(records));
+    salesRollupService.applyRecords(userId, records, false);
+  }
+
+  /** Uncount records removed by the caller's transaction */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordsRemoved(Long userId, List<SalesDataEntity> records) {
+    if (records.isEmpty()) {
+      return;
+    }
+    applyDelta(userId, SalesSummaryDelta.of(records).negate());
+    salesRollupService.applyRecords(userId, records, true);
+  }
+
+  /** Uncount records removed by the caller's transaction, given as day rollup rows */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void daysRemoved(Long userId, List<SalesRollupDelta> days) {
+    if (days.isEmpty()) {
+      return;
+    }
+    applyDelta(userId, SalesSummaryDelta.ofDays(days).negate());
+    salesRollupService.applyDays(userId, days, true);
+  }
+
+  /** Take an upload's records out of the summary and rollups as it is hidden for deletion */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void removeFileUpload(Long userId, Long fileUploadId) {
+    daysRemoved(userId, salesDataBulkRepository.sumDaysByFileUploadId(fileUploadId));
+  }
+
+  @Transactional(readOnly = true)
+  public SalesDataSummary getSummary(Long userId) {
+    return salesSummaryRepository
+        .findById(userId)
+        .map(SalesSummaryService::toSummary)
+        .orElseGet(() -> toSummary(SalesSummaryDelta.EMPTY));
+  }
+
+  /** Recompute a user's summary and rollups from sales_data, e.g. after the totals drifted */
+  public SalesDataSummary rebuild(Long userId) {
+    // Lock first, then aggregate a snapshot taken after the lock: writers that committed earlier
+    // are in the snapshot, and writers still waiting to apply their delta apply it afterwards
+    salesSummaryRepository.lockSummary(userId);
+    SalesSummaryDelta totals = salesDataBulkRepository.sumVisibleByUserId(userId);
+    salesSummaryRepository.replaceTotals(
+        userId,
+        totals.recordCount(),
+        totals.totalAmountCents(),
+        totals.totalQuantity(),
+        totals.totalPriceCents());
+    salesRollupService.rebuild(userId);
+    userDataVersions.changed(userId);
+
+    log.info("Rebuilt sales summary for user {}: {} records", userId, totals.recordCount());
+    return toSummary(totals);
+  }
+
+  // Runs first among the aggregate updates; the summary row lock serializes them per user
+  private void applyDelta(Long userId, SalesSummaryDelta delta) {
+    salesSummaryRepository.applyDelta(
+        userId,
+        delta.recordCount(),
+        delta.totalAmountCents(),
+        delta.totalQuantity(),
+        delta.totalPriceCents());
+    userDataVersions.changed(userId);
+  }
+
+  private static SalesDataSummary toSummary(SalesSummaryEntity summary) {
+    return toSummary(
+        new SalesSummaryDelta(
+            summary.getRecordCount(),
+            summary.getTotalAmountCents(),
+            summary.getTotalQuantity(),
+            summary.getTotalPriceCents()));
+  }
+
+  private static SalesDataSummary toSummary(SalesSummaryDelta totals) {
+    // Amounts become BigDecimal only here, for the API response
+    long totalRecords = totals.recordCount();
+    BigDecimal totalAmount = Money.toBigDecimal(totals.totalAmountCents());
+    return SalesDataSummary.builder()
+        .totalRecords(totalRecords)
+        .totalAmount(totalAmount)
+        .averageAmount(SalesDataSummary.calculateAverage(totalAmount, totalRecords))
+        .totalQuantity(totals.totalQuantity())
+        .averagePrice(
+            totalRecords > 0
+                ? Money.toBigDecimal(totals.totalPriceCents())
+                    .divide(BigDecimal.valueOf(totalRecords), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO)
+        .build();
+  }
+}
@@ -0,0 +1,53 @@
+package com.salesdata.platform.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails once more than a set number of bytes have been read. Wrapped around decompressing streams
+ * so that a small archive cannot expand into an unbounded amount of data.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+  private final long maxBytes;
+  private long bytesRead;
+
+  public BoundedInputStream(InputStream in, long maxBytes) {
+    super(in);
+    this.maxBytes = maxBytes;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = super.read();
+    if (b >= 0) {
+      count(1);
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    int read = super.read(buffer, offset, length);
+    if (read > 0) {
+      count(read);
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = super.skip(n);
+    count(skipped);
+    return skipped;
+  }
+
+  private void count(long bytes) throws IOException {
+    bytesRead += bytes;
+    if (bytesRead > maxBytes) {
+      throw new IOException(
+          String.format("Decompressed data exceeds the limit of %d bytes", maxBytes));
+    }
+  }
+}
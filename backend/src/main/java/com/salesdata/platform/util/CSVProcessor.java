@@ -2,30 +2,346 @@ package com.salesdata.platform.util;
 
 import com.opencsv.bean.CsvToBean;
 import com.opencsv.bean.CsvToBeanBuilder;
-import com.salesdata.platform.fileupload.dto.CSVProcessingResult;
+import com.salesdata.platform.exception.CSVProcessingException;
+import com.salesdata.platform.exception.RowValidationException;
+import com.salesdata.platform.fileupload.dto.CSVStreamingResult;
+import com.salesdata.platform.fileupload.dto.RowError;
 import com.salesdata.platform.fileupload.dto.SalesRecordCSV;
+import com.salesdata.platform.fileupload.dto.SalesRecordRow;
+import com.salesdata.platform.fileupload.enums.CSVParserType;
+import com.salesdata.platform.fileupload.enums.IngestErrorCategory;
+import com.salesdata.platform.fileupload.enums.UploadCompression;
 import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
 public class CSVProcessor {
 
-  public CSVProcessingResult processCSVFile(
-      InputStream inputStream, Long userId, Long fileUploadId) {
-    List<SalesDataEntity> successfulRecords = new ArrayList<>();
-    List<String> errorMessages = new ArrayList<>();
-    int totalRows = 0;
+  private static final int DECOMPRESS_BUFFER_SIZE = 64 * 1024;
+
+  @Value("${file.upload.csv.parser}")
+  private CSVParserType parserType;
+
+  @Value("${file.upload.csv.parallel.enabled}")
+  private boolean parallelEnabled;
+
+  @Value("${file.upload.csv.parallel.threads}")
+  private int parallelThreads;
+
+  @Value("${file.upload.csv.parallel.min-file-bytes}")
+  private long parallelMinFileBytes;
+
+  @Value("${file.upload.csv.parallel.slice-bytes}")
+  private long parallelSliceBytes;
+
+  @Value("${file.upload.compressed.max-decompressed-size}")
+  private long maxDecompressedSize;
+
+  @Value("${file.upload.compressed.max-ratio}")
+  private long maxCompressionRatio;
+
+  private ForkJoinPool parsePool;
+
+  @PostConstruct
+  void startParsePool() {
+    int threads =
+        parallelThreads > 0 ? parallelThreads : Runtime.getRuntime().availableProcessors();
+    parsePool = new ForkJoinPool(threads);
+  }
+
+  @PreDestroy
+  void stopParsePool() {
+    parsePool.shutdownNow();
+  }
+
+  /**
+   * Parse and validate a CSV without materializing it: valid records are handed to {@code
+   * chunkSink} in chunks of {@code chunkSize}, and rejected rows to {@code errorCollector}. Memory
+   * use depends on the chunk size, not on the size of the file.
+   */
+  public CSVStreamingResult streamCSVFile(
+      InputStream inputStream,
+      Long userId,
+      Long fileUploadId,
+      int chunkSize,
+      Consumer<List<SalesDataEntity>> chunkSink,
+      IngestErrorCollector errorCollector,
+      ProgressListener progressListener) {
+    return stream(
+        fileUploadId,
+        chunkSize,
+        chunkSink,
+        errorCollector,
+        progressListener,
+        (recordHandler, errorHandler) ->
+            parse(inputStream, userId, fileUploadId, recordHandler, errorHandler));
+  }
 
-    log.info("Starting CSV processing for User: {}, FileUpload: {}", userId, fileUploadId);
+  /**
+   * Stream a CSV file from disk. Large files are split on record boundaries and parsed on several
+   * cores when parallel parsing is enabled; records still reach {@code chunkSink} in file order.
+   * Compressed files are decompressed on the fly, without temporary files, and parsed sequentially.
+   */
+  public CSVStreamingResult streamCSVFile(
+      Path file,
+      UploadCompression compression,
+      Long userId,
+      Long fileUploadId,
+      int chunkSize,
+      Consumer<List<SalesDataEntity>> chunkSink,
+      IngestErrorCollector errorCollector,
+      ProgressListener progressListener)
+      throws IOException {
+    if (compression != UploadCompression.NONE) {
+      long maxBytes = maxDecompressedBytes(file);
+      try (InputStream fileStream =
+          new BufferedInputStream(Files.newInputStream(file), DECOMPRESS_BUFFER_SIZE)) {
+        return stream(
+            fileUploadId,
+            chunkSize,
+            chunkSink,
+            errorCollector,
+            progressListener,
+            (recordHandler, errorHandler) ->
+                compression == UploadCompression.ZIP
+                    ? parseZipEntries(
+                        fileStream, maxBytes, userId, fileUploadId, recordHandler, errorHandler)
+                    : parseGzip(
+                        fileStream, maxBytes, userId, fileUploadId, recordHandler, errorHandler));
+      }
+    }
+
+    if (!shouldParseInParallel(file)) {
+      try (InputStream inputStream = Files.newInputStream(file)) {
+        return streamCSVFile(
+            inputStream,
+            userId,
+            fileUploadId,
+            chunkSize,
+            chunkSink,
+            errorCollector,
+            progressListener);
+      }
+    }
 
+    return stream(
+        fileUploadId,
+        chunkSize,
+        chunkSink,
+        errorCollector,
+        progressListener,
+        (recordHandler, errorHandler) ->
+            parseInParallel(file, userId, fileUploadId, recordHandler, errorHandler));
+  }
+
+  /** Notified on the ingesting thread after each chunk has been handed to the sink */
+  @FunctionalInterface
+  public interface ProgressListener {
+    void onChunkWritten(int recordsWritten, int recordsFailed);
+  }
+
+  /** Receives each rejected row */
+  @FunctionalInterface
+  private interface RowErrorHandler {
+    void onError(int lineNumber, IngestErrorCategory category, String message);
+  }
+
+  /** Runs a parse, delivering records to the given handlers */
+  @FunctionalInterface
+  private interface Parse {
+    ParseOutcome run(Consumer<SalesDataEntity> recordHandler, RowErrorHandler errorHandler);
+  }
+
+  private CSVStreamingResult stream(
+      Long fileUploadId,
+      int chunkSize,
+      Consumer<List<SalesDataEntity>> chunkSink,
+      IngestErrorCollector errorCollector,
+      ProgressListener progressListener,
+      Parse parse) {
+    ChunkBuffer chunkBuffer = new ChunkBuffer(chunkSize, chunkSink, progressListener);
+
+    ParseOutcome outcome =
+        parse.run(
+            chunkBuffer::add,
+            (lineNumber, category, message) -> {
+              chunkBuffer.recordsFailed++;
+              errorCollector.record(lineNumber, category, message);
+            });
+
+    String fatalError = outcome.fatalError();
+    if (fatalError == null) {
+      try {
+        chunkBuffer.flush();
+      } catch (Exception e) {
+        log.error("Error writing final chunk for FileUpload: {}", fileUploadId, e);
+        fatalError = "Error saving records: " + e.getMessage();
+      }
+    }
+
+    return new CSVStreamingResult(
+        outcome.totalRows(),
+        chunkBuffer.recordsWritten,
+        outcome.failedRows(),
+        chunkBuffer.chunksWritten,
+        errorCollector.getReport(),
+        fatalError);
+  }
+
+  /** Collects records and hands them to the sink once a chunk is full */
+  private static final class ChunkBuffer {
+    private final int chunkSize;
+    private final Consumer<List<SalesDataEntity>> chunkSink;
+    private final ProgressListener progressListener;
+    private final List<SalesDataEntity> chunk;
+    private int recordsWritten;
+    private int recordsFailed;
+    private int chunksWritten;
+
+    ChunkBuffer(
+        int chunkSize,
+        Consumer<List<SalesDataEntity>> chunkSink,
+        ProgressListener progressListener) {
+      this.chunkSize = chunkSize;
+      this.chunkSink = chunkSink;
+      this.progressListener = progressListener;
+      this.chunk = new ArrayList<>(chunkSize);
+    }
+
+    void add(SalesDataEntity salesDataEntity) {
+      chunk.add(salesDataEntity);
+      if (chunk.size() >= chunkSize) {
+        flush();
+      }
+    }
+
+    void flush() {
+      if (chunk.isEmpty()) {
+        return;
+      }
+      chunkSink.accept(chunk);
+      recordsWritten += chunk.size();
+      chunksWritten++;
+      chunk.clear();
+      progressListener.onChunkWritten(recordsWritten, recordsFailed);
+    }
+  }
+
+  private record ParseOutcome(int totalRows, int failedRows, String fatalError) {}
+
+  /** Running row counters for one file */
+  private static final class RowCounts {
+    private int total;
+    private int successful;
+    private int failed;
+  }
+
+  /** Parses, validates and converts one row; throws to reject the row */
+  @FunctionalInterface
+  private interface RowConverter {
+    SalesDataEntity convert() throws Exception;
+  }
+
+  private ParseOutcome parse(
+      InputStream inputStream,
+      Long userId,
+      Long fileUploadId,
+      Consumer<SalesDataEntity> recordHandler,
+      RowErrorHandler errorHandler) {
+    return requireRows(
+        parseRows(inputStream, userId, fileUploadId, recordHandler, errorHandler),
+        "CSV file contains no data rows");
+  }
+
+  /** Like {@link #parse}, but a file without data rows is not an error */
+  private ParseOutcome parseRows(
+      InputStream inputStream,
+      Long userId,
+      Long fileUploadId,
+      Consumer<SalesDataEntity> recordHandler,
+      RowErrorHandler errorHandler) {
+    RowCounts counts = new RowCounts();
+
+    log.info(
+        "Starting CSV processing for User: {}, FileUpload: {} with {} parser",
+        userId,
+        fileUploadId,
+        parserType);
+
+    String fatalError =
+        switch (parserType) {
+          case OPENCSV ->
+              parseWithOpenCsv(
+                  inputStream, userId, fileUploadId, recordHandler, errorHandler, counts);
+          case SALES_SCHEMA ->
+              parseWithSalesParser(
+                  inputStream, userId, fileUploadId, recordHandler, errorHandler, counts);
+        };
+
+    return finish(counts, fatalError);
+  }
+
+  private ParseOutcome finish(RowCounts counts, String fatalError) {
+    if (fatalError != null) {
+      return new ParseOutcome(counts.total, counts.failed, fatalError);
+    }
+
+    // Log final results
+    log.info(
+        "CSV processing completed. Total: {}, Success: {}, Failed: {}",
+        counts.total,
+        counts.successful,
+        counts.failed);
+
+    return new ParseOutcome(counts.total, counts.failed, null);
+  }
+
+  // An upload without any data rows fails
+  private static ParseOutcome requireRows(ParseOutcome outcome, String noRowsError) {
+    if (outcome.fatalError() == null && outcome.totalRows() == 0) {
+      log.warn(noRowsError);
+      return new ParseOutcome(0, outcome.failedRows(), noRowsError);
+    }
+    return outcome;
+  }
+
+  /** Parse with OpenCSV bean binding; returns a fatal error message or null */
+  private String parseWithOpenCsv(
+      InputStream inputStream,
+      Long userId,
+      Long fileUploadId,
+      Consumer<SalesDataEntity> recordHandler,
+      RowErrorHandler errorHandler,
+      RowCounts counts) {
     try (InputStreamReader reader = new InputStreamReader(inputStream)) {
 
       // Use OpenCSV to parse CSV with bean mapping
@@ -40,66 +356,366 @@ public class CSVProcessor {
       int lineNumber = 2; // Start at 2 because line 1 is header
 
       while (iterator.hasNext()) {
-        totalRows++;
+        processRow(
+            lineNumber,
+            () -> {
+              SalesRecordCSV csvRecord = iterator.next();
 
-        try {
-          SalesRecordCSV csvRecord = iterator.next();
+              // Validate the record based on our custom validators
+              csvRecord.validate();
 
-          // Validate the record based on our custom validators
-          csvRecord.validate();
+              return csvRecord.toSalesDataEntity(userId, fileUploadId);
+            },
+            counts,
+            recordHandler,
+            errorHandler);
+        logProgress(counts);
 
-          // Convert to entity and add to successful records
-          SalesDataEntity salesDataEntity = csvRecord.toSalesDataEntity(userId, fileUploadId);
-          successfulRecords.add(salesDataEntity);
+        lineNumber++;
+      }
+      return null;
 
-        } catch (IllegalArgumentException e) {
-          String errorMsg = String.format("Line %d: %s", lineNumber, e.getMessage());
-          errorMessages.add(errorMsg);
-          log.warn("Validation error on line {}: {}", lineNumber, e.getMessage());
+    } catch (IOException e) {
+      log.error("Error reading CSV input stream", e);
+      return "Error reading CSV file: " + e.getMessage();
 
-        } catch (Exception e) {
-          String errorMsg =
-              String.format("Line %d: Unexpected error - %s", lineNumber, e.getMessage());
-          errorMessages.add(errorMsg);
-          log.error("Unexpected error processing line {}: {}", lineNumber, errorMsg, e);
-        }
+    } catch (Exception e) {
+      log.error("Unexpected error processing CSV input stream", e);
+      return "Unexpected error processing CSV file: " + e.getMessage();
+    }
+  }
 
-        lineNumber++;
+  /** Parse with the reflection-free sales schema parser; returns a fatal error message or null */
+  private String parseWithSalesParser(
+      InputStream inputStream,
+      Long userId,
+      Long fileUploadId,
+      Consumer<SalesDataEntity> recordHandler,
+      RowErrorHandler errorHandler,
+      RowCounts counts) {
+    LocalDate today = LocalDate.now();
+    SalesRecordRow row = new SalesRecordRow();
 
-        // Log progress for larger files
-        if (totalRows % 1000 == 0) {
-          log.info("Processed {} rows so far...", totalRows);
-        }
+    try (SalesCSVParser parser = new SalesCSVParser(inputStream)) {
+      parser.readHeader();
+
+      while (parser.nextRecord()) {
+        processRow(
+            parser.getRecordLine(),
+            () -> {
+              parser.bind(row);
+              row.validate(today);
+              return row.toSalesDataEntity(userId, fileUploadId);
+            },
+            counts,
+            recordHandler,
+            errorHandler);
+        logProgress(counts);
       }
+      return null;
+
+    } catch (CSVProcessingException e) {
+      log.warn("Invalid CSV file: {}", e.getMessage());
+      return "Invalid CSV file: " + e.getMessage();
+
     } catch (IOException e) {
       log.error("Error reading CSV input stream", e);
-      return new CSVProcessingResult(
-          successfulRecords, errorMessages, totalRows, "Error reading CSV file: " + e.getMessage());
+      return "Error reading CSV file: " + e.getMessage();
 
     } catch (Exception e) {
       log.error("Unexpected error processing CSV input stream", e);
-      return new CSVProcessingResult(
-          successfulRecords,
-          errorMessages,
-          totalRows,
-          "Unexpected error processing CSV file: " + e.getMessage());
+      return "Unexpected error processing CSV file: " + e.getMessage();
     }
+  }
 
-    // Check if we have any data
-    if (totalRows == 0) {
-      log.warn("CSV file contains no data rows");
-      return new CSVProcessingResult(
-          successfulRecords, errorMessages, totalRows, "CSV file contains no data rows");
+  /**
+   * Cap on the decompressed size of a compressed upload, both absolute and relative to its
+   * compressed size, so that a small archive cannot expand without bound
+   */
+  private long maxDecompressedBytes(Path file) throws IOException {
+    long compressedSize = Files.size(file);
+    if (compressedSize > maxDecompressedSize / maxCompressionRatio) {
+      return maxDecompressedSize;
     }
+    return Math.max(compressedSize * maxCompressionRatio, DECOMPRESS_BUFFER_SIZE);
+  }
 
-    // Log final results
-    log.info(
-        "CSV processing completed. Total: {}, Success: {}, Failed: {}",
-        totalRows,
-        successfulRecords.size(),
-        errorMessages.size());
+  private ParseOutcome parseGzip(
+      InputStream fileStream,
+      long maxBytes,
+      Long userId,
+      Long fileUploadId,
+      Consumer<SalesDataEntity> recordHandler,
+      RowErrorHandler errorHandler) {
+    InputStream csv;
+    try {
+      csv =
+          new BoundedInputStream(new GZIPInputStream(fileStream, DECOMPRESS_BUFFER_SIZE), maxBytes);
+    } catch (IOException e) {
+      log.warn("Invalid gzip file: {}", e.getMessage());
+      return new ParseOutcome(0, 0, "Invalid gzip file: " + e.getMessage());
+    }
+    return parse(csv, userId, fileUploadId, recordHandler, errorHandler);
+  }
+
+  /**
+   * Parse every CSV entry of a zip archive, in archive order, as part of one upload. Each entry has
+   * its own header; rejected rows are reported with the entry name. Empty entries, and entries with
+   * only a header, are skipped; the upload fails only if no entry has any data rows.
+   */
+  private ParseOutcome parseZipEntries(
+      InputStream fileStream,
+      long maxBytes,
+      Long userId,
+      Long fileUploadId,
+      Consumer<SalesDataEntity> recordHandler,
+      RowErrorHandler errorHandler) {
+    ZipInputStream zip = new ZipInputStream(fileStream);
+    // Counts inflated bytes across all entries
+    InputStream entryData = new BoundedInputStream(zip, maxBytes);
+    int totalRows = 0;
+    int failedRows = 0;
+    int csvEntries = 0;
+
+    try {
+      for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+        if (!isCsvEntry(entry)) {
+          log.debug("Skipping zip entry {} for FileUpload: {}", entry.getName(), fileUploadId);
+          continue;
+        }
+        csvEntries++;
+
+        String entryName = entry.getName();
+        PushbackInputStream entryStream = new PushbackInputStream(new EntryInputStream(entryData));
+        int firstByte = entryStream.read();
+        if (firstByte == -1) {
+          log.warn("Skipping empty zip entry {} for FileUpload: {}", entryName, fileUploadId);
+          continue;
+        }
+        entryStream.unread(firstByte);
+
+        ParseOutcome outcome =
+            parseRows(
+                entryStream,
+                userId,
+                fileUploadId,
+                recordHandler,
+                (lineNumber, category, message) ->
+                    errorHandler.onError(lineNumber, category, entryName + ": " + message));
+        totalRows += outcome.totalRows();
+        failedRows += outcome.failedRows();
+
+        if (outcome.fatalError() != null) {
+          return new ParseOutcome(totalRows, failedRows, entryName + ": " + outcome.fatalError());
+        }
+        if (outcome.totalRows() == 0) {
+          log.warn(
+              "Zip entry {} for FileUpload: {} contains no data rows", entryName, fileUploadId);
+        }
+      }
+    } catch (IOException e) {
+      log.error("Error reading zip archive", e);
+      return new ParseOutcome(
+          totalRows, failedRows, "Error reading zip archive: " + e.getMessage());
+    }
+
+    if (csvEntries == 0) {
+      return new ParseOutcome(0, 0, "Zip archive contains no CSV files");
+    }
+    return requireRows(
+        new ParseOutcome(totalRows, failedRows, null), "Zip archive contains no data rows");
+  }
+
+  private static boolean isCsvEntry(ZipEntry entry) {
+    String name = entry.getName();
+    String baseName = name.substring(name.lastIndexOf('/') + 1);
+    return !entry.isDirectory()
+        && !name.startsWith("__MACOSX/")
+        && !baseName.startsWith("._")
+        && baseName.toLowerCase(Locale.ROOT).endsWith(".csv");
+  }
+
+  /** A zip entry's data; closing it leaves the archive open for the next entry */
+  private static final class EntryInputStream extends FilterInputStream {
+    EntryInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public void close() {
+      // the archive is closed by its owner
+    }
+  }
+
+  private boolean shouldParseInParallel(Path file) throws IOException {
+    return parallelEnabled
+        && parserType == CSVParserType.SALES_SCHEMA
+        && Files.size(file) >= parallelMinFileBytes;
+  }
+
+  /** Records and errors of one slice, held until the slices before it have been delivered */
+  private record SliceResult(
+      List<SalesDataEntity> records, List<RowError> errors, int totalRows, int failedRows) {}
+
+  /**
+   * Parse a file on the parse pool. Slices are submitted in a bounded window and their results
+   * consumed strictly in file order, so at most a few slices are held in memory at once and records
+   * reach {@code recordHandler} in the same order as with sequential parsing.
+   */
+  private ParseOutcome parseInParallel(
+      Path file,
+      Long userId,
+      Long fileUploadId,
+      Consumer<SalesDataEntity> recordHandler,
+      RowErrorHandler errorHandler) {
+    RowCounts counts = new RowCounts();
+    String fatalError = null;
+    LocalDate today = LocalDate.now();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      int[] columnPositions;
+      try (SalesCSVParser headerParser = new SalesCSVParser(Files.newInputStream(file))) {
+        columnPositions = headerParser.readHeader();
+      }
+
+      List<CSVSlicer.Slice> slices = CSVSlicer.slice(channel, parallelSliceBytes);
+      log.info(
+          "Starting parallel CSV processing for User: {}, FileUpload: {} in {} slices",
+          userId,
+          fileUploadId,
+          slices.size());
+
+      Deque<ForkJoinTask<SliceResult>> window = new ArrayDeque<>();
+      int maxInFlight = parsePool.getParallelism() + 1;
+      int nextSlice = 0;
+      try {
+        while (nextSlice < slices.size() || !window.isEmpty()) {
+          while (nextSlice < slices.size() && window.size() < maxInFlight) {
+            CSVSlicer.Slice slice = slices.get(nextSlice++);
+            window.addLast(
+                parsePool.submit(
+                    () ->
+                        parseSlice(channel, slice, columnPositions, userId, fileUploadId, today)));
+          }
+
+          SliceResult result = window.removeFirst().join();
+          result
+              .errors()
+              .forEach(
+                  error ->
+                      errorHandler.onError(error.lineNumber(), error.category(), error.message()));
+          result.records().forEach(recordHandler);
+          counts.total += result.totalRows();
+          counts.failed += result.failedRows();
+          counts.successful += result.records().size();
+          log.info("Processed {} rows so far...", counts.total);
+        }
+      } finally {
+        window.forEach(task -> task.cancel(true));
+      }
+
+    } catch (CSVProcessingException e) {
+      log.warn("Invalid CSV file: {}", e.getMessage());
+      fatalError = "Invalid CSV file: " + e.getMessage();
+
+    } catch (IOException | UncheckedIOException e) {
+      log.error("Error reading CSV file", e);
+      fatalError = "Error reading CSV file: " + e.getMessage();
+
+    } catch (Exception e) {
+      log.error("Unexpected error processing CSV file", e);
+      fatalError = "Unexpected error processing CSV file: " + e.getMessage();
+    }
+
+    return requireRows(finish(counts, fatalError), "CSV file contains no data rows");
+  }
+
+  private SliceResult parseSlice(
+      FileChannel channel,
+      CSVSlicer.Slice slice,
+      int[] columnPositions,
+      Long userId,
+      Long fileUploadId,
+      LocalDate today) {
+    RowCounts counts = new RowCounts();
+    List<SalesDataEntity> records = new ArrayList<>();
+    List<RowError> errors = new ArrayList<>();
+    SalesRecordRow row = new SalesRecordRow();
+
+    try (SalesCSVParser parser =
+        new SalesCSVParser(CSVSlicer.open(channel, slice), slice.firstLine(), columnPositions)) {
+      if (slice.containsHeader()) {
+        parser.readHeader();
+      }
+
+      while (parser.nextRecord()) {
+        processRow(
+            parser.getRecordLine(),
+            () -> {
+              parser.bind(row);
+              row.validate(today);
+              return row.toSalesDataEntity(userId, fileUploadId);
+            },
+            counts,
+            records::add,
+            (lineNumber, category, message) ->
+                errors.add(new RowError(lineNumber, category, message)));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (CSVProcessingException e) {
+      // Header was already validated on the whole file
+      throw new IllegalStateException(e);
+    }
+
+    return new SliceResult(records, errors, counts.total, counts.failed);
+  }
+
+  private void processRow(
+      int lineNumber,
+      RowConverter converter,
+      RowCounts counts,
+      Consumer<SalesDataEntity> recordHandler,
+      RowErrorHandler errorHandler) {
+    counts.total++;
+    SalesDataEntity salesDataEntity = null;
+
+    try {
+      salesDataEntity = converter.convert();
+
+    } catch (RowValidationException e) {
+      errorHandler.onError(lineNumber, e.getCategory(), e.getMessage());
+      counts.failed++;
 
-    return new CSVProcessingResult(successfulRecords, errorMessages, totalRows, null);
+    } catch (IllegalArgumentException e) {
+      errorHandler.onError(lineNumber, IngestErrorCategory.INVALID_VALUE, e.getMessage());
+      counts.failed++;
+
+    } catch (RuntimeException e) {
+      // OpenCSV reports rows it cannot bind as runtime exceptions
+      errorHandler.onError(lineNumber, IngestErrorCategory.MALFORMED_ROW, e.getMessage());
+      counts.failed++;
+      log.debug("Could not read line {}", lineNumber, e);
+
+    } catch (Exception e) {
+      errorHandler.onError(
+          lineNumber, IngestErrorCategory.UNEXPECTED, "Unexpected error - " + e.getMessage());
+      counts.failed++;
+      log.debug("Unexpected error processing line {}", lineNumber, e);
+    }
+
+    // Outside the per-row handling: a failing handler aborts the file, not just this row
+    if (salesDataEntity != null) {
+      recordHandler.accept(salesDataEntity);
+      counts.successful++;
+    }
+  }
+
+  private static void logProgress(RowCounts counts) {
+    // Log progress for larger files
+    if (counts.total % 1000 == 0) {
+      log.info("Processed {} rows so far...", counts.total);
+    }
   }
 
   /** Validate CSV file format by checking first few records Uses iterator for memory efficiency */
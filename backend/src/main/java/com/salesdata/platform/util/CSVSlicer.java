@@ -0,0 +1,142 @@
+package com.salesdata.platform.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a CSV file into byte ranges that start and end on record boundaries, so that each range
+ * can be parsed independently. The scan follows the same quoting rules as {@link SalesCSVParser}: a
+ * quote only opens a quoted field at the start of a field, and newlines inside quoted fields do not
+ * end a record. Line numbers assume \n or \r\n line endings.
+ */
+public final class CSVSlicer {
+
+  private static final int SCAN_BUFFER_SIZE = 256 * 1024;
+
+  private static final int FIELD_START = 0;
+  private static final int UNQUOTED = 1;
+  private static final int QUOTED = 2;
+  private static final int QUOTE_IN_QUOTED = 3;
+
+  private CSVSlicer() {}
+
+  /**
+   * A range of whole records
+   *
+   * @param firstLine physical line number of the first byte of the range
+   */
+  public record Slice(int index, long start, long end, int firstLine) {
+
+    public long length() {
+      return end - start;
+    }
+
+    public boolean containsHeader() {
+      return index == 0;
+    }
+  }
+
+  /** Cut the file into slices of roughly {@code targetSliceBytes}, in file order */
+  public static List<Slice> slice(FileChannel channel, long targetSliceBytes) throws IOException {
+    long size = channel.size();
+    List<Slice> slices = new ArrayList<>();
+    ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    byte[] bytes = buffer.array();
+
+    int state = FIELD_START;
+    int line = 1;
+    long sliceStart = 0;
+    int sliceFirstLine = 1;
+    long nextCut = targetSliceBytes;
+    long offset = 0;
+
+    while (offset < size) {
+      buffer.clear();
+      int read = channel.read(buffer, offset);
+      if (read <= 0) {
+        break;
+      }
+
+      for (int i = 0; i < read; i++) {
+        byte b = bytes[i];
+
+        if (state == QUOTED) {
+          if (b == '"') {
+            state = QUOTE_IN_QUOTED;
+          } else if (b == '\n') {
+            line++;
+          }
+          continue;
+        }
+
+        if (b == '\n') {
+          line++;
+          state = FIELD_START;
+          long boundary = offset + i + 1;
+          if (boundary >= nextCut && boundary < size) {
+            slices.add(new Slice(slices.size(), sliceStart, boundary, sliceFirstLine));
+            sliceStart = boundary;
+            sliceFirstLine = line;
+            nextCut = boundary + targetSliceBytes;
+          }
+        } else if (b == ',' || b == '\r') {
+          state = FIELD_START;
+        } else if (state == FIELD_START) {
+          if (b == '"') {
+            state = QUOTED;
+          } else if (b != ' ' && b != '\t') {
+            state = UNQUOTED;
+          }
+        } else if (state == QUOTE_IN_QUOTED) {
+          // A doubled quote re-enters the quoted field, anything else closed it
+          state = b == '"' ? QUOTED : UNQUOTED;
+        }
+      }
+      offset += read;
+    }
+
+    slices.add(new Slice(slices.size(), sliceStart, size, sliceFirstLine));
+    return slices;
+  }
+
+  /** Memory-map a slice and expose it as a stream */
+  public static InputStream open(FileChannel channel, Slice slice) throws IOException {
+    return new ByteBufferInputStream(
+        channel.map(FileChannel.MapMode.READ_ONLY, slice.start(), slice.length()));
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(length, buffer.remaining());
+      buffer.get(target, offset, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
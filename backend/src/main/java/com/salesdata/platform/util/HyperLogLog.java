@@ -0,0 +1,147 @@
+package com.salesdata.platform.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog distinct-value counter (Flajolet et al.) over 2^precision one-byte registers. The
+ * relative standard error of an estimate is about 1.04 / sqrt(2^precision), e.g. 0.8% at precision
+ * 14 (16 KB). Counters of the same precision merge into the counter of the union by taking register
+ * maxima, so a user's count is the merge of their uploads' counters. Not thread-safe.
+ */
+public final class HyperLogLog {
+
+  public static final int MIN_PRECISION = 4;
+  public static final int MAX_PRECISION = 18;
+
+  private final int precision;
+  private final byte[] registers;
+
+  public HyperLogLog(int precision) {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException(
+          "HyperLogLog precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  public void add(String value) {
+    long hash = hash(value);
+    int index = (int) (hash >>> (64 - precision));
+    // Rank of the first set bit in the remaining bits; a sentinel bit caps it for all-zero hashes
+    long rest = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+    if (rank > registers[index]) {
+      registers[index] = rank;
+    }
+  }
+
+  public void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException(
+          "Cannot merge HyperLogLog counters of different precision");
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /**
+   * Estimated number of distinct values added, using Ertl's improved estimator ("New cardinality
+   * estimation algorithms for HyperLogLog sketches", 2017). Unlike the classic estimator with its
+   * linear-counting switch it has no bias bump at mid-range cardinalities.
+   */
+  public long estimate() {
+    int q = 64 - precision;
+    int[] histogram = new int[q + 2];
+    for (byte register : registers) {
+      histogram[register]++;
+    }
+
+    double m = registers.length;
+    double z = m * tau(1 - histogram[q + 1] / m);
+    for (int k = q; k >= 1; k--) {
+      z = 0.5 * (z + histogram[k]);
+    }
+    z += m * sigma(histogram[0] / m);
+    return Math.round(m * m / (2 * Math.log(2)) / z);
+  }
+
+  /** Relative standard error of {@link #estimate()} */
+  public double standardError() {
+    return standardError(precision);
+  }
+
+  public static double standardError(int precision) {
+    return 1.04 / Math.sqrt(1 << precision);
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  public byte[] toBytes() {
+    byte[] bytes = new byte[registers.length + 1];
+    bytes[0] = (byte) precision;
+    System.arraycopy(registers, 0, bytes, 1, registers.length);
+    return bytes;
+  }
+
+  public static HyperLogLog fromBytes(byte[] bytes) {
+    HyperLogLog counter = new HyperLogLog(bytes[0]);
+    if (bytes.length != counter.registers.length + 1) {
+      throw new IllegalArgumentException("Corrupt HyperLogLog registers");
+    }
+    System.arraycopy(bytes, 1, counter.registers, 0, counter.registers.length);
+    return counter;
+  }
+
+  private static double sigma(double x) {
+    if (x == 1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double y = 1;
+    double z = x;
+    double previous;
+    do {
+      x *= x;
+      previous = z;
+      z += x * y;
+      y += y;
+    } while (z != previous);
+    return z;
+  }
+
+  private static double tau(double x) {
+    if (x == 0 || x == 1) {
+      return 0;
+    }
+    double y = 1;
+    double z = 1 - x;
+    double previous;
+    do {
+      x = Math.sqrt(x);
+      previous = z;
+      y *= 0.5;
+      z -= (1 - x) * (1 - x) * y;
+    } while (z != previous);
+    return z / 3;
+  }
+
+  // 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer to spread the bits
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xFF;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,137 @@
+package com.salesdata.platform.util;
+
+import com.salesdata.platform.fileupload.dto.IngestErrorReport;
+import com.salesdata.platform.fileupload.dto.RowError;
+import com.salesdata.platform.fileupload.enums.IngestErrorCategory;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects rejected rows for one ingest in bounded memory: a counter per category and the first
+ * {@code examplesPerCategory} rows of each. Every rejected row is also streamed to a CSV report
+ * file, opened on the first error. Only the first row of each category is logged. Not thread-safe;
+ * rows are recorded on the ingesting thread.
+ */
+@Slf4j
+public class IngestErrorCollector implements Closeable {
+
+  private static final IngestErrorCategory[] CATEGORIES = IngestErrorCategory.values();
+  private static final String REPORT_HEADER = "line,category,message";
+
+  private final Long fileUploadId;
+  private final int examplesPerCategory;
+  private final Path reportFile;
+
+  private final long[] counts = new long[CATEGORIES.length];
+  private final Map<IngestErrorCategory, List<RowError>> examples =
+      new EnumMap<>(IngestErrorCategory.class);
+  private long totalErrors;
+
+  private BufferedWriter reportWriter;
+  private boolean reportFailed;
+
+  /**
+   * @param reportFile where to write the full report, or null to keep only the bounded summary
+   */
+  public IngestErrorCollector(Long fileUploadId, int examplesPerCategory, Path reportFile) {
+    this.fileUploadId = fileUploadId;
+    this.examplesPerCategory = examplesPerCategory;
+    this.reportFile = reportFile;
+  }
+
+  public void record(int lineNumber, IngestErrorCategory category, String message) {
+    totalErrors++;
+    if (counts[category.ordinal()]++ == 0) {
+      log.warn(
+          "File upload {} has {} errors, first on line {}: {}",
+          fileUploadId,
+          category,
+          lineNumber,
+          message);
+    }
+
+    List<RowError> categoryExamples = examples.computeIfAbsent(category, c -> new ArrayList<>());
+    if (categoryExamples.size() < examplesPerCategory) {
+      categoryExamples.add(new RowError(lineNumber, category, message));
+    }
+
+    writeReportLine(lineNumber, category, message);
+  }
+
+  public IngestErrorReport getReport() {
+    Map<IngestErrorCategory, Long> countsByCategory = new EnumMap<>(IngestErrorCategory.class);
+    for (IngestErrorCategory category : CATEGORIES) {
+      if (counts[category.ordinal()] > 0) {
+        countsByCategory.put(category, counts[category.ordinal()]);
+      }
+    }
+
+    Map<IngestErrorCategory, List<RowError>> examplesCopy =
+        new EnumMap<>(IngestErrorCategory.class);
+    examples.forEach((category, rows) -> examplesCopy.put(category, List.copyOf(rows)));
+
+    return new IngestErrorReport(
+        totalErrors,
+        Collections.unmodifiableMap(countsByCategory),
+        Collections.unmodifiableMap(examplesCopy),
+        reportWriter != null && !reportFailed);
+  }
+
+  @Override
+  public void close() {
+    if (reportWriter == null) {
+      return;
+    }
+    try {
+      reportWriter.close();
+    } catch (IOException e) {
+      failReport(e);
+    }
+  }
+
+  private void writeReportLine(int lineNumber, IngestErrorCategory category, String message) {
+    if (reportFile == null || reportFailed) {
+      return;
+    }
+
+    try {
+      if (reportWriter == null) {
+        reportWriter = Files.newBufferedWriter(reportFile);
+        reportWriter.write(REPORT_HEADER);
+        reportWriter.newLine();
+      }
+      reportWriter.write(Integer.toString(lineNumber));
+      reportWriter.write(',');
+      reportWriter.write(category.name());
+      reportWriter.write(",\"");
+      reportWriter.write(message == null ? "" : message.replace("\"", "\"\""));
+      reportWriter.write('"');
+      reportWriter.newLine();
+    } catch (IOException e) {
+      failReport(e);
+    }
+  }
+
+  // The report is best effort; losing it must not fail the ingest
+  private void failReport(IOException e) {
+    log.warn("Could not write error report for file upload {}: {}", fileUploadId, e.getMessage());
+    reportFailed = true;
+    try {
+      if (reportWriter != null) {
+        reportWriter.close();
+      }
+      Files.deleteIfExists(reportFile);
+    } catch (IOException ignored) {
+      // already reported
+    }
+  }
+}
@@ -0,0 +1,240 @@
+package com.salesdata.platform.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * KLL quantile sketch (Karnin, Lang and Liberty) over long values. Items pass through a stack of
+ * compactors; level h holds items standing for 2^h inputs, and a full level sorts itself and
+ * promotes every other item, starting at a random offset, to the level above. Level capacities
+ * shrink geometrically by 2/3 going down from the top, so at most about 3k items are retained
+ * however many values are added.
+ *
+ * <p>The rank of a value reported by {@link #quantile} is within about 1.7/k of the requested
+ * quantile (about 1% at k = 200) with high probability; sketches merge with the same bound. The
+ * minimum and maximum are exact. Not thread-safe.
+ */
+public final class KllSketch {
+
+  private static final double LEVEL_DECAY = 2.0 / 3.0;
+  private static final int MIN_LEVEL_CAPACITY = 2;
+
+  private final int k;
+  private final List<Level> levels = new ArrayList<>();
+  private long count;
+  private long min = Long.MAX_VALUE;
+  private long max = Long.MIN_VALUE;
+  private int retained;
+  private int maxRetained;
+
+  public KllSketch(int k) {
+    if (k < 8) {
+      throw new IllegalArgumentException("KLL sketch k must be at least 8");
+    }
+    this.k = k;
+    addLevel();
+  }
+
+  public void add(long value) {
+    count++;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+    levels.get(0).add(value);
+    if (++retained >= maxRetained) {
+      compress();
+    }
+  }
+
+  public void merge(KllSketch other) {
+    if (other.count == 0) {
+      return;
+    }
+    while (levels.size() < other.levels.size()) {
+      addLevel();
+    }
+    for (int h = 0; h < other.levels.size(); h++) {
+      levels.get(h).addAll(other.levels.get(h));
+    }
+    count += other.count;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+    retained += other.retained;
+    while (retained >= maxRetained) {
+      compress();
+    }
+  }
+
+  /** Value at the given quantile, 0 for the minimum and 1 for the maximum */
+  public long quantile(double quantile) {
+    if (count == 0) {
+      throw new IllegalStateException("Quantile of an empty sketch");
+    }
+    if (quantile <= 0) {
+      return min;
+    }
+    if (quantile >= 1) {
+      return max;
+    }
+
+    // Each retained item stands for 2^level inputs; walk them in value order
+    long[][] weighted = new long[retained][];
+    int i = 0;
+    long totalWeight = 0;
+    for (int h = 0; h < levels.size(); h++) {
+      Level level = levels.get(h);
+      for (int j = 0; j < level.size; j++) {
+        weighted[i++] = new long[] {level.items[j], 1L << h};
+        totalWeight += 1L << h;
+      }
+    }
+    Arrays.sort(weighted, 0, i, (a, b) -> Long.compare(a[0], b[0]));
+
+    double target = quantile * totalWeight;
+    long cumulative = 0;
+    for (int j = 0; j < i; j++) {
+      cumulative += weighted[j][1];
+      if (cumulative >= target) {
+        return weighted[j][0];
+      }
+    }
+    return max;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getMin() {
+    return min;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  public int getK() {
+    return k;
+  }
+
+  /** Approximate normalized rank error of a sketch with the given k */
+  public static double rankError(int k) {
+    return 1.7 / k;
+  }
+
+  public byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + retained * 8);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(k);
+      out.writeLong(count);
+      out.writeLong(min);
+      out.writeLong(max);
+      out.writeInt(levels.size());
+      for (Level level : levels) {
+        out.writeInt(level.size);
+        for (int j = 0; j < level.size; j++) {
+          out.writeLong(level.items[j]);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static KllSketch fromBytes(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      KllSketch sketch = new KllSketch(in.readInt());
+      sketch.count = in.readLong();
+      sketch.min = in.readLong();
+      sketch.max = in.readLong();
+      int levelCount = in.readInt();
+      while (sketch.levels.size() < levelCount) {
+        sketch.addLevel();
+      }
+      for (Level level : sketch.levels) {
+        int size = in.readInt();
+        for (int j = 0; j < size; j++) {
+          level.add(in.readLong());
+        }
+        sketch.retained += size;
+      }
+      return sketch;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Compact the lowest full level into the one above, adding a level on top if needed
+  private void compress() {
+    for (int h = 0; h < levels.size(); h++) {
+      Level level = levels.get(h);
+      if (level.size >= capacity(h)) {
+        if (h + 1 == levels.size()) {
+          addLevel();
+        }
+        retained -= level.compactInto(levels.get(h + 1));
+        return;
+      }
+    }
+  }
+
+  private void addLevel() {
+    levels.add(new Level());
+    maxRetained = 0;
+    for (int h = 0; h < levels.size(); h++) {
+      maxRetained += capacity(h);
+    }
+  }
+
+  private int capacity(int level) {
+    int depth = levels.size() - level - 1;
+    return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(LEVEL_DECAY, depth)));
+  }
+
+  private static final class Level {
+    private long[] items = new long[16];
+    private int size;
+
+    void add(long value) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+      }
+      items[size++] = value;
+    }
+
+    void addAll(Level other) {
+      if (size + other.size > items.length) {
+        items = Arrays.copyOf(items, Math.max(size + other.size, size * 2));
+      }
+      System.arraycopy(other.items, 0, items, size, other.size);
+      size += other.size;
+    }
+
+    /**
+     * Promote every other item to the level above. With an odd count the smallest item stays.
+     *
+     * @return number of items fewer retained overall
+     */
+    int compactInto(Level above) {
+      Arrays.sort(items, 0, size);
+      int first = size % 2;
+      int offset = ThreadLocalRandom.current().nextBoolean() ? 1 : 0;
+      int promoted = 0;
+      for (int j = first + offset; j < size; j += 2) {
+        above.add(items[j]);
+        promoted++;
+      }
+      int removed = size - first;
+      size = first;
+      return removed - promoted;
+    }
+  }
+}
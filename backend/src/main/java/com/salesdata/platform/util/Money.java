@@ -0,0 +1,60 @@
+package com.salesdata.platform.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a long count of cents. DECIMAL(10,2) prices and amounts fit with plenty of room, so
+ * ingest, validation and in-memory aggregates work on primitives and convert to BigDecimal only
+ * where amounts leave the application: JDBC parameters, JPA columns and API responses. Arithmetic
+ * is overflow-checked, so a result is either exact or an exception.
+ */
+public final class Money {
+
+  public static final int SCALE = 2;
+
+  /** Largest DECIMAL(10,2) value, 99,999,999.99 */
+  public static final long MAX_DECIMAL_10_2_CENTS = 9_999_999_999L;
+
+  private Money() {}
+
+  /**
+   * Exact cents of an amount
+   *
+   * @throws IllegalArgumentException if the amount has more than two decimal places or does not fit
+   *     a long
+   */
+  public static long cents(BigDecimal amount) {
+    try {
+      return amount.movePointRight(SCALE).longValueExact();
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Amount must have at most two decimal places: " + amount);
+    }
+  }
+
+  /**
+   * Cents of an amount rounded half up to two decimal places, as a DECIMAL(10,2) column stores it
+   *
+   * @throws IllegalArgumentException if the amount does not fit a long
+   */
+  public static long roundToCents(BigDecimal amount) {
+    try {
+      return amount.movePointRight(SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Amount too large: " + amount);
+    }
+  }
+
+  public static BigDecimal toBigDecimal(long cents) {
+    return BigDecimal.valueOf(cents, SCALE);
+  }
+
+  /** Amount of {@code quantity} items at {@code cents} each */
+  public static long times(long cents, long quantity) {
+    return Math.multiplyExact(cents, quantity);
+  }
+
+  public static long plus(long cents, long otherCents) {
+    return Math.addExact(cents, otherCents);
+  }
+}
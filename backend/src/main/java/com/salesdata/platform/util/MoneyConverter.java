@@ -0,0 +1,20 @@
+package com.salesdata.platform.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.math.BigDecimal;
+
+/** Maps a cents attribute to a DECIMAL(p,2) column, see {@link Money} */
+@Converter
+public class MoneyConverter implements AttributeConverter<Long, BigDecimal> {
+
+  @Override
+  public BigDecimal convertToDatabaseColumn(Long cents) {
+    return cents != null ? Money.toBigDecimal(cents) : null;
+  }
+
+  @Override
+  public Long convertToEntityAttribute(BigDecimal amount) {
+    return amount != null ? Money.cents(amount) : null;
+  }
+}
@@ -0,0 +1,543 @@
+package com.salesdata.platform.util;
+
+import com.salesdata.platform.exception.CSVProcessingException;
+import com.salesdata.platform.exception.RowValidationException;
+import com.salesdata.platform.fileupload.dto.SalesRecordRow;
+import com.salesdata.platform.fileupload.enums.IngestErrorCategory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Hand-written parser for the fixed sales CSV schema (product_name, product_price, quantity,
+ * sale_date, sale_location). It reads bytes straight from the stream, tokenizes each record into a
+ * reused byte buffer and binds it into a reused {@link SalesRecordRow}: prices are parsed as
+ * fixed-point cents, yyyy-MM-dd dates digit by digit, other date patterns with the precompiled
+ * {@link DateTimeUtil#DATE_FORMATTERS} in their declared order, and repeated product and location
+ * names are served from a small cache instead of being decoded again.
+ *
+ * <p>Quoting follows RFC 4180 (quoted fields may contain commas, doubled quotes and newlines).
+ * Leading whitespace and empty lines are ignored, as with the OpenCSV configuration in {@link
+ * CSVProcessor}. Line numbers are physical lines of the input, counting the header as line 1.
+ */
+public final class SalesCSVParser implements Closeable {
+
+  static final int PRODUCT_NAME = 0;
+  static final int PRODUCT_PRICE = 1;
+  static final int QUANTITY = 2;
+  static final int SALE_DATE = 3;
+  static final int SALE_LOCATION = 4;
+
+  private static final String[] COLUMN_NAMES = {
+    "product_name", "product_price", "quantity", "sale_date", "sale_location"
+  };
+  private static final boolean[] REQUIRED_COLUMNS = {true, true, true, true, false};
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_PRICE_INTEGER_DIGITS = 15;
+
+  private final InputStream inputStream;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int position;
+  private int limit;
+
+  // Current record, tokenized into fieldBytes[fieldStart[i]..fieldEnd[i])
+  private byte[] fieldBytes = new byte[1024];
+  private int[] fieldStart = new int[8];
+  private int[] fieldEnd = new int[8];
+  private int fieldCount;
+  private int fieldBytesUsed;
+  private String malformedRecord;
+
+  private int line;
+  private int recordLine;
+
+  // Schema column -> field position within a record, -1 when the column is absent
+  private int[] columnPositions;
+
+  private final ByteStringCache stringCache = new ByteStringCache();
+
+  /** Parser for a whole file; call {@link #readHeader()} before reading records */
+  public SalesCSVParser(InputStream inputStream) {
+    this(inputStream, 1, null);
+  }
+
+  /**
+   * Parser for a slice of a file whose header has already been read elsewhere
+   *
+   * @param firstLine physical line number of the first byte of the slice
+   * @param columnPositions column layout returned by {@link #readHeader()} on the full file
+   */
+  public SalesCSVParser(InputStream inputStream, int firstLine, int[] columnPositions) {
+    this.inputStream = inputStream;
+    this.line = firstLine;
+    this.columnPositions = columnPositions;
+  }
+
+  /**
+   * Read the header record and map the schema columns onto it
+   *
+   * @return column layout, usable for parsers over other slices of the same file
+   * @throws CSVProcessingException if the file is empty or a required column is missing
+   */
+  public int[] readHeader() throws IOException, CSVProcessingException {
+    skipByteOrderMark();
+    if (!nextRecord()) {
+      throw new CSVProcessingException("CSV file is empty");
+    }
+
+    int[] positions = new int[COLUMN_NAMES.length];
+    Arrays.fill(positions, -1);
+    for (int field = 0; field < fieldCount; field++) {
+      String name =
+          new String(
+                  fieldBytes,
+                  fieldStart[field],
+                  fieldEnd[field] - fieldStart[field],
+                  StandardCharsets.UTF_8)
+              .trim()
+              .toLowerCase(Locale.ROOT);
+      for (int column = 0; column < COLUMN_NAMES.length; column++) {
+        if (COLUMN_NAMES[column].equals(name) && positions[column] == -1) {
+          positions[column] = field;
+        }
+      }
+    }
+
+    List<String> missing = new ArrayList<>();
+    for (int column = 0; column < COLUMN_NAMES.length; column++) {
+      if (REQUIRED_COLUMNS[column] && positions[column] == -1) {
+        missing.add(COLUMN_NAMES[column]);
+      }
+    }
+    if (!missing.isEmpty()) {
+      throw new CSVProcessingException("Header is missing required fields " + missing);
+    }
+
+    columnPositions = positions;
+    return positions;
+  }
+
+  /**
+   * Tokenize the next non-empty record
+   *
+   * @return false at end of input
+   */
+  public boolean nextRecord() throws IOException {
+    int b;
+    // Skip empty lines
+    while (true) {
+      recordLine = line;
+      b = read();
+      if (b == -1) {
+        return false;
+      }
+      if (b == '\n') {
+        line++;
+      } else if (b == '\r') {
+        consumeLineFeed();
+        line++;
+      } else {
+        break;
+      }
+    }
+
+    fieldCount = 0;
+    fieldBytesUsed = 0;
+    malformedRecord = null;
+
+    while (true) {
+      // Ignore leading whitespace in every field
+      while (b == ' ' || b == '\t') {
+        b = read();
+      }
+
+      startField();
+      if (b == '"') {
+        b = readQuotedField();
+      } else {
+        while (b != ',' && b != '\n' && b != '\r' && b != -1) {
+          append(b);
+          b = read();
+        }
+      }
+      endField();
+
+      if (b == ',') {
+        b = read();
+        continue;
+      }
+      if (b == '\r') {
+        consumeLineFeed();
+      }
+      if (b != -1) {
+        line++;
+      }
+      return true;
+    }
+  }
+
+  /** Physical line on which the current record starts */
+  public int getRecordLine() {
+    return recordLine;
+  }
+
+  /**
+   * Convert the current record into {@code row}
+   *
+   * @throws RowValidationException if a field cannot be converted
+   */
+  public void bind(SalesRecordRow row) throws IllegalArgumentException {
+    row.setLineNumber(recordLine);
+    if (malformedRecord != null) {
+      throw new RowValidationException(IngestErrorCategory.MALFORMED_ROW, malformedRecord);
+    }
+
+    row.setProductName(text(PRODUCT_NAME));
+    row.setProductPriceCents(priceCents(PRODUCT_PRICE));
+    row.setQuantity(integer(QUANTITY));
+    row.setSaleDate(date(SALE_DATE));
+    row.setSaleLocation(text(SALE_LOCATION));
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+
+  // TOKENIZER
+
+  private int read() throws IOException {
+    if (position == limit) {
+      limit = inputStream.read(buffer, 0, buffer.length);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return -1;
+      }
+    }
+    return buffer[position++] & 0xFF;
+  }
+
+  private void unread() {
+    position--;
+  }
+
+  private void consumeLineFeed() throws IOException {
+    int next = read();
+    if (next != '\n' && next != -1) {
+      unread();
+    }
+  }
+
+  private void skipByteOrderMark() throws IOException {
+    // A stream may return fewer bytes than asked for, so make sure all three are buffered
+    while (limit < 3) {
+      int read = inputStream.read(buffer, limit, buffer.length - limit);
+      if (read <= 0) {
+        break;
+      }
+      limit += read;
+    }
+    if (limit >= 3
+        && buffer[0] == (byte) 0xEF
+        && buffer[1] == (byte) 0xBB
+        && buffer[2] == (byte) 0xBF) {
+      position = 3;
+    }
+  }
+
+  /** Read a quoted field starting after the opening quote; returns the byte after the field */
+  private int readQuotedField() throws IOException {
+    while (true) {
+      int b = read();
+      if (b == -1) {
+        malformedRecord = "Unterminated quoted field";
+        return -1;
+      }
+      if (b == '"') {
+        int next = read();
+        if (next == '"') {
+          append('"');
+          continue;
+        }
+        // Closing quote; keep anything stray before the delimiter as part of the value
+        b = next;
+        while (b != ',' && b != '\n' && b != '\r' && b != -1) {
+          append(b);
+          b = read();
+        }
+        return b;
+      }
+      if (b == '\n') {
+        line++;
+      } else if (b == '\r') {
+        int next = read();
+        if (next != '\n' && next != -1) {
+          unread();
+        } else if (next == '\n') {
+          append('\r');
+          b = '\n';
+        }
+        line++;
+      }
+      append(b);
+    }
+  }
+
+  private void startField() {
+    if (fieldCount == fieldStart.length) {
+      fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+      fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+    }
+    fieldStart[fieldCount] = fieldBytesUsed;
+  }
+
+  private void endField() {
+    fieldEnd[fieldCount++] = fieldBytesUsed;
+  }
+
+  private void append(int b) {
+    if (fieldBytesUsed == fieldBytes.length) {
+      fieldBytes = Arrays.copyOf(fieldBytes, fieldBytes.length * 2);
+    }
+    fieldBytes[fieldBytesUsed++] = (byte) b;
+  }
+
+  // FIELD CONVERSION
+
+  private int trimmedStart(int field) {
+    int start = fieldStart[field];
+    int end = fieldEnd[field];
+    while (start < end && isWhitespace(fieldBytes[start])) {
+      start++;
+    }
+    return start;
+  }
+
+  private int trimmedEnd(int field, int start) {
+    int end = fieldEnd[field];
+    while (end > start && isWhitespace(fieldBytes[end - 1])) {
+      end--;
+    }
+    return end;
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+  }
+
+  /** Field position of a schema column in the current record, or -1 if it has no value */
+  private int field(int column) {
+    int field = columnPositions[column];
+    return field >= 0 && field < fieldCount ? field : -1;
+  }
+
+  private String text(int column) {
+    int field = field(column);
+    if (field < 0) {
+      return null;
+    }
+    int start = trimmedStart(field);
+    return stringCache.get(fieldBytes, start, trimmedEnd(field, start));
+  }
+
+  private long priceCents(int column) {
+    int field = requiredField(column);
+    int start = trimmedStart(field);
+    int end = trimmedEnd(field, start);
+
+    int i = start;
+    boolean negative = false;
+    if (i < end && (fieldBytes[i] == '-' || fieldBytes[i] == '+')) {
+      negative = fieldBytes[i] == '-';
+      i++;
+    }
+
+    long units = 0;
+    int integerDigits = 0;
+    while (i < end && isDigit(fieldBytes[i])) {
+      if (++integerDigits > MAX_PRICE_INTEGER_DIGITS) {
+        throw new RowValidationException(
+            IngestErrorCategory.OUT_OF_RANGE, "Product price too large (max 99,999,999.99)");
+      }
+      units = units * 10 + (fieldBytes[i++] - '0');
+    }
+
+    long cents = 0;
+    int fractionDigits = 0;
+    if (i < end && fieldBytes[i] == '.') {
+      i++;
+      while (i < end && isDigit(fieldBytes[i])) {
+        int digit = fieldBytes[i++] - '0';
+        if (fractionDigits < 2) {
+          cents = cents * 10 + digit;
+        } else if (fractionDigits == 2 && digit >= 5) {
+          // Round half up to the DECIMAL(10,2) column scale
+          cents++;
+        }
+        fractionDigits++;
+      }
+      if (fractionDigits == 1) {
+        cents *= 10;
+      }
+    }
+
+    if (i != end || integerDigits + fractionDigits == 0) {
+      throw invalidValue(column, start, end);
+    }
+
+    long total = units * 100 + cents;
+    return negative ? -total : total;
+  }
+
+  private int integer(int column) {
+    int field = requiredField(column);
+    int start = trimmedStart(field);
+    int end = trimmedEnd(field, start);
+
+    int i = start;
+    boolean negative = false;
+    if (i < end && (fieldBytes[i] == '-' || fieldBytes[i] == '+')) {
+      negative = fieldBytes[i] == '-';
+      i++;
+    }
+    if (i == end) {
+      throw invalidValue(column, start, end);
+    }
+
+    long value = 0;
+    while (i < end) {
+      if (!isDigit(fieldBytes[i])) {
+        throw invalidValue(column, start, end);
+      }
+      value = value * 10 + (fieldBytes[i++] - '0');
+      if (value > Integer.MAX_VALUE) {
+        throw new RowValidationException(
+            IngestErrorCategory.OUT_OF_RANGE, "Quantity too large (max 1,000,000)");
+      }
+    }
+    return (int) (negative ? -value : value);
+  }
+
+  private LocalDate date(int column) {
+    int field = requiredField(column);
+    int start = trimmedStart(field);
+    int end = trimmedEnd(field, start);
+
+    // Fast path for yyyy-MM-dd, the format of our own exports
+    if (end - start == 10
+        && fieldBytes[start + 4] == '-'
+        && fieldBytes[start + 7] == '-'
+        && allDigits(start, start + 4)
+        && allDigits(start + 5, start + 7)
+        && allDigits(start + 8, start + 10)) {
+      try {
+        return LocalDate.of(
+            digits(start, start + 4), digits(start + 5, start + 7), digits(start + 8, start + 10));
+      } catch (DateTimeException e) {
+        throw invalidValue(column, start, end);
+      }
+    }
+
+    // Other supported patterns, always in their declared order: an ambiguous date such as
+    // 02/03/2024 must read the same whatever rows came before it, or wherever a slice starts
+    String value = new String(fieldBytes, start, end - start, StandardCharsets.UTF_8);
+    for (DateTimeFormatter formatter : DateTimeUtil.DATE_FORMATTERS) {
+      try {
+        return LocalDate.parse(value, formatter);
+      } catch (DateTimeParseException ignored) {
+        // try the next pattern
+      }
+    }
+    throw invalidValue(column, start, end);
+  }
+
+  private int requiredField(int column) {
+    int field = field(column);
+    if (field < 0 || trimmedStart(field) == fieldEnd[field]) {
+      throw new RowValidationException(
+          IngestErrorCategory.MISSING_VALUE,
+          "Missing value for required field '" + COLUMN_NAMES[column] + "'");
+    }
+    return field;
+  }
+
+  private RowValidationException invalidValue(int column, int start, int end) {
+    return new RowValidationException(
+        column == SALE_DATE ? IngestErrorCategory.INVALID_DATE : IngestErrorCategory.INVALID_NUMBER,
+        "Invalid value for field '"
+            + COLUMN_NAMES[column]
+            + "': '"
+            + new String(fieldBytes, start, end - start, StandardCharsets.UTF_8)
+            + "'");
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private boolean allDigits(int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (!isDigit(fieldBytes[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int digits(int start, int end) {
+    int value = 0;
+    for (int i = start; i < end; i++) {
+      value = value * 10 + (fieldBytes[i] - '0');
+    }
+    return value;
+  }
+
+  /**
+   * Direct-mapped cache from UTF-8 bytes to decoded strings. Product and location names repeat
+   * heavily within a file, so most lookups avoid decoding and allocating a new String.
+   */
+  private static final class ByteStringCache {
+    private static final int SLOTS = 4096;
+    private static final int MAX_CACHED_LENGTH = 128;
+
+    private final byte[][] keys = new byte[SLOTS][];
+    private final String[] values = new String[SLOTS];
+
+    String get(byte[] bytes, int start, int end) {
+      int length = end - start;
+      if (length == 0) {
+        return "";
+      }
+      if (length > MAX_CACHED_LENGTH) {
+        return new String(bytes, start, length, StandardCharsets.UTF_8);
+      }
+
+      int hash = 1;
+      for (int i = start; i < end; i++) {
+        hash = 31 * hash + bytes[i];
+      }
+      int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+
+      byte[] key = keys[slot];
+      if (key != null && Arrays.equals(key, 0, key.length, bytes, start, end)) {
+        return values[slot];
+      }
+
+      String value = new String(bytes, start, length, StandardCharsets.UTF_8);
+      keys[slot] = Arrays.copyOfRange(bytes, start, end);
+      values[slot] = value;
+      return value;
+    }
+  }
+}
@@ -0,0 +1,317 @@
+package com.salesdata.platform.util;
+
+import com.salesdata.platform.salesdata.dto.SalesBreakdown;
+import com.salesdata.platform.salesdata.enums.BreakdownGroupBy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable column-oriented copy of a user's sales records: primitive arrays sorted by sale day,
+ * with products, locations and uploads dictionary-encoded as int ids. A date range is a contiguous
+ * slice found by binary search, and aggregates are plain loops over the arrays. Amounts are kept in
+ * cents; a record's amount fits total_amount's DECIMAL(10,2), so long sums cannot overflow. Changes
+ * produce a new instance through {@link Builder}.
+ */
+public final class SalesColumns {
+
+  private static final int NO_LOCATION = -1;
+  private static final int ROW_BYTES = 4 + 8 + 4 + 4 + 4 + 4;
+  private static final int DICTIONARY_ENTRY_BYTES = 96;
+
+  private final int size;
+  private final int[] saleDay;
+  private final long[] priceCents;
+  private final int[] quantity;
+  private final int[] product;
+  private final int[] location;
+  private final int[] upload;
+  private final String[] products;
+  private final String[] locations;
+  private final long[] uploadIds;
+  private final long estimatedBytes;
+
+  private SalesColumns(Builder builder, int[] order) {
+    size = builder.size;
+    saleDay = new int[size];
+    priceCents = new long[size];
+    quantity = new int[size];
+    product = new int[size];
+    location = new int[size];
+    upload = new int[size];
+    for (int i = 0; i < size; i++) {
+      int row = order[i];
+      saleDay[i] = builder.saleDay[row];
+      priceCents[i] = builder.priceCents[row];
+      quantity[i] = builder.quantity[row];
+      product[i] = builder.product[row];
+      location[i] = builder.location[row];
+      upload[i] = builder.upload[row];
+    }
+    products = builder.products.toArray(String[]::new);
+    locations = builder.locations.toArray(String[]::new);
+    uploadIds = builder.uploadIds.stream().mapToLong(Long::longValue).toArray();
+
+    long dictionaryBytes = 0;
+    for (String name : products) {
+      dictionaryBytes += DICTIONARY_ENTRY_BYTES + name.length() * 2L;
+    }
+    for (String name : locations) {
+      dictionaryBytes += DICTIONARY_ENTRY_BYTES + name.length() * 2L;
+    }
+    estimatedBytes = (long) size * ROW_BYTES + dictionaryBytes;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** A builder holding these records, except those of {@code excludedUploadId} if not null */
+  public Builder toBuilder(Long excludedUploadId) {
+    Builder builder = new Builder();
+    for (int i = 0; i < size; i++) {
+      long uploadId = uploadIds[upload[i]];
+      if (excludedUploadId != null && uploadId == excludedUploadId) {
+        continue;
+      }
+      builder.add(
+          uploadId,
+          products[product[i]],
+          priceCents[i],
+          quantity[i],
+          saleDay[i],
+          location[i] == NO_LOCATION ? null : locations[location[i]]);
+    }
+    return builder;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Approximate heap footprint of the arrays and dictionaries */
+  public long estimatedBytes() {
+    return estimatedBytes;
+  }
+
+  public static long estimatedBytesPerRecord() {
+    return ROW_BYTES;
+  }
+
+  public boolean containsUpload(long fileUploadId) {
+    for (long uploadId : uploadIds) {
+      if (uploadId == fileUploadId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Totals of the records sold between the dates (inclusive, null for unbounded) that match the
+   * product and location (null for any), grouped as asked. Groups without records are left out.
+   */
+  public List<SalesBreakdown.Group> aggregate(
+      LocalDate startDate,
+      LocalDate endDate,
+      String productName,
+      String saleLocation,
+      BreakdownGroupBy groupBy) {
+
+    int productFilter = productName != null ? indexOf(products, productName) : -1;
+    int locationFilter = saleLocation != null ? indexOf(locations, saleLocation) : -1;
+    if ((productName != null && productFilter < 0)
+        || (saleLocation != null && locationFilter < 0)) {
+      return List.of();
+    }
+
+    int from = startDate != null ? firstDayIndex((int) startDate.toEpochDay()) : 0;
+    int to = endDate != null ? firstDayIndex((int) endDate.toEpochDay() + 1) : size;
+    if (from >= to) {
+      return List.of();
+    }
+
+    // Group slot per record; for months, slots count from the first month of the slice
+    int groupCount =
+        switch (groupBy) {
+          case NONE -> 1;
+          case PRODUCT -> products.length;
+          case LOCATION -> locations.length + 1;
+          case MONTH -> monthsBetween(saleDay[from], saleDay[to - 1]) + 1;
+        };
+    long[] records = new long[groupCount];
+    long[] amountCents = new long[groupCount];
+    long[] quantities = new long[groupCount];
+    long[] priceTotals = new long[groupCount];
+
+    LocalDate firstMonth = LocalDate.ofEpochDay(saleDay[from]).withDayOfMonth(1);
+    int monthSlot = 0;
+    int nextMonthDay = (int) firstMonth.plusMonths(1).toEpochDay();
+
+    for (int i = from; i < to; i++) {
+      if (productName != null && product[i] != productFilter) {
+        continue;
+      }
+      if (saleLocation != null && location[i] != locationFilter) {
+        continue;
+      }
+
+      int slot;
+      switch (groupBy) {
+        case PRODUCT -> slot = product[i];
+        case LOCATION -> slot = location[i] == NO_LOCATION ? locations.length : location[i];
+        case MONTH -> {
+          // Records are in day order, so the month only moves forward
+          while (saleDay[i] >= nextMonthDay) {
+            monthSlot++;
+            nextMonthDay = (int) firstMonth.plusMonths(monthSlot + 1L).toEpochDay();
+          }
+          slot = monthSlot;
+        }
+        default -> slot = 0;
+      }
+
+      records[slot]++;
+      amountCents[slot] += priceCents[i] * quantity[i];
+      quantities[slot] += quantity[i];
+      priceTotals[slot] += priceCents[i];
+    }
+
+    List<SalesBreakdown.Group> groups = new ArrayList<>();
+    for (int slot = 0; slot < groupCount; slot++) {
+      if (records[slot] == 0) {
+        continue;
+      }
+      String key =
+          switch (groupBy) {
+            case NONE -> null;
+            case PRODUCT -> products[slot];
+            case LOCATION -> slot == locations.length ? null : locations[slot];
+            case MONTH -> firstMonth.plusMonths(slot).toString();
+          };
+      groups.add(
+          SalesBreakdown.Group.of(
+              key,
+              records[slot],
+              Money.toBigDecimal(amountCents[slot]),
+              quantities[slot],
+              Money.toBigDecimal(priceTotals[slot])));
+    }
+    return groups;
+  }
+
+  // Index of the first record sold on or after the day
+  private int firstDayIndex(int day) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (saleDay[mid] < day) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static int monthsBetween(int firstDay, int lastDay) {
+    LocalDate first = LocalDate.ofEpochDay(firstDay);
+    LocalDate last = LocalDate.ofEpochDay(lastDay);
+    return (last.getYear() - first.getYear()) * 12 + last.getMonthValue() - first.getMonthValue();
+  }
+
+  private static int indexOf(String[] dictionary, String value) {
+    for (int i = 0; i < dictionary.length; i++) {
+      if (dictionary[i].equals(value)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Collects records in any order; {@link #build()} sorts them by sale day */
+  public static final class Builder {
+    private int size;
+    private int[] saleDay = new int[1024];
+    private long[] priceCents = new long[1024];
+    private int[] quantity = new int[1024];
+    private int[] product = new int[1024];
+    private int[] location = new int[1024];
+    private int[] upload = new int[1024];
+    private final List<String> products = new ArrayList<>();
+    private final Map<String, Integer> productIds = new HashMap<>();
+    private final List<String> locations = new ArrayList<>();
+    private final Map<String, Integer> locationIds = new HashMap<>();
+    private final List<Long> uploadIds = new ArrayList<>();
+    private final Map<Long, Integer> uploadIndexes = new HashMap<>();
+
+    private Builder() {}
+
+    public Builder add(
+        long fileUploadId,
+        String productName,
+        long priceCents,
+        int quantity,
+        int saleDay,
+        String saleLocation) {
+      if (size == this.saleDay.length) {
+        grow();
+      }
+      this.saleDay[size] = saleDay;
+      this.priceCents[size] = priceCents;
+      this.quantity[size] = quantity;
+      this.product[size] = idOf(productName, products, productIds);
+      this.location[size] =
+          saleLocation == null || saleLocation.isEmpty()
+              ? NO_LOCATION
+              : idOf(saleLocation, locations, locationIds);
+      Integer uploadIndex = uploadIndexes.get(fileUploadId);
+      if (uploadIndex == null) {
+        uploadIndex = uploadIds.size();
+        uploadIds.add(fileUploadId);
+        uploadIndexes.put(fileUploadId, uploadIndex);
+      }
+      this.upload[size] = uploadIndex;
+      size++;
+      return this;
+    }
+
+    public SalesColumns build() {
+      // Sort row numbers by day, packed under the day so that a primitive sort does the work
+      long[] keys = new long[size];
+      for (int i = 0; i < size; i++) {
+        keys[i] = ((long) saleDay[i] << 32) | i;
+      }
+      Arrays.sort(keys);
+      int[] order = new int[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = (int) keys[i];
+      }
+      return new SalesColumns(this, order);
+    }
+
+    private void grow() {
+      int capacity = saleDay.length * 2;
+      saleDay = Arrays.copyOf(saleDay, capacity);
+      priceCents = Arrays.copyOf(priceCents, capacity);
+      quantity = Arrays.copyOf(quantity, capacity);
+      product = Arrays.copyOf(product, capacity);
+      location = Arrays.copyOf(location, capacity);
+      upload = Arrays.copyOf(upload, capacity);
+    }
+
+    private static int idOf(String value, List<String> dictionary, Map<String, Integer> ids) {
+      Integer id = ids.get(value);
+      if (id == null) {
+        id = dictionary.size();
+        dictionary.add(value);
+        ids.put(value, id);
+      }
+      return id;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.salesdata.platform.util;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import java.util.List;
+
+/**
+ * One {@link HyperLogLog} per sales dimension, fed with the records of an upload as they are
+ * written
+ */
+public final class SalesDistinctCounters {
+
+  private static final SalesDimension[] DIMENSIONS = SalesDimension.values();
+
+  private final HyperLogLog[] counters;
+
+  public SalesDistinctCounters(int precision) {
+    counters = new HyperLogLog[DIMENSIONS.length];
+    for (SalesDimension dimension : DIMENSIONS) {
+      counters[dimension.ordinal()] = new HyperLogLog(precision);
+    }
+  }
+
+  /** Add written records; chunks of a parallel ingest may arrive from several threads */
+  public synchronized void addAll(List<SalesDataEntity> records) {
+    for (SalesDataEntity record : records) {
+      for (SalesDimension dimension : DIMENSIONS) {
+        String value = dimension.itemOf(record);
+        if (value != null) {
+          counters[dimension.ordinal()].add(value);
+        }
+      }
+    }
+  }
+
+  public synchronized HyperLogLog get(SalesDimension dimension) {
+    return counters[dimension.ordinal()];
+  }
+}
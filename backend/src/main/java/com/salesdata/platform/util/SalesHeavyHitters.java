@@ -0,0 +1,46 @@
+package com.salesdata.platform.util;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.salesdata.enums.TopMetric;
+import java.util.List;
+
+/**
+ * One {@link SpaceSavingSketch} per top-N dimension and metric, fed with the records of an upload
+ * as they are written
+ */
+public final class SalesHeavyHitters {
+
+  private static final SalesDimension[] DIMENSIONS = SalesDimension.values();
+  private static final TopMetric[] METRICS = TopMetric.values();
+
+  private final SpaceSavingSketch[][] sketches;
+
+  public SalesHeavyHitters(int capacity) {
+    sketches = new SpaceSavingSketch[DIMENSIONS.length][METRICS.length];
+    for (SalesDimension dimension : DIMENSIONS) {
+      for (TopMetric metric : METRICS) {
+        sketches[dimension.ordinal()][metric.ordinal()] = new SpaceSavingSketch(capacity);
+      }
+    }
+  }
+
+  /** Add written records; chunks of a parallel ingest may arrive from several threads */
+  public synchronized void addAll(List<SalesDataEntity> records) {
+    for (SalesDataEntity record : records) {
+      for (SalesDimension dimension : DIMENSIONS) {
+        String item = dimension.itemOf(record);
+        if (item == null) {
+          continue;
+        }
+        for (TopMetric metric : METRICS) {
+          sketches[dimension.ordinal()][metric.ordinal()].add(item, metric.weightOf(record));
+        }
+      }
+    }
+  }
+
+  public synchronized SpaceSavingSketch get(SalesDimension dimension, TopMetric metric) {
+    return sketches[dimension.ordinal()][metric.ordinal()];
+  }
+}
@@ -0,0 +1,86 @@
+package com.salesdata.platform.util;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.enums.QuantileMetric;
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One {@link KllSketch} per quantile metric and sale month, fed with the records of an upload as
+ * they are written
+ */
+public final class SalesQuantileSketches {
+
+  private static final QuantileMetric[] METRICS = QuantileMetric.values();
+
+  private final int k;
+  private final Map<QuantileMetric, TreeMap<LocalDate, KllSketch>> sketches =
+      new EnumMap<>(QuantileMetric.class);
+
+  public SalesQuantileSketches(int k) {
+    this.k = k;
+    for (QuantileMetric metric : METRICS) {
+      sketches.put(metric, new TreeMap<>());
+    }
+  }
+
+  /** Add written records; chunks of a parallel ingest may arrive from several threads */
+  public synchronized void addAll(List<SalesDataEntity> records) {
+    for (SalesDataEntity record : records) {
+      LocalDate month = RollupGrain.MONTH.bucketStart(record.getSaleDate());
+      for (QuantileMetric metric : METRICS) {
+        sketches
+            .get(metric)
+            .computeIfAbsent(month, m -> new KllSketch(k))
+            .add(metric.valueOf(record));
+      }
+    }
+  }
+
+  /** Sketches by the first day of their month */
+  public synchronized TreeMap<LocalDate, KllSketch> get(QuantileMetric metric) {
+    return sketches.get(metric);
+  }
+
+  public static byte[] toBytes(Map<LocalDate, KllSketch> monthly) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(monthly.size());
+      for (Map.Entry<LocalDate, KllSketch> entry : monthly.entrySet()) {
+        byte[] sketch = entry.getValue().toBytes();
+        out.writeLong(entry.getKey().toEpochDay());
+        out.writeInt(sketch.length);
+        out.write(sketch);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static TreeMap<LocalDate, KllSketch> fromBytes(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      TreeMap<LocalDate, KllSketch> monthly = new TreeMap<>();
+      int size = in.readInt();
+      for (int i = 0; i < size; i++) {
+        LocalDate month = LocalDate.ofEpochDay(in.readLong());
+        byte[] sketch = new byte[in.readInt()];
+        in.readFully(sketch);
+        monthly.put(month, KllSketch.fromBytes(sketch));
+      }
+      return monthly;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
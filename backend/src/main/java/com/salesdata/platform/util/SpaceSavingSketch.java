@@ -0,0 +1,170 @@
+package com.salesdata.platform.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Weighted Space-Saving heavy-hitter sketch (Metwally et al.) with at most {@code capacity}
+ * counters. A new item arriving when every counter is taken replaces the item with the smallest
+ * count and inherits that count as its error.
+ *
+ * <p>Bounds, for a stream of total weight W: every estimate is at most {@code error} above the true
+ * weight and never below it, every error is at most W / capacity, and every item whose true weight
+ * exceeds W / capacity is kept. Sketches merge with the same bounds over the combined weight. Not
+ * thread-safe.
+ */
+public final class SpaceSavingSketch {
+
+  /** A tracked item: its true weight lies in [count - error, count] */
+  public record Counter(String item, long count, long error) {
+
+    public long lowerBound() {
+      return count - error;
+    }
+  }
+
+  private static final Comparator<Counter> BY_COUNT =
+      Comparator.comparingLong(Counter::count).thenComparing(Counter::item);
+
+  private final int capacity;
+  private final Map<String, Counter> counters;
+  private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+  private long totalWeight;
+
+  public SpaceSavingSketch(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Sketch capacity must be greater than zero");
+    }
+    this.capacity = capacity;
+    this.counters = new HashMap<>(capacity * 2);
+  }
+
+  public void add(String item, long weight) {
+    if (weight <= 0) {
+      return;
+    }
+    totalWeight += weight;
+
+    Counter counter = counters.get(item);
+    if (counter != null) {
+      replace(counter, new Counter(item, counter.count() + weight, counter.error()));
+    } else if (counters.size() < capacity) {
+      put(new Counter(item, weight, 0));
+    } else {
+      Counter smallest = byCount.pollFirst();
+      counters.remove(smallest.item());
+      put(new Counter(item, smallest.count() + weight, smallest.count()));
+    }
+  }
+
+  /**
+   * Fold another sketch into this one. An item missing from a full sketch may have had up to that
+   * sketch's smallest count, which is added to both its estimate and its error.
+   */
+  public void merge(SpaceSavingSketch other) {
+    long missingHere = minimumCount();
+    long missingThere = other.minimumCount();
+
+    Map<String, Counter> merged = new HashMap<>(counters);
+    merged.replaceAll(
+        (item, counter) ->
+            other.counters.containsKey(item)
+                ? counter
+                : new Counter(
+                    item, counter.count() + missingThere, counter.error() + missingThere));
+    for (Counter theirs : other.counters.values()) {
+      merged.merge(
+          theirs.item(),
+          new Counter(theirs.item(), theirs.count() + missingHere, theirs.error() + missingHere),
+          (ours, unused) ->
+              new Counter(
+                  ours.item(), ours.count() + theirs.count(), ours.error() + theirs.error()));
+    }
+
+    counters.clear();
+    byCount.clear();
+    merged.values().stream().sorted(BY_COUNT.reversed()).limit(capacity).forEach(this::put);
+    totalWeight += other.totalWeight;
+  }
+
+  /** The {@code n} items with the largest estimates, largest first */
+  public List<Counter> top(int n) {
+    List<Counter> top = new ArrayList<>(Math.min(n, counters.size()));
+    for (Counter counter : byCount.descendingSet()) {
+      if (top.size() == n) {
+        break;
+      }
+      top.add(counter);
+    }
+    return top;
+  }
+
+  /** Upper bound of the error of any estimate, W / capacity */
+  public long maxError() {
+    return totalWeight / capacity;
+  }
+
+  public long getTotalWeight() {
+    return totalWeight;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + counters.size() * 32);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(capacity);
+      out.writeLong(totalWeight);
+      out.writeInt(counters.size());
+      for (Counter counter : counters.values()) {
+        out.writeUTF(counter.item());
+        out.writeLong(counter.count());
+        out.writeLong(counter.error());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static SpaceSavingSketch fromBytes(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      SpaceSavingSketch sketch = new SpaceSavingSketch(in.readInt());
+      sketch.totalWeight = in.readLong();
+      int size = in.readInt();
+      for (int i = 0; i < size; i++) {
+        sketch.put(new Counter(in.readUTF(), in.readLong(), in.readLong()));
+      }
+      return sketch;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Smallest count when full, 0 otherwise: the most an untracked item can have had
+  private long minimumCount() {
+    return counters.size() < capacity || byCount.isEmpty() ? 0 : byCount.first().count();
+  }
+
+  private void put(Counter counter) {
+    counters.put(counter.item(), counter);
+    byCount.add(counter);
+  }
+
+  private void replace(Counter old, Counter updated) {
+    byCount.remove(old);
+    put(updated);
+  }
+}
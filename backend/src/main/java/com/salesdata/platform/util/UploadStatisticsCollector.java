@@ -0,0 +1,57 @@
+package com.salesdata.platform.util;
+
+import com.salesdata.platform.fileupload.dto.UploadStatistics;
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Totals, ranges and the distinct product count of an upload, fed with its records as they are
+ * written. Products are counted exactly by dimension id, which the records carry once encoded; ids
+ * are assigned densely, so a bit per id stays small.
+ */
+public final class UploadStatisticsCollector {
+
+  private long amountCents;
+  private long quantity;
+  private LocalDate firstSaleDate;
+  private LocalDate lastSaleDate;
+  private long minPriceCents = Long.MAX_VALUE;
+  private long maxPriceCents = Long.MIN_VALUE;
+  private final BitSet products = new BitSet();
+
+  /** Add written records; chunks of a parallel ingest may arrive from several threads */
+  public synchronized void addAll(List<SalesDataEntity> records) {
+    for (SalesDataEntity record : records) {
+      amountCents += record.getAmountCents();
+      quantity += record.getQuantity();
+
+      LocalDate saleDate = record.getSaleDate();
+      if (firstSaleDate == null || saleDate.isBefore(firstSaleDate)) {
+        firstSaleDate = saleDate;
+      }
+      if (lastSaleDate == null || saleDate.isAfter(lastSaleDate)) {
+        lastSaleDate = saleDate;
+      }
+
+      long priceCents = record.getProductPriceCents();
+      minPriceCents = Math.min(minPriceCents, priceCents);
+      maxPriceCents = Math.max(maxPriceCents, priceCents);
+
+      products.set(record.getProductId());
+    }
+  }
+
+  public synchronized UploadStatistics toStatistics() {
+    boolean empty = firstSaleDate == null;
+    return new UploadStatistics(
+        amountCents,
+        quantity,
+        firstSaleDate,
+        lastSaleDate,
+        empty ? null : minPriceCents,
+        empty ? null : maxPriceCents,
+        products.cardinality());
+  }
+}
@@ -0,0 +1,262 @@
+package com.salesdata.platform.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.salesdata.platform.cache.repository.UserDataVersionRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+class QueryResultCacheTest {
+
+  private static final Long USER = 1L;
+  private static final Long OTHER_USER = 2L;
+
+  private UserDataVersions versions;
+  private QueryResultCache cache;
+  private final AtomicInteger loads = new AtomicInteger();
+
+  // Stands in for the database all nodes share
+  private final InMemoryVersionRepository database = new InMemoryVersionRepository();
+
+  @BeforeEach
+  void setUp() {
+    versions = new UserDataVersions(database);
+    cache = cacheOf(3);
+  }
+
+  @Test
+  void servesCachedResultUntilVersionMovesOn() {
+    assertThat(get(USER, "a")).isEqualTo("a@1");
+    assertThat(get(USER, "a")).isEqualTo("a@1");
+    assertThat(get(OTHER_USER, "a")).isEqualTo("a@2");
+
+    versions.changed(USER);
+
+    assertThat(get(USER, "a")).isEqualTo("a@3");
+    assertThat(get(OTHER_USER, "a")).isEqualTo("a@2");
+    QueryResultCache.Stats stats = cache.getStats();
+    assertThat(stats.hits()).isEqualTo(2);
+    assertThat(stats.misses()).isEqualTo(3);
+    assertThat(stats.invalidations()).isEqualTo(1);
+    assertThat(stats.size()).isEqualTo(2);
+  }
+
+  @Test
+  void rejectsEntriesAfterUploadChanges() {
+    get(USER, "a");
+
+    versions.changed(USER, 10L);
+    assertThat(get(USER, "a")).isEqualTo("a@2");
+
+    versions.salesDataChanged(USER, 10L);
+    assertThat(get(USER, "a")).isEqualTo("a@3");
+
+    versions.changedNow(USER, 10L);
+    assertThat(get(USER, "a")).isEqualTo("a@4");
+    assertThat(cache.getStats().invalidations()).isEqualTo(3);
+    assertThat(versions.currentUpload(10L)).isEqualTo(3);
+    assertThat(versions.currentSalesData(USER)).isEqualTo(1);
+  }
+
+  @Test
+  void changeOnAnotherNodeRejectsEntries() {
+    UserDataVersions otherNode = new UserDataVersions(database);
+    get(USER, "a");
+
+    otherNode.changed(USER);
+
+    assertThat(get(USER, "a")).isEqualTo("a@2");
+    assertThat(cache.getStats().invalidations()).isEqualTo(1);
+  }
+
+  @Test
+  void changeInsideTransactionIsWrittenBeforeCommit() {
+    get(USER, "a");
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      versions.changed(USER);
+      versions.salesDataChanged(USER, 10L);
+
+      // Other requests still read the committed data, which the entry matches
+      assertThat(get(USER, "a")).isEqualTo("a@1");
+      TransactionSynchronizationUtils.triggerBeforeCommit(false);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertThat(get(USER, "a")).isEqualTo("a@2");
+    assertThat(versions.current(USER)).isEqualTo(1);
+  }
+
+  @Test
+  void evictsLeastRecentlyUsed() {
+    get(USER, "a");
+    get(USER, "b");
+    get(USER, "c");
+    // Touch a, so b is now the eldest
+    get(USER, "a");
+
+    get(USER, "d");
+
+    QueryResultCache.Stats stats = cache.getStats();
+    assertThat(stats.evictions()).isEqualTo(1);
+    assertThat(stats.size()).isEqualTo(3);
+    int loadsBefore = loads.get();
+    get(USER, "a");
+    get(USER, "c");
+    get(USER, "d");
+    assertThat(loads.get()).isEqualTo(loadsBefore);
+    get(USER, "b");
+    assertThat(loads.get()).isEqualTo(loadsBefore + 1);
+  }
+
+  @Test
+  void slowLoadOfOlderVersionDoesNotReplaceNewerEntry() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> slow =
+          executor.submit(
+              () ->
+                  cache.get(
+                      USER,
+                      "summary",
+                      null,
+                      () -> {
+                        loading.countDown();
+                        await(release);
+                        return "old";
+                      }));
+      assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+      versions.changed(USER);
+      assertThat(cache.get(USER, "summary", null, () -> "new")).isEqualTo("new");
+      release.countDown();
+      assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("old");
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(cache.get(USER, "summary", null, () -> "reloaded")).isEqualTo("new");
+  }
+
+  @Test
+  void concurrentGetsAndPutsStayConsistent() throws Exception {
+    cache = cacheOf(16);
+    int threads = 8;
+    int callsPerThread = 5_000;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<Integer>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < threads; t++) {
+        int seed = t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  await(start);
+                  int wrong = 0;
+                  for (int i = 0; i < callsPerThread; i++) {
+                    long userId = (seed + i) % 4;
+                    String params = "p" + (i * 7 + seed) % 8;
+                    if (i % 500 == 0) {
+                      versions.changed(userId);
+                    }
+                    String value = cache.get(userId, "list", params, () -> userId + ":" + params);
+                    if (!value.equals(userId + ":" + params)) {
+                      wrong++;
+                    }
+                  }
+                  return wrong;
+                }));
+      }
+      start.countDown();
+      for (Future<Integer> future : futures) {
+        assertThat(future.get(30, TimeUnit.SECONDS)).isZero();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    QueryResultCache.Stats stats = cache.getStats();
+    assertThat(stats.hits() + stats.misses()).isEqualTo((long) threads * callsPerThread);
+    assertThat(stats.hits()).isPositive();
+    assertThat(stats.size()).isLessThanOrEqualTo(16);
+  }
+
+  private QueryResultCache cacheOf(int maxEntries) {
+    QueryResultCache queryResultCache = new QueryResultCache(versions);
+    ReflectionTestUtils.setField(queryResultCache, "maxEntries", maxEntries);
+    return queryResultCache;
+  }
+
+  // Values carry the load count, so a reload is visible in the result
+  private String get(Long userId, String params) {
+    return cache.get(userId, "list", params, () -> params + "@" + loads.incrementAndGet());
+  }
+
+  private static class InMemoryVersionRepository extends UserDataVersionRepository {
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> salesDataVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> uploadVersions = new ConcurrentHashMap<>();
+
+    InMemoryVersionRepository() {
+      super(null);
+    }
+
+    @Override
+    public long findVersion(Long userId) {
+      return versions.getOrDefault(userId, 0L);
+    }
+
+    @Override
+    public long findSalesDataVersion(Long userId) {
+      return salesDataVersions.getOrDefault(userId, 0L);
+    }
+
+    @Override
+    public long findUploadVersion(Long fileUploadId) {
+      return uploadVersions.getOrDefault(fileUploadId, 0L);
+    }
+
+    @Override
+    public void incrementVersions(Collection<Long> userIds, boolean salesData) {
+      for (Long userId : userIds) {
+        versions.merge(userId, 1L, Long::sum);
+        if (salesData) {
+          salesDataVersions.merge(userId, 1L, Long::sum);
+        }
+      }
+    }
+
+    @Override
+    public void incrementUploadVersions(Collection<Long> fileUploadIds) {
+      fileUploadIds.forEach(id -> uploadVersions.merge(id, 1L, Long::sum));
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      if (!latch.await(5, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("Timed out");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package com.salesdata.platform.fileupload.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.salesdata.platform.cache.UserDataVersions;
+import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import com.salesdata.platform.fileupload.dto.UploadResult;
+import com.salesdata.platform.fileupload.enums.UploadStatus;
+import com.salesdata.platform.fileupload.repository.FileUploadRepository;
+import com.salesdata.platform.salesdata.service.SalesColumnarCache;
+import com.salesdata.platform.salesdata.service.SalesSummaryService;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class FileUploadServiceTest {
+
+  private static final Long USER = 1L;
+  private static final Long NEW_UPLOAD = 20L;
+  private static final String SHA256 = "ab12";
+
+  @Mock private FileUploadRepository fileUploadRepository;
+  @Mock private UploadSpoolService uploadSpoolService;
+  @Mock private UploadJobQueue uploadJobQueue;
+  @Mock private UploadProgressTracker uploadProgressTracker;
+  @Mock private UploadDeletionService uploadDeletionService;
+  @Mock private SalesSummaryService salesSummaryService;
+  @Mock private SalesColumnarCache salesColumnarCache;
+  @Mock private UserDataVersions userDataVersions;
+
+  @InjectMocks private FileUploadService service;
+
+  private final MockMultipartFile file =
+      new MockMultipartFile(
+          "file",
+          "sales.csv",
+          "text/csv",
+          "product_name,product_price\nWidget,12.50\n".getBytes(StandardCharsets.UTF_8));
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(service, "maxFileSize", 1_000_000L);
+    // Stands in for the request's transaction
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  @Test
+  void newContentIsQueuedForIngest() throws Exception {
+    givenSavedUploadsGetAnId();
+    when(uploadSpoolService.spool(NEW_UPLOAD, file)).thenReturn(SHA256);
+    when(fileUploadRepository.findReusableUploads(USER, SHA256, NEW_UPLOAD, Limit.of(1)))
+        .thenReturn(List.of());
+
+    UploadResult result = service.uploadFile(file, USER, "key-1");
+
+    assertThat(result.duplicate()).isFalse();
+    assertThat(result.upload().getId()).isEqualTo(NEW_UPLOAD);
+    assertThat(result.upload().getContentSha256()).isEqualTo(SHA256);
+    assertThat(result.upload().getIdempotencyKey()).isEqualTo("key-1");
+    verify(uploadJobQueue).enqueueAfterCommit(NEW_UPLOAD);
+  }
+
+  @Test
+  void identicalContentReturnsTheEarlierUploadWithoutIngesting() throws Exception {
+    givenSavedUploadsGetAnId();
+    FileUploadEntity original = upload(10L, UploadStatus.COMPLETED);
+    when(uploadSpoolService.spool(NEW_UPLOAD, file)).thenReturn(SHA256);
+    when(fileUploadRepository.findReusableUploads(USER, SHA256, NEW_UPLOAD, Limit.of(1)))
+        .thenReturn(List.of(original));
+
+    UploadResult result = service.uploadFile(file, USER, null);
+
+    assertThat(result.duplicate()).isTrue();
+    assertThat(result.upload()).isSameAs(original);
+    // The new record and its spooled copy are dropped again
+    verify(fileUploadRepository).delete(any(FileUploadEntity.class));
+    verify(uploadSpoolService).delete(NEW_UPLOAD);
+    verify(uploadJobQueue, never()).enqueueAfterCommit(anyLong());
+  }
+
+  @Test
+  void repeatedIdempotencyKeyReturnsTheEarlierUpload() throws Exception {
+    FileUploadEntity earlier = upload(10L, UploadStatus.PROCESSING);
+    when(fileUploadRepository.findByUserIdAndIdempotencyKey(USER, "key-1"))
+        .thenReturn(Optional.of(earlier));
+
+    UploadResult result = service.uploadFile(file, USER, "key-1");
+
+    assertThat(result.duplicate()).isTrue();
+    assertThat(result.upload()).isSameAs(earlier);
+    verify(fileUploadRepository, never()).save(any());
+    verify(uploadSpoolService, never()).spool(anyLong(), any());
+  }
+
+  @Test
+  void blankIdempotencyKeyIsIgnored() {
+    assertThat(service.findByIdempotencyKey(USER, " ")).isEmpty();
+    verify(fileUploadRepository, never()).findByUserIdAndIdempotencyKey(eq(USER), anyString());
+  }
+
+  @Test
+  void overlongIdempotencyKeyIsRejected() {
+    assertThatThrownBy(() -> service.uploadFile(file, USER, "k".repeat(256)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("255");
+    verify(fileUploadRepository, never()).save(any());
+  }
+
+  @Test
+  void deletionTakesTheUploadOutOfTheTotalsOnce() {
+    when(fileUploadRepository.markForDeletion(10L, USER)).thenReturn(1);
+
+    assertThat(service.deleteFile(10L, USER)).isTrue();
+
+    verify(salesSummaryService).removeFileUpload(USER, 10L);
+    verify(userDataVersions).salesDataChanged(USER, 10L);
+    verify(salesColumnarCache).uploadRemoved(USER, 10L);
+    verify(uploadDeletionService).deleteAfterCommit(10L, USER);
+  }
+
+  @Test
+  void repeatedDeletionIsANoOp() {
+    when(fileUploadRepository.markForDeletion(10L, USER)).thenReturn(0);
+    when(fileUploadRepository.findByIdAndUserId(10L, USER))
+        .thenReturn(Optional.of(upload(10L, UploadStatus.DELETING)));
+
+    assertThat(service.deleteFile(10L, USER)).isFalse();
+
+    verifyNoInteractions(salesSummaryService, uploadDeletionService);
+  }
+
+  @Test
+  void uploadBeingProcessedIsNotDeleted() {
+    when(fileUploadRepository.markForDeletion(10L, USER)).thenReturn(0);
+    when(fileUploadRepository.findByIdAndUserId(10L, USER))
+        .thenReturn(Optional.of(upload(10L, UploadStatus.PROCESSING)));
+
+    assertThatThrownBy(() -> service.deleteFile(10L, USER))
+        .isInstanceOf(IllegalStateException.class);
+    verifyNoInteractions(salesSummaryService, uploadDeletionService);
+  }
+
+  @Test
+  void anotherUsersUploadIsNotFound() {
+    // markForDeletion and the lookup are both scoped to the caller
+    when(fileUploadRepository.markForDeletion(10L, USER)).thenReturn(0);
+    when(fileUploadRepository.findByIdAndUserId(10L, USER)).thenReturn(Optional.empty());
+
+    assertThatThrownBy(() -> service.deleteFile(10L, USER))
+        .isInstanceOf(IllegalArgumentException.class);
+    verifyNoInteractions(salesSummaryService, uploadDeletionService);
+  }
+
+  private void givenSavedUploadsGetAnId() {
+    when(fileUploadRepository.save(any(FileUploadEntity.class)))
+        .thenAnswer(
+            invocation -> {
+              FileUploadEntity saved = invocation.getArgument(0);
+              saved.setId(NEW_UPLOAD);
+              return saved;
+            });
+  }
+
+  private static FileUploadEntity upload(Long id, UploadStatus status) {
+    FileUploadEntity upload = new FileUploadEntity();
+    upload.setId(id);
+    upload.setUserId(USER);
+    upload.setUploadStatus(status);
+    return upload;
+  }
+}
@@ -0,0 +1,75 @@
+package com.salesdata.platform.salesdata.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class SalesDataBulkRepositoryTest {
+
+  private static final Long UPLOAD = 10L;
+
+  @Test
+  void deletesAnUploadInChunksOfAtMostChunkSize() {
+    InMemoryRecords records = new InMemoryRecords(LongStream.rangeClosed(1, 7));
+    List<Integer> chunks = new ArrayList<>();
+
+    long deleted = records.deleteByFileUploadId(UPLOAD, 3, chunks::add);
+
+    assertThat(deleted).isEqualTo(7);
+    assertThat(chunks).containsExactly(3, 3, 1);
+    assertThat(records.ids).isEmpty();
+  }
+
+  @Test
+  void walksTheUploadsOwnIdsWhateverTheGaps() {
+    // Ids of records of other uploads, interleaved with this one's, are never in a chunk
+    InMemoryRecords records = new InMemoryRecords(LongStream.of(2, 5, 9, 40, 41, 100));
+    List<Integer> chunks = new ArrayList<>();
+
+    long deleted = records.deleteByFileUploadId(UPLOAD, 2, chunks::add);
+
+    assertThat(deleted).isEqualTo(6);
+    // A final range past the last full chunk is always checked
+    assertThat(chunks).containsExactly(2, 2, 2, 0);
+    assertThat(records.ranges).containsExactly("(0,5]", "(5,40]", "(40,100]", "(100,max]");
+  }
+
+  @Test
+  void uploadWithoutRecordsTakesOneEmptyChunk() {
+    InMemoryRecords records = new InMemoryRecords(LongStream.empty());
+    List<Integer> chunks = new ArrayList<>();
+
+    assertThat(records.deleteByFileUploadId(UPLOAD, 3, chunks::add)).isZero();
+    assertThat(chunks).containsExactly(0);
+  }
+
+  /** An upload's record ids, with the two statements the chunk walk issues answered in memory */
+  private static class InMemoryRecords extends SalesDataBulkRepository {
+    private final NavigableSet<Long> ids = new TreeSet<>();
+    private final List<String> ranges = new ArrayList<>();
+
+    InMemoryRecords(LongStream ids) {
+      super(null);
+      ids.forEach(this.ids::add);
+    }
+
+    @Override
+    public Long findChunkUpperBound(Long fileUploadId, long afterId, int chunkSize) {
+      return ids.tailSet(afterId, false).stream().skip(chunkSize - 1).findFirst().orElse(null);
+    }
+
+    @Override
+    public int deleteRange(Long fileUploadId, long afterId, long upToId) {
+      ranges.add("(" + afterId + "," + (upToId == Long.MAX_VALUE ? "max" : upToId) + "]");
+      NavigableSet<Long> range = ids.subSet(afterId, false, upToId, true);
+      int deleted = range.size();
+      range.clear();
+      return deleted;
+    }
+  }
+}
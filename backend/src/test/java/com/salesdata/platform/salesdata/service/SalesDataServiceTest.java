@@ -0,0 +1,117 @@
+package com.salesdata.platform.salesdata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.salesdata.platform.fileupload.dto.FileUploadEntity;
+import com.salesdata.platform.fileupload.enums.UploadStatus;
+import com.salesdata.platform.fileupload.repository.FileUploadRepository;
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.repository.SalesDataRepository;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SalesDataServiceTest {
+
+  private static final Long USER = 1L;
+  private static final Long UPLOAD = 10L;
+
+  @Mock private SalesDataRepository salesDataRepository;
+  @Mock private FileUploadRepository fileUploadRepository;
+  @Mock private SalesSummaryService salesSummaryService;
+  @Mock private SalesSketchService salesSketchService;
+  @Mock private SalesDistinctService salesDistinctService;
+  @Mock private SalesQuantileService salesQuantileService;
+  @Mock private SalesColumnarCache salesColumnarCache;
+  @Mock private SalesDimensionDictionary salesDimensionDictionary;
+
+  @InjectMocks private SalesDataService service;
+
+  @ParameterizedTest
+  @EnumSource(
+      value = UploadStatus.class,
+      names = {"COMPLETED", "FAILED"})
+  void recordIsCountedForTheOwnersFinishedUpload(UploadStatus status) {
+    when(fileUploadRepository.findForShareByIdAndUserId(UPLOAD, USER))
+        .thenReturn(Optional.of(upload(status)));
+    when(salesDataRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    SalesDataEntity saved = service.createSalesRecord(record(UPLOAD), USER);
+
+    assertThat(saved.getUserId()).isEqualTo(USER);
+    verify(salesSummaryService).recordsAdded(USER, List.of(saved));
+  }
+
+  @ParameterizedTest
+  @EnumSource(
+      value = UploadStatus.class,
+      names = {"COMPLETED", "FAILED"},
+      mode = EnumSource.Mode.EXCLUDE)
+  void unfinishedUploadTakesNoRecord(UploadStatus status) {
+    // Pending and processing uploads may be discarded on restart, deleting ones were subtracted
+    when(fileUploadRepository.findForShareByIdAndUserId(UPLOAD, USER))
+        .thenReturn(Optional.of(upload(status)));
+
+    assertThatThrownBy(() -> service.createSalesRecord(record(UPLOAD), USER))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("completed or failed");
+    verifyNoTotalsChanged();
+  }
+
+  @Test
+  void anotherUsersUploadTakesNoRecord() {
+    // The lookup is scoped to the caller, so another user's upload is not found
+    when(fileUploadRepository.findForShareByIdAndUserId(UPLOAD, USER)).thenReturn(Optional.empty());
+
+    assertThatThrownBy(() -> service.createSalesRecord(record(UPLOAD), USER))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("not found");
+    verifyNoTotalsChanged();
+  }
+
+  @Test
+  void recordWithoutUploadIsRejected() {
+    assertThatThrownBy(() -> service.createSalesRecord(record(null), USER))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("not found");
+    verifyNoInteractions(fileUploadRepository);
+    verifyNoTotalsChanged();
+  }
+
+  private void verifyNoTotalsChanged() {
+    verify(salesDataRepository, never()).save(any());
+    verifyNoInteractions(salesSummaryService, salesDimensionDictionary);
+  }
+
+  private static FileUploadEntity upload(UploadStatus status) {
+    FileUploadEntity upload = new FileUploadEntity();
+    upload.setId(UPLOAD);
+    upload.setUserId(USER);
+    upload.setUploadStatus(status);
+    return upload;
+  }
+
+  private static SalesDataEntity record(Long fileUploadId) {
+    SalesDataEntity record = new SalesDataEntity();
+    record.setFileUploadId(fileUploadId);
+    record.setProductName("Widget");
+    record.setProductPriceCents(1_250);
+    record.setQuantity(2);
+    record.setSaleDate(LocalDate.of(2024, 1, 15));
+    return record;
+  }
+}
@@ -0,0 +1,93 @@
+package com.salesdata.platform.salesdata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.enums.SalesDimension;
+import com.salesdata.platform.salesdata.repository.SalesDimensionRepository;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class SalesDimensionDictionaryTest {
+
+  private static final Long USER = 1L;
+  private static final Long OTHER_USER = 2L;
+
+  @Mock private SalesDimensionRepository salesDimensionRepository;
+
+  @InjectMocks private SalesDimensionDictionary dictionary;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(dictionary, "maxEntries", 100);
+  }
+
+  @Test
+  void usersGetTheirOwnIdsAndSpellings() {
+    when(salesDimensionRepository.findOrCreateId(SalesDimension.PRODUCT, USER, "ACME Café"))
+        .thenReturn(1);
+    when(salesDimensionRepository.findOrCreateId(SalesDimension.PRODUCT, OTHER_USER, "acme cafe"))
+        .thenReturn(2);
+    when(salesDimensionRepository.findName(SalesDimension.PRODUCT, 1))
+        .thenReturn(Optional.of("ACME Café"));
+    when(salesDimensionRepository.findName(SalesDimension.PRODUCT, 2))
+        .thenReturn(Optional.of("acme cafe"));
+
+    SalesDataEntity mine = record(USER, "ACME Café");
+    SalesDataEntity theirs = record(OTHER_USER, "acme cafe");
+    dictionary.encode(List.of(mine, theirs));
+
+    assertThat(mine.getProductId()).isEqualTo(1);
+    assertThat(theirs.getProductId()).isEqualTo(2);
+    assertThat(theirs.getProductName()).isEqualTo("acme cafe");
+  }
+
+  @Test
+  void cachedIdIsNotServedToAnotherUser() {
+    when(salesDimensionRepository.findId(SalesDimension.PRODUCT, USER, "Widget"))
+        .thenReturn(Optional.of(1));
+    when(salesDimensionRepository.findName(SalesDimension.PRODUCT, 1))
+        .thenReturn(Optional.of("Widget"));
+
+    assertThat(dictionary.findId(SalesDimension.PRODUCT, USER, "Widget")).contains(1);
+    assertThat(dictionary.findId(SalesDimension.PRODUCT, USER, "Widget")).contains(1);
+    assertThat(dictionary.findId(SalesDimension.PRODUCT, OTHER_USER, "Widget")).isEmpty();
+    verify(salesDimensionRepository, times(1)).findId(SalesDimension.PRODUCT, USER, "Widget");
+  }
+
+  @Test
+  void otherCaseReadsBackInTheStoredSpelling() {
+    // The table matched "widget" to the id "Widget" was stored under, ignoring case
+    when(salesDimensionRepository.findOrCreateId(SalesDimension.PRODUCT, USER, "widget"))
+        .thenReturn(1);
+    when(salesDimensionRepository.findName(SalesDimension.PRODUCT, 1))
+        .thenReturn(Optional.of("Widget"));
+
+    SalesDataEntity record = record(USER, "widget");
+    dictionary.encode(List.of(record));
+    dictionary.decode(List.of(record));
+
+    // Read back in the stored spelling, loaded once
+    assertThat(record.getProductName()).isEqualTo("Widget");
+    assertThat(dictionary.nameOf(SalesDimension.PRODUCT, 1)).isEqualTo("Widget");
+    verify(salesDimensionRepository, times(1)).findName(SalesDimension.PRODUCT, 1);
+  }
+
+  private static SalesDataEntity record(Long userId, String productName) {
+    SalesDataEntity record = new SalesDataEntity();
+    record.setUserId(userId);
+    record.setProductName(productName);
+    return record;
+  }
+}
@@ -0,0 +1,210 @@
+package com.salesdata.platform.salesdata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesDataFilter;
+import com.salesdata.platform.salesdata.dto.SalesRollupDelta;
+import com.salesdata.platform.salesdata.dto.SalesTimeSeries;
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import com.salesdata.platform.salesdata.enums.TimeSeriesGroupBy;
+import com.salesdata.platform.salesdata.repository.SalesDataBulkRepository;
+import com.salesdata.platform.salesdata.repository.SalesRollupRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SalesRollupServiceTest {
+
+  private static final Long USER = 1L;
+  // A Thursday
+  private static final LocalDate THURSDAY = LocalDate.of(2024, 3, 14);
+  private static final LocalDate MONDAY = LocalDate.of(2024, 3, 11);
+  private static final LocalDate FIRST_OF_MONTH = LocalDate.of(2024, 3, 1);
+
+  @Mock private SalesRollupRepository salesRollupRepository;
+  @Mock private SalesDataBulkRepository salesDataBulkRepository;
+
+  @InjectMocks private SalesRollupService service;
+
+  // Copies of every applied batch; the service may reuse the list it passes
+  private final List<SalesRollupDelta> applied = new ArrayList<>();
+
+  @Test
+  void recordsAreRolledUpIntoEachGrain() {
+    givenAppliedDeltasAreRecorded();
+    service.applyRecords(
+        USER, List.of(record(THURSDAY, 2, 1_250), record(THURSDAY.plusDays(1), 5, 300)), false);
+
+    // Both days fall into the same week and month
+    assertThat(applied)
+        .containsExactlyInAnyOrder(
+            new SalesRollupDelta(RollupGrain.DAY, THURSDAY, 7, 3, 1, 2_500, 2, 1_250),
+            new SalesRollupDelta(RollupGrain.DAY, THURSDAY.plusDays(1), 7, 3, 1, 1_500, 5, 300),
+            new SalesRollupDelta(RollupGrain.WEEK, MONDAY, 7, 3, 2, 4_000, 7, 1_550),
+            new SalesRollupDelta(RollupGrain.MONTH, FIRST_OF_MONTH, 7, 3, 2, 4_000, 7, 1_550));
+  }
+
+  @Test
+  void recordsWithoutLocationAreRolledUpUnderNoLocation() {
+    givenAppliedDeltasAreRecorded();
+    SalesDataEntity record = record(THURSDAY, 1, 100);
+    record.setLocationId(null);
+
+    service.applyRecords(USER, List.of(record), false);
+
+    assertThat(applied)
+        .hasSize(RollupGrain.values().length)
+        .allMatch(delta -> delta.locationId() == SalesRollupDelta.NO_LOCATION);
+  }
+
+  @Test
+  void removedRecordsAreSubtracted() {
+    givenAppliedDeltasAreRecorded();
+    service.applyRecords(USER, List.of(record(THURSDAY, 2, 1_250)), true);
+
+    assertThat(applied)
+        .containsExactlyInAnyOrder(
+            new SalesRollupDelta(RollupGrain.DAY, THURSDAY, 7, 3, -1, -2_500, -2, -1_250),
+            new SalesRollupDelta(RollupGrain.WEEK, MONDAY, 7, 3, -1, -2_500, -2, -1_250),
+            new SalesRollupDelta(RollupGrain.MONTH, FIRST_OF_MONTH, 7, 3, -1, -2_500, -2, -1_250));
+  }
+
+  @Test
+  void removedDaysAreSubtractedFromEachGrain() {
+    givenAppliedDeltasAreRecorded();
+    // Day rows of a deleted upload, as summed by the database
+    List<SalesRollupDelta> days =
+        List.of(
+            new SalesRollupDelta(RollupGrain.DAY, THURSDAY, 7, 3, 4, 10_000, 8, 5_000),
+            new SalesRollupDelta(RollupGrain.DAY, MONDAY, 7, 3, 1, 300, 1, 300));
+
+    service.applyDays(USER, days, true);
+
+    assertThat(applied)
+        .containsExactlyInAnyOrder(
+            new SalesRollupDelta(RollupGrain.DAY, THURSDAY, 7, 3, -4, -10_000, -8, -5_000),
+            new SalesRollupDelta(RollupGrain.DAY, MONDAY, 7, 3, -1, -300, -1, -300),
+            new SalesRollupDelta(RollupGrain.WEEK, MONDAY, 7, 3, -5, -10_300, -9, -5_300),
+            new SalesRollupDelta(RollupGrain.MONTH, FIRST_OF_MONTH, 7, 3, -5, -10_300, -9, -5_300));
+  }
+
+  @Test
+  void rebuildWritesTheStreamedDaysAndTheirWeeksAndMonths() {
+    givenAppliedDeltasAreRecorded();
+    doAnswer(
+            invocation -> {
+              Consumer<SalesRollupDelta> days = invocation.getArgument(1);
+              days.accept(
+                  new SalesRollupDelta(RollupGrain.DAY, THURSDAY, 7, 3, 4, 10_000, 8, 5_000));
+              days.accept(new SalesRollupDelta(RollupGrain.DAY, MONDAY, 7, 3, 1, 300, 1, 300));
+              return null;
+            })
+        .when(salesDataBulkRepository)
+        .sumDaysVisibleByUserId(eq(USER), any());
+
+    service.rebuild(USER);
+
+    verify(salesRollupRepository).deleteByUserId(USER);
+    assertThat(applied)
+        .containsExactlyInAnyOrder(
+            new SalesRollupDelta(RollupGrain.DAY, THURSDAY, 7, 3, 4, 10_000, 8, 5_000),
+            new SalesRollupDelta(RollupGrain.DAY, MONDAY, 7, 3, 1, 300, 1, 300),
+            new SalesRollupDelta(RollupGrain.WEEK, MONDAY, 7, 3, 5, 10_300, 9, 5_300),
+            new SalesRollupDelta(RollupGrain.MONTH, FIRST_OF_MONTH, 7, 3, 5, 10_300, 9, 5_300));
+  }
+
+  @Test
+  void priceFilterIsServedFromTheRawRecords() {
+    SalesTimeSeries series =
+        service.getTimeSeries(
+            USER, RollupGrain.MONTH, noFilter(), BigDecimal.ONE, null, TimeSeriesGroupBy.NONE);
+
+    assertThat(series.source()).isEqualTo("RAW");
+    verify(salesRollupRepository)
+        .findRawSeries(
+            USER, RollupGrain.MONTH, noFilter(), BigDecimal.ONE, null, TimeSeriesGroupBy.NONE);
+  }
+
+  @Test
+  void rangeOfWholeBucketsIsServedFromTheirGrain() {
+    SalesDataFilter filter =
+        new SalesDataFilter(FIRST_OF_MONTH, LocalDate.of(2024, 4, 30), null, null);
+
+    SalesTimeSeries series =
+        service.getTimeSeries(USER, RollupGrain.MONTH, filter, null, null, TimeSeriesGroupBy.NONE);
+
+    assertThat(series.source()).isEqualTo("ROLLUP_MONTH");
+    verify(salesRollupRepository)
+        .findRollupSeries(
+            USER, RollupGrain.MONTH, RollupGrain.MONTH, filter, TimeSeriesGroupBy.NONE);
+  }
+
+  @Test
+  void rangeCuttingThroughBucketsIsServedFromDays() {
+    // Starts mid-month, so the first bucket only counts the days inside the range
+    SalesDataFilter filter = new SalesDataFilter(THURSDAY, LocalDate.of(2024, 4, 30), null, null);
+
+    SalesTimeSeries series =
+        service.getTimeSeries(USER, RollupGrain.MONTH, filter, null, null, TimeSeriesGroupBy.NONE);
+
+    assertThat(series.source()).isEqualTo("ROLLUP_DAY");
+    verify(salesRollupRepository)
+        .findRollupSeries(USER, RollupGrain.MONTH, RollupGrain.DAY, filter, TimeSeriesGroupBy.NONE);
+  }
+
+  @Test
+  void invertedPriceRangeIsRejected() {
+    assertThatThrownBy(
+            () ->
+                service.getTimeSeries(
+                    USER,
+                    RollupGrain.DAY,
+                    noFilter(),
+                    BigDecimal.TEN,
+                    BigDecimal.ONE,
+                    TimeSeriesGroupBy.NONE))
+        .isInstanceOf(IllegalArgumentException.class);
+    verify(salesRollupRepository, never()).findRawSeries(any(), any(), any(), any(), any(), any());
+  }
+
+  private void givenAppliedDeltasAreRecorded() {
+    doAnswer(
+            invocation -> {
+              applied.addAll(invocation.getArgument(1));
+              return null;
+            })
+        .when(salesRollupRepository)
+        .applyDeltas(eq(USER), anyList());
+  }
+
+  private static SalesDataFilter noFilter() {
+    return new SalesDataFilter(null, null, null, null);
+  }
+
+  private static SalesDataEntity record(LocalDate saleDate, int quantity, long priceCents) {
+    SalesDataEntity record = new SalesDataEntity();
+    record.setUserId(USER);
+    record.setProductId(7);
+    record.setLocationId(3);
+    record.setSaleDate(saleDate);
+    record.setQuantity(quantity);
+    record.setProductPriceCents(priceCents);
+    return record;
+  }
+}
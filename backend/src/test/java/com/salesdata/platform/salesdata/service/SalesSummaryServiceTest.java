@@ -0,0 +1,146 @@
+package com.salesdata.platform.salesdata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.salesdata.platform.cache.UserDataVersions;
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import com.salesdata.platform.salesdata.dto.SalesDataSummary;
+import com.salesdata.platform.salesdata.dto.SalesRollupDelta;
+import com.salesdata.platform.salesdata.dto.SalesSummaryDelta;
+import com.salesdata.platform.salesdata.dto.SalesSummaryEntity;
+import com.salesdata.platform.salesdata.enums.RollupGrain;
+import com.salesdata.platform.salesdata.repository.SalesDataBulkRepository;
+import com.salesdata.platform.salesdata.repository.SalesSummaryRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SalesSummaryServiceTest {
+
+  private static final Long USER = 1L;
+  private static final Long UPLOAD = 10L;
+  private static final LocalDate DAY = LocalDate.of(2024, 3, 14);
+
+  @Mock private SalesSummaryRepository salesSummaryRepository;
+  @Mock private SalesDataBulkRepository salesDataBulkRepository;
+  @Mock private SalesRollupService salesRollupService;
+  @Mock private UserDataVersions userDataVersions;
+
+  @InjectMocks private SalesSummaryService service;
+
+  // 2 x 12.50 and 5 x 3.00
+  private final List<SalesDataEntity> records = List.of(record(1_250, 2), record(300, 5));
+
+  @Test
+  void addedRecordsApplyTheirTotals() {
+    service.recordsAdded(USER, records);
+
+    verify(salesSummaryRepository).applyDelta(USER, 2, 4_000, 7, 1_550);
+    verify(salesRollupService).applyRecords(USER, records, false);
+    verify(userDataVersions).changed(USER);
+  }
+
+  @Test
+  void removedRecordsApplyTheOppositeDelta() {
+    service.recordsRemoved(USER, records);
+
+    verify(salesSummaryRepository).applyDelta(USER, -2, -4_000, -7, -1_550);
+    verify(salesRollupService).applyRecords(USER, records, true);
+  }
+
+  @Test
+  void deletedUploadTakesOutTheTotalsOfItsDays() {
+    List<SalesRollupDelta> days =
+        List.of(
+            new SalesRollupDelta(RollupGrain.DAY, DAY, 1, 2, 1, 2_500, 2, 1_250),
+            new SalesRollupDelta(
+                RollupGrain.DAY,
+                DAY.plusDays(1),
+                3,
+                SalesRollupDelta.NO_LOCATION,
+                1,
+                1_500,
+                5,
+                300));
+    when(salesDataBulkRepository.sumDaysByFileUploadId(UPLOAD)).thenReturn(days);
+
+    service.removeFileUpload(USER, UPLOAD);
+
+    // The same totals the records were added with
+    verify(salesSummaryRepository).applyDelta(USER, -2, -4_000, -7, -1_550);
+    verify(salesRollupService).applyDays(USER, days, true);
+  }
+
+  @Test
+  void noRecordsChangeNothing() {
+    service.recordsAdded(USER, List.of());
+    service.recordsRemoved(USER, List.of());
+    service.daysRemoved(USER, List.of());
+
+    verifyNoInteractions(salesSummaryRepository, salesRollupService, userDataVersions);
+  }
+
+  @Test
+  void userWithoutRecordsHasAnEmptySummary() {
+    when(salesSummaryRepository.findById(USER)).thenReturn(Optional.empty());
+
+    SalesDataSummary summary = service.getSummary(USER);
+
+    assertThat(summary.getTotalRecords()).isZero();
+    assertThat(summary.getTotalAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+    assertThat(summary.getAverageAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+    assertThat(summary.getAveragePrice()).isEqualByComparingTo(BigDecimal.ZERO);
+  }
+
+  @Test
+  void summaryIsReadFromTheStoredTotals() {
+    when(salesSummaryRepository.findById(USER))
+        .thenReturn(Optional.of(new SalesSummaryEntity(USER, 2, 4_000, 7, 1_550, null)));
+
+    SalesDataSummary summary = service.getSummary(USER);
+
+    assertThat(summary.getTotalRecords()).isEqualTo(2);
+    assertThat(summary.getTotalAmount()).isEqualByComparingTo("40.00");
+    assertThat(summary.getAverageAmount()).isEqualByComparingTo("20.00");
+    assertThat(summary.getTotalQuantity()).isEqualTo(7);
+    assertThat(summary.getAveragePrice()).isEqualByComparingTo("7.75");
+  }
+
+  @Test
+  void rebuildAggregatesOnlyAfterLockingTheSummary() {
+    when(salesDataBulkRepository.sumVisibleByUserId(USER))
+        .thenReturn(new SalesSummaryDelta(2, 4_000, 7, 1_550));
+
+    SalesDataSummary summary = service.rebuild(USER);
+
+    // Writers that commit after the lock apply their delta to the rebuilt totals
+    InOrder order = inOrder(salesSummaryRepository, salesDataBulkRepository, salesRollupService);
+    order.verify(salesSummaryRepository).lockSummary(USER);
+    order.verify(salesDataBulkRepository).sumVisibleByUserId(USER);
+    order.verify(salesSummaryRepository).replaceTotals(USER, 2, 4_000, 7, 1_550);
+    order.verify(salesRollupService).rebuild(USER);
+    assertThat(summary.getTotalRecords()).isEqualTo(2);
+  }
+
+  private static SalesDataEntity record(long priceCents, int quantity) {
+    SalesDataEntity record = new SalesDataEntity();
+    record.setUserId(USER);
+    record.setFileUploadId(UPLOAD);
+    record.setProductPriceCents(priceCents);
+    record.setQuantity(quantity);
+    record.setSaleDate(DAY);
+    return record;
+  }
+}
@@ -0,0 +1,116 @@
+package com.salesdata.platform.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.salesdata.platform.fileupload.dto.CSVStreamingResult;
+import com.salesdata.platform.fileupload.enums.CSVParserType;
+import com.salesdata.platform.fileupload.enums.UploadCompression;
+import com.salesdata.platform.salesdata.dto.SalesDataEntity;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CSVProcessorTest {
+
+  private static final String HEADER =
+      "product_name,product_price,quantity,sale_date,sale_location\n";
+
+  @TempDir Path tempDir;
+
+  private CSVProcessor processor;
+
+  @AfterEach
+  void tearDown() {
+    processor.stopParsePool();
+  }
+
+  @ParameterizedTest
+  @EnumSource(CSVParserType.class)
+  void skipsEmptyZipEntries(CSVParserType parserType) throws Exception {
+    processor = processor(parserType);
+    Map<String, String> entries = new LinkedHashMap<>();
+    entries.put("empty.csv", "");
+    entries.put("header-only.csv", HEADER);
+    entries.put("sales.csv", HEADER + "Widget,1.50,2,2024-01-01,Depot\n");
+    entries.put("more/sales.csv", HEADER + "Gadget,3.00,1,2024-01-02,\n");
+
+    List<SalesDataEntity> records = new ArrayList<>();
+    CSVStreamingResult result = stream(zip(entries), UploadCompression.ZIP, records);
+
+    assertThat(result.fatalError()).isNull();
+    assertThat(result.totalRows()).isEqualTo(2);
+    assertThat(records)
+        .extracting(SalesDataEntity::getProductName)
+        .containsExactly("Widget", "Gadget");
+  }
+
+  @ParameterizedTest
+  @EnumSource(CSVParserType.class)
+  void failsZipWithoutAnyDataRows(CSVParserType parserType) throws Exception {
+    processor = processor(parserType);
+    Map<String, String> entries = new LinkedHashMap<>();
+    entries.put("empty.csv", "");
+    entries.put("header-only.csv", HEADER);
+
+    CSVStreamingResult result = stream(zip(entries), UploadCompression.ZIP, new ArrayList<>());
+
+    assertThat(result.fatalError()).isEqualTo("Zip archive contains no data rows");
+  }
+
+  @ParameterizedTest
+  @EnumSource(CSVParserType.class)
+  void failsCsvWithoutDataRows(CSVParserType parserType) throws Exception {
+    processor = processor(parserType);
+    Path file = Files.writeString(tempDir.resolve("sales.csv"), HEADER);
+
+    CSVStreamingResult result = stream(file, UploadCompression.NONE, new ArrayList<>());
+
+    assertThat(result.fatalError()).isEqualTo("CSV file contains no data rows");
+  }
+
+  private CSVProcessor processor(CSVParserType parserType) {
+    CSVProcessor csvProcessor = new CSVProcessor();
+    ReflectionTestUtils.setField(csvProcessor, "parserType", parserType);
+    ReflectionTestUtils.setField(csvProcessor, "parallelEnabled", false);
+    ReflectionTestUtils.setField(csvProcessor, "parallelThreads", 1);
+    ReflectionTestUtils.setField(csvProcessor, "maxDecompressedSize", 1L << 20);
+    ReflectionTestUtils.setField(csvProcessor, "maxCompressionRatio", 100L);
+    csvProcessor.startParsePool();
+    return csvProcessor;
+  }
+
+  private CSVStreamingResult stream(
+      Path file, UploadCompression compression, List<SalesDataEntity> records) throws IOException {
+    try (IngestErrorCollector errorCollector =
+        new IngestErrorCollector(1L, 5, tempDir.resolve("errors.csv"))) {
+      return processor.streamCSVFile(
+          file, compression, 1L, 1L, 100, records::addAll, errorCollector, (written, failed) -> {});
+    }
+  }
+
+  private Path zip(Map<String, String> entries) throws IOException {
+    Path file = tempDir.resolve("sales.zip");
+    try (OutputStream out = Files.newOutputStream(file);
+        ZipOutputStream zip = new ZipOutputStream(out)) {
+      for (Map.Entry<String, String> entry : entries.entrySet()) {
+        zip.putNextEntry(new ZipEntry(entry.getKey()));
+        zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+      }
+    }
+    return file;
+  }
+}
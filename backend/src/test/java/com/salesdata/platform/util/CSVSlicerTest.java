@@ -0,0 +1,200 @@
+package com.salesdata.platform.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.salesdata.platform.fileupload.dto.SalesRecordRow;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CSVSlicerTest {
+
+  private static final String HEADER =
+      "product_name,product_price,quantity,sale_date,sale_location\n";
+
+  @TempDir Path tempDir;
+
+  @Test
+  void boundaryInsideQuotedNewlineNeitherSplitsNorDropsARow() throws Exception {
+    String csv =
+        HEADER
+            + "Widget,1.00,1,2024-01-01,Depot\n"
+            + "\"Multi\nline \"\"quoted\"\"\nname, with comma\",2.00,2,2024-01-02,\"Store\nB\"\n"
+            + "Gadget,3.00,3,2024-01-03,\r\n"
+            + "\"Tail\n\",4.00,4,2024-01-04,Depot\n";
+    Path file = write(csv);
+    List<String> expected = describe(parseWhole(csv));
+    int quoteStart = csv.indexOf("\"Multi");
+    int quoteEnd = csv.indexOf("\",2.00");
+
+    // Every cut position, including ones landing inside the quoted fields
+    for (int target = 1; target <= csv.length(); target++) {
+      List<CSVSlicer.Slice> slices = slice(file, target);
+
+      for (CSVSlicer.Slice slice : slices) {
+        assertThat(slice.start() > quoteStart && slice.start() <= quoteEnd).isFalse();
+      }
+      assertThat(describe(parseSlices(file, slices))).as("target %d", target).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void slicesCoverTheFileInOrder() throws Exception {
+    Path file = write(generate(2_000));
+
+    List<CSVSlicer.Slice> slices = slice(file, 4_096);
+
+    assertThat(slices.size()).isGreaterThan(1);
+    assertThat(slices.get(0).start()).isZero();
+    assertThat(slices.get(slices.size() - 1).end()).isEqualTo(Files.size(file));
+    for (int i = 1; i < slices.size(); i++) {
+      assertThat(slices.get(i).index()).isEqualTo(i);
+      assertThat(slices.get(i).start()).isEqualTo(slices.get(i - 1).end());
+      assertThat(slices.get(i).containsHeader()).isFalse();
+    }
+  }
+
+  @Test
+  void parallelSlicesGiveTheSameRowsAsOnePass() throws Exception {
+    String csv = generate(20_000);
+    Path file = write(csv);
+    List<String> expected = describe(parseWhole(csv));
+
+    List<SalesRecordRow> parallel = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      List<CSVSlicer.Slice> slices = CSVSlicer.slice(channel, 16 * 1024);
+      assertThat(slices.size()).isGreaterThan(4);
+
+      int[] columnPositions;
+      try (SalesCSVParser parser = new SalesCSVParser(CSVSlicer.open(channel, slices.get(0)))) {
+        columnPositions = parser.readHeader();
+      }
+      List<Future<List<SalesRecordRow>>> futures = new ArrayList<>();
+      for (CSVSlicer.Slice slice : slices) {
+        futures.add(executor.submit(() -> parseSlice(channel, slice, columnPositions)));
+      }
+      for (Future<List<SalesRecordRow>> future : futures) {
+        parallel.addAll(future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(parallel).hasSize(20_000);
+    assertThat(describe(parallel)).isEqualTo(expected);
+  }
+
+  // Rows with quoted names spanning lines, doubled quotes, CRLF endings and empty lines mixed in
+  private static String generate(int rows) {
+    StringBuilder csv = new StringBuilder(HEADER);
+    for (int i = 0; i < rows; i++) {
+      String name =
+          switch (i % 5) {
+            case 0 -> "\"Product " + i + "\nsecond line\"";
+            case 1 -> "\"Say \"\"" + i + "\"\", please\"";
+            default -> "Product " + i;
+          };
+      csv.append(name)
+          .append(',')
+          .append(i % 1000)
+          .append('.')
+          .append(String.format("%02d", i % 100))
+          .append(',')
+          .append(i % 7 + 1)
+          .append(",2024-01-")
+          .append(String.format("%02d", i % 28 + 1))
+          .append(',')
+          .append(i % 3 == 0 ? "" : "Store " + i % 11)
+          .append(i % 4 == 0 ? "\r\n" : "\n");
+      if (i % 97 == 0) {
+        csv.append('\n');
+      }
+    }
+    return csv.toString();
+  }
+
+  private Path write(String csv) throws IOException {
+    return Files.write(tempDir.resolve("sales.csv"), csv.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<CSVSlicer.Slice> slice(Path file, long target) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return CSVSlicer.slice(channel, target);
+    }
+  }
+
+  private static List<SalesRecordRow> parseWhole(String csv) throws Exception {
+    try (SalesCSVParser parser =
+        new SalesCSVParser(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+      parser.readHeader();
+      return readAll(parser);
+    }
+  }
+
+  private static List<SalesRecordRow> parseSlices(Path file, List<CSVSlicer.Slice> slices)
+      throws Exception {
+    List<SalesRecordRow> rows = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      int[] columnPositions;
+      try (SalesCSVParser parser = new SalesCSVParser(CSVSlicer.open(channel, slices.get(0)))) {
+        columnPositions = parser.readHeader();
+      }
+      for (CSVSlicer.Slice slice : slices) {
+        rows.addAll(parseSlice(channel, slice, columnPositions));
+      }
+    }
+    return rows;
+  }
+
+  // As CSVProcessor does: the first slice skips its header, the others start on a record
+  private static List<SalesRecordRow> parseSlice(
+      FileChannel channel, CSVSlicer.Slice slice, int[] columnPositions) throws Exception {
+    try (SalesCSVParser parser =
+        new SalesCSVParser(CSVSlicer.open(channel, slice), slice.firstLine(), columnPositions)) {
+      if (slice.containsHeader()) {
+        parser.readHeader();
+      }
+      return readAll(parser);
+    }
+  }
+
+  private static List<SalesRecordRow> readAll(SalesCSVParser parser) throws IOException {
+    List<SalesRecordRow> rows = new ArrayList<>();
+    while (parser.nextRecord()) {
+      SalesRecordRow row = new SalesRecordRow();
+      parser.bind(row);
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  private static List<String> describe(List<SalesRecordRow> rows) {
+    return rows.stream()
+        .map(
+            row ->
+                row.getLineNumber()
+                    + "|"
+                    + row.getProductName()
+                    + "|"
+                    + row.getProductPriceCents()
+                    + "|"
+                    + row.getQuantity()
+                    + "|"
+                    + row.getSaleDate()
+                    + "|"
+                    + row.getSaleLocation())
+        .toList();
+  }
+}
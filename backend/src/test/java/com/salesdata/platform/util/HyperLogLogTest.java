@@ -0,0 +1,109 @@
+package com.salesdata.platform.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+  private static final int PRECISION = 14;
+
+  @Test
+  void estimatesAreWithinThreeStandardErrors() {
+    for (int distinct : new int[] {1_000, 20_000, 150_000, 1_000_000}) {
+      HyperLogLog counter = new HyperLogLog(PRECISION);
+      for (int i = 0; i < distinct; i++) {
+        counter.add("product-" + i);
+      }
+
+      assertThat(relativeError(counter.estimate(), distinct))
+          .as("%d distinct values", distinct)
+          .isLessThanOrEqualTo(3 * counter.standardError());
+    }
+  }
+
+  @Test
+  void smallCardinalitiesAreNearlyExact() {
+    HyperLogLog counter = new HyperLogLog(PRECISION);
+    for (int i = 0; i < 50; i++) {
+      counter.add("location-" + i);
+    }
+
+    assertThat(counter.estimate()).isBetween(49L, 51L);
+    assertThat(new HyperLogLog(PRECISION).estimate()).isZero();
+  }
+
+  @Test
+  void repeatedValuesAreCountedOnce() {
+    HyperLogLog counter = new HyperLogLog(PRECISION);
+    for (int round = 0; round < 20; round++) {
+      for (int i = 0; i < 5_000; i++) {
+        counter.add("product-" + i);
+      }
+    }
+
+    assertThat(relativeError(counter.estimate(), 5_000))
+        .isLessThanOrEqualTo(3 * counter.standardError());
+  }
+
+  @Test
+  void mergeEstimatesTheUnion() {
+    HyperLogLog left = new HyperLogLog(PRECISION);
+    HyperLogLog right = new HyperLogLog(PRECISION);
+    HyperLogLog both = new HyperLogLog(PRECISION);
+    // 0..59,999 and 40,000..99,999 overlap in 20,000 values
+    for (int i = 0; i < 60_000; i++) {
+      left.add("v" + i);
+      both.add("v" + i);
+    }
+    for (int i = 40_000; i < 100_000; i++) {
+      right.add("v" + i);
+      both.add("v" + i);
+    }
+
+    left.merge(right);
+
+    assertThat(left.estimate()).isEqualTo(both.estimate());
+    assertThat(relativeError(left.estimate(), 100_000))
+        .isLessThanOrEqualTo(3 * left.standardError());
+  }
+
+  @Test
+  void rejectsMergingDifferentPrecisions() {
+    assertThatThrownBy(() -> new HyperLogLog(12).merge(new HyperLogLog(14)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new HyperLogLog(HyperLogLog.MAX_PRECISION + 1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void roundTripsThroughBytes() {
+    HyperLogLog counter = new HyperLogLog(PRECISION);
+    for (int i = 0; i < 30_000; i++) {
+      counter.add("product-" + i);
+    }
+
+    byte[] bytes = counter.toBytes();
+    HyperLogLog copy = HyperLogLog.fromBytes(bytes);
+
+    assertThat(bytes).hasSize((1 << PRECISION) + 1);
+    assertThat(copy.getPrecision()).isEqualTo(PRECISION);
+    assertThat(copy.estimate()).isEqualTo(counter.estimate());
+    assertThat(copy.toBytes()).isEqualTo(bytes);
+  }
+
+  @Test
+  void rejectsTruncatedBytes() {
+    byte[] bytes = new HyperLogLog(PRECISION).toBytes();
+    byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+
+    assertThatThrownBy(() -> HyperLogLog.fromBytes(truncated))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static double relativeError(long estimate, long exact) {
+    return Math.abs(estimate - exact) / (double) exact;
+  }
+}
@@ -0,0 +1,156 @@
+package com.salesdata.platform.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class KllSketchTest {
+
+  private static final int K = 200;
+  // The documented bound holds with high probability; allow a margin so the test is not flaky
+  private static final double RANK_TOLERANCE = 3 * KllSketch.rankError(K);
+  private static final double[] QUANTILES = {0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99};
+
+  @Test
+  void quantilesAreWithinTheRankErrorOfExactOnes() {
+    Random random = new Random(11);
+    long[] values = new long[200_000];
+    for (int i = 0; i < values.length; i++) {
+      // Skewed like prices in cents: mostly small, with a long tail
+      values[i] = (long) (100 * Math.exp(random.nextGaussian() * 1.5));
+    }
+
+    KllSketch sketch = new KllSketch(K);
+    for (long value : values) {
+      sketch.add(value);
+    }
+
+    assertRankErrors(sketch, values);
+  }
+
+  @Test
+  void minimumMaximumAndCountAreExact() {
+    KllSketch sketch = new KllSketch(K);
+    Random random = new Random(3);
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < 50_000; i++) {
+      long value = random.nextInt(1_000_000) - 500_000;
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+      sketch.add(value);
+    }
+
+    assertThat(sketch.getCount()).isEqualTo(50_000);
+    assertThat(sketch.getMin()).isEqualTo(min);
+    assertThat(sketch.getMax()).isEqualTo(max);
+    assertThat(sketch.quantile(0)).isEqualTo(min);
+    assertThat(sketch.quantile(1)).isEqualTo(max);
+  }
+
+  @Test
+  void retainedItemsStayBoundedByK() {
+    KllSketch sketch = new KllSketch(K);
+    for (int i = 0; i < 1_000_000; i++) {
+      sketch.add(i);
+    }
+
+    // Header plus roughly 3k retained longs, however many values were added
+    assertThat(sketch.toBytes().length).isLessThan(8 * 4 * K);
+  }
+
+  @Test
+  void smallInputsAreExact() {
+    KllSketch sketch = new KllSketch(K);
+    for (long value = 1; value <= 100; value++) {
+      sketch.add(value);
+    }
+
+    assertThat(sketch.quantile(0.5)).isEqualTo(50);
+    assertThat(sketch.quantile(0.9)).isEqualTo(90);
+  }
+
+  @Test
+  void mergedSketchKeepsTheRankErrorOverTheCombinedStream() {
+    Random random = new Random(5);
+    long[] values = new long[160_000];
+    KllSketch merged = new KllSketch(K);
+    int next = 0;
+    for (int part = 0; part < 8; part++) {
+      KllSketch sketch = new KllSketch(K);
+      // Parts cover different ranges, so a merge that lost a part would shift the quantiles
+      for (int i = 0; i < 20_000; i++) {
+        long value = part * 10_000L + random.nextInt(30_000);
+        values[next++] = value;
+        sketch.add(value);
+      }
+      merged.merge(sketch);
+    }
+    merged.merge(new KllSketch(K));
+
+    assertThat(merged.getCount()).isEqualTo(values.length);
+    assertThat(merged.getMin()).isEqualTo(Arrays.stream(values).min().orElseThrow());
+    assertThat(merged.getMax()).isEqualTo(Arrays.stream(values).max().orElseThrow());
+    assertRankErrors(merged, values);
+  }
+
+  @Test
+  void roundTripsThroughBytes() {
+    KllSketch sketch = new KllSketch(K);
+    Random random = new Random(9);
+    for (int i = 0; i < 30_000; i++) {
+      sketch.add(random.nextInt(100_000));
+    }
+
+    byte[] bytes = sketch.toBytes();
+    KllSketch copy = KllSketch.fromBytes(bytes);
+
+    assertThat(copy.getK()).isEqualTo(K);
+    assertThat(copy.getCount()).isEqualTo(sketch.getCount());
+    assertThat(copy.getMin()).isEqualTo(sketch.getMin());
+    assertThat(copy.getMax()).isEqualTo(sketch.getMax());
+    for (double quantile : QUANTILES) {
+      assertThat(copy.quantile(quantile)).isEqualTo(sketch.quantile(quantile));
+    }
+    assertThat(copy.toBytes()).isEqualTo(bytes);
+  }
+
+  @Test
+  void rejectsEmptyQuantilesAndSmallK() {
+    assertThatThrownBy(() -> new KllSketch(K).quantile(0.5))
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> new KllSketch(4)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static void assertRankErrors(KllSketch sketch, long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    for (double quantile : QUANTILES) {
+      long estimate = sketch.quantile(quantile);
+      // The estimate is right if some position holding its value is close to the requested rank
+      double lowRank = lowerBound(sorted, estimate) / (double) sorted.length;
+      double highRank = lowerBound(sorted, estimate + 1) / (double) sorted.length;
+      double rankError =
+          quantile < lowRank ? lowRank - quantile : quantile > highRank ? quantile - highRank : 0;
+      assertThat(rankError).as("quantile %s", quantile).isLessThanOrEqualTo(RANK_TOLERANCE);
+    }
+  }
+
+  // Number of values below the given one
+  private static int lowerBound(long[] sorted, long value) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] < value) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,80 @@
+package com.salesdata.platform.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+  @Test
+  void centsIsExact() {
+    assertThat(Money.cents(new BigDecimal("12.34"))).isEqualTo(1234);
+    assertThat(Money.cents(new BigDecimal("12.3"))).isEqualTo(1230);
+    assertThat(Money.cents(new BigDecimal("12.340"))).isEqualTo(1234);
+    assertThat(Money.cents(new BigDecimal("-0.01"))).isEqualTo(-1);
+    assertThat(Money.cents(new BigDecimal("1E+2"))).isEqualTo(10_000);
+
+    assertThatThrownBy(() -> Money.cents(new BigDecimal("12.345")))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> Money.cents(new BigDecimal("1E+30")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void roundToCentsRoundsHalfUp() {
+    assertThat(Money.roundToCents(new BigDecimal("0.005"))).isEqualTo(1);
+    assertThat(Money.roundToCents(new BigDecimal("0.0049999"))).isZero();
+    assertThat(Money.roundToCents(new BigDecimal("2.675"))).isEqualTo(268);
+    assertThat(Money.roundToCents(new BigDecimal("2.665"))).isEqualTo(267);
+    // Half up rounds away from zero
+    assertThat(Money.roundToCents(new BigDecimal("-0.005"))).isEqualTo(-1);
+    assertThat(Money.roundToCents(new BigDecimal("-0.004"))).isZero();
+
+    assertThatThrownBy(() -> Money.roundToCents(new BigDecimal("1E+30")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void toBigDecimalHasTwoDecimalPlaces() {
+    assertThat(Money.toBigDecimal(1234)).isEqualTo(new BigDecimal("12.34"));
+    assertThat(Money.toBigDecimal(5).scale()).isEqualTo(Money.SCALE);
+    assertThat(Money.toBigDecimal(0)).isEqualTo(new BigDecimal("0.00"));
+    assertThat(Money.toBigDecimal(-150)).isEqualTo(new BigDecimal("-1.50"));
+    assertThat(Money.cents(Money.toBigDecimal(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  void maxDecimal10_2IsTheLargestColumnValue() {
+    assertThat(Money.MAX_DECIMAL_10_2_CENTS).isEqualTo(Money.cents(new BigDecimal("99999999.99")));
+    assertThat(Money.toBigDecimal(Money.MAX_DECIMAL_10_2_CENTS).precision()).isEqualTo(10);
+    assertThat(Money.toBigDecimal(Money.MAX_DECIMAL_10_2_CENTS + 1).precision()).isEqualTo(11);
+  }
+
+  @Test
+  void plusAndTimesThrowOnOverflow() {
+    assertThat(Money.plus(150, 275)).isEqualTo(425);
+    assertThat(Money.plus(150, -275)).isEqualTo(-125);
+    assertThat(Money.times(199, 3)).isEqualTo(597);
+    // Largest price times a large quantity still fits
+    assertThat(Money.times(Money.MAX_DECIMAL_10_2_CENTS, 1_000_000))
+        .isEqualTo(9_999_999_999_000_000L);
+
+    assertThatThrownBy(() -> Money.plus(Long.MAX_VALUE, 1)).isInstanceOf(ArithmeticException.class);
+    assertThatThrownBy(() -> Money.plus(Long.MIN_VALUE, -1))
+        .isInstanceOf(ArithmeticException.class);
+    assertThatThrownBy(() -> Money.times(Long.MAX_VALUE / 2, 3))
+        .isInstanceOf(ArithmeticException.class);
+  }
+
+  @Test
+  void converterMapsNullAndCents() {
+    MoneyConverter converter = new MoneyConverter();
+
+    assertThat(converter.convertToDatabaseColumn(null)).isNull();
+    assertThat(converter.convertToEntityAttribute(null)).isNull();
+    assertThat(converter.convertToDatabaseColumn(1999L)).isEqualTo(new BigDecimal("19.99"));
+    assertThat(converter.convertToEntityAttribute(new BigDecimal("19.990"))).isEqualTo(1999L);
+  }
+}
@@ -0,0 +1,284 @@
+package com.salesdata.platform.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.salesdata.platform.exception.CSVProcessingException;
+import com.salesdata.platform.fileupload.dto.SalesRecordRow;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SalesCSVParserTest {
+
+  private static final String HEADER =
+      "product_name,product_price,quantity,sale_date,sale_location\n";
+  private static final LocalDate TODAY = LocalDate.of(2030, 1, 1);
+
+  @Test
+  void quotedFieldsKeepDoubledQuotesCommasAndNewlines() throws Exception {
+    List<SalesRecordRow> rows =
+        parse(
+            HEADER
+                + "\"Widget \"\"Pro\"\", large\",12.50,3,2024-01-15,\"Main St,\nSuite 2\"\n"
+                + "Gadget,1,1,2024-01-16,Depot\n");
+
+    assertThat(rows).hasSize(2);
+    assertThat(rows.get(0).getProductName()).isEqualTo("Widget \"Pro\", large");
+    assertThat(rows.get(0).getProductPriceCents()).isEqualTo(1250);
+    assertThat(rows.get(0).getSaleLocation()).isEqualTo("Main St,\nSuite 2");
+    assertThat(rows.get(0).getLineNumber()).isEqualTo(2);
+    // The embedded newline counts as a physical line
+    assertThat(rows.get(1).getProductName()).isEqualTo("Gadget");
+    assertThat(rows.get(1).getLineNumber()).isEqualTo(4);
+  }
+
+  @Test
+  void unterminatedQuotedFieldIsMalformed() throws Exception {
+    IllegalArgumentException e = bindError(HEADER + "\"Widget,1,1,2024-01-15,Depot\n");
+
+    assertThat(e).hasMessage("Unterminated quoted field");
+  }
+
+  @Test
+  void byteOrderMarkIsSkipped() throws Exception {
+    byte[] csv = withByteOrderMark(HEADER + "Widget,1.00,2,2024-01-15,Depot\n");
+
+    List<SalesRecordRow> rows = parse(new ByteArrayInputStream(csv));
+
+    assertThat(rows).hasSize(1);
+    assertThat(rows.get(0).getProductName()).isEqualTo("Widget");
+  }
+
+  @Test
+  void byteOrderMarkIsSkippedWhenReadsReturnSingleBytes() throws Exception {
+    byte[] csv = withByteOrderMark(HEADER + "Widget,1.00,2,2024-01-15,Depot\n");
+
+    List<SalesRecordRow> rows = parse(new TrickleInputStream(csv));
+
+    assertThat(rows).hasSize(1);
+    assertThat(rows.get(0).getProductName()).isEqualTo("Widget");
+  }
+
+  @Test
+  void inputShorterThanByteOrderMarkIsNotMistakenForOne() {
+    assertThatThrownBy(() -> parse("")).isInstanceOf(CSVProcessingException.class);
+    assertThatThrownBy(() -> parse(new ByteArrayInputStream(new byte[] {(byte) 0xEF})))
+        .isInstanceOf(CSVProcessingException.class)
+        .hasMessageContaining("missing required fields");
+  }
+
+  @Test
+  void pricesRoundHalfUpToCents() throws Exception {
+    assertThat(priceCents("1.005")).isEqualTo(101);
+    assertThat(priceCents("1.0049")).isEqualTo(100);
+    assertThat(priceCents("0.995")).isEqualTo(100);
+    assertThat(priceCents("2.5")).isEqualTo(250);
+    assertThat(priceCents(".5")).isEqualTo(50);
+    assertThat(priceCents("3")).isEqualTo(300);
+    assertThat(priceCents("+7.10")).isEqualTo(710);
+    assertThat(priceCents("-7.10")).isEqualTo(-710);
+  }
+
+  @Test
+  void malformedPricesAreRejected() throws Exception {
+    assertThat(bindError(row("1.2.3"))).hasMessageContaining("product_price");
+    assertThat(bindError(row("12abc"))).hasMessageContaining("product_price");
+    assertThat(bindError(row("."))).hasMessageContaining("product_price");
+    assertThat(bindError(row(""))).hasMessageContaining("Missing value");
+  }
+
+  @Test
+  void overRangePricesAreRejected() throws Exception {
+    // Too many digits to hold in cents at all
+    assertThat(bindError(row("1234567890123456"))).hasMessageContaining("too large");
+
+    // Parsed, but beyond the DECIMAL(10,2) column
+    SalesRecordRow tooLarge = parse(row("100000000.00")).get(0);
+    assertThatThrownBy(() -> tooLarge.validate(TODAY))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("too large");
+
+    SalesRecordRow largest = parse(row("99999999.99")).get(0);
+    largest.validate(TODAY);
+    assertThat(largest.getProductPriceCents()).isEqualTo(Money.MAX_DECIMAL_10_2_CENTS);
+
+    // Rounding up past the limit is caught as well
+    SalesRecordRow roundedUp = parse(row("99999999.995")).get(0);
+    assertThatThrownBy(() -> roundedUp.validate(TODAY))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void nonIsoDatesFallBackToTheSupportedPatterns() throws Exception {
+    assertThat(saleDate("2024-01-15")).isEqualTo(LocalDate.of(2024, 1, 15));
+    assertThat(saleDate("01/15/2024")).isEqualTo(LocalDate.of(2024, 1, 15));
+    assertThat(saleDate("15/01/2024")).isEqualTo(LocalDate.of(2024, 1, 15));
+    assertThat(saleDate("2024/01/15")).isEqualTo(LocalDate.of(2024, 1, 15));
+    assertThat(saleDate("15-01-2024")).isEqualTo(LocalDate.of(2024, 1, 15));
+  }
+
+  @Test
+  void ambiguousDatesDoNotDependOnEarlierRows() throws Exception {
+    String dayFirstRow = "A,1,1,13/01/2024,\n";
+    String ambiguousRow = "B,1,1,02/03/2024,\n";
+
+    List<SalesRecordRow> ambiguousFirst = parse(HEADER + ambiguousRow + dayFirstRow);
+    List<SalesRecordRow> dayFirstFirst = parse(HEADER + dayFirstRow + ambiguousRow);
+
+    // MM/dd/yyyy is declared before dd/MM/yyyy, whatever the file has shown so far
+    assertThat(ambiguousFirst.get(0).getSaleDate()).isEqualTo(LocalDate.of(2024, 2, 3));
+    assertThat(dayFirstFirst.get(1).getSaleDate()).isEqualTo(LocalDate.of(2024, 2, 3));
+    assertThat(dayFirstFirst.get(0).getSaleDate()).isEqualTo(LocalDate.of(2024, 1, 13));
+  }
+
+  @Test
+  void invalidDatesAreRejected() throws Exception {
+    assertThat(bindError(HEADER + "A,1,1,2024-02-30,\n")).hasMessageContaining("sale_date");
+    assertThat(bindError(HEADER + "A,1,1,yesterday,\n")).hasMessageContaining("sale_date");
+  }
+
+  @Test
+  void crlfAndLfLineEndingsGiveTheSameRows() throws Exception {
+    String lf =
+        HEADER
+            + "Widget,1.50,2,2024-01-15,Depot\n"
+            + "\n"
+            + "\"Two\nlines\",2.00,1,2024-01-16,\n"
+            + "Gadget,3,4,2024-01-17,Store";
+    String crlf = lf.replace("\n", "\r\n");
+
+    List<SalesRecordRow> lfRows = parse(lf);
+    List<SalesRecordRow> crlfRows = parse(crlf);
+
+    assertThat(lfRows).hasSize(3);
+    assertThat(crlfRows).hasSize(3);
+    for (int i = 0; i < lfRows.size(); i++) {
+      SalesRecordRow expected = lfRows.get(i);
+      SalesRecordRow actual = crlfRows.get(i);
+      assertThat(actual.getLineNumber()).isEqualTo(expected.getLineNumber());
+      assertThat(actual.getProductPriceCents()).isEqualTo(expected.getProductPriceCents());
+      assertThat(actual.getQuantity()).isEqualTo(expected.getQuantity());
+      assertThat(actual.getSaleDate()).isEqualTo(expected.getSaleDate());
+      assertThat(actual.getSaleLocation()).isEqualTo(expected.getSaleLocation());
+    }
+    assertThat(lfRows.get(0).getProductName()).isEqualTo("Widget");
+    assertThat(crlfRows.get(0).getProductName()).isEqualTo("Widget");
+    // Line endings inside quotes are kept as written
+    assertThat(lfRows.get(1).getProductName()).isEqualTo("Two\nlines");
+    assertThat(crlfRows.get(1).getProductName()).isEqualTo("Two\r\nlines");
+    assertThat(lfRows.get(2).getLineNumber()).isEqualTo(6);
+  }
+
+  @Test
+  void bareCarriageReturnEndsALine() throws Exception {
+    List<SalesRecordRow> rows =
+        parse(HEADER.replace("\n", "\r") + "A,1,1,2024-01-15,\rB,2,1,2024-01-16,\r");
+
+    assertThat(rows).extracting(SalesRecordRow::getProductName).containsExactly("A", "B");
+    assertThat(rows).extracting(SalesRecordRow::getLineNumber).containsExactly(2, 3);
+  }
+
+  @Test
+  void headerColumnsMayComeInAnyOrderAndCase() throws Exception {
+    List<SalesRecordRow> rows =
+        parse(" Sale_Date,QUANTITY,product_price,Product_Name\n2024-01-15,2,1.25,Widget\n");
+
+    assertThat(rows.get(0).getProductName()).isEqualTo("Widget");
+    assertThat(rows.get(0).getProductPriceCents()).isEqualTo(125);
+    assertThat(rows.get(0).getQuantity()).isEqualTo(2);
+    assertThat(rows.get(0).getSaleLocation()).isNull();
+  }
+
+  @Test
+  void missingRequiredColumnIsReported() {
+    assertThatThrownBy(() -> parse("product_name,quantity,sale_date\n"))
+        .isInstanceOf(CSVProcessingException.class)
+        .hasMessageContaining("product_price");
+  }
+
+  private static String row(String price) {
+    return HEADER + "Widget," + price + ",1,2024-01-15,Depot\n";
+  }
+
+  private static long priceCents(String price) throws Exception {
+    return parse(row(price)).get(0).getProductPriceCents();
+  }
+
+  private static LocalDate saleDate(String date) throws Exception {
+    return parse(HEADER + "Widget,1,1," + date + ",\n").get(0).getSaleDate();
+  }
+
+  private static IllegalArgumentException bindError(String csv) throws Exception {
+    try (SalesCSVParser parser = new SalesCSVParser(stream(csv))) {
+      parser.readHeader();
+      assertThat(parser.nextRecord()).isTrue();
+      return assertThrows(IllegalArgumentException.class, () -> parser.bind(new SalesRecordRow()));
+    }
+  }
+
+  private static List<SalesRecordRow> parse(String csv) throws Exception {
+    return parse(stream(csv));
+  }
+
+  private static List<SalesRecordRow> parse(InputStream inputStream) throws Exception {
+    try (SalesCSVParser parser = new SalesCSVParser(inputStream)) {
+      parser.readHeader();
+      List<SalesRecordRow> rows = new ArrayList<>();
+      while (parser.nextRecord()) {
+        SalesRecordRow row = new SalesRecordRow();
+        parser.bind(row);
+        rows.add(row);
+      }
+      return rows;
+    }
+  }
+
+  private static InputStream stream(String csv) {
+    return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static byte[] withByteOrderMark(String csv) {
+    byte[] content = csv.getBytes(StandardCharsets.UTF_8);
+    byte[] bytes = new byte[content.length + 3];
+    bytes[0] = (byte) 0xEF;
+    bytes[1] = (byte) 0xBB;
+    bytes[2] = (byte) 0xBF;
+    System.arraycopy(content, 0, bytes, 3, content.length);
+    return bytes;
+  }
+
+  /** Returns at most one byte per read, like a slow network stream */
+  private static final class TrickleInputStream extends InputStream {
+    private final byte[] bytes;
+    private int position;
+
+    TrickleInputStream(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public int read() {
+      return position < bytes.length ? bytes[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      int b = read();
+      if (b == -1) {
+        return -1;
+      }
+      buffer[offset] = (byte) b;
+      return 1;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.salesdata.platform.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SpaceSavingSketchTest {
+
+  private static final int CAPACITY = 50;
+
+  @Test
+  void estimatesBracketTheExactWeights() {
+    Map<String, Long> exact = new HashMap<>();
+    SpaceSavingSketch sketch = new SpaceSavingSketch(CAPACITY);
+    feed(sketch, exact, new Random(1), 100_000);
+
+    assertWithinBounds(sketch, exact);
+  }
+
+  @Test
+  void mergedSketchKeepsTheBoundsOverTheCombinedStream() {
+    Map<String, Long> exact = new HashMap<>();
+    SpaceSavingSketch merged = new SpaceSavingSketch(CAPACITY);
+    for (int part = 0; part < 8; part++) {
+      SpaceSavingSketch sketch = new SpaceSavingSketch(CAPACITY);
+      feed(sketch, exact, new Random(100 + part), 20_000);
+      merged.merge(sketch);
+    }
+
+    assertThat(merged.getTotalWeight())
+        .isEqualTo(exact.values().stream().mapToLong(Long::longValue).sum());
+    assertWithinBounds(merged, exact);
+  }
+
+  @Test
+  void mergingSketchesThatAreNotFullIsExact() {
+    SpaceSavingSketch left = new SpaceSavingSketch(CAPACITY);
+    SpaceSavingSketch right = new SpaceSavingSketch(CAPACITY);
+    left.add("a", 5);
+    left.add("b", 2);
+    right.add("a", 1);
+    right.add("c", 7);
+
+    left.merge(right);
+
+    assertThat(left.top(3))
+        .containsExactly(
+            new SpaceSavingSketch.Counter("c", 7, 0),
+            new SpaceSavingSketch.Counter("a", 6, 0),
+            new SpaceSavingSketch.Counter("b", 2, 0));
+  }
+
+  @Test
+  void roundTripsThroughBytes() {
+    SpaceSavingSketch sketch = new SpaceSavingSketch(CAPACITY);
+    feed(sketch, new HashMap<>(), new Random(7), 10_000);
+
+    SpaceSavingSketch copy = SpaceSavingSketch.fromBytes(sketch.toBytes());
+
+    assertThat(copy.getCapacity()).isEqualTo(CAPACITY);
+    assertThat(copy.getTotalWeight()).isEqualTo(sketch.getTotalWeight());
+    assertThat(copy.top(CAPACITY)).isEqualTo(sketch.top(CAPACITY));
+
+    // The copy carries on exactly like the original
+    sketch.add("new item", 3);
+    copy.add("new item", 3);
+    assertThat(copy.top(CAPACITY)).isEqualTo(sketch.top(CAPACITY));
+  }
+
+  @Test
+  void ignoresNonPositiveWeightsAndRejectsZeroCapacity() {
+    SpaceSavingSketch sketch = new SpaceSavingSketch(CAPACITY);
+    sketch.add("a", 0);
+    sketch.add("b", -4);
+
+    assertThat(sketch.top(10)).isEmpty();
+    assertThat(sketch.getTotalWeight()).isZero();
+    assertThatThrownBy(() -> new SpaceSavingSketch(0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  // Skewed stream over 2,000 items: item i is drawn with probability proportional to 1 / (i + 1)
+  private static void feed(
+      SpaceSavingSketch sketch, Map<String, Long> exact, Random random, int additions) {
+    int items = 2_000;
+    double[] cumulative = new double[items];
+    double total = 0;
+    for (int i = 0; i < items; i++) {
+      total += 1.0 / (i + 1);
+      cumulative[i] = total;
+    }
+    for (int n = 0; n < additions; n++) {
+      double draw = random.nextDouble() * total;
+      int index = 0;
+      while (cumulative[index] < draw) {
+        index++;
+      }
+      String item = "item-" + index;
+      long weight = 1 + random.nextInt(10);
+      sketch.add(item, weight);
+      exact.merge(item, weight, Long::sum);
+    }
+  }
+
+  private static void assertWithinBounds(SpaceSavingSketch sketch, Map<String, Long> exact) {
+    long totalWeight = exact.values().stream().mapToLong(Long::longValue).sum();
+    long maxError = totalWeight / CAPACITY;
+    assertThat(sketch.maxError()).isEqualTo(maxError);
+
+    List<SpaceSavingSketch.Counter> counters = sketch.top(CAPACITY);
+    assertThat(counters).hasSize(CAPACITY);
+    for (SpaceSavingSketch.Counter counter : counters) {
+      long weight = exact.getOrDefault(counter.item(), 0L);
+      assertThat(counter.count()).as(counter.item()).isGreaterThanOrEqualTo(weight);
+      assertThat(counter.lowerBound()).as(counter.item()).isLessThanOrEqualTo(weight);
+      assertThat(counter.error()).as(counter.item()).isLessThanOrEqualTo(maxError);
+    }
+
+    // Every item heavier than W / capacity is tracked
+    exact.forEach(
+        (item, weight) -> {
+          if (weight > maxError) {
+            assertThat(counters).extracting(SpaceSavingSketch.Counter::item).contains(item);
+          }
+        });
+  }
+}
@@ -0,0 +1,11 @@
+-- File uploads processing timings
+-- Purpose: Record when a queued upload was picked up by a worker
+-- Dependencies: file_uploads table must exist
+
+USE salesdata;
+
+ALTER TABLE file_uploads
+    ADD COLUMN processing_started_at TIMESTAMP NULL AFTER error_message;
+
+-- Workers drain PENDING uploads oldest first
+CREATE INDEX idx_file_uploads_status_created_at ON file_uploads(upload_status, created_at);
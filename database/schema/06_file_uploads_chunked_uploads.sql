@@ -0,0 +1,9 @@
+-- File uploads chunked upload support
+-- Purpose: Track the size and chunk layout of resumable uploads
+-- Dependencies: file_uploads table must exist
+
+USE salesdata;
+
+ALTER TABLE file_uploads
+    ADD COLUMN file_size BIGINT NULL AFTER upload_status,
+    ADD COLUMN chunk_size INT NULL AFTER file_size;
@@ -0,0 +1,15 @@
+-- File uploads deduplication
+-- Purpose: Detect re-uploads of identical files and retried upload requests
+-- Dependencies: file_uploads table must exist
+
+USE salesdata;
+
+ALTER TABLE file_uploads
+    ADD COLUMN content_sha256 CHAR(64) NULL AFTER chunk_size,
+    ADD COLUMN idempotency_key VARCHAR(255) NULL AFTER content_sha256;
+
+-- Lookup of earlier uploads with the same content
+CREATE INDEX idx_file_uploads_user_content_sha256 ON file_uploads(user_id, content_sha256);
+
+-- A retried request maps to exactly one upload; NULL keys are not constrained
+CREATE UNIQUE INDEX uk_file_uploads_user_idempotency_key ON file_uploads(user_id, idempotency_key);
@@ -0,0 +1,13 @@
+-- Sales data listing indexes
+-- Purpose: Serve keyset-paginated sales listings, optionally filtered by product or location,
+--          straight from an index in (sale_date, id) order
+-- Dependencies: sales_data table must exist
+
+USE salesdata;
+
+CREATE INDEX idx_sales_data_user_sale_date_id ON sales_data(user_id, sale_date, id);
+CREATE INDEX idx_sales_data_user_product_sale_date_id ON sales_data(user_id, product_name, sale_date, id);
+CREATE INDEX idx_sales_data_user_location_sale_date_id ON sales_data(user_id, sale_location, sale_date, id);
+
+-- Covered by the composite indexes above, including for the user_id foreign key
+DROP INDEX idx_sales_data_user_id ON sales_data;
@@ -0,0 +1,25 @@
+-- Sales summaries table creation
+-- Purpose: Per-user running totals of sales data, kept up to date by every write so the sales
+--          summary is a primary-key read instead of aggregate scans
+-- Dependencies: users, file_uploads and sales_data tables must exist
+
+USE salesdata;
+
+CREATE TABLE sales_summaries(
+                                user_id BIGINT PRIMARY KEY,
+                                record_count BIGINT NOT NULL DEFAULT 0,
+                                total_amount DECIMAL(19,2) NOT NULL DEFAULT 0,
+                                total_quantity BIGINT NOT NULL DEFAULT 0,
+                                total_price DECIMAL(19,2) NOT NULL DEFAULT 0,
+                                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+                                FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Backfill from existing data; uploads being deleted are already hidden from the summary
+INSERT INTO sales_summaries (user_id, record_count, total_amount, total_quantity, total_price)
+SELECT s.user_id, COUNT(*), COALESCE(SUM(s.total_amount), 0), COALESCE(SUM(s.quantity), 0),
+       COALESCE(SUM(s.product_price), 0)
+FROM sales_data s
+WHERE s.file_upload_id NOT IN (SELECT f.id FROM file_uploads f WHERE f.upload_status = 'DELETING')
+GROUP BY s.user_id;
@@ -0,0 +1,45 @@
+-- Sales rollups table creation
+-- Purpose: Per-user sales totals by day, week and month for each product and location, kept up to
+--          date by every write so time series are read without scanning sales_data
+-- Dependencies: users, file_uploads and sales_data tables must exist
+
+USE salesdata;
+
+CREATE TABLE sales_rollups(
+                              user_id BIGINT NOT NULL,
+                              grain VARCHAR(5) NOT NULL,
+                              bucket_start DATE NOT NULL,
+                              product_name VARCHAR(255) NOT NULL,
+                              sale_location VARCHAR(255) NOT NULL DEFAULT '',
+                              record_count BIGINT NOT NULL DEFAULT 0,
+                              total_amount DECIMAL(19,2) NOT NULL DEFAULT 0,
+                              total_quantity BIGINT NOT NULL DEFAULT 0,
+                              total_price DECIMAL(19,2) NOT NULL DEFAULT 0,
+
+                              PRIMARY KEY (user_id, grain, bucket_start, product_name, sale_location),
+                              FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Time series filtered by product or location
+CREATE INDEX idx_sales_rollups_user_grain_product ON sales_rollups(user_id, grain, product_name, bucket_start);
+CREATE INDEX idx_sales_rollups_user_grain_location ON sales_rollups(user_id, grain, sale_location, bucket_start);
+
+-- Backfill from existing data; weeks start on Monday, records without a location use ''
+INSERT INTO sales_rollups (user_id, grain, bucket_start, product_name, sale_location,
+                           record_count, total_amount, total_quantity, total_price)
+SELECT b.user_id, b.grain, b.bucket_start, b.product_name, b.sale_location,
+       COUNT(*), COALESCE(SUM(b.total_amount), 0), SUM(b.quantity), SUM(b.product_price)
+FROM (
+         SELECT s.user_id, g.grain,
+                CASE g.grain
+                    WHEN 'DAY' THEN s.sale_date
+                    WHEN 'WEEK' THEN DATE_SUB(s.sale_date, INTERVAL WEEKDAY(s.sale_date) DAY)
+                    ELSE CAST(DATE_FORMAT(s.sale_date, '%Y-%m-01') AS DATE)
+                    END AS bucket_start,
+                s.product_name, COALESCE(s.sale_location, '') AS sale_location,
+                s.total_amount, s.quantity, s.product_price
+         FROM sales_data s
+                  CROSS JOIN (SELECT 'DAY' AS grain UNION ALL SELECT 'WEEK' UNION ALL SELECT 'MONTH') g
+         WHERE s.file_upload_id NOT IN (SELECT f.id FROM file_uploads f WHERE f.upload_status = 'DELETING')
+     ) b
+GROUP BY b.user_id, b.grain, b.bucket_start, b.product_name, b.sale_location;
@@ -0,0 +1,25 @@
+-- Upload sketches table creation
+-- Purpose: Heavy-hitter sketches of each upload's products and locations by revenue and quantity,
+--          merged per user to answer top-N queries without grouping sales_data
+-- Dependencies: file_uploads table must exist
+
+USE salesdata;
+
+CREATE TABLE upload_sketches(
+                                file_upload_id BIGINT NOT NULL,
+                                dimension VARCHAR(16) NOT NULL,
+                                metric VARCHAR(16) NOT NULL,
+                                user_id BIGINT NOT NULL,
+                                sketch MEDIUMBLOB NOT NULL,
+                                -- Set when records of the upload were created or deleted one by one; the sketch
+                                -- is rebuilt from sales_data on the next read
+                                stale BOOLEAN NOT NULL DEFAULT FALSE,
+                                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+                                PRIMARY KEY (file_upload_id, dimension, metric),
+                                FOREIGN KEY (file_upload_id) REFERENCES file_uploads(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_upload_sketches_user ON upload_sketches(user_id, dimension, metric);
+
+-- Existing uploads have no sketches yet; they are built from sales_data on first read
@@ -0,0 +1,25 @@
+-- Upload distinct counts table creation
+-- Purpose: HyperLogLog registers of the distinct products and locations of each upload, merged per
+--          user to count distinct values without COUNT(DISTINCT ...) over sales_data
+-- Dependencies: file_uploads table must exist
+
+USE salesdata;
+
+CREATE TABLE upload_distinct_counts(
+                                       file_upload_id BIGINT NOT NULL,
+                                       dimension VARCHAR(16) NOT NULL,
+                                       user_id BIGINT NOT NULL,
+                                       -- One precision byte followed by 2^precision one-byte registers
+                                       registers MEDIUMBLOB NOT NULL,
+                                       -- Set when records of the upload were created or deleted one by one; the
+                                       -- registers are rebuilt from sales_data on the next read
+                                       stale BOOLEAN NOT NULL DEFAULT FALSE,
+                                       updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+                                       PRIMARY KEY (file_upload_id, dimension),
+                                       FOREIGN KEY (file_upload_id) REFERENCES file_uploads(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_upload_distinct_counts_user ON upload_distinct_counts(user_id, dimension);
+
+-- Existing uploads have no registers yet; they are built from sales_data on first read
@@ -0,0 +1,25 @@
+-- Upload quantile sketches table creation
+-- Purpose: KLL quantile sketches of each upload's product prices and order totals by sale month,
+--          merged per user to answer percentile queries without sorting sales_data
+-- Dependencies: file_uploads table must exist
+
+USE salesdata;
+
+CREATE TABLE upload_quantile_sketches(
+                                         file_upload_id BIGINT NOT NULL,
+                                         metric VARCHAR(16) NOT NULL,
+                                         user_id BIGINT NOT NULL,
+                                         -- One sketch per sale month of the upload's records
+                                         sketches MEDIUMBLOB NOT NULL,
+                                         -- Set when records of the upload were created or deleted one by one; the
+                                         -- sketches are rebuilt from sales_data on the next read
+                                         stale BOOLEAN NOT NULL DEFAULT FALSE,
+                                         updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+                                         PRIMARY KEY (file_upload_id, metric),
+                                         FOREIGN KEY (file_upload_id) REFERENCES file_uploads(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_upload_quantile_sketches_user ON upload_quantile_sketches(user_id, metric);
+
+-- Existing uploads have no sketches yet; they are built from sales_data on first read
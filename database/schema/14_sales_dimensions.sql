@@ -0,0 +1,106 @@
+-- Sales dimension tables
+-- Purpose: Store each product and location name once and refer to it from sales_data and
+--          sales_rollups by an int id, shrinking rows and indexes and letting group-bys work on
+--          integers. Each user has names of their own. Names keep the table default collation
+--          that product_name and sale_location had (utf8mb4_0900_ai_ci on MySQL 8), so filters
+--          and rollups still match a user's names ignoring case and accents; a user's names that
+--          differ only in case or accents share an id and read back in the spelling that user
+--          stored first. Names of different users never share an id.
+-- Dependencies: users, sales_data and sales_rollups tables must exist
+
+USE salesdata;
+
+CREATE TABLE sales_products(
+                               id INT PRIMARY KEY AUTO_INCREMENT,
+                               user_id BIGINT NOT NULL,
+                               name VARCHAR(255) NOT NULL,
+
+                               UNIQUE KEY uk_sales_products_user_name (user_id, name),
+                               FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE TABLE sales_locations(
+                                id INT PRIMARY KEY AUTO_INCREMENT,
+                                user_id BIGINT NOT NULL,
+                                name VARCHAR(255) NOT NULL,
+
+                                UNIQUE KEY uk_sales_locations_user_name (user_id, name),
+                                FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- IGNORE keeps one of a user's spellings differing only in case or accents
+INSERT IGNORE INTO sales_products (user_id, name)
+SELECT DISTINCT user_id, product_name FROM sales_data;
+
+INSERT IGNORE INTO sales_locations (user_id, name)
+SELECT DISTINCT user_id, sale_location FROM sales_data WHERE sale_location <> '';
+
+-- Ids replace the names; records without a location have no location id. The ids are only
+-- written through the dictionaries, so no foreign keys (and their per-row indexes) are added.
+ALTER TABLE sales_data
+    ADD COLUMN product_id INT NULL AFTER file_upload_id,
+    ADD COLUMN location_id INT NULL AFTER product_price;
+
+UPDATE sales_data s
+    JOIN sales_products p ON p.user_id = s.user_id AND p.name = s.product_name
+SET s.product_id = p.id;
+
+UPDATE sales_data s
+    JOIN sales_locations l ON l.user_id = s.user_id AND l.name = s.sale_location
+SET s.location_id = l.id;
+
+ALTER TABLE sales_data MODIFY product_id INT NOT NULL;
+
+CREATE INDEX idx_sales_data_user_product_id_sale_date_id ON sales_data(user_id, product_id, sale_date, id);
+CREATE INDEX idx_sales_data_user_location_id_sale_date_id ON sales_data(user_id, location_id, sale_date, id);
+
+DROP INDEX idx_sales_data_user_product_sale_date_id ON sales_data;
+DROP INDEX idx_sales_data_user_location_sale_date_id ON sales_data;
+DROP INDEX idx_sales_data_product_name ON sales_data;
+
+ALTER TABLE sales_data
+    DROP COLUMN product_name,
+    DROP COLUMN sale_location;
+
+-- Rollups are keyed by ids as well; records without a location are rolled up under id 0. The
+-- table only holds derived totals, so it is recreated and backfilled rather than converted.
+DROP TABLE sales_rollups;
+
+CREATE TABLE sales_rollups(
+                              user_id BIGINT NOT NULL,
+                              grain VARCHAR(5) NOT NULL,
+                              bucket_start DATE NOT NULL,
+                              product_id INT NOT NULL,
+                              location_id INT NOT NULL DEFAULT 0,
+                              record_count BIGINT NOT NULL DEFAULT 0,
+                              total_amount DECIMAL(19,2) NOT NULL DEFAULT 0,
+                              total_quantity BIGINT NOT NULL DEFAULT 0,
+                              total_price DECIMAL(19,2) NOT NULL DEFAULT 0,
+
+                              PRIMARY KEY (user_id, grain, bucket_start, product_id, location_id),
+                              FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Time series filtered by product or location
+CREATE INDEX idx_sales_rollups_user_grain_product ON sales_rollups(user_id, grain, product_id, bucket_start);
+CREATE INDEX idx_sales_rollups_user_grain_location ON sales_rollups(user_id, grain, location_id, bucket_start);
+
+-- Backfill from existing data; weeks start on Monday
+INSERT INTO sales_rollups (user_id, grain, bucket_start, product_id, location_id,
+                           record_count, total_amount, total_quantity, total_price)
+SELECT b.user_id, b.grain, b.bucket_start, b.product_id, b.location_id,
+       COUNT(*), COALESCE(SUM(b.total_amount), 0), SUM(b.quantity), SUM(b.product_price)
+FROM (
+         SELECT s.user_id, g.grain,
+                CASE g.grain
+                    WHEN 'DAY' THEN s.sale_date
+                    WHEN 'WEEK' THEN DATE_SUB(s.sale_date, INTERVAL WEEKDAY(s.sale_date) DAY)
+                    ELSE CAST(DATE_FORMAT(s.sale_date, '%Y-%m-01') AS DATE)
+                    END AS bucket_start,
+                s.product_id, COALESCE(s.location_id, 0) AS location_id,
+                s.total_amount, s.quantity, s.product_price
+         FROM sales_data s
+                  CROSS JOIN (SELECT 'DAY' AS grain UNION ALL SELECT 'WEEK' UNION ALL SELECT 'MONTH') g
+         WHERE s.file_upload_id NOT IN (SELECT f.id FROM file_uploads f WHERE f.upload_status = 'DELETING')
+     ) b
+GROUP BY b.user_id, b.grain, b.bucket_start, b.product_id, b.location_id;
@@ -0,0 +1,47 @@
+-- File upload statistics
+-- Purpose: Keep what each upload's saved records contain (revenue, quantity, sale date span, price
+--          range, distinct products) with the upload, computed during ingest instead of by
+--          aggregating its records on request. NULL until the upload has finished processing.
+-- Dependencies: file_uploads table and sales dimension tables must exist
+
+USE salesdata;
+
+ALTER TABLE file_uploads
+    ADD COLUMN total_amount DECIMAL(19,2) NULL AFTER records_failed,
+    ADD COLUMN total_quantity BIGINT NULL AFTER total_amount,
+    ADD COLUMN first_sale_date DATE NULL AFTER total_quantity,
+    ADD COLUMN last_sale_date DATE NULL AFTER first_sale_date,
+    ADD COLUMN min_product_price DECIMAL(10,2) NULL AFTER last_sale_date,
+    ADD COLUMN max_product_price DECIMAL(10,2) NULL AFTER min_product_price,
+    ADD COLUMN distinct_products INT NULL AFTER max_product_price;
+
+-- Backfill finished uploads from their records
+UPDATE file_uploads f
+    JOIN (
+        SELECT s.file_upload_id,
+               SUM(s.total_amount) AS total_amount,
+               SUM(s.quantity) AS total_quantity,
+               MIN(s.sale_date) AS first_sale_date,
+               MAX(s.sale_date) AS last_sale_date,
+               MIN(s.product_price) AS min_product_price,
+               MAX(s.product_price) AS max_product_price,
+               COUNT(DISTINCT s.product_id) AS distinct_products
+        FROM sales_data s
+        GROUP BY s.file_upload_id
+    ) st ON st.file_upload_id = f.id
+SET f.total_amount = st.total_amount,
+    f.total_quantity = st.total_quantity,
+    f.first_sale_date = st.first_sale_date,
+    f.last_sale_date = st.last_sale_date,
+    f.min_product_price = st.min_product_price,
+    f.max_product_price = st.max_product_price,
+    f.distinct_products = st.distinct_products
+WHERE f.upload_status IN ('COMPLETED', 'FAILED');
+
+-- Finished uploads without saved records
+UPDATE file_uploads
+SET total_amount = 0,
+    total_quantity = 0,
+    distinct_products = 0
+WHERE upload_status IN ('COMPLETED', 'FAILED')
+  AND total_amount IS NULL;
@@ -0,0 +1,14 @@
+-- File uploads processing heartbeat
+-- Purpose: Let nodes sharing the upload queue tell a claim held by a live node from one left behind
+--          by a stopped node; only PROCESSING uploads without a recent heartbeat are requeued
+-- Dependencies: file_uploads table with processing_started_at must exist
+
+USE salesdata;
+
+ALTER TABLE file_uploads
+    ADD COLUMN processing_heartbeat_at TIMESTAMP NULL AFTER processing_started_at;
+
+-- Uploads already being processed count from when they were claimed
+UPDATE file_uploads
+SET processing_heartbeat_at = processing_started_at
+WHERE upload_status = 'PROCESSING';
@@ -0,0 +1,23 @@
+-- User data versions
+-- Purpose: Versions of each user's data and of each upload, moved on by every change in the same
+--          transaction, so that cached results and entity tags are checked against the database
+--          and stay correct on every node
+-- Dependencies: users and file_uploads tables must exist
+
+USE salesdata;
+
+CREATE TABLE user_data_versions(
+                                   user_id BIGINT PRIMARY KEY,
+                                   data_version BIGINT NOT NULL DEFAULT 0,
+                                   sales_data_version BIGINT NOT NULL DEFAULT 0,
+
+                                   FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Removed with the upload, so deleted uploads leave nothing behind
+ALTER TABLE file_uploads
+    ADD COLUMN data_version BIGINT NOT NULL DEFAULT 0;
+
+-- Existing uploads start above 0, the version reported for an upload that does not exist
+UPDATE file_uploads
+SET data_version = 1;